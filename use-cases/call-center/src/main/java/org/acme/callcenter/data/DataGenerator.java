@@ -16,6 +16,7 @@
 
 package org.acme.callcenter.data;
 
+import java.time.Clock;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
@@ -24,6 +25,7 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
 import org.acme.callcenter.domain.Agent;
 import org.acme.callcenter.domain.Call;
@@ -52,17 +54,33 @@ public class DataGenerator {
     private static final Skill[] PRODUCT_SKILLS =
             new Skill[] { Skill.CAR_INSURANCE, Skill.LIFE_INSURANCE, Skill.PROPERTY_INSURANCE };
 
+    // The calls start at the simulated time, which can run faster than the wall clock
+    private final Clock clock;
+
+    public DataGenerator() {
+        this(Clock.systemDefaultZone());
+    }
+
+    @Inject
+    public DataGenerator(Clock clock) {
+        this.clock = clock;
+    }
+
     private static Set<Skill> buildSkillSet(Skill... skills) {
         return EnumSet.copyOf(Arrays.asList(skills));
     }
 
     public CallCenter generateCallCenter() {
-        return new CallCenter(EnumSet.allOf(Skill.class), Arrays.asList(AGENTS), new ArrayList<>());
+        CallCenter callCenter = new CallCenter(EnumSet.allOf(Skill.class), Arrays.asList(AGENTS), new ArrayList<>());
+        callCenter.setClockEpochSecond(clock.instant().getEpochSecond());
+        return callCenter;
     }
 
     public Call generateCall(int durationSeconds) {
-        return new Call(nextId(), generatePhoneNumber(), buildSkillSet(pickRandomLanguageSkill(), pickRandomProductSkill()),
-                durationSeconds);
+        Call call = new Call(nextId(), generatePhoneNumber(),
+                buildSkillSet(pickRandomLanguageSkill(), pickRandomProductSkill()), durationSeconds);
+        call.setStartTime(clock.instant());
+        return call;
     }
 
     private synchronized Skill pickRandomProductSkill() {
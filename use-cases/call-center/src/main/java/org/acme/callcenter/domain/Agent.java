@@ -1,18 +1,20 @@
 package org.acme.callcenter.domain;
 
-import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class Agent extends PreviousCallOrAgent {
 
     private String name;
     private Set<Skill> skills;
+    private long skillMask;
 
     public Agent() {
         // Required by OptaPlanner.
@@ -21,13 +23,15 @@ public class Agent extends PreviousCallOrAgent {
     public Agent(long id, String name) {
         super(id);
         this.name = name;
-        this.skills = EnumSet.noneOf(Skill.class);
+        this.skills = Collections.emptySet();
     }
 
     public Agent(long id, String name, Set<Skill> skills) {
         super(id);
         this.name = name;
-        this.skills = EnumSet.copyOf(skills);
+        // Unmodifiable, so the mask can't get out of sync
+        this.skills = Collections.unmodifiableSet(EnumSet.copyOf(skills));
+        this.skillMask = Skill.toMask(this.skills);
     }
 
     public Agent(long id, String name, Skill... skills) {
@@ -46,15 +50,26 @@ public class Agent extends PreviousCallOrAgent {
     }
 
     @Override
-    public Duration getDurationTillPickUp() {
-        return Duration.ZERO;
+    public long getSecondsTillPickUp(long clockEpochSecond) {
+        return 0L;
     }
 
     public String getName() {
         return name;
     }
 
+    /**
+     * @return unmodifiable
+     */
     public Set<Skill> getSkills() {
         return skills;
     }
+
+    /**
+     * @return the {@link #getSkills() skills} as a {@link Skill#toMask(Set) mask}
+     */
+    @JsonIgnore
+    public long getSkillMask() {
+        return skillMask;
+    }
 }
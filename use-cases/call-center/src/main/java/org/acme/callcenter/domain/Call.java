@@ -1,8 +1,9 @@
 package org.acme.callcenter.domain;
 
 import java.time.Duration;
-import java.time.LocalTime;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Objects;
 import java.util.Set;
@@ -23,9 +24,10 @@ public class Call extends PreviousCallOrAgent {
 
     private String phoneNumber;
     private Set<Skill> requiredSkills;
+    private long requiredSkillMask;
     private Duration duration = Duration.ZERO;
-    private LocalTime startTime;
-    private LocalTime pickUpTime;
+    private Instant startTime;
+    private Instant pickUpTime;
 
     @PlanningPin
     private boolean pinned;
@@ -38,9 +40,11 @@ public class Call extends PreviousCallOrAgent {
     @AnchorShadowVariable(sourceVariableName = "previousCallOrAgent")
     private Agent agent;
 
+    @JsonIgnore
     @CustomShadowVariable(variableListenerClass = ResponseTimeUpdatingVariableListener.class,
             sources = { @PlanningVariableReference(variableName = "previousCallOrAgent") })
-    private Duration estimatedWaiting;
+    // OptaPlanner doesn't support a primitive variable, but unlike a Duration, this only allocates above 127 seconds
+    private Long estimatedWaitingSeconds;
 
     public Call() {
         // Required by OptaPlanner.
@@ -49,55 +53,64 @@ public class Call extends PreviousCallOrAgent {
     public Call(long id, String phoneNumber) {
         super(id);
         this.phoneNumber = phoneNumber;
-        this.requiredSkills = EnumSet.noneOf(Skill.class);
-        this.startTime = LocalTime.now();
+        this.requiredSkills = Collections.emptySet();
     }
 
     public Call(long id, String phoneNumber, Set<Skill> requiredSkills, int durationSeconds) {
         super(id);
         this.phoneNumber = phoneNumber;
-        this.requiredSkills = EnumSet.copyOf(requiredSkills);
+        // Unmodifiable, so the mask can't get out of sync
+        this.requiredSkills = Collections.unmodifiableSet(EnumSet.copyOf(requiredSkills));
+        this.requiredSkillMask = Skill.toMask(this.requiredSkills);
         this.duration = Duration.ofSeconds(durationSeconds);
-        this.startTime = LocalTime.now();
     }
 
     public Call(long id, String phoneNumber, Skill... requiredSkills) {
         this(id, phoneNumber);
-        this.requiredSkills.addAll(Arrays.asList(requiredSkills));
+        EnumSet<Skill> requiredSkillSet = EnumSet.noneOf(Skill.class);
+        requiredSkillSet.addAll(Arrays.asList(requiredSkills));
+        this.requiredSkills = Collections.unmodifiableSet(requiredSkillSet);
+        this.requiredSkillMask = Skill.toMask(this.requiredSkills);
     }
 
     public int getMissingSkillCount() {
         if (agent == null) {
             return 0;
         }
-
-        return (int) requiredSkills.stream()
-                .filter(skill -> !agent.getSkills().contains(skill))
-                .count();
+        return Long.bitCount(requiredSkillMask & ~agent.getSkillMask());
     }
 
     @Override
-    public Duration getDurationTillPickUp() {
-        Duration durationTillPickUp;
-        if (estimatedWaiting == null) {
-            return null;
-        } else {
-            durationTillPickUp = estimatedWaiting.plus(getDuration());
-            if (pickUpTime != null) {
-                durationTillPickUp = durationTillPickUp.minus(Duration.between(pickUpTime, LocalTime.now()));
-            }
+    public long getSecondsTillPickUp(long clockEpochSecond) {
+        if (estimatedWaitingSeconds == null) {
+            return UNKNOWN_SECONDS;
+        }
+        long secondsTillPickUp = estimatedWaitingSeconds + duration.getSeconds();
+        if (pickUpTime != null) {
+            secondsTillPickUp -= clockEpochSecond - pickUpTime.getEpochSecond();
         }
-        return durationTillPickUp;
+        return secondsTillPickUp;
     }
 
     public String getPhoneNumber() {
         return phoneNumber;
     }
 
+    /**
+     * @return unmodifiable
+     */
     public Set<Skill> getRequiredSkills() {
         return requiredSkills;
     }
 
+    /**
+     * @return the {@link #getRequiredSkills() required skills} as a {@link Skill#toMask(Set) mask}
+     */
+    @JsonIgnore
+    public long getRequiredSkillMask() {
+        return requiredSkillMask;
+    }
+
     public boolean isPinned() {
         return pinned;
     }
@@ -110,8 +123,18 @@ public class Call extends PreviousCallOrAgent {
         return agent;
     }
 
+    /**
+     * @return null if it can't be estimated yet
+     */
     public Duration getEstimatedWaiting() {
-        return estimatedWaiting;
+        return estimatedWaitingSeconds == null ? null : Duration.ofSeconds(estimatedWaitingSeconds);
+    }
+
+    /**
+     * @return {@link #UNKNOWN_SECONDS} if it can't be estimated yet
+     */
+    public long getEstimatedWaitingSeconds() {
+        return estimatedWaitingSeconds == null ? UNKNOWN_SECONDS : estimatedWaitingSeconds;
     }
 
     public void setPinned(boolean pinned) {
@@ -127,7 +150,14 @@ public class Call extends PreviousCallOrAgent {
     }
 
     public void setEstimatedWaiting(Duration estimatedWaiting) {
-        this.estimatedWaiting = estimatedWaiting;
+        this.estimatedWaitingSeconds = estimatedWaiting == null ? null : estimatedWaiting.getSeconds();
+    }
+
+    /**
+     * @param estimatedWaitingSeconds {@link #UNKNOWN_SECONDS} if it can't be estimated yet
+     */
+    public void setEstimatedWaitingSeconds(long estimatedWaitingSeconds) {
+        this.estimatedWaitingSeconds = estimatedWaitingSeconds == UNKNOWN_SECONDS ? null : estimatedWaitingSeconds;
     }
 
     public Duration getDuration() {
@@ -138,15 +168,22 @@ public class Call extends PreviousCallOrAgent {
         this.duration = duration;
     }
 
-    public LocalTime getStartTime() {
+    /**
+     * @return null if it's unknown
+     */
+    public Instant getStartTime() {
         return startTime;
     }
 
-    public LocalTime getPickUpTime() {
+    public void setStartTime(Instant startTime) {
+        this.startTime = startTime;
+    }
+
+    public Instant getPickUpTime() {
         return pickUpTime;
     }
 
-    public void setPickUpTime(LocalTime pickUpTime) {
+    public void setPickUpTime(Instant pickUpTime) {
         this.pickUpTime = pickUpTime;
     }
 
@@ -45,6 +45,10 @@ public class CallCenter {
 
     private boolean solving;
 
+    // The solver reads the time from this snapshot instead of the system clock, so the same moves get the same score.
+    // In epoch seconds, so it keeps counting past midnight.
+    private long clockEpochSecond;
+
     public CallCenter() {
         // Required by OptaPlanner.
     }
@@ -82,4 +86,15 @@ public class CallCenter {
     public void setSolving(boolean solving) {
         this.solving = solving;
     }
+
+    public long getClockEpochSecond() {
+        return clockEpochSecond;
+    }
+
+    /**
+     * Use {@link org.acme.callcenter.solver.change.AdvanceClockProblemFactChange} to change it on the working solution.
+     */
+    public void setClockEpochSecond(long clockEpochSecond) {
+        this.clockEpochSecond = clockEpochSecond;
+    }
 }
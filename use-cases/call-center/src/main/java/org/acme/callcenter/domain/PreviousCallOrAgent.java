@@ -27,6 +27,11 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @PlanningEntity
 public abstract class PreviousCallOrAgent {
 
+    /**
+     * Instead of null, to keep the estimates in primitive seconds.
+     */
+    public static final long UNKNOWN_SECONDS = Long.MIN_VALUE;
+
     private Long id;
 
     @JsonIgnore
@@ -49,7 +54,20 @@ public abstract class PreviousCallOrAgent {
         this.nextCall = nextCall;
     }
 
-    public abstract Duration getDurationTillPickUp();
+    /**
+     * @param clockEpochSecond the {@link CallCenter#getClockEpochSecond() clock snapshot}
+     * @return {@link #UNKNOWN_SECONDS} if it can't be estimated yet
+     */
+    public abstract long getSecondsTillPickUp(long clockEpochSecond);
+
+    /**
+     * @param clockEpochSecond the {@link CallCenter#getClockEpochSecond() clock snapshot}
+     * @return null if it can't be estimated yet
+     */
+    public Duration getDurationTillPickUp(long clockEpochSecond) {
+        long secondsTillPickUp = getSecondsTillPickUp(clockEpochSecond);
+        return secondsTillPickUp == UNKNOWN_SECONDS ? null : Duration.ofSeconds(secondsTillPickUp);
+    }
 
     @PlanningId
     public Long getId() {
@@ -1,5 +1,7 @@
 package org.acme.callcenter.domain;
 
+import java.util.Set;
+
 import com.fasterxml.jackson.annotation.JsonValue;
 
 public enum Skill {
@@ -12,9 +14,20 @@ public enum Skill {
     PROPERTY_INSURANCE("Property insurance");
 
     private String name;
+    // One bit per skill, so a skill set fits in a long
+    private final long mask;
 
     Skill(String name) {
         this.name = name;
+        this.mask = 1L << ordinal();
+    }
+
+    public static long toMask(Set<Skill> skills) {
+        long mask = 0L;
+        for (Skill skill : skills) {
+            mask |= skill.mask;
+        }
+        return mask;
     }
 
     @JsonValue
@@ -73,5 +73,6 @@ public class CallCenterResource {
     public void stop() {
         solverService.stopSolving();
         simulationService.stopSimulation();
+        simulationService.stopLoadGeneration();
     }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.acme.callcenter.rest;
+
+import org.acme.callcenter.service.LoadProfile;
+import org.acme.callcenter.service.LoadProfile.ArrivalDistribution;
+import org.acme.callcenter.service.LoadProfile.CallDurationDistribution;
+
+public class LoadParameters {
+    private double callsPerSecond;
+    private ArrivalDistribution arrivalDistribution = ArrivalDistribution.POISSON;
+    private double meanBurstSize = 10.0;
+    private int meanDurationSeconds = 30;
+    private CallDurationDistribution durationDistribution = CallDurationDistribution.EXPONENTIAL;
+    private int producerThreadCount = 4;
+    private double timeScale = 1.0;
+
+    public LoadParameters() {
+        // Required by Jackson.
+    }
+
+    public LoadProfile toLoadProfile() {
+        return new LoadProfile(callsPerSecond, arrivalDistribution, meanBurstSize, meanDurationSeconds,
+                durationDistribution, producerThreadCount, timeScale);
+    }
+
+    public double getCallsPerSecond() {
+        return callsPerSecond;
+    }
+
+    public ArrivalDistribution getArrivalDistribution() {
+        return arrivalDistribution;
+    }
+
+    public double getMeanBurstSize() {
+        return meanBurstSize;
+    }
+
+    public int getMeanDurationSeconds() {
+        return meanDurationSeconds;
+    }
+
+    public CallDurationDistribution getDurationDistribution() {
+        return durationDistribution;
+    }
+
+    public int getProducerThreadCount() {
+        return producerThreadCount;
+    }
+
+    public double getTimeScale() {
+        return timeScale;
+    }
+}
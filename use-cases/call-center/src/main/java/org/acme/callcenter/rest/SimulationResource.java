@@ -18,6 +18,7 @@ package org.acme.callcenter.rest;
 
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.core.MediaType;
@@ -35,4 +36,17 @@ public class SimulationResource {
     public void updateSimulationParameters(SimulationParameters simulationParameters) {
         simulationService.restartSimulation(simulationParameters.getFrequency(), simulationParameters.getDuration());
     }
+
+    @PUT
+    @Path("load")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public void startLoadGeneration(LoadParameters loadParameters) {
+        simulationService.startLoadGeneration(loadParameters.toLoadProfile());
+    }
+
+    @DELETE
+    @Path("load")
+    public void stopLoadGeneration() {
+        simulationService.stopLoadGeneration();
+    }
 }
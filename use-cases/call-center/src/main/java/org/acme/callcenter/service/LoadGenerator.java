@@ -0,0 +1,104 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.acme.callcenter.service;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.acme.callcenter.data.DataGenerator;
+import org.acme.callcenter.domain.Call;
+
+/**
+ * Generates calls according to a {@link LoadProfile} on a pool of producer threads, until it's stopped.
+ * <p>
+ * Every producer thread has its own arrival schedule on the wall clock,
+ * so a producer that falls behind catches up instead of lowering the load.
+ */
+class LoadGenerator {
+
+    private final LoadProfile loadProfile;
+    private final DataGenerator dataGenerator;
+    private final Consumer<Call> callConsumer;
+    private final ExecutorService producerExecutorService;
+    private volatile boolean running = false;
+
+    /**
+     * @param callConsumer called from the producer threads
+     */
+    LoadGenerator(LoadProfile loadProfile, DataGenerator dataGenerator, Consumer<Call> callConsumer) {
+        this.loadProfile = loadProfile;
+        this.dataGenerator = dataGenerator;
+        this.callConsumer = callConsumer;
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        producerExecutorService = Executors.newFixedThreadPool(loadProfile.getProducerThreadCount(), runnable -> {
+            Thread thread = new Thread(runnable, "CallLoadProducer-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void start() {
+        running = true;
+        for (int i = 0; i < loadProfile.getProducerThreadCount(); i++) {
+            // A fixed seed per producer, so the same load profile generates the same sequence per thread
+            Random random = new Random(37L + i);
+            producerExecutorService.execute(() -> produce(random));
+        }
+    }
+
+    private void produce(Random random) {
+        double nanosPerSimulatedSecond = TimeUnit.SECONDS.toNanos(1L) / loadProfile.getTimeScale();
+        long nextArrivalNanos = System.nanoTime();
+        while (running) {
+            nextArrivalNanos += (long) (loadProfile.sampleSecondsTillNextArrival(random) * nanosPerSimulatedSecond);
+            long waitNanos;
+            while (running && (waitNanos = nextArrivalNanos - System.nanoTime()) > 0L) {
+                LockSupport.parkNanos(waitNanos);
+            }
+            if (!running) {
+                return;
+            }
+            int callCount = loadProfile.sampleArrivalCallCount(random);
+            for (int i = 0; i < callCount; i++) {
+                callConsumer.accept(dataGenerator.generateCall(loadProfile.sampleDurationSeconds(random)));
+            }
+        }
+    }
+
+    /**
+     * Waits until the producers hand over no more calls.
+     */
+    void stop() {
+        running = false;
+        // Wakes up the parked producers
+        producerExecutorService.shutdownNow();
+        try {
+            if (!producerExecutorService.awaitTermination(1L, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("The load producers didn't stop within a minute.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the load producers to stop.", e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.acme.callcenter.service;
+
+import java.util.Random;
+
+/**
+ * How many calls arrive, how they are spread over time and how long they last, in simulated time.
+ */
+public class LoadProfile {
+
+    public static final double MAX_CALLS_PER_SECOND = 100_000.0;
+    public static final int MAX_PRODUCER_THREAD_COUNT = 64;
+    public static final double MAX_TIME_SCALE = 1_000.0;
+
+    public enum ArrivalDistribution {
+        /**
+         * A call every {@code 1 / callsPerSecond} seconds.
+         */
+        CONSTANT,
+        /**
+         * Independent calls, with exponentially distributed times between them.
+         */
+        POISSON,
+        /**
+         * Bursts of calls that arrive together, with a geometrically distributed size.
+         * The bursts themselves arrive like {@link #POISSON} calls.
+         */
+        BURSTY
+    }
+
+    public enum CallDurationDistribution {
+        FIXED,
+        /**
+         * Between 1 second and twice the mean duration.
+         */
+        UNIFORM,
+        EXPONENTIAL
+    }
+
+    private final double callsPerSecond;
+    private final ArrivalDistribution arrivalDistribution;
+    private final double meanBurstSize;
+    private final int meanDurationSeconds;
+    private final CallDurationDistribution durationDistribution;
+    private final int producerThreadCount;
+    private final double timeScale;
+
+    /**
+     * @param callsPerSecond the mean number of calls per simulated second
+     * @param meanBurstSize at least 1, only used by {@link ArrivalDistribution#BURSTY}
+     * @param producerThreadCount the number of threads that share the load
+     * @param timeScale 1.0 for the wall clock, higher to accelerate the simulated time
+     */
+    public LoadProfile(double callsPerSecond, ArrivalDistribution arrivalDistribution, double meanBurstSize,
+            int meanDurationSeconds, CallDurationDistribution durationDistribution,
+            int producerThreadCount, double timeScale) {
+        if (!(callsPerSecond > 0.0 && callsPerSecond <= MAX_CALLS_PER_SECOND)) {
+            throw new IllegalArgumentException("CallsPerSecond (" + callsPerSecond + ") must be above 0 and at most "
+                    + MAX_CALLS_PER_SECOND + ".");
+        }
+        if (arrivalDistribution == null || durationDistribution == null) {
+            throw new IllegalArgumentException("The arrivalDistribution (" + arrivalDistribution
+                    + ") and the durationDistribution (" + durationDistribution + ") must not be null.");
+        }
+        if (!(meanBurstSize >= 1.0)) {
+            throw new IllegalArgumentException("MeanBurstSize (" + meanBurstSize + ") must be at least 1.");
+        }
+        if (meanDurationSeconds < 1) {
+            throw new IllegalArgumentException("MeanDurationSeconds (" + meanDurationSeconds + ") must be at least 1.");
+        }
+        if (producerThreadCount < 1 || producerThreadCount > MAX_PRODUCER_THREAD_COUNT) {
+            throw new IllegalArgumentException("ProducerThreadCount (" + producerThreadCount + ") must be between 1 and "
+                    + MAX_PRODUCER_THREAD_COUNT + ".");
+        }
+        if (!(timeScale >= 1.0 && timeScale <= MAX_TIME_SCALE)) {
+            throw new IllegalArgumentException("TimeScale (" + timeScale + ") must be between 1 and "
+                    + MAX_TIME_SCALE + ".");
+        }
+        this.callsPerSecond = callsPerSecond;
+        this.arrivalDistribution = arrivalDistribution;
+        this.meanBurstSize = meanBurstSize;
+        this.meanDurationSeconds = meanDurationSeconds;
+        this.durationDistribution = durationDistribution;
+        this.producerThreadCount = producerThreadCount;
+        this.timeScale = timeScale;
+    }
+
+    /**
+     * @param random never null, not shared with another thread
+     * @return the simulated seconds until the next arrival of one producer thread
+     */
+    public double sampleSecondsTillNextArrival(Random random) {
+        double producerCallsPerSecond = callsPerSecond / producerThreadCount;
+        switch (arrivalDistribution) {
+            case CONSTANT:
+                return 1.0 / producerCallsPerSecond;
+            case POISSON:
+                return sampleExponential(random, 1.0 / producerCallsPerSecond);
+            case BURSTY:
+                return sampleExponential(random, meanBurstSize / producerCallsPerSecond);
+            default:
+                throw new IllegalStateException("Unsupported arrivalDistribution (" + arrivalDistribution + ").");
+        }
+    }
+
+    /**
+     * @param random never null, not shared with another thread
+     * @return at least 1, the number of calls that arrive together
+     */
+    public int sampleArrivalCallCount(Random random) {
+        if (arrivalDistribution != ArrivalDistribution.BURSTY || meanBurstSize == 1.0) {
+            return 1;
+        }
+        // Geometric distribution with a mean of meanBurstSize
+        double u = 1.0 - random.nextDouble();
+        return 1 + (int) Math.min(Math.floor(Math.log(u) / Math.log(1.0 - 1.0 / meanBurstSize)), Integer.MAX_VALUE - 1);
+    }
+
+    /**
+     * @param random never null, not shared with another thread
+     * @return at least 1
+     */
+    public int sampleDurationSeconds(Random random) {
+        switch (durationDistribution) {
+            case FIXED:
+                return meanDurationSeconds;
+            case UNIFORM:
+                return 1 + random.nextInt(2 * meanDurationSeconds - 1);
+            case EXPONENTIAL:
+                return (int) Math.max(1L, Math.round(sampleExponential(random, meanDurationSeconds)));
+            default:
+                throw new IllegalStateException("Unsupported durationDistribution (" + durationDistribution + ").");
+        }
+    }
+
+    private static double sampleExponential(Random random, double mean) {
+        return -mean * Math.log(1.0 - random.nextDouble());
+    }
+
+    public double getCallsPerSecond() {
+        return callsPerSecond;
+    }
+
+    public ArrivalDistribution getArrivalDistribution() {
+        return arrivalDistribution;
+    }
+
+    public double getMeanBurstSize() {
+        return meanBurstSize;
+    }
+
+    public int getMeanDurationSeconds() {
+        return meanDurationSeconds;
+    }
+
+    public CallDurationDistribution getDurationDistribution() {
+        return durationDistribution;
+    }
+
+    public int getProducerThreadCount() {
+        return producerThreadCount;
+    }
+
+    public double getTimeScale() {
+        return timeScale;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.acme.callcenter.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A clock that runs at the speed of the wall clock, or faster to simulate a long period in a short time.
+ * Changing the {@link #getTimeScale() time scale} never makes the time jump,
+ * so after an acceleration the time stays ahead of the wall clock:
+ * read the time of the simulated calls from this clock or the solution's clock snapshot, never from the system clock.
+ * <p>
+ * Thread-safe. The clocks returned by {@link #withZone(ZoneId)} share the time scale with this one.
+ */
+public class SimulationClock extends Clock {
+
+    private final Clock wallClock;
+    private final AtomicReference<Anchor> anchorReference;
+
+    public SimulationClock(Clock wallClock) {
+        this(wallClock, new AtomicReference<>(new Anchor(wallClock.instant())));
+    }
+
+    private SimulationClock(Clock wallClock, AtomicReference<Anchor> anchorReference) {
+        this.wallClock = wallClock;
+        this.anchorReference = anchorReference;
+    }
+
+    /**
+     * @return 1.0 for the wall clock, higher to accelerate the time
+     */
+    public double getTimeScale() {
+        return anchorReference.get().timeScale;
+    }
+
+    /**
+     * @param timeScale 1.0 for the wall clock, higher to accelerate the time
+     */
+    public void setTimeScale(double timeScale) {
+        if (!(timeScale > 0.0)) {
+            throw new IllegalArgumentException("The timeScale (" + timeScale + ") must be positive.");
+        }
+        anchorReference.updateAndGet(anchor -> {
+            Instant wallInstant = wallClock.instant();
+            return new Anchor(wallInstant, anchor.toSimulatedInstant(wallInstant), timeScale);
+        });
+    }
+
+    /**
+     * @param simulatedDuration never null
+     * @return how long it takes on the wall clock, in nanoseconds
+     */
+    public long toWallNanos(Duration simulatedDuration) {
+        return (long) (simulatedDuration.toNanos() / getTimeScale());
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return wallClock.getZone();
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new SimulationClock(wallClock.withZone(zone), anchorReference);
+    }
+
+    @Override
+    public Instant instant() {
+        return anchorReference.get().toSimulatedInstant(wallClock.instant());
+    }
+
+    private static final class Anchor {
+
+        private final Instant wallInstant;
+        private final Instant simulatedInstant;
+        private final double timeScale;
+
+        private Anchor(Instant wallInstant) {
+            this(wallInstant, wallInstant, 1.0);
+        }
+
+        private Anchor(Instant wallInstant, Instant simulatedInstant, double timeScale) {
+            this.wallInstant = wallInstant;
+            this.simulatedInstant = simulatedInstant;
+            this.timeScale = timeScale;
+        }
+
+        private Instant toSimulatedInstant(Instant wallInstant) {
+            long wallNanos = Duration.between(this.wallInstant, wallInstant).toNanos();
+            return simulatedInstant.plusNanos((long) (wallNanos * timeScale));
+        }
+    }
+}
@@ -17,7 +17,7 @@
 package org.acme.callcenter.service;
 
 import java.time.Duration;
-import java.time.LocalTime;
+import java.time.Instant;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
@@ -44,6 +44,7 @@ public class SimulationService {
     private final ScheduledExecutorService scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
     private final SolverService solverService;
     private final DataGenerator dataGenerator;
+    private final SimulationClock clock;
     private final ConcurrentMap<Long, CallInProgress> callsInProgress = new ConcurrentHashMap<>();
     private final AtomicBoolean running = new AtomicBoolean(false);
 
@@ -52,20 +53,25 @@ public class SimulationService {
     private int frequencyPerMinute = 10;
 
     private ScheduledFuture<?> addNewCallScheduledFuture;
+    private LoadGenerator loadGenerator;
 
     @Inject
-    public SimulationService(SolverService solverService, DataGenerator dataGenerator) {
+    public SimulationService(SolverService solverService, DataGenerator dataGenerator, SimulationClock clock) {
         this.solverService = solverService;
         this.dataGenerator = dataGenerator;
+        this.clock = clock;
     }
 
-    private ScheduledFuture<?> scheduleCallEnd(Call call, long delay, TimeUnit timeUnit) {
+    /**
+     * @param delay in simulated time
+     */
+    private ScheduledFuture<?> scheduleCallEnd(Call call, Duration delay) {
         return scheduledExecutorService.schedule(() -> {
             callsInProgress.computeIfPresent(call.getId(), (callId, callInProgress) -> {
                 solverService.removeCall(callId);
                 return null;
             });
-        }, delay, timeUnit);
+        }, clock.toWallNanos(delay), TimeUnit.NANOSECONDS);
     }
 
     public void restartSimulation(int frequencyPerMinute, int durationSeconds) {
@@ -100,10 +106,11 @@ public class SimulationService {
         if (frequency == 0) {
             return;
         }
-        int delayInSeconds = 60 / frequency;
+        long delayInNanos = TimeUnit.MINUTES.toNanos(1L) / frequency;
 
         addNewCallScheduledFuture = scheduledExecutorService.scheduleAtFixedRate(
-                () -> solverService.addCall(dataGenerator.generateCall(duration)), 0, delayInSeconds, TimeUnit.SECONDS);
+                () -> solverService.addCall(dataGenerator.generateCall(duration)),
+                0, delayInNanos, TimeUnit.NANOSECONDS);
     }
 
     public void stopSimulation() {
@@ -114,6 +121,29 @@ public class SimulationService {
         }
     }
 
+    /**
+     * Generates calls on top of the simulation, for example hundreds per second,
+     * and runs the clock at the load profile's time scale until {@link #stopLoadGeneration()}.
+     * Replaces the load generation that is already running, if any.
+     */
+    public synchronized void startLoadGeneration(LoadProfile loadProfile) {
+        stopLoadGeneration();
+        clock.setTimeScale(loadProfile.getTimeScale());
+        loadGenerator = new LoadGenerator(loadProfile, dataGenerator, solverService::addCall);
+        loadGenerator.start();
+    }
+
+    /**
+     * Also resets the clock to the speed of the wall clock, but it stays ahead of the wall clock.
+     */
+    public synchronized void stopLoadGeneration() {
+        if (loadGenerator != null) {
+            loadGenerator.stop();
+            loadGenerator = null;
+            clock.setTimeScale(1.0);
+        }
+    }
+
     /**
      * Cancels the scheduled end of a call in progress and schedules a new end, postponed by a minute.
      */
@@ -121,9 +151,9 @@ public class SimulationService {
         callsInProgress.computeIfPresent(callId, (id, callInProgress) -> {
             callInProgress.scheduledCallEnd.cancel(true);
             Call call = callInProgress.call;
-            Duration remaining = call.getDuration().minus(Duration.between(call.getPickUpTime(), LocalTime.now()));
-            long nextCallEndSeconds = remaining.plusMinutes(1).getSeconds(); // Prolong the call by a minute.
-            return new CallInProgress(call, scheduleCallEnd(call, nextCallEndSeconds, TimeUnit.SECONDS));
+            Duration remaining = call.getDuration().minus(Duration.between(call.getPickUpTime(), clock.instant()));
+            Duration nextCallEnd = remaining.plusMinutes(1); // Prolong the call by a minute.
+            return new CallInProgress(call, scheduleCallEnd(call, nextCallEnd));
         });
     }
 
@@ -136,9 +166,9 @@ public class SimulationService {
                 callsInProgress.computeIfAbsent(call.getId(), callId -> {
                     // Schedule finishing a call by an agent.
                     ScheduledFuture<?> existingCallScheduledFuture =
-                            scheduleCallEnd(call, call.getDuration().getSeconds(), TimeUnit.SECONDS);
+                            scheduleCallEnd(call, call.getDuration());
                     // Pick-up time needs to be set, as it hasn't been propagated to this best solution yet.
-                    call.setPickUpTime(LocalTime.now());
+                    call.setPickUpTime(Instant.ofEpochSecond(newBestSolution.getClockEpochSecond()));
                     return new CallInProgress(call, existingCallScheduledFuture);
                 });
             }
@@ -16,16 +16,22 @@
 
 package org.acme.callcenter.service;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Default;
 import javax.inject.Inject;
@@ -33,10 +39,8 @@ import javax.inject.Inject;
 import org.acme.callcenter.domain.Agent;
 import org.acme.callcenter.domain.Call;
 import org.acme.callcenter.domain.CallCenter;
-import org.acme.callcenter.solver.change.AddCallProblemFactChange;
-import org.acme.callcenter.solver.change.PinCallProblemFactChange;
-import org.acme.callcenter.solver.change.ProlongCallByMinuteProblemFactChange;
-import org.acme.callcenter.solver.change.RemoveCallProblemFactChange;
+import org.acme.callcenter.solver.change.CoalescedCallProblemFactChange;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.context.ManagedExecutor;
 import org.optaplanner.core.api.solver.ProblemFactChange;
 import org.optaplanner.core.api.solver.Solver;
@@ -55,25 +59,90 @@ public class SolverService {
     private CompletableFuture<?> completableSolverFuture;
     private final BlockingQueue<ProblemFactChange<CallCenter>> waitingProblemFactChanges = new LinkedBlockingQueue<>();
 
+    // Each problem fact change restarts the solver, so the call changes are coalesced into one.
+    private final Duration coalescingWindow;
+    private final int maxCoalescedEventCount;
+    private final ScheduledExecutorService coalescingExecutorService;
+    private final Object coalescingLock = new Object();
+    private CoalescedCallProblemFactChange coalescedChange = new CoalescedCallProblemFactChange();
+    private ScheduledFuture<?> scheduledCoalescedChangeFlush;
+
+    // The solver reads the time from a snapshot in the solution, which is advanced by a problem fact change.
+    private final Clock clock;
+    private final Duration clockSnapshotInterval;
+    private ScheduledFuture<?> clockSnapshotFuture;
+
+    /**
+     * Hands every call change to the solver immediately and advances the clock snapshot every second.
+     */
+    public SolverService(SolverFactory<CallCenter> solverFactory, ManagedExecutor executorService) {
+        this(solverFactory, executorService, Clock.systemDefaultZone(), Duration.ofSeconds(1L), Duration.ZERO, 1);
+    }
+
+    /**
+     * @param clock the source of the clock snapshot and so of the pick up times,
+     * for example a fixed clock to replay a simulation
+     * @param clockSnapshotInterval how often to advance the clock snapshot while solving
+     * @param coalescingWindow how long to buffer the call changes before handing them to the solver,
+     * {@link Duration#ZERO} to hand over every call change immediately
+     * @param maxCoalescedEventCount at least 1, hands over the buffered call changes early when there are that many
+     */
     @Inject
-    public SolverService(SolverFactory<CallCenter> solverFactory, @Default ManagedExecutor executorService) {
+    public SolverService(SolverFactory<CallCenter> solverFactory, @Default ManagedExecutor executorService,
+            Clock clock,
+            @ConfigProperty(name = "call-center.clock-snapshot-interval", defaultValue = "1s")
+                    Duration clockSnapshotInterval,
+            @ConfigProperty(name = "call-center.problem-fact-change.coalescing-window", defaultValue = "100ms")
+                    Duration coalescingWindow,
+            @ConfigProperty(name = "call-center.problem-fact-change.max-coalesced-event-count", defaultValue = "100")
+                    int maxCoalescedEventCount) {
+        if (clockSnapshotInterval.isNegative() || clockSnapshotInterval.isZero()) {
+            throw new IllegalArgumentException("The clockSnapshotInterval (" + clockSnapshotInterval
+                    + ") must be positive.");
+        }
+        if (coalescingWindow.isNegative()) {
+            throw new IllegalArgumentException("The coalescingWindow (" + coalescingWindow + ") must not be negative.");
+        }
+        if (maxCoalescedEventCount < 1) {
+            throw new IllegalArgumentException("The maxCoalescedEventCount (" + maxCoalescedEventCount
+                    + ") must be at least 1.");
+        }
         solver = solverFactory.buildSolver();
         this.managedExecutor = executorService;
+        this.clock = clock;
+        this.clockSnapshotInterval = clockSnapshotInterval;
+        this.coalescingWindow = coalescingWindow;
+        this.maxCoalescedEventCount = maxCoalescedEventCount;
+        coalescingExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CallChangeCoalescing");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void destroy() {
+        coalescingExecutorService.shutdownNow();
     }
 
     private void pinCallAssignedToAgents(List<Call> calls) {
-        List<ProblemFactChange<CallCenter>> pinCallProblemFactChanges = calls.stream()
-                .filter(call -> !call.isPinned()
-                        && call.getPreviousCallOrAgent() != null
-                        && call.getPreviousCallOrAgent() instanceof Agent)
-                .map(PinCallProblemFactChange::new)
-                .collect(Collectors.toList());
-        solver.addProblemFactChanges(pinCallProblemFactChanges);
+        List<Call> callsToPin = new ArrayList<>();
+        for (Call call : calls) {
+            if (!call.isPinned()
+                    && call.getPreviousCallOrAgent() != null
+                    && call.getPreviousCallOrAgent() instanceof Agent) {
+                callsToPin.add(call);
+            }
+        }
+        if (!callsToPin.isEmpty()) {
+            registerCallChanges(change -> callsToPin.forEach(change::pinCall));
+        }
     }
 
     public void startSolving(CallCenter inputProblem,
             Consumer<BestSolutionChangedEvent<CallCenter>> bestSolutionChangedEventConsumer, Consumer<Throwable> errorHandler) {
         solving.set(true);
+        inputProblem.setClockEpochSecond(clock.instant().getEpochSecond());
         completableSolverFuture = managedExecutor.runAsync(() -> {
 
             solver.addEventListener(event -> {
@@ -90,10 +159,21 @@ public class SolverService {
             }
             solver.addProblemFactChanges(new ArrayList<>(waitingProblemFactChanges));
         });
+        clockSnapshotFuture = coalescingExecutorService.scheduleAtFixedRate(
+                () -> {
+                    if (isSolving()) {
+                        registerCallChanges(change -> change.advanceClock(clock.instant()));
+                    }
+                },
+                clockSnapshotInterval.toNanos(), clockSnapshotInterval.toNanos(), TimeUnit.NANOSECONDS);
     }
 
     public void stopSolving() {
         solving.set(false);
+        if (clockSnapshotFuture != null) {
+            clockSnapshotFuture.cancel(false);
+            clockSnapshotFuture = null;
+        }
         if (completableSolverFuture != null) {
             solver.terminateEarly();
             try {
@@ -113,20 +193,51 @@ public class SolverService {
     }
 
     public void addCall(Call call) {
-        registerProblemFactChange(new AddCallProblemFactChange(call));
+        registerCallChanges(change -> change.addCall(call));
     }
 
     public void removeCall(long callId) {
-        registerProblemFactChange(new RemoveCallProblemFactChange(callId));
+        registerCallChanges(change -> change.removeCall(callId));
     }
 
     public void prolongCall(long callId) {
-        registerProblemFactChange(new ProlongCallByMinuteProblemFactChange(callId));
+        registerCallChanges(change -> change.prolongCall(callId));
     }
 
-    private void registerProblemFactChange(ProblemFactChange<CallCenter> problemFactChange) {
+    private void registerCallChanges(Consumer<CoalescedCallProblemFactChange> callChanges) {
         if (isSolving()) {
             assertSolverIsAlive();
+        }
+        synchronized (coalescingLock) {
+            callChanges.accept(coalescedChange);
+            if (coalescingWindow.isZero() || coalescedChange.getEventCount() >= maxCoalescedEventCount) {
+                flushCoalescedChange();
+            } else if (scheduledCoalescedChangeFlush == null) {
+                scheduledCoalescedChangeFlush = coalescingExecutorService.schedule(() -> {
+                    synchronized (coalescingLock) {
+                        flushCoalescedChange();
+                    }
+                }, coalescingWindow.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Called while holding the {@link #coalescingLock}.
+     */
+    private void flushCoalescedChange() {
+        if (scheduledCoalescedChangeFlush != null) {
+            scheduledCoalescedChangeFlush.cancel(false);
+            scheduledCoalescedChangeFlush = null;
+        }
+        CoalescedCallProblemFactChange problemFactChange = coalescedChange;
+        // Also when it's empty, so its event count doesn't carry over
+        coalescedChange = new CoalescedCallProblemFactChange();
+        if (problemFactChange.isEmpty()) {
+            // For example a call that was added and removed again
+            return;
+        }
+        if (isSolving()) {
             solver.addProblemFactChange(problemFactChange);
         } else {
             waitingProblemFactChanges.add(problemFactChange);
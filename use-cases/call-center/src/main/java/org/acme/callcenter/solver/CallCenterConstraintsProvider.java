@@ -26,7 +26,7 @@ public class CallCenterConstraintsProvider implements ConstraintProvider {
         return constraintFactory.from(Call.class)
                 .filter(call -> call.getNextCall() == null)
                 .penalize("Minimize waiting time",
-                        HardSoftScore.ONE_SOFT, call -> Math.toIntExact(call.getEstimatedWaiting().getSeconds()
-                                * call.getEstimatedWaiting().getSeconds()));
+                        HardSoftScore.ONE_SOFT, call -> Math.toIntExact(call.getEstimatedWaitingSeconds()
+                                * call.getEstimatedWaitingSeconds()));
     }
 }
@@ -16,7 +16,7 @@
 
 package org.acme.callcenter.solver;
 
-import java.time.Duration;
+import static org.acme.callcenter.domain.PreviousCallOrAgent.UNKNOWN_SECONDS;
 
 import org.acme.callcenter.domain.Call;
 import org.acme.callcenter.domain.CallCenter;
@@ -56,25 +56,22 @@ public class ResponseTimeUpdatingVariableListener implements VariableListener<Ca
 
     }
 
-    protected void updateResponseTime(ScoreDirector<CallCenter> scoreDirector, Call call) {
+    /**
+     * Updates the estimates of the call and the calls after it.
+     */
+    public static void updateResponseTime(ScoreDirector<CallCenter> scoreDirector, Call call) {
+        long clockEpochSecond = scoreDirector.getWorkingSolution().getClockEpochSecond();
         PreviousCallOrAgent previous = call.getPreviousCallOrAgent();
+        long estimatedWaitingSeconds = previous == null ? UNKNOWN_SECONDS
+                : previous.getSecondsTillPickUp(clockEpochSecond);
         Call shadowCall = call;
-        Duration previousDurationTillPickUp = (previous == null ? null : previous.getDurationTillPickUp());
-        Duration estimatedWaiting = calculateWaitingTimeEstimate(shadowCall, previousDurationTillPickUp);
-        while (shadowCall != null) {
-            scoreDirector.beforeVariableChanged(shadowCall, "estimatedWaiting");
-            shadowCall.setEstimatedWaiting(estimatedWaiting);
-            scoreDirector.afterVariableChanged(shadowCall, "estimatedWaiting");
-            previousDurationTillPickUp = shadowCall.getDurationTillPickUp();
+        // Once a call's estimate doesn't change, the estimates of the calls after it don't change either
+        while (shadowCall != null && shadowCall.getEstimatedWaitingSeconds() != estimatedWaitingSeconds) {
+            scoreDirector.beforeVariableChanged(shadowCall, "estimatedWaitingSeconds");
+            shadowCall.setEstimatedWaitingSeconds(estimatedWaitingSeconds);
+            scoreDirector.afterVariableChanged(shadowCall, "estimatedWaitingSeconds");
+            estimatedWaitingSeconds = shadowCall.getSecondsTillPickUp(clockEpochSecond);
             shadowCall = shadowCall.getNextCall();
-            estimatedWaiting = calculateWaitingTimeEstimate(shadowCall, previousDurationTillPickUp);
         }
     }
-
-    private Duration calculateWaitingTimeEstimate(Call call, Duration previousEndTime) {
-        if (call == null || previousEndTime == null) {
-            return null;
-        }
-        return previousEndTime;
-    }
 }
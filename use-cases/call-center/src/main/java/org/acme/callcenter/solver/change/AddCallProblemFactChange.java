@@ -31,10 +31,14 @@ public class AddCallProblemFactChange implements ProblemFactChange<CallCenter> {
 
     @Override
     public void doChange(ScoreDirector<CallCenter> scoreDirector) {
+        addCall(scoreDirector, call);
+        scoreDirector.triggerVariableListeners();
+    }
+
+    static void addCall(ScoreDirector<CallCenter> scoreDirector, Call call) {
         CallCenter callCenter = scoreDirector.getWorkingSolution();
         scoreDirector.beforeEntityAdded(call);
         callCenter.getCalls().add(call);
         scoreDirector.afterEntityAdded(call);
-        scoreDirector.triggerVariableListeners();
     }
 }
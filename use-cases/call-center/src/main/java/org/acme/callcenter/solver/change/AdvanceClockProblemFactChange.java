@@ -0,0 +1,61 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.acme.callcenter.solver.change;
+
+import java.time.Instant;
+
+import org.acme.callcenter.domain.Call;
+import org.acme.callcenter.domain.CallCenter;
+import org.acme.callcenter.solver.ResponseTimeUpdatingVariableListener;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.api.solver.ProblemFactChange;
+
+/**
+ * Moves the {@link CallCenter#getClockEpochSecond() clock snapshot} forward,
+ * so the remaining time of the calls in progress shrinks.
+ */
+public class AdvanceClockProblemFactChange implements ProblemFactChange<CallCenter> {
+
+    private final long clockEpochSecond;
+
+    public AdvanceClockProblemFactChange(Instant clockTime) {
+        this.clockEpochSecond = clockTime.getEpochSecond();
+    }
+
+    @Override
+    public void doChange(ScoreDirector<CallCenter> scoreDirector) {
+        advanceClock(scoreDirector, clockEpochSecond);
+        scoreDirector.triggerVariableListeners();
+    }
+
+    static void advanceClock(ScoreDirector<CallCenter> scoreDirector, long clockEpochSecond) {
+        CallCenter callCenter = scoreDirector.getWorkingSolution();
+        if (callCenter.getClockEpochSecond() == clockEpochSecond) {
+            return;
+        }
+        // No constraint reads the snapshot, so there's no problem fact to notify
+        callCenter.setClockEpochSecond(clockEpochSecond);
+        // Only the estimates after a picked up call depend on the clock
+        for (Call call : callCenter.getCalls()) {
+            if (call.getPreviousCallOrAgent() instanceof Call
+                    && ((Call) call.getPreviousCallOrAgent()).getPickUpTime() != null) {
+                ResponseTimeUpdatingVariableListener.updateResponseTime(scoreDirector, call);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.callcenter.solver.change;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.acme.callcenter.domain.Call;
+import org.acme.callcenter.domain.CallCenter;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.api.solver.ProblemFactChange;
+
+/**
+ * Applies the add, remove, prolong and pin events of many calls as one problem fact change,
+ * so the solver restarts once for all of them instead of once per event.
+ * It also advances the {@link CallCenter#getClockEpochSecond() clock snapshot}, to the latest time only,
+ * before the calls are pinned.
+ * <p>
+ * Merges the events of the same call: a call that is added and removed again is never added,
+ * a removed call is neither prolonged nor pinned, several prolongations add up and pinning twice pins once.
+ * <p>
+ * Not thread-safe: fill it from one thread at a time and stop filling it once it's handed to the solver.
+ */
+public class CoalescedCallProblemFactChange implements ProblemFactChange<CallCenter> {
+
+    // In order of the first event per call
+    private final Map<Long, PendingCallChange> pendingCallChangeMap = new LinkedHashMap<>();
+    private int eventCount = 0;
+    private Instant clockTime = null;
+
+    public void addCall(Call call) {
+        eventCount++;
+        getOrCreatePendingCallChange(call.getId()).addedCall = call;
+    }
+
+    public void removeCall(long callId) {
+        eventCount++;
+        PendingCallChange pendingCallChange = pendingCallChangeMap.get(callId);
+        if (pendingCallChange != null && pendingCallChange.addedCall != null && !pendingCallChange.removed) {
+            // The solver never saw the call
+            pendingCallChangeMap.remove(callId);
+            return;
+        }
+        pendingCallChange = getOrCreatePendingCallChange(callId);
+        pendingCallChange.removed = true;
+        pendingCallChange.addedCall = null;
+        pendingCallChange.pinnedCall = null;
+        pendingCallChange.prolongationCount = 0;
+    }
+
+    public void prolongCall(long callId) {
+        eventCount++;
+        PendingCallChange pendingCallChange = getOrCreatePendingCallChange(callId);
+        if (!pendingCallChange.isRemoved()) {
+            pendingCallChange.prolongationCount++;
+        }
+    }
+
+    public void pinCall(Call call) {
+        eventCount++;
+        PendingCallChange pendingCallChange = getOrCreatePendingCallChange(call.getId());
+        if (!pendingCallChange.isRemoved()) {
+            pendingCallChange.pinnedCall = call;
+        }
+    }
+
+    public void advanceClock(Instant clockTime) {
+        eventCount++;
+        this.clockTime = clockTime;
+    }
+
+    private PendingCallChange getOrCreatePendingCallChange(long callId) {
+        return pendingCallChangeMap.computeIfAbsent(callId, PendingCallChange::new);
+    }
+
+    /**
+     * @return the number of events, including the ones that were merged away
+     */
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public boolean isEmpty() {
+        return pendingCallChangeMap.isEmpty() && clockTime == null;
+    }
+
+    @Override
+    public void doChange(ScoreDirector<CallCenter> scoreDirector) {
+        if (clockTime != null) {
+            AdvanceClockProblemFactChange.advanceClock(scoreDirector, clockTime.getEpochSecond());
+        }
+        for (PendingCallChange pendingCallChange : pendingCallChangeMap.values()) {
+            if (pendingCallChange.removed
+                    && RemoveCallProblemFactChange.removeCall(scoreDirector, pendingCallChange.callId)) {
+                // The next removal relies on the inverse relation shadow variable
+                scoreDirector.triggerVariableListeners();
+            }
+            if (pendingCallChange.addedCall != null) {
+                AddCallProblemFactChange.addCall(scoreDirector, pendingCallChange.addedCall);
+            }
+            if (pendingCallChange.pinnedCall != null) {
+                PinCallProblemFactChange.pinCall(scoreDirector, pendingCallChange.pinnedCall);
+            }
+            if (pendingCallChange.prolongationCount > 0) {
+                ProlongCallByMinuteProblemFactChange.prolongCall(scoreDirector, pendingCallChange.callId,
+                        ProlongCallByMinuteProblemFactChange.PROLONGATION.multipliedBy(pendingCallChange.prolongationCount));
+            }
+        }
+        scoreDirector.triggerVariableListeners();
+    }
+
+    private static final class PendingCallChange {
+
+        private final long callId;
+        private boolean removed = false;
+        private Call addedCall = null;
+        private Call pinnedCall = null;
+        private int prolongationCount = 0;
+
+        private PendingCallChange(long callId) {
+            this.callId = callId;
+        }
+
+        /**
+         * @return true if the call is removed and not added again afterwards
+         */
+        private boolean isRemoved() {
+            return removed && addedCall == null;
+        }
+    }
+}
@@ -16,7 +16,7 @@
 
 package org.acme.callcenter.solver.change;
 
-import java.time.LocalTime;
+import java.time.Instant;
 
 import org.acme.callcenter.domain.Call;
 import org.acme.callcenter.domain.CallCenter;
@@ -33,13 +33,24 @@ public class PinCallProblemFactChange implements ProblemFactChange<CallCenter> {
 
     @Override
     public void doChange(ScoreDirector<CallCenter> scoreDirector) {
-        Call workingCall = scoreDirector.lookUpWorkingObjectOrReturnNull(call);
-        if (workingCall != null) {
-            scoreDirector.beforeProblemPropertyChanged(workingCall);
-            workingCall.setPinned(true);
-            workingCall.setPickUpTime(LocalTime.now());
-            scoreDirector.afterProblemPropertyChanged(workingCall);
+        if (pinCall(scoreDirector, call)) {
             scoreDirector.triggerVariableListeners();
         }
     }
+
+    /**
+     * @return false if the call is no longer in the working solution
+     */
+    static boolean pinCall(ScoreDirector<CallCenter> scoreDirector, Call call) {
+        Call workingCall = scoreDirector.lookUpWorkingObjectOrReturnNull(call);
+        if (workingCall == null) {
+            return false;
+        }
+        long clockEpochSecond = scoreDirector.getWorkingSolution().getClockEpochSecond();
+        scoreDirector.beforeProblemPropertyChanged(workingCall);
+        workingCall.setPinned(true);
+        workingCall.setPickUpTime(Instant.ofEpochSecond(clockEpochSecond));
+        scoreDirector.afterProblemPropertyChanged(workingCall);
+        return true;
+    }
 }
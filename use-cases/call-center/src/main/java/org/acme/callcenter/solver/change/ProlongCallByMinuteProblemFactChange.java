@@ -20,12 +20,13 @@ import java.time.Duration;
 
 import org.acme.callcenter.domain.Call;
 import org.acme.callcenter.domain.CallCenter;
+import org.acme.callcenter.solver.ResponseTimeUpdatingVariableListener;
 import org.optaplanner.core.api.score.director.ScoreDirector;
 import org.optaplanner.core.api.solver.ProblemFactChange;
 
 public class ProlongCallByMinuteProblemFactChange implements ProblemFactChange<CallCenter> {
 
-    private static final Duration PROLONGATION = Duration.ofMinutes(1L);
+    static final Duration PROLONGATION = Duration.ofMinutes(1L);
     private final long callId;
 
     public ProlongCallByMinuteProblemFactChange(long callId) {
@@ -34,14 +35,28 @@ public class ProlongCallByMinuteProblemFactChange implements ProblemFactChange<C
 
     @Override
     public void doChange(ScoreDirector<CallCenter> scoreDirector) {
+        if (prolongCall(scoreDirector, callId, PROLONGATION)) {
+            scoreDirector.triggerVariableListeners();
+        }
+    }
+
+    /**
+     * @return false if the call is no longer in the working solution
+     */
+    static boolean prolongCall(ScoreDirector<CallCenter> scoreDirector, long callId, Duration prolongation) {
         Call call = new Call(callId, null);
         Call workingCall = scoreDirector.lookUpWorkingObjectOrReturnNull(call);
-
-        if (workingCall != null) {
-            scoreDirector.beforeProblemPropertyChanged(workingCall);
-            workingCall.setDuration(workingCall.getDuration().plus(PROLONGATION));
-            scoreDirector.afterProblemPropertyChanged(workingCall);
-            scoreDirector.triggerVariableListeners();
+        if (workingCall == null) {
+            return false;
+        }
+        scoreDirector.beforeProblemPropertyChanged(workingCall);
+        workingCall.setDuration(workingCall.getDuration().plus(prolongation));
+        scoreDirector.afterProblemPropertyChanged(workingCall);
+        // A problem property change doesn't trigger the variable listener, but the calls after it wait longer
+        Call nextCall = workingCall.getNextCall();
+        if (nextCall != null) {
+            ResponseTimeUpdatingVariableListener.updateResponseTime(scoreDirector, nextCall);
         }
+        return true;
     }
 }
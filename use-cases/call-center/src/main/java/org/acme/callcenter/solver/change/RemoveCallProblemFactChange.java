@@ -32,23 +32,34 @@ public class RemoveCallProblemFactChange implements ProblemFactChange<CallCenter
 
     @Override
     public void doChange(ScoreDirector<CallCenter> scoreDirector) {
+        if (removeCall(scoreDirector, callId)) {
+            scoreDirector.triggerVariableListeners();
+        }
+    }
+
+    /**
+     * Trigger the variable listeners before the next removal, because it relies on the inverse relation shadow variable.
+     * @return false if the call is no longer in the working solution
+     */
+    static boolean removeCall(ScoreDirector<CallCenter> scoreDirector, long callId) {
         CallCenter callCenter = scoreDirector.getWorkingSolution();
         Call call = new Call(callId, null);
         Call workingCall = scoreDirector.lookUpWorkingObjectOrReturnNull(call);
-        if (workingCall != null) {
-            PreviousCallOrAgent previousCallOrAgent = workingCall.getPreviousCallOrAgent();
-
-            Call nextCall = workingCall.getNextCall();
-            if (nextCall != null) {
-                scoreDirector.beforeVariableChanged(nextCall, "previousCallOrAgent");
-                nextCall.setPreviousCallOrAgent(previousCallOrAgent);
-                scoreDirector.afterVariableChanged(nextCall, "previousCallOrAgent");
-            }
-
-            scoreDirector.beforeEntityRemoved(workingCall);
-            callCenter.getCalls().remove(workingCall);
-            scoreDirector.afterEntityRemoved(workingCall);
-            scoreDirector.triggerVariableListeners();
+        if (workingCall == null) {
+            return false;
+        }
+        PreviousCallOrAgent previousCallOrAgent = workingCall.getPreviousCallOrAgent();
+
+        Call nextCall = workingCall.getNextCall();
+        if (nextCall != null) {
+            scoreDirector.beforeVariableChanged(nextCall, "previousCallOrAgent");
+            nextCall.setPreviousCallOrAgent(previousCallOrAgent);
+            scoreDirector.afterVariableChanged(nextCall, "previousCallOrAgent");
         }
+
+        scoreDirector.beforeEntityRemoved(workingCall);
+        callCenter.getCalls().remove(workingCall);
+        scoreDirector.afterEntityRemoved(workingCall);
+        return true;
     }
 }
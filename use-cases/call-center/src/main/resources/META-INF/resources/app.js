@@ -12,6 +12,8 @@ const waitingCallColor = 'White';
 
 var autoRefreshIntervalId = null;
 var solving = false;
+// The server's clock, which runs faster than the wall clock while a load profile accelerates it
+var clockEpochSecond = null;
 
 const fetchHeaders = {
   headers: {
@@ -23,6 +25,7 @@ const fetchHeaders = {
 function refresh() {
   $.getJSON("/call-center", (callCenterData) => {
     solving = callCenterData.solving;
+    clockEpochSecond = callCenterData.clockEpochSecond;
     refreshSolvingButtons();
     $("#score").text("Score: " + (callCenterData.score == null ? "?" : callCenterData.score));
     printCallTable(callCenterData);
@@ -95,14 +98,15 @@ function printCall(callsTd, call) {
 }
 
 function printTimes(callCardContainer, call) {
-  const LocalTime = JSJoda.LocalTime;
+  const Instant = JSJoda.Instant;
   const Duration = JSJoda.Duration;
 
-  const startedTime = LocalTime.parse(call.startTime);
+  const startedTime = Instant.parse(call.startTime);
+  const now = Instant.ofEpochSecond(clockEpochSecond);
   if (call.pinned) {
-    const pickedUpTime = LocalTime.parse(call.pickUpTime);
+    const pickedUpTime = Instant.parse(call.pickUpTime);
     const waitingTillPickedUpTime = formatDuration(Duration.between(startedTime, pickedUpTime));
-    const inProgressTime = formatDuration(Duration.between(LocalTime.parse(call.pickUpTime), LocalTime.now()));
+    const inProgressTime = formatDuration(Duration.between(pickedUpTime, now));
     $(`<span style="font-size:0.8em">Waiting: ${waitingTillPickedUpTime}</span><br/>`).appendTo(callCardContainer);
     $(`<span style="font-size:0.8em">In progress: ${inProgressTime}</span>`).appendTo(callCardContainer);
 
@@ -110,7 +114,7 @@ function printTimes(callCardContainer, call) {
                                        <span style="font-size:0.8em">+ 1m</span>
                                     </button>`).click(() => prolongCall(call)));
   } else {
-    const waiting = formatDuration(Duration.between(startedTime, LocalTime.now()));
+    const waiting = formatDuration(Duration.between(startedTime, now));
     const estimatedWaiting = formatDuration(Duration.ofSeconds(Math.floor(call.estimatedWaiting)));
     $(`<span style="font-size:0.8em">Waiting: ${waiting}</span><br/>`).appendTo(callCardContainer);
     $(`<span style="font-size:0.8em">Estimated waiting: ${estimatedWaiting}</span>`)
@@ -119,9 +123,11 @@ function printTimes(callCardContainer, call) {
 }
 
 function formatDuration(duration) {
-  const hours = Math.floor(duration.seconds() / 3600);
-  const minutes = Math.floor((duration.seconds() % 3600) / 60);
-  const seconds = duration.seconds() % 60;
+  // The server's clock snapshot can lag up to a second behind a call's start
+  const totalSeconds = Math.max(0, duration.seconds());
+  const hours = Math.floor(totalSeconds / 3600);
+  const minutes = Math.floor((totalSeconds % 3600) / 60);
+  const seconds = totalSeconds % 60;
   var formattedDuration = '';
   if (hours > 0) {
     formattedDuration += hours + 'h ';
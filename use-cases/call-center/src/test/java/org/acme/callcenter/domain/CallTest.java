@@ -0,0 +1,55 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.acme.callcenter.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.Test;
+
+class CallTest {
+
+    @Test
+    void getMissingSkillCount() {
+        Agent agent = new Agent(1L, "Carl", Skill.ENGLISH, Skill.CAR_INSURANCE);
+        Call call = new Call(1L, "123-456-7891", Skill.ENGLISH, Skill.GERMAN, Skill.SPANISH, Skill.LIFE_INSURANCE);
+        assertThat(call.getMissingSkillCount()).isZero();
+        call.setAgent(agent);
+        assertThat(call.getMissingSkillCount()).isEqualTo(3);
+
+        Call coveredCall = new Call(2L, "123-456-7892", EnumSet.of(Skill.ENGLISH, Skill.CAR_INSURANCE), 10);
+        coveredCall.setAgent(agent);
+        assertThat(coveredCall.getMissingSkillCount()).isZero();
+
+        Call callWithoutSkills = new Call(3L, "123-456-7893");
+        callWithoutSkills.setAgent(new Agent(2L, "Dana"));
+        assertThat(callWithoutSkills.getMissingSkillCount()).isZero();
+    }
+
+    @Test
+    void skillsAreUnmodifiable() {
+        Agent agent = new Agent(1L, "Carl", Skill.ENGLISH);
+        Call call = new Call(1L, "123-456-7891", Skill.ENGLISH);
+        assertThatThrownBy(() -> agent.getSkills().add(Skill.GERMAN))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> call.getRequiredSkills().add(Skill.GERMAN))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+}
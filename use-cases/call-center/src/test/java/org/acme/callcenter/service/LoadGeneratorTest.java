@@ -0,0 +1,84 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.acme.callcenter.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.acme.callcenter.data.DataGenerator;
+import org.acme.callcenter.service.LoadProfile.ArrivalDistribution;
+import org.acme.callcenter.service.LoadProfile.CallDurationDistribution;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class LoadGeneratorTest {
+
+    private static final int SAMPLE_COUNT = 100_000;
+
+    @Test
+    void sampleDistributions() {
+        Random random = new Random(37);
+        LoadProfile poissonProfile = new LoadProfile(200.0, ArrivalDistribution.POISSON, 1.0,
+                30, CallDurationDistribution.UNIFORM, 2, 1.0);
+        double arrivalSecondsSum = 0.0;
+        long durationSecondsSum = 0L;
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            arrivalSecondsSum += poissonProfile.sampleSecondsTillNextArrival(random);
+            int durationSeconds = poissonProfile.sampleDurationSeconds(random);
+            assertThat(durationSeconds).isBetween(1, 59);
+            durationSecondsSum += durationSeconds;
+        }
+        // Each of the 2 producers generates 100 calls per second
+        assertThat(arrivalSecondsSum / SAMPLE_COUNT).isCloseTo(0.01, within(0.0005));
+        assertThat((double) durationSecondsSum / SAMPLE_COUNT).isCloseTo(30.0, within(0.5));
+
+        LoadProfile burstyProfile = new LoadProfile(200.0, ArrivalDistribution.BURSTY, 10.0,
+                30, CallDurationDistribution.EXPONENTIAL, 1, 1.0);
+        long callCountSum = 0L;
+        arrivalSecondsSum = 0.0;
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            callCountSum += burstyProfile.sampleArrivalCallCount(random);
+            arrivalSecondsSum += burstyProfile.sampleSecondsTillNextArrival(random);
+        }
+        // Bursts of 10 calls on average, 20 bursts per second
+        assertThat((double) callCountSum / SAMPLE_COUNT).isCloseTo(10.0, within(0.2));
+        assertThat(arrivalSecondsSum / SAMPLE_COUNT).isCloseTo(0.05, within(0.001));
+    }
+
+    @Test
+    @Timeout(60)
+    void generateCallsUntilStopped() throws InterruptedException {
+        LoadProfile loadProfile = new LoadProfile(5_000.0, ArrivalDistribution.POISSON, 1.0,
+                30, CallDurationDistribution.EXPONENTIAL, 4, 2.0);
+        AtomicLong callCount = new AtomicLong(0L);
+        LoadGenerator loadGenerator = new LoadGenerator(loadProfile, new DataGenerator(),
+                call -> callCount.incrementAndGet());
+        loadGenerator.start();
+        // No assertion on the throughput, because a busy machine delays the producers
+        while (callCount.get() < 100L) {
+            Thread.sleep(10L);
+        }
+        loadGenerator.stop();
+        long stoppedCallCount = callCount.get();
+        Thread.sleep(100L);
+        assertThat(callCount.get()).isEqualTo(stoppedCallCount);
+    }
+}
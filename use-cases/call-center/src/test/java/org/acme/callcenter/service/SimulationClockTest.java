@@ -0,0 +1,76 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.acme.callcenter.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+class SimulationClockTest {
+
+    @Test
+    void accelerateWithoutJump() {
+        Instant start = Instant.parse("2021-07-01T10:00:00Z");
+        MutableClock wallClock = new MutableClock(start);
+        SimulationClock clock = new SimulationClock(wallClock);
+        Clock zonedClock = clock.withZone(ZoneId.of("Europe/Brussels"));
+
+        wallClock.instant = start.plusSeconds(10L);
+        assertThat(clock.instant()).isEqualTo(start.plusSeconds(10L));
+        clock.setTimeScale(60.0);
+        assertThat(clock.instant()).isEqualTo(start.plusSeconds(10L));
+        wallClock.instant = start.plusSeconds(11L);
+        assertThat(clock.instant()).isEqualTo(start.plusSeconds(70L));
+        assertThat(zonedClock.instant()).isEqualTo(start.plusSeconds(70L));
+        assertThat(clock.toWallNanos(Duration.ofMinutes(1L))).isEqualTo(Duration.ofSeconds(1L).toNanos());
+
+        clock.setTimeScale(1.0);
+        wallClock.instant = start.plusSeconds(12L);
+        assertThat(clock.instant()).isEqualTo(start.plusSeconds(71L));
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.callcenter.solver;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.acme.callcenter.domain.Agent;
+import org.acme.callcenter.domain.Call;
+import org.acme.callcenter.domain.CallCenter;
+import org.acme.callcenter.domain.PreviousCallOrAgent;
+import org.acme.callcenter.domain.Skill;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+import org.optaplanner.core.impl.solver.DefaultSolverFactory;
+
+/**
+ * Measures a move and its undo, including the {@link ResponseTimeUpdatingVariableListener} and the score calculation,
+ * on 50 agents with 5 000 queued calls.
+ * Takes a few minutes, so it only runs on demand:
+ * <pre>
+ * mvn test -Dtest=ResponseTimeUpdatingVariableListenerBenchmark -Dbenchmark=true
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ResponseTimeUpdatingVariableListenerBenchmark {
+
+    private static final int AGENT_COUNT = 50;
+    private static final int CALL_COUNT = 5_000;
+
+    private final Random random = new Random(37);
+    private List<Call> calls;
+    private InnerScoreDirector<CallCenter, HardSoftScore> scoreDirector;
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ResponseTimeUpdatingVariableListenerBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    @Setup
+    public void setUp() {
+        List<Agent> agents = new ArrayList<>(AGENT_COUNT);
+        for (int i = 0; i < AGENT_COUNT; i++) {
+            agents.add(new Agent(i, "Agent " + i, Skill.ENGLISH));
+        }
+        calls = new ArrayList<>(CALL_COUNT);
+        for (int i = 0; i < CALL_COUNT; i++) {
+            calls.add(new Call(i, "123-456-" + i, EnumSet.of(Skill.ENGLISH), 10 + random.nextInt(600)));
+        }
+        SolverConfig solverConfig = new SolverConfig()
+                .withSolutionClass(CallCenter.class)
+                .withEntityClasses(PreviousCallOrAgent.class, Call.class)
+                .withConstraintProviderClass(CallCenterConstraintsProvider.class);
+        // The constraint provider is a HardSoftScore one
+        @SuppressWarnings("unchecked")
+        InnerScoreDirector<CallCenter, HardSoftScore> innerScoreDirector =
+                (InnerScoreDirector<CallCenter, HardSoftScore>) new DefaultSolverFactory<CallCenter>(solverConfig)
+                        .getScoreDirectorFactory().buildScoreDirector();
+        scoreDirector = innerScoreDirector;
+        scoreDirector.setWorkingSolution(new CallCenter(EnumSet.of(Skill.ENGLISH), agents, calls));
+        // Round robin, so every agent queues 100 calls, through the score director to initialize the shadow variables
+        for (int i = 0; i < CALL_COUNT; i++) {
+            changePrevious(calls.get(i), i < AGENT_COUNT ? agents.get(i) : calls.get(i - AGENT_COUNT));
+            scoreDirector.triggerVariableListeners();
+        }
+        scoreDirector.calculateScore();
+    }
+
+    @TearDown
+    public void tearDown() {
+        scoreDirector.close();
+    }
+
+    /**
+     * Moves a random call behind another random call or agent and back, like a chained change move and its undo.
+     */
+    @Benchmark
+    public HardSoftScore changeMoveAndUndo() {
+        Call call = calls.get(random.nextInt(CALL_COUNT));
+        PreviousCallOrAgent oldPrevious = call.getPreviousCallOrAgent();
+        PreviousCallOrAgent newPrevious = random.nextInt(CALL_COUNT + AGENT_COUNT) < AGENT_COUNT
+                ? scoreDirector.getWorkingSolution().getAgents().get(random.nextInt(AGENT_COUNT))
+                : calls.get(random.nextInt(CALL_COUNT));
+        if (newPrevious == call || newPrevious == oldPrevious) {
+            return scoreDirector.calculateScore();
+        }
+        moveCall(call, newPrevious);
+        HardSoftScore score = scoreDirector.calculateScore();
+        moveCall(call, oldPrevious);
+        scoreDirector.calculateScore();
+        return score;
+    }
+
+    /**
+     * Swaps a random call with the call after it and back, so the calls after both don't change their estimate.
+     */
+    @Benchmark
+    public HardSoftScore swapWithNextCallAndUndo() {
+        Call call = calls.get(random.nextInt(CALL_COUNT));
+        Call nextCall = call.getNextCall();
+        if (nextCall == null) {
+            return scoreDirector.calculateScore();
+        }
+        PreviousCallOrAgent oldPrevious = call.getPreviousCallOrAgent();
+        moveCall(call, nextCall);
+        HardSoftScore score = scoreDirector.calculateScore();
+        moveCall(call, oldPrevious);
+        scoreDirector.calculateScore();
+        return score;
+    }
+
+    private void moveCall(Call call, PreviousCallOrAgent newPrevious) {
+        Call oldNext = call.getNextCall();
+        if (oldNext != null) {
+            changePrevious(oldNext, call.getPreviousCallOrAgent());
+        }
+        // Still the old next call of the new previous, because the inverse relation isn't triggered yet
+        Call newNext = newPrevious.getNextCall();
+        changePrevious(call, newPrevious);
+        if (newNext != null) {
+            changePrevious(newNext, call);
+        }
+        scoreDirector.triggerVariableListeners();
+    }
+
+    private void changePrevious(Call call, PreviousCallOrAgent previous) {
+        scoreDirector.beforeVariableChanged(call, "previousCallOrAgent");
+        call.setPreviousCallOrAgent(previous);
+        scoreDirector.afterVariableChanged(call, "previousCallOrAgent");
+    }
+
+}
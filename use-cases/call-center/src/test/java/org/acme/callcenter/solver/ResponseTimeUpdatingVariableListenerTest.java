@@ -0,0 +1,134 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.callcenter.solver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import org.acme.callcenter.domain.Agent;
+import org.acme.callcenter.domain.Call;
+import org.acme.callcenter.domain.CallCenter;
+import org.acme.callcenter.domain.PreviousCallOrAgent;
+import org.acme.callcenter.domain.Skill;
+import org.acme.callcenter.solver.change.ProlongCallByMinuteProblemFactChange;
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+import org.optaplanner.core.impl.solver.DefaultSolverFactory;
+
+class ResponseTimeUpdatingVariableListenerTest {
+
+    @Test
+    void estimatesMatchFromScratchAfterRandomMoves() {
+        Random random = new Random(37);
+        List<Agent> agents = List.of(new Agent(1L, "Carl", Skill.ENGLISH), new Agent(2L, "Dana", Skill.ENGLISH),
+                new Agent(3L, "Emil", Skill.ENGLISH));
+        List<Call> calls = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            // Some calls with the same duration, so a swap can leave an estimate unchanged
+            calls.add(new Call(i, "123-456-" + i, EnumSet.of(Skill.ENGLISH), 10 * (1 + random.nextInt(3))));
+        }
+        try (InnerScoreDirector<CallCenter, HardSoftScore> scoreDirector = buildScoreDirector()) {
+            scoreDirector.setWorkingSolution(new CallCenter(EnumSet.of(Skill.ENGLISH), agents, calls));
+            for (int i = 0; i < calls.size(); i++) {
+                changePrevious(scoreDirector, calls.get(i), i < agents.size() ? agents.get(i) : calls.get(i - agents.size()));
+                scoreDirector.triggerVariableListeners();
+            }
+            assertEstimates(agents);
+            for (int i = 0; i < 1_000; i++) {
+                Call call = calls.get(random.nextInt(calls.size()));
+                PreviousCallOrAgent newPrevious = random.nextInt(10) == 0 ? agents.get(random.nextInt(agents.size()))
+                        : calls.get(random.nextInt(calls.size()));
+                if (newPrevious == call || newPrevious == call.getPreviousCallOrAgent()) {
+                    continue;
+                }
+                // Like a chained change move
+                Call oldNext = call.getNextCall();
+                if (oldNext != null) {
+                    changePrevious(scoreDirector, oldNext, call.getPreviousCallOrAgent());
+                }
+                Call newNext = newPrevious.getNextCall();
+                changePrevious(scoreDirector, call, newPrevious);
+                if (newNext != null) {
+                    changePrevious(scoreDirector, newNext, call);
+                }
+                scoreDirector.triggerVariableListeners();
+                assertEstimates(agents);
+            }
+        }
+    }
+
+    @Test
+    void estimatesMatchFromScratchAfterProlongingCalls() {
+        List<Agent> agents = List.of(new Agent(1L, "Carl", Skill.ENGLISH));
+        List<Call> calls = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            calls.add(new Call(i, "123-456-" + i, EnumSet.of(Skill.ENGLISH), 10));
+        }
+        try (InnerScoreDirector<CallCenter, HardSoftScore> scoreDirector = buildScoreDirector()) {
+            scoreDirector.setWorkingSolution(new CallCenter(EnumSet.of(Skill.ENGLISH), agents, calls));
+            for (int i = 0; i < calls.size(); i++) {
+                changePrevious(scoreDirector, calls.get(i), i == 0 ? agents.get(0) : calls.get(i - 1));
+                scoreDirector.triggerVariableListeners();
+            }
+            assertEstimates(agents);
+            // The estimates of the calls after a prolonged call change, although no planning variable changed
+            new ProlongCallByMinuteProblemFactChange(calls.get(1).getId()).doChange(scoreDirector);
+            assertEstimates(agents);
+            assertThat(calls.get(4).getEstimatedWaitingSeconds()).isEqualTo(4 * 10L + 60L);
+            // The last call has no calls after it
+            new ProlongCallByMinuteProblemFactChange(calls.get(4).getId()).doChange(scoreDirector);
+            assertEstimates(agents);
+        }
+    }
+
+    private static InnerScoreDirector<CallCenter, HardSoftScore> buildScoreDirector() {
+        SolverConfig solverConfig = new SolverConfig()
+                .withSolutionClass(CallCenter.class)
+                .withEntityClasses(PreviousCallOrAgent.class, Call.class)
+                .withConstraintProviderClass(CallCenterConstraintsProvider.class);
+        // The constraint provider is a HardSoftScore one
+        @SuppressWarnings("unchecked")
+        InnerScoreDirector<CallCenter, HardSoftScore> scoreDirector =
+                (InnerScoreDirector<CallCenter, HardSoftScore>) new DefaultSolverFactory<CallCenter>(solverConfig)
+                        .getScoreDirectorFactory().buildScoreDirector();
+        return scoreDirector;
+    }
+
+    private static void changePrevious(InnerScoreDirector<CallCenter, HardSoftScore> scoreDirector, Call call,
+            PreviousCallOrAgent previous) {
+        scoreDirector.beforeVariableChanged(call, "previousCallOrAgent");
+        call.setPreviousCallOrAgent(previous);
+        scoreDirector.afterVariableChanged(call, "previousCallOrAgent");
+    }
+
+    private static void assertEstimates(List<Agent> agents) {
+        for (Agent agent : agents) {
+            long expectedSeconds = 0L;
+            for (Call call : agent.getAssignedCalls()) {
+                assertThat(call.getEstimatedWaitingSeconds()).isEqualTo(expectedSeconds);
+                expectedSeconds += call.getDuration().getSeconds();
+            }
+        }
+    }
+
+}
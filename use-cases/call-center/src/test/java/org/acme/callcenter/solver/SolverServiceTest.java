@@ -97,7 +97,7 @@ public class SolverServiceTest {
                 .findFirst()
                 .orElseGet(() -> Assertions.fail("The expected prolonged call has not been found."));
         assertThat(prolongedCall.getDuration()).hasMinutes(1L);
-        assertThat(prolongedCall.getDurationTillPickUp()).hasMinutes(1L);
+        assertThat(prolongedCall.getDurationTillPickUp(bestSolution.getClockEpochSecond())).hasMinutes(1L);
     }
 
     @Test
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.callcenter.solver.change;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.acme.callcenter.domain.Agent;
+import org.acme.callcenter.domain.Call;
+import org.acme.callcenter.domain.CallCenter;
+import org.acme.callcenter.domain.PreviousCallOrAgent;
+import org.acme.callcenter.domain.Skill;
+import org.acme.callcenter.solver.CallCenterConstraintsProvider;
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+import org.optaplanner.core.impl.solver.DefaultSolverFactory;
+
+class CoalescedCallProblemFactChangeTest {
+
+    @Test
+    void addedAndRemovedCallIsNeverAdded() {
+        CoalescedCallProblemFactChange change = new CoalescedCallProblemFactChange();
+        Call call = new Call(1L, "123-456-7891", Skill.ENGLISH);
+        change.addCall(call);
+        change.prolongCall(call.getId());
+        change.removeCall(call.getId());
+        assertThat(change.isEmpty()).isTrue();
+        assertThat(change.getEventCount()).isEqualTo(3);
+    }
+
+    @Test
+    void doChange() {
+        Agent agent = new Agent(1L, "Carl", Skill.ENGLISH);
+        Call call1 = new Call(1L, "123-456-7891", Skill.ENGLISH);
+        Call call2 = new Call(2L, "123-456-7892", Skill.ENGLISH);
+        Call call3 = new Call(3L, "123-456-7893", Skill.ENGLISH);
+        chain(agent, call1);
+        chain(call1, call2);
+        chain(call2, call3);
+        List<Call> calls = new ArrayList<>(List.of(call1, call2, call3));
+        CallCenter callCenter = new CallCenter(EnumSet.of(Skill.ENGLISH), List.of(agent), calls);
+
+        try (InnerScoreDirector<CallCenter, HardSoftScore> scoreDirector = buildScoreDirector()) {
+            scoreDirector.setWorkingSolution(callCenter);
+            scoreDirector.calculateScore();
+            CoalescedCallProblemFactChange change = new CoalescedCallProblemFactChange();
+            Call call4 = new Call(4L, "123-456-7894", Skill.ENGLISH);
+            change.addCall(call4);
+            // Two neighbours in the same chain
+            change.removeCall(call1.getId());
+            change.removeCall(call2.getId());
+            change.prolongCall(call2.getId());
+            change.prolongCall(call3.getId());
+            change.prolongCall(call3.getId());
+            change.pinCall(call3);
+            change.pinCall(call3);
+            change.doChange(scoreDirector);
+
+            assertThat(callCenter.getCalls()).containsExactly(call3, call4);
+            assertThat(call3.getPreviousCallOrAgent()).isSameAs(agent);
+            assertThat(agent.getAssignedCalls()).containsExactly(call3);
+            assertThat(call3.getDuration()).isEqualTo(Duration.ofMinutes(2L));
+            assertThat(call3.isPinned()).isTrue();
+            assertThat(call3.getEstimatedWaiting()).isEqualTo(Duration.ZERO);
+            assertThat(call4.getPreviousCallOrAgent()).isNull();
+            scoreDirector.assertWorkingScoreFromScratch(scoreDirector.calculateScore(), "Coalesced change");
+        }
+    }
+
+    @Test
+    void advanceClock() {
+        Agent agent = new Agent(1L, "Carl", Skill.ENGLISH);
+        Call call1 = new Call(1L, "123-456-7891", EnumSet.of(Skill.ENGLISH), 60);
+        Call call2 = new Call(2L, "123-456-7892", EnumSet.of(Skill.ENGLISH), 60);
+        chain(agent, call1);
+        chain(call1, call2);
+        call2.setEstimatedWaiting(Duration.ofSeconds(60L));
+        CallCenter callCenter = new CallCenter(EnumSet.of(Skill.ENGLISH), List.of(agent),
+                new ArrayList<>(List.of(call1, call2)));
+        // Just before midnight, so the clock passes it
+        Instant clockTime = Instant.parse("2021-07-01T23:59:50Z");
+        callCenter.setClockEpochSecond(clockTime.getEpochSecond());
+
+        try (InnerScoreDirector<CallCenter, HardSoftScore> scoreDirector = buildScoreDirector()) {
+            scoreDirector.setWorkingSolution(callCenter);
+            scoreDirector.calculateScore();
+            CoalescedCallProblemFactChange pinChange = new CoalescedCallProblemFactChange();
+            pinChange.pinCall(call1);
+            pinChange.doChange(scoreDirector);
+            assertThat(call1.getPickUpTime()).isEqualTo(clockTime);
+
+            CoalescedCallProblemFactChange clockChange = new CoalescedCallProblemFactChange();
+            clockChange.advanceClock(clockTime.plusSeconds(10L));
+            clockChange.advanceClock(clockTime.plusSeconds(25L));
+            assertThat(clockChange.isEmpty()).isFalse();
+            assertThat(clockChange.getEventCount()).isEqualTo(2);
+            clockChange.doChange(scoreDirector);
+
+            assertThat(callCenter.getClockEpochSecond()).isEqualTo(clockTime.plusSeconds(25L).getEpochSecond());
+            assertThat(call1.getEstimatedWaiting()).isEqualTo(Duration.ZERO);
+            assertThat(call2.getEstimatedWaiting()).isEqualTo(Duration.ofSeconds(35L));
+            scoreDirector.assertWorkingScoreFromScratch(scoreDirector.calculateScore(), "Advanced clock");
+        }
+    }
+
+    private static void chain(PreviousCallOrAgent previousCallOrAgent, Call call) {
+        call.setPreviousCallOrAgent(previousCallOrAgent);
+        previousCallOrAgent.setNextCall(call);
+        call.setAgent(previousCallOrAgent instanceof Agent ? (Agent) previousCallOrAgent
+                : ((Call) previousCallOrAgent).getAgent());
+        call.setEstimatedWaiting(Duration.ZERO);
+    }
+
+    private static InnerScoreDirector<CallCenter, HardSoftScore> buildScoreDirector() {
+        SolverConfig solverConfig = new SolverConfig()
+                .withSolutionClass(CallCenter.class)
+                .withEntityClasses(PreviousCallOrAgent.class, Call.class)
+                .withConstraintProviderClass(CallCenterConstraintsProvider.class);
+        // The constraint provider is a HardSoftScore one
+        @SuppressWarnings("unchecked")
+        InnerScoreDirector<CallCenter, HardSoftScore> scoreDirector =
+                (InnerScoreDirector<CallCenter, HardSoftScore>) new DefaultSolverFactory<CallCenter>(solverConfig)
+                        .getScoreDirectorFactory().buildScoreDirector();
+        return scoreDirector;
+    }
+}
@@ -99,7 +99,8 @@ public class DemoDataGenerator {
     VaccinationScheduleRepository vaccinationScheduleRepository;
 
     public void startup(@Observes StartupEvent startupEvent) {
-        vaccinationScheduleRepository.save(generate(vaccinationCenterCount, totalBoothCount, 0.0));
+        vaccinationScheduleRepository.save(VaccinationScheduleRepository.DEFAULT_SCHEDULE_ID,
+                generate(vaccinationCenterCount, totalBoothCount, 0.0));
     }
 
     public VaccinationSchedule generate(int vaccinationCenterCount, int totalBoothCount, double pinnedAppointmentRatio) {
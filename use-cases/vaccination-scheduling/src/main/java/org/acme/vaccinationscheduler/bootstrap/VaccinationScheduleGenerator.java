@@ -0,0 +1,314 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.bootstrap;
+
+import static java.time.temporal.ChronoUnit.YEARS;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.Location;
+import org.acme.vaccinationscheduler.domain.Person;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.domain.VaccineType;
+import org.acme.vaccinationscheduler.solver.geo.DistanceCalculator;
+import org.acme.vaccinationscheduler.solver.geo.EuclideanDistanceCalculator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates datasets of the same shape as the {@link DemoDataGenerator},
+ * but without CDI, from 1 000 up to millions of persons.
+ * <p>
+ * The appointments and persons are generated in parallel on the {@link java.util.concurrent.ForkJoinPool}.
+ * Every vaccination center, booth and person draws from its own random sequence, derived from the seed and its index,
+ * so the same seed always generates the same dataset, regardless of the number of threads.
+ */
+public class VaccinationScheduleGenerator {
+
+    public static final int WINDOW_DAYS_LENGTH = 5;
+    public static final LocalTime DAY_START_TIME = LocalTime.of(9, 0);
+    public static final int TIMESLOTS_PER_BOOTH_PER_DAY = 8;
+    public static final int INJECTIONS_PER_BOOTH_PER_TIMESLOT = 4;
+    public static final int APPOINTMENTS_PER_BOOTH = WINDOW_DAYS_LENGTH * TIMESLOTS_PER_BOOTH_PER_DAY
+            * INJECTIONS_PER_BOOTH_PER_TIMESLOT;
+    /**
+     * Same ratio as the {@link DemoDataGenerator}: 50 vaccination centers for 2000 booths.
+     */
+    public static final int BOOTHS_PER_VACCINATION_CENTER = 40;
+
+    // Each kind of random decision has its own stream of random sequences, indexed by the entity index
+    private static final long VACCINATION_CENTER_STREAM = 1L;
+    private static final long BOOTH_STREAM = 2L;
+    private static final long PERSON_STREAM = 3L;
+    private static final long PINNED_STREAM = 4L;
+
+    protected static final Logger logger = LoggerFactory.getLogger(VaccinationScheduleGenerator.class);
+
+    private final long seed;
+    private final LocalDate windowStartDate;
+    private final double minimumLatitude;
+    private final double maximumLatitude;
+    private final double minimumLongitude;
+    private final double maximumLongitude;
+
+    /**
+     * Default latitude and longitude window: city of Atlanta, US.
+     * @param seed the same seed generates the same dataset
+     * @param windowStartDate never null, the first day with appointments
+     */
+    public VaccinationScheduleGenerator(long seed, LocalDate windowStartDate) {
+        this(seed, windowStartDate, 33.40, 34.10, -84.90, -83.90);
+    }
+
+    public VaccinationScheduleGenerator(long seed, LocalDate windowStartDate,
+            double minimumLatitude, double maximumLatitude, double minimumLongitude, double maximumLongitude) {
+        this.seed = seed;
+        this.windowStartDate = windowStartDate;
+        this.minimumLatitude = minimumLatitude;
+        this.maximumLatitude = maximumLatitude;
+        this.minimumLongitude = minimumLongitude;
+        this.maximumLongitude = maximumLongitude;
+    }
+
+    /**
+     * Scales the number of booths and vaccination centers with the number of persons,
+     * so there are 20% more persons than appointments, like in the {@link DemoDataGenerator}.
+     * @param personCount at least 1
+     * @return never null
+     */
+    public VaccinationSchedule generate(int personCount) {
+        int totalBoothCount = Math.max(1, (int) Math.round(personCount * 5.0 / 6.0 / APPOINTMENTS_PER_BOOTH));
+        int vaccinationCenterCount = Math.max(1, totalBoothCount / BOOTHS_PER_VACCINATION_CENTER);
+        return generate(vaccinationCenterCount, totalBoothCount, personCount, 0.0);
+    }
+
+    /**
+     * @param vaccinationCenterCount at least 1
+     * @param totalBoothCount at least vaccinationCenterCount
+     * @param personCount at least 0
+     * @param pinnedAppointmentRatio the ratio of appointments that are already booked by a pinned person
+     * @return never null
+     */
+    public VaccinationSchedule generate(int vaccinationCenterCount, int totalBoothCount, int personCount,
+            double pinnedAppointmentRatio) {
+        if (vaccinationCenterCount < 1 || totalBoothCount < vaccinationCenterCount) {
+            throw new IllegalArgumentException("The totalBoothCount (" + totalBoothCount
+                    + ") must be at least the vaccinationCenterCount (" + vaccinationCenterCount + ") and 1.");
+        }
+        long startNanos = System.nanoTime();
+        List<VaccineType> vaccineTypeList = Arrays.asList(
+                new VaccineType("Pfizer"),
+                new VaccineType("Moderna"),
+                new VaccineType("AstraZeneca"));
+        VaccinationCenter[] vaccinationCenters = generateVaccinationCenters(vaccinationCenterCount);
+        Appointment[] appointments = generateAppointments(totalBoothCount, vaccineTypeList, vaccinationCenters);
+        Appointment[] pinnedAppointments = pickPinnedAppointments(appointments, pinnedAppointmentRatio);
+        Person[] persons = new Person[personCount];
+        Arrays.parallelSetAll(persons, i -> generatePerson(i, vaccineTypeList, vaccinationCenters,
+                i < pinnedAppointments.length ? pinnedAppointments[i] : null));
+
+        logger.info("Generated dataset with {} appointments and {} persons in {} ms.",
+                appointments.length, persons.length, (System.nanoTime() - startNanos) / 1_000_000L);
+        return new VaccinationSchedule(vaccineTypeList, new ArrayList<>(Arrays.asList(vaccinationCenters)),
+                new ArrayList<>(Arrays.asList(appointments)), new ArrayList<>(Arrays.asList(persons)));
+    }
+
+    private VaccinationCenter[] generateVaccinationCenters(int vaccinationCenterCount) {
+        VaccinationCenter[] vaccinationCenters = new VaccinationCenter[vaccinationCenterCount];
+        String[] names = DemoDataGenerator.VACCINATION_CENTER_NAMES;
+        for (int i = 0; i < vaccinationCenterCount; i++) {
+            String name = names[i % names.length] + (i < names.length ? "" : " " + (i / names.length + 1));
+            vaccinationCenters[i] = new VaccinationCenter(Integer.toString(i), name,
+                    pickLocation(createRandom(VACCINATION_CENTER_STREAM, i)));
+        }
+        return vaccinationCenters;
+    }
+
+    private Appointment[] generateAppointments(int totalBoothCount, List<VaccineType> vaccineTypeList,
+            VaccinationCenter[] vaccinationCenters) {
+        int vaccinationCenterCount = vaccinationCenters.length;
+        int massCount = Math.max(1, (int) Math.round(DemoDataGenerator.massVaccinationCenterRatio * vaccinationCenterCount));
+        int massExtraBoothCount = totalBoothCount - vaccinationCenterCount;
+        // Booth index to its vaccination center and its booth id within that vaccination center
+        VaccinationCenter[] boothVaccinationCenters = new VaccinationCenter[totalBoothCount];
+        String[] boothIds = new String[totalBoothCount];
+        int boothIndex = 0;
+        for (int i = 0; i < vaccinationCenterCount; i++) {
+            // The + i distributes the remainder, for example if massExtraBoothCount=8 and massCount=3
+            int boothCount = i < massCount ? 1 + (massExtraBoothCount + i) / massCount : 1;
+            for (int boothId = 0; boothId < boothCount; boothId++) {
+                boothVaccinationCenters[boothIndex] = vaccinationCenters[i];
+                boothIds[boothIndex] = Integer.toString(boothId);
+                boothIndex++;
+            }
+        }
+        LocalDateTime[] dateTimes = new LocalDateTime[APPOINTMENTS_PER_BOOTH];
+        int minutesPerInjection = 60 / INJECTIONS_PER_BOOTH_PER_TIMESLOT;
+        for (int i = 0; i < APPOINTMENTS_PER_BOOTH; i++) {
+            int dayIndex = i / (TIMESLOTS_PER_BOOTH_PER_DAY * INJECTIONS_PER_BOOTH_PER_TIMESLOT);
+            int minutes = (i % (TIMESLOTS_PER_BOOTH_PER_DAY * INJECTIONS_PER_BOOTH_PER_TIMESLOT)) * minutesPerInjection;
+            dateTimes[i] = LocalDateTime.of(windowStartDate.plusDays(dayIndex), DAY_START_TIME.plusMinutes(minutes));
+        }
+        // Each booth has one vaccine type per day
+        VaccineType[] boothDayVaccineTypes = new VaccineType[totalBoothCount * WINDOW_DAYS_LENGTH];
+        for (int i = 0; i < totalBoothCount; i++) {
+            SplittableRandom random = createRandom(BOOTH_STREAM, i);
+            for (int dayIndex = 0; dayIndex < WINDOW_DAYS_LENGTH; dayIndex++) {
+                boothDayVaccineTypes[i * WINDOW_DAYS_LENGTH + dayIndex] = pickVaccineType(random, -1, vaccineTypeList);
+            }
+        }
+        int appointmentsPerBoothPerDay = APPOINTMENTS_PER_BOOTH / WINDOW_DAYS_LENGTH;
+        Appointment[] appointments = new Appointment[totalBoothCount * APPOINTMENTS_PER_BOOTH];
+        Arrays.parallelSetAll(appointments, i -> {
+            int booth = i / APPOINTMENTS_PER_BOOTH;
+            int dateTimeIndex = i % APPOINTMENTS_PER_BOOTH;
+            VaccineType vaccineType = boothDayVaccineTypes[booth * WINDOW_DAYS_LENGTH + dateTimeIndex / appointmentsPerBoothPerDay];
+            return new Appointment(boothVaccinationCenters[booth], boothIds[booth], dateTimes[dateTimeIndex], vaccineType);
+        });
+        return appointments;
+    }
+
+    /**
+     * @return never null, a random selection of the appointments before the last day, in random order
+     */
+    private Appointment[] pickPinnedAppointments(Appointment[] appointments, double pinnedAppointmentRatio) {
+        if (pinnedAppointmentRatio <= 0.0) {
+            return new Appointment[0];
+        }
+        LocalDate windowEndDate = windowStartDate.plusDays(WINDOW_DAYS_LENGTH - 1);
+        Appointment[] candidates = Arrays.stream(appointments)
+                .filter(appointment -> appointment.getDateTime().toLocalDate().isBefore(windowEndDate))
+                .toArray(Appointment[]::new);
+        int pinnedAppointmentSize = Math.min((int) (appointments.length * pinnedAppointmentRatio), candidates.length);
+        // Partial Fisher-Yates shuffle: only the first pinnedAppointmentSize elements are needed
+        SplittableRandom random = createRandom(PINNED_STREAM, 0);
+        for (int i = 0; i < pinnedAppointmentSize; i++) {
+            int j = i + random.nextInt(candidates.length - i);
+            Appointment swap = candidates[i];
+            candidates[i] = candidates[j];
+            candidates[j] = swap;
+        }
+        return Arrays.copyOf(candidates, pinnedAppointmentSize);
+    }
+
+    private Person generatePerson(int i, List<VaccineType> vaccineTypeList, VaccinationCenter[] vaccinationCenters,
+            Appointment pinnedAppointment) {
+        SplittableRandom random = createRandom(PERSON_STREAM, i);
+        String[] firstNames = DemoDataGenerator.PERSON_FIRST_NAMES;
+        int lastNameI = i / firstNames.length;
+        String name = firstNames[i % firstNames.length]
+                + " " + (lastNameI < 26 ? ((char) ('A' + lastNameI)) + "." : lastNameI - 25);
+        Location location = pickLocation(random);
+        LocalDate birthdate = DemoDataGenerator.MINIMUM_BIRTH_DATE.plusDays(
+                random.nextInt(DemoDataGenerator.BIRTH_DATE_RANGE_LENGTH));
+        int age = (int) YEARS.between(birthdate, windowStartDate);
+        boolean healthcareWorker = random.nextDouble() < 0.05;
+        if (healthcareWorker) {
+            name = "Dr. " + name;
+        }
+        long priorityRating = age + (healthcareWorker ? 1_000 : 0);
+        boolean firstDoseInjected = random.nextDouble() < 0.25;
+        Person person;
+        if (!firstDoseInjected) {
+            person = new Person(Integer.toString(i), name, location, birthdate, priorityRating);
+        } else {
+            VaccineType firstDoseVaccineType = pickVaccineType(random, age, vaccineTypeList);
+            VaccinationCenter preferredVaccinationCenter = (random.nextDouble() > 0.10) ? null
+                    : findSecondNearestVaccinationCenter(location, vaccinationCenters);
+            LocalDate idealDate = windowStartDate.plusDays(random.nextInt(WINDOW_DAYS_LENGTH));
+            LocalDate readyDate = idealDate.minusDays(2);
+            LocalDate dueDate = idealDate.plusDays(WINDOW_DAYS_LENGTH - 2);
+            person = new Person(Integer.toString(i), name, location, birthdate, priorityRating,
+                    2, firstDoseVaccineType, null, null, preferredVaccinationCenter, readyDate, idealDate, dueDate);
+        }
+        if (pinnedAppointment != null) {
+            person.setAppointment(pinnedAppointment);
+            person.setPinned(true);
+        }
+        return person;
+    }
+
+    /**
+     * A linear scan instead of sorting all vaccination centers per person.
+     * @return null if there is only 1 vaccination center
+     */
+    private static VaccinationCenter findSecondNearestVaccinationCenter(Location location,
+            VaccinationCenter[] vaccinationCenters) {
+        DistanceCalculator distanceCalculator = new EuclideanDistanceCalculator();
+        VaccinationCenter nearest = null;
+        long nearestDistance = Long.MAX_VALUE;
+        VaccinationCenter secondNearest = null;
+        long secondNearestDistance = Long.MAX_VALUE;
+        for (VaccinationCenter vaccinationCenter : vaccinationCenters) {
+            long distance = distanceCalculator.calculateDistance(location, vaccinationCenter.getLocation());
+            if (distance < nearestDistance) {
+                secondNearest = nearest;
+                secondNearestDistance = nearestDistance;
+                nearest = vaccinationCenter;
+                nearestDistance = distance;
+            } else if (distance < secondNearestDistance) {
+                secondNearest = vaccinationCenter;
+                secondNearestDistance = distance;
+            }
+        }
+        return secondNearest;
+    }
+
+    private Location pickLocation(SplittableRandom random) {
+        double latitude = minimumLatitude + (random.nextDouble() * (maximumLatitude - minimumLatitude));
+        double longitude = minimumLongitude + (random.nextDouble() * (maximumLongitude - minimumLongitude));
+        return new Location(latitude, longitude);
+    }
+
+    /**
+     * @param age -1 to ignore the age limits
+     */
+    private static VaccineType pickVaccineType(SplittableRandom random, int age, List<VaccineType> vaccineTypeList) {
+        List<VaccineType> suitableVaccineTypeList = new ArrayList<>(vaccineTypeList.size());
+        for (VaccineType vaccineType : vaccineTypeList) {
+            boolean minimumAgeOk = age < 0 || vaccineType.getMinimumAge() == null || age >= vaccineType.getMinimumAge();
+            boolean maximumAgeOk = age < 0 || vaccineType.getMaximumAge() == null || age <= vaccineType.getMaximumAge();
+            if (minimumAgeOk && maximumAgeOk) {
+                suitableVaccineTypeList.add(vaccineType);
+            }
+        }
+        return suitableVaccineTypeList.get(random.nextInt(suitableVaccineTypeList.size()));
+    }
+
+    private SplittableRandom createRandom(long stream, int index) {
+        // The mix spreads consecutive seeds, so the sequences of consecutive indexes don't overlap
+        return new SplittableRandom(mix64(seed + stream * 0x9E3779B97F4A7C15L + index));
+    }
+
+    /**
+     * Stafford's variant 13 of the MurmurHash3 finalizer, a bijection on long.
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.bootstrap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.persistence.VaccinationScheduleBinaryIO;
+import org.acme.vaccinationscheduler.persistence.VaccinationScheduleCsvIO;
+import org.acme.vaccinationscheduler.persistence.VaccinationScheduleIO;
+
+/**
+ * Command line tool to generate (see {@link VaccinationScheduleGenerator}), convert and import bulk datasets
+ * in the CSV format ({@code .csv}, see {@link VaccinationScheduleCsvIO})
+ * or the binary format ({@code .vsb}, see {@link VaccinationScheduleBinaryIO}).
+ * <p>
+ * After {@code mvn package}, run it with the application's classpath, for example:
+ * <pre>
+ * java -cp "target/classes:target/quarkus-app/lib/main/*" org.acme.vaccinationscheduler.bootstrap.VaccinationScheduleImportCli \
+ *     generate target/schedule.vsb 384000
+ * java -cp "target/classes:target/quarkus-app/lib/main/*" org.acme.vaccinationscheduler.bootstrap.VaccinationScheduleImportCli \
+ *     import target/schedule.vsb http://localhost:8080/vaccinationSchedule/import
+ * </pre>
+ */
+public class VaccinationScheduleImportCli {
+
+    private static final String DEFAULT_IMPORT_URL = "http://localhost:8080/vaccinationSchedule/import";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            printUsageAndExit();
+        }
+        Path path = Path.of(args[1]);
+        switch (args[0]) {
+            case "generate":
+                int personCount = args.length > 2 ? Integer.parseInt(args[2]) : 384_000;
+                long seed = args.length > 3 ? Long.parseLong(args[3]) : 0L;
+                LocalDate windowStartDate = args.length > 4 ? LocalDate.parse(args[4])
+                        : LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+                VaccinationSchedule schedule = new VaccinationScheduleGenerator(seed, windowStartDate)
+                        .generate(personCount);
+                write(schedule, path);
+                break;
+            case "convert":
+                if (args.length < 3) {
+                    printUsageAndExit();
+                }
+                write(read(path), Path.of(args[2]));
+                break;
+            case "import":
+                importFile(path, URI.create(args.length > 2 ? args[2] : DEFAULT_IMPORT_URL));
+                break;
+            default:
+                printUsageAndExit();
+        }
+    }
+
+    private static VaccinationSchedule read(Path path) throws IOException {
+        long startNanos = System.nanoTime();
+        VaccinationSchedule schedule;
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            schedule = VaccinationScheduleIO.forFileName(path.toString()).read(inputStream);
+        }
+        System.out.printf("Read %d appointments and %d persons from %s in %d ms.%n",
+                schedule.getAppointmentList().size(), schedule.getPersonList().size(), path,
+                (System.nanoTime() - startNanos) / 1_000_000L);
+        return schedule;
+    }
+
+    private static void write(VaccinationSchedule schedule, Path path) throws IOException {
+        long startNanos = System.nanoTime();
+        try (OutputStream outputStream = Files.newOutputStream(path)) {
+            VaccinationScheduleIO.forFileName(path.toString()).write(schedule, outputStream);
+        }
+        System.out.printf("Wrote %d appointments and %d persons to %s (%d bytes) in %d ms.%n",
+                schedule.getAppointmentList().size(), schedule.getPersonList().size(), path, Files.size(path),
+                (System.nanoTime() - startNanos) / 1_000_000L);
+    }
+
+    private static void importFile(Path path, URI uri) throws IOException, InterruptedException {
+        String mediaType = VaccinationScheduleIO.forFileName(path.toString()) instanceof VaccinationScheduleBinaryIO
+                ? VaccinationScheduleBinaryIO.MEDIA_TYPE : VaccinationScheduleCsvIO.MEDIA_TYPE;
+        long startNanos = System.nanoTime();
+        // Streams the file, so the CLI doesn't load it in memory either
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", mediaType)
+                .POST(HttpRequest.BodyPublishers.ofFile(path))
+                .build();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("The import of " + path + " to " + uri
+                    + " failed with HTTP status (" + response.statusCode() + "): " + response.body());
+        }
+        System.out.printf("Imported %s (%d bytes) to %s in %d ms.%n", path, Files.size(path), uri,
+                (System.nanoTime() - startNanos) / 1_000_000L);
+    }
+
+    private static void printUsageAndExit() {
+        System.err.println("Usage:\n"
+                + "  generate <file.csv|file.vsb> [personCount, defaults to 384000] [seed, defaults to 0]"
+                + " [windowStartDate, defaults to next Monday]\n"
+                + "  convert <inputFile.csv|inputFile.vsb> <outputFile.csv|outputFile.vsb>\n"
+                + "  import <file.csv|file.vsb> [url, defaults to " + DEFAULT_IMPORT_URL + "]");
+        System.exit(1);
+    }
+
+}
@@ -16,7 +16,10 @@
 
 package org.acme.vaccinationscheduler.domain;
 
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class,
@@ -28,6 +31,13 @@ public class VaccinationCenter {
     private String name;
     private Location location;
 
+    /**
+     * Dense index in {@link VaccinationSchedule#getVaccinationCenterList()}, to look up distances in O(1).
+     * Assigned by {@link VaccinationSolution#VaccinationSolution(VaccinationSchedule)}.
+     */
+    @JsonIgnore
+    private int index;
+
     // No-arg constructor required for Jackson
     public VaccinationCenter() {}
 
@@ -58,4 +68,13 @@ public class VaccinationCenter {
         return location;
     }
 
+    @JsonIgnore
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
 }
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.domain.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.Person;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Translates each best solution of one solver run back into a {@link VaccinationSchedule},
+ * like {@link VaccinationSolution#toSchedule()}, but remembers the previous translation
+ * and only re-maps the persons whose {@link PersonAssignment#getVaccinationSlot()} changed.
+ * <p>
+ * A person that stays in the same {@link VaccinationSlot} keeps the same {@link Appointment}.
+ * Each slot hands out its appointments through a bitset of taken positions,
+ * so a slot never hands out the same appointment twice.
+ * <p>
+ * During continuous planning, the problem fact changes add and remove persons and slots:
+ * the translator picks those up on the next call, without re-mapping the persons that didn't move.
+ * A person that gets pinned keeps {@link PersonAssignment#getPinnedAppointment()}, which takes that position in its slot,
+ * so the slot never hands it out to another person.
+ * The translator copies that pin into the {@link Person}, because the solver thread doesn't write to that instance.
+ * <p>
+ * Not thread-safe: use one instance per solver run, called from the best solution consumer only.
+ */
+public class IncrementalScheduleTranslator {
+
+    protected static final Logger logger = LoggerFactory.getLogger(IncrementalScheduleTranslator.class);
+
+    private List<Person> personList = null;
+    /**
+     * The list of the previous call, to only rebuild {@link #appointmentHandoutMap} if slots were added or removed.
+     */
+    private List<VaccinationSlot> vaccinationSlotList = null;
+    private Map<VaccinationSlot, AppointmentHandout> appointmentHandoutMap = new IdentityHashMap<>();
+    /**
+     * Indexed by {@link PersonAssignment#getIndex()}: the person that the other arrays hold the handout of.
+     * Continuous planning can reuse the index of a removed person.
+     */
+    private Person[] handoutPersons = new Person[0];
+    /**
+     * Indexed by {@link PersonAssignment#getIndex()}: the slot that handed out the person's current appointment.
+     */
+    private VaccinationSlot[] handoutVaccinationSlots = new VaccinationSlot[0];
+    /**
+     * Indexed by {@link PersonAssignment#getIndex()}: the position of the person's current appointment in that slot.
+     */
+    private int[] handoutPositions = new int[0];
+    /**
+     * The indexes of the pinned persons whose appointment already took its position.
+     */
+    private final BitSet pinnedIndexes = new BitSet();
+
+    /**
+     * @param solution never null, a (clone of a) working solution of the same solver run as the previous call
+     * @return never null
+     */
+    public VaccinationSchedule toSchedule(VaccinationSolution solution) {
+        updateAppointmentHandouts(solution.getVaccinationSlotList());
+        List<PersonAssignment> personAssignmentList = solution.getPersonAssignmentList();
+        boolean personListChanged = personList == null || personList.size() != personAssignmentList.size();
+        BitSet presentIndexes = new BitSet(handoutPersons.length);
+        BitSet newIndexes = new BitSet();
+        int i = 0;
+        for (PersonAssignment personAssignment : personAssignmentList) {
+            Person person = personAssignment.getPerson();
+            if (!personListChanged && personList.get(i) != person) {
+                personListChanged = true;
+            }
+            i++;
+            int index = personAssignment.getIndex();
+            ensureIndexCapacity(index);
+            presentIndexes.set(index);
+            if (handoutPersons[index] != person) {
+                release(index);
+                pinnedIndexes.clear(index);
+                handoutPersons[index] = person;
+                newIndexes.set(index);
+            }
+            if (personAssignment.isPinned() && !pinnedIndexes.get(index)) {
+                pinnedIndexes.set(index);
+                takePinnedAppointment(personAssignment);
+            }
+        }
+        // Removed persons free their appointment
+        for (int index = presentIndexes.nextClearBit(0); index < handoutPersons.length;
+                index = presentIndexes.nextClearBit(index + 1)) {
+            if (handoutPersons[index] != null) {
+                release(index);
+                pinnedIndexes.clear(index);
+                handoutPersons[index] = null;
+            }
+        }
+        List<PersonAssignment> changedPersonAssignmentList = new ArrayList<>();
+        // Release all appointments first, so a swap between 2 full slots doesn't run out of appointments
+        for (PersonAssignment personAssignment : personAssignmentList) {
+            int index = personAssignment.getIndex();
+            if (!personAssignment.isPinned() && (newIndexes.get(index)
+                    || personAssignment.getVaccinationSlot() != handoutVaccinationSlots[index])) {
+                release(index);
+                changedPersonAssignmentList.add(personAssignment);
+            }
+        }
+        for (PersonAssignment personAssignment : changedPersonAssignmentList) {
+            VaccinationSlot vaccinationSlot = personAssignment.getVaccinationSlot();
+            Appointment appointment = null;
+            if (vaccinationSlot != null) {
+                AppointmentHandout appointmentHandout = appointmentHandoutMap.get(vaccinationSlot);
+                int index = personAssignment.getIndex();
+                int position = appointmentHandout.take(index);
+                if (position < 0) {
+                    logger.error("The solution is infeasible: the person (" + personAssignment
+                            + ") is assigned to vaccinationSlot (" + vaccinationSlot
+                            + ") but all the appointments are already taken, so leaving that person unassigned.");
+                } else {
+                    handoutVaccinationSlots[index] = vaccinationSlot;
+                    handoutPositions[index] = position;
+                    appointment = appointmentHandout.get(position);
+                }
+            }
+            // No need to clone Person because during solving, the constraints ignore Person.appointment
+            personAssignment.getPerson().setAppointment(appointment);
+        }
+        if (personListChanged) {
+            // Every best solution shares the same Person instances, so only rebuild it when persons are added or removed
+            personList = new ArrayList<>(personAssignmentList.size());
+            for (PersonAssignment personAssignment : personAssignmentList) {
+                personList.add(personAssignment.getPerson());
+            }
+        }
+        VaccinationSchedule schedule = new VaccinationSchedule(solution.getVaccineTypeList(),
+                solution.getVaccinationCenterList(), solution.getAppointmentList(), personList);
+        schedule.setScore(solution.getScore());
+        return schedule;
+    }
+
+    private void updateAppointmentHandouts(List<VaccinationSlot> vaccinationSlotList) {
+        if (vaccinationSlotList == this.vaccinationSlotList) {
+            return;
+        }
+        // Problem fact changes replace the slot list, so keep the handouts of the slots that remain
+        Map<VaccinationSlot, AppointmentHandout> oldAppointmentHandoutMap = appointmentHandoutMap;
+        appointmentHandoutMap = new IdentityHashMap<>(vaccinationSlotList.size());
+        for (VaccinationSlot vaccinationSlot : vaccinationSlotList) {
+            AppointmentHandout appointmentHandout = oldAppointmentHandoutMap.get(vaccinationSlot);
+            if (appointmentHandout == null) {
+                appointmentHandout = new AppointmentHandout(vaccinationSlot.getUnscheduledAppointmentList());
+            }
+            appointmentHandoutMap.put(vaccinationSlot, appointmentHandout);
+        }
+        this.vaccinationSlotList = vaccinationSlotList;
+    }
+
+    private void ensureIndexCapacity(int index) {
+        if (index < handoutPersons.length) {
+            return;
+        }
+        // Continuous planning adds persons, and removes persons so the indexes aren't necessarily dense
+        int length = Math.max(index + 1, handoutPersons.length * 3 / 2);
+        handoutPersons = Arrays.copyOf(handoutPersons, length);
+        handoutVaccinationSlots = Arrays.copyOf(handoutVaccinationSlots, length);
+        handoutPositions = Arrays.copyOf(handoutPositions, length);
+    }
+
+    private void release(int index) {
+        VaccinationSlot handoutVaccinationSlot = handoutVaccinationSlots[index];
+        if (handoutVaccinationSlot == null) {
+            return;
+        }
+        AppointmentHandout appointmentHandout = appointmentHandoutMap.get(handoutVaccinationSlot);
+        // Null if the slot was removed
+        if (appointmentHandout != null) {
+            appointmentHandout.release(handoutPositions[index]);
+        }
+        handoutVaccinationSlots[index] = null;
+    }
+
+    /**
+     * A person pinned during continuous planning keeps the appointment it confirmed,
+     * so that position is taken, even if the last translation handed it out to another person.
+     * A person that was already pinned in the {@link VaccinationSchedule} has an appointment
+     * outside of {@link VaccinationSlot#getUnscheduledAppointmentList()}, so it takes no position.
+     */
+    private void takePinnedAppointment(PersonAssignment personAssignment) {
+        int index = personAssignment.getIndex();
+        release(index);
+        VaccinationSlot vaccinationSlot = personAssignment.getVaccinationSlot();
+        Appointment appointment = personAssignment.getPinnedAppointment();
+        Person person = personAssignment.getPerson();
+        person.setAppointment(appointment);
+        person.setPinned(true);
+        if (vaccinationSlot == null || appointment == null) {
+            return;
+        }
+        AppointmentHandout appointmentHandout = appointmentHandoutMap.get(vaccinationSlot);
+        int position = appointmentHandout.indexOf(appointment);
+        if (position < 0) {
+            return;
+        }
+        int evictedIndex = appointmentHandout.take(position, index);
+        if (evictedIndex >= 0) {
+            // The next loop gives the evicted person another appointment
+            handoutVaccinationSlots[evictedIndex] = null;
+        }
+        handoutVaccinationSlots[index] = vaccinationSlot;
+        handoutPositions[index] = position;
+    }
+
+    private static final class AppointmentHandout {
+
+        private final List<Appointment> unscheduledAppointmentList;
+        private final BitSet takenPositions;
+        /**
+         * Indexed by position: the {@link PersonAssignment#getIndex()} that took it, only valid if the position is taken.
+         */
+        private final int[] takerIndexes;
+
+        private AppointmentHandout(List<Appointment> unscheduledAppointmentList) {
+            this.unscheduledAppointmentList = unscheduledAppointmentList;
+            takenPositions = new BitSet(unscheduledAppointmentList.size());
+            takerIndexes = new int[unscheduledAppointmentList.size()];
+        }
+
+        /**
+         * @return {@code -1} if all appointments are taken
+         */
+        private int take(int takerIndex) {
+            int position = takenPositions.nextClearBit(0);
+            if (position >= unscheduledAppointmentList.size()) {
+                return -1;
+            }
+            takenPositions.set(position);
+            takerIndexes[position] = takerIndex;
+            return position;
+        }
+
+        /**
+         * @return the index of the person that had taken that position, or {@code -1} if it was free
+         */
+        private int take(int position, int takerIndex) {
+            int evictedIndex = takenPositions.get(position) ? takerIndexes[position] : -1;
+            takenPositions.set(position);
+            takerIndexes[position] = takerIndex;
+            return evictedIndex;
+        }
+
+        private void release(int position) {
+            takenPositions.clear(position);
+        }
+
+        private Appointment get(int position) {
+            return unscheduledAppointmentList.get(position);
+        }
+
+        /**
+         * @return {@code -1} if the appointment isn't in this slot
+         */
+        private int indexOf(Appointment appointment) {
+            return unscheduledAppointmentList.indexOf(appointment);
+        }
+
+    }
+
+}
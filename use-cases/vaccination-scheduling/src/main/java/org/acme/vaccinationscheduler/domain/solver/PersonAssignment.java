@@ -16,8 +16,6 @@
 
 package org.acme.vaccinationscheduler.domain.solver;
 
-import static java.time.temporal.ChronoUnit.YEARS;
-
 import java.time.LocalDate;
 import java.util.Map;
 
@@ -28,6 +26,8 @@ import org.acme.vaccinationscheduler.domain.VaccinationCenter;
 import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
 import org.acme.vaccinationscheduler.domain.VaccineType;
 import org.acme.vaccinationscheduler.solver.PersonAssignmentDifficultyComparator;
+import org.acme.vaccinationscheduler.solver.VaccinationScheduleConstraintProvider;
+import org.acme.vaccinationscheduler.solver.geo.DistanceMatrix;
 import org.optaplanner.core.api.domain.entity.PlanningEntity;
 import org.optaplanner.core.api.domain.entity.PlanningPin;
 import org.optaplanner.core.api.domain.lookup.PlanningId;
@@ -38,8 +38,51 @@ public class PersonAssignment {
 
     private Person person;
 
-    private Map<VaccinationCenter, Long> distanceMap;
-    private Long nearestVaccinationCenterDistance;
+    /**
+     * Dense index of this person in the {@link VaccinationSolution#getPersonAssignmentList()}.
+     */
+    private int index;
+    /**
+     * Shared by all {@link PersonAssignment} instances of the same {@link VaccinationSolution},
+     * except for persons added during continuous planning, which share a matrix per batch.
+     */
+    private DistanceMatrix distanceMatrix;
+    /**
+     * Row of this person in the {@link #distanceMatrix}, usually the same as {@link #index}.
+     */
+    private int distanceMatrixRow;
+    private long nearestVaccinationCenterDistance;
+
+    // Derived from the person's dates, so score calculation doesn't need to create temporal objects
+    private long birthdateProlepticMonthDay;
+    /**
+     * {@link Long#MIN_VALUE} if there is no ready date.
+     */
+    private long readyEpochDay;
+    /**
+     * {@link Long#MIN_VALUE} if there is no ideal date.
+     */
+    private long idealEpochDay;
+    /**
+     * {@link Long#MAX_VALUE} if there is no due date.
+     */
+    private long dueEpochDay;
+    /**
+     * Bit {@link VaccinationSlot#getEligibilityBit()} is set if this person is eligible for the slots
+     * with that date and vaccine type, see {@link SlotEligibilityLayout}.
+     * One long per person, regardless of the number of slots.
+     */
+    private long eligibilityMask = 0L;
+    /**
+     * Copied from {@link Person#isPinned()}, because continuous planning pins persons
+     * and the {@link Person} instances are shared with the best solution clones.
+     */
+    private boolean pinned;
+    /**
+     * The appointment a pinned person confirmed, copied from {@link Person#getAppointment()} like {@link #pinned}.
+     * Null if not pinned.
+     */
+    private Appointment pinnedAppointment;
 
     /**
      * Following the bucket design pattern, a {@link VaccinationSlot} is a bucket of {@link Appointment} instances.
@@ -53,23 +96,46 @@ public class PersonAssignment {
     public PersonAssignment() {
     }
 
-    public PersonAssignment(Person person, Map<VaccinationCenter, Long> distanceMap) {
+    public PersonAssignment(Person person, int index, DistanceMatrix distanceMatrix) {
+        this(person, index, distanceMatrix, index);
+    }
+
+    public PersonAssignment(Person person, int index, DistanceMatrix distanceMatrix, int distanceMatrixRow) {
         this.person = person;
-        this.distanceMap = distanceMap;
-        if (distanceMap != null) {
-            nearestVaccinationCenterDistance = distanceMap.values().stream().mapToLong(Long::valueOf).min().orElse(0);
+        this.index = index;
+        this.distanceMatrix = distanceMatrix;
+        this.distanceMatrixRow = distanceMatrixRow;
+        if (distanceMatrix != null) {
+            nearestVaccinationCenterDistance = distanceMatrix.getMinimumDistance(distanceMatrixRow);
+        }
+        if (person.getBirthdate() != null) {
+            birthdateProlepticMonthDay = VaccinationSlot.toProlepticMonthDay(person.getBirthdate());
         }
+        readyEpochDay = person.getReadyDate() == null ? Long.MIN_VALUE : person.getReadyDate().toEpochDay();
+        idealEpochDay = person.getIdealDate() == null ? Long.MIN_VALUE : person.getIdealDate().toEpochDay();
+        dueEpochDay = person.getDueDate() == null ? Long.MAX_VALUE : person.getDueDate().toEpochDay();
+        pinned = person.isPinned();
+        pinnedAppointment = pinned ? person.getAppointment() : null;
     }
 
     public PersonAssignment(PersonAssignment original) {
         this.person = original.person;
-        this.distanceMap = original.distanceMap;
+        this.index = original.index;
+        this.distanceMatrix = original.distanceMatrix;
+        this.distanceMatrixRow = original.distanceMatrixRow;
         this.nearestVaccinationCenterDistance = original.nearestVaccinationCenterDistance;
+        this.birthdateProlepticMonthDay = original.birthdateProlepticMonthDay;
+        this.readyEpochDay = original.readyEpochDay;
+        this.idealEpochDay = original.idealEpochDay;
+        this.dueEpochDay = original.dueEpochDay;
+        this.eligibilityMask = original.eligibilityMask;
+        this.pinned = original.pinned;
+        this.pinnedAppointment = original.pinnedAppointment;
         this.vaccinationSlot = original.vaccinationSlot;
     }
 
     public PersonAssignment(String id, String name, Location homeLocation, Map<VaccinationCenter, Long> distanceMap, LocalDate birthdate, long priorityRating, VaccinationSlot vaccinationSlot) {
-        this(new Person(id, name, homeLocation, birthdate, priorityRating), distanceMap);
+        this(new Person(id, name, homeLocation, birthdate, priorityRating), 0, toDistanceMatrix(distanceMap));
         this.vaccinationSlot = vaccinationSlot;
     }
 
@@ -80,17 +146,36 @@ public class PersonAssignment {
             VaccinationSlot vaccinationSlot) {
         this(new Person(id, name, homeLocation, birthdate, priorityRating, doseNumber,
                 requiredVaccineType, preferredVaccineType, requiredVaccinationCenter, preferredVaccinationCenter,
-                readyDate, idealDate, dueDate), distanceMap);
+                readyDate, idealDate, dueDate), 0, toDistanceMatrix(distanceMap));
         this.vaccinationSlot = vaccinationSlot;
     }
 
+    /**
+     * For testing purposes only: a single row {@link DistanceMatrix},
+     * indexed by {@link VaccinationCenter#getIndex()}.
+     */
+    private static DistanceMatrix toDistanceMatrix(Map<VaccinationCenter, Long> distanceMap) {
+        if (distanceMap == null) {
+            return null;
+        }
+        int vaccinationCenterSize = distanceMap.keySet().stream()
+                .mapToInt(VaccinationCenter::getIndex).max().orElse(-1) + 1;
+        if (vaccinationCenterSize != distanceMap.size()) {
+            throw new IllegalArgumentException("The distanceMap's vaccination centers (" + distanceMap.keySet()
+                    + ") must have a unique dense index.");
+        }
+        DistanceMatrix distanceMatrix = new DistanceMatrix(1, vaccinationCenterSize);
+        distanceMap.forEach((vaccinationCenter, distance) -> distanceMatrix.setDistance(0, vaccinationCenter.getIndex(), distance));
+        return distanceMatrix;
+    }
+
     public long getDistanceTo(VaccinationCenter vaccinationCenter) {
-        Long distance = distanceMap.get(vaccinationCenter);
-        if (distance == null) {
+        int vaccinationCenterIndex = vaccinationCenter.getIndex();
+        if (vaccinationCenterIndex < 0 || vaccinationCenterIndex >= distanceMatrix.getToSize()) {
             throw new IllegalStateException("The person (" + person
                     + ") is lacking a distance to vaccination center (" + vaccinationCenter + ").");
         }
-        return distance;
+        return distanceMatrix.getDistance(distanceMatrixRow, vaccinationCenterIndex);
     }
 
     public long getRegretDistanceTo(VaccinationCenter vaccinationCenter) {
@@ -106,11 +191,81 @@ public class PersonAssignment {
         return distance - nearestVaccinationCenterDistance;
     }
 
+    /**
+     * @return -1 if there is no {@link #getVaccinationSlot()}
+     * @see #getAgeOn(VaccinationSlot)
+     */
     public long getAgeOnVaccinationDate() {
         if (vaccinationSlot == null) {
             return -1;
         }
-        return YEARS.between(person.getBirthdate(), vaccinationSlot.getDate());
+        return getAgeOn(vaccinationSlot);
+    }
+
+    /**
+     * Same result as {@code YEARS.between(getBirthdate(), vaccinationSlot.getDate())},
+     * without creating temporal objects.
+     * @param vaccinationSlot never null
+     * @return the age in full years on the date of the vaccinationSlot
+     */
+    public long getAgeOn(VaccinationSlot vaccinationSlot) {
+        return getAgeOn(vaccinationSlot.getDateProlepticMonthDay());
+    }
+
+    private long getAgeOn(long dateProlepticMonthDay) {
+        long months = (dateProlepticMonthDay - birthdateProlepticMonthDay) / 32L;
+        return months / 12L;
+    }
+
+    /**
+     * Cheap check to skip a slot before the score director calculates it.
+     * @param vaccinationSlot never null
+     * @return false if assigning this person to that slot breaks the required vaccination center
+     * or any of the hard constraints of {@link #isEligibleForDateAndVaccineType(VaccinationSlot)}
+     */
+    public boolean isEligibleFor(VaccinationSlot vaccinationSlot) {
+        VaccinationCenter requiredVaccinationCenter = getRequiredVaccinationCenter();
+        if (requiredVaccinationCenter != null && vaccinationSlot.getVaccinationCenter() != requiredVaccinationCenter) {
+            return false;
+        }
+        return isEligibleForDateAndVaccineType(vaccinationSlot);
+    }
+
+    /**
+     * Looks up the {@link #eligibilityMask}, unless the slot has no eligibility bit.
+     * @param vaccinationSlot never null
+     * @return false if assigning this person to that slot breaks the required vaccine type,
+     * the minimum or maximum age of the vaccine type, the ready date or the due date
+     */
+    public boolean isEligibleForDateAndVaccineType(VaccinationSlot vaccinationSlot) {
+        int eligibilityBit = vaccinationSlot.getEligibilityBit();
+        if (eligibilityBit >= 0) {
+            return (eligibilityMask & (1L << eligibilityBit)) != 0L;
+        }
+        return isEligibleFor(vaccinationSlot.getDateEpochDay(), vaccinationSlot.getDateProlepticMonthDay(),
+                vaccinationSlot.getVaccineType());
+    }
+
+    /**
+     * Any change to the hard constraints of {@link VaccinationScheduleConstraintProvider} must be replicated here.
+     */
+    boolean isEligibleFor(long dateEpochDay, long dateProlepticMonthDay, VaccineType vaccineType) {
+        VaccineType requiredVaccineType = getRequiredVaccineType();
+        if (requiredVaccineType != null && vaccineType != requiredVaccineType) {
+            return false;
+        }
+        // The age limits don't apply to a person that requires a vaccine type for their next dose
+        if (vaccineType.getMaximumAge() != null && requiredVaccineType == null) {
+            long age = getAgeOn(dateProlepticMonthDay);
+            if (vaccineType.getMinimumAge() != null && age < vaccineType.getMinimumAge()) {
+                return false;
+            }
+            if (age > vaccineType.getMaximumAge()) {
+                return false;
+            }
+        }
+        // Without a ready date or due date, they are Long.MIN_VALUE or Long.MAX_VALUE
+        return dateEpochDay >= readyEpochDay && dateEpochDay <= dueEpochDay;
     }
 
     @Override
@@ -126,6 +281,10 @@ public class PersonAssignment {
         return person;
     }
 
+    public int getIndex() {
+        return index;
+    }
+
     @PlanningId
     public String getId() {
         return person.getId();
@@ -179,9 +338,54 @@ public class PersonAssignment {
         return person.getDueDate();
     }
 
+    /**
+     * @return {@link Long#MIN_VALUE} if there is no {@link #getReadyDate()}
+     */
+    public long getReadyEpochDay() {
+        return readyEpochDay;
+    }
+
+    public boolean hasIdealDate() {
+        return idealEpochDay != Long.MIN_VALUE;
+    }
+
+    /**
+     * @return {@link Long#MIN_VALUE} if there is no {@link #getIdealDate()}
+     */
+    public long getIdealEpochDay() {
+        return idealEpochDay;
+    }
+
+    /**
+     * @return {@link Long#MAX_VALUE} if there is no {@link #getDueDate()}
+     */
+    public long getDueEpochDay() {
+        return dueEpochDay;
+    }
+
+    public long getEligibilityMask() {
+        return eligibilityMask;
+    }
+
+    public void setEligibilityMask(long eligibilityMask) {
+        this.eligibilityMask = eligibilityMask;
+    }
+
     @PlanningPin
     public boolean isPinned() {
-        return person.isPinned();
+        return pinned;
+    }
+
+    public void setPinned(boolean pinned) {
+        this.pinned = pinned;
+    }
+
+    public Appointment getPinnedAppointment() {
+        return pinnedAppointment;
+    }
+
+    public void setPinnedAppointment(Appointment pinnedAppointment) {
+        this.pinnedAppointment = pinnedAppointment;
     }
 
     @PlanningVariable(nullable = true, valueRangeProviderRefs = {"vaccinationSlotRange"})
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.domain.solver;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.acme.vaccinationscheduler.domain.VaccineType;
+
+/**
+ * Gives every combination of date and vaccine type of a {@link VaccinationSolution} a bit in a long,
+ * so a person's eligibility for all slots fits in one {@link PersonAssignment#getEligibilityMask()}.
+ * <p>
+ * The bits cover the first {@code 64 / vaccineTypeCount} days from the origin date,
+ * for example 21 days with 3 vaccine types.
+ * Slots on a later date (for example after continuous planning rolled the window forward) get no bit,
+ * so {@link PersonAssignment#isEligibleForDateAndVaccineType(VaccinationSlot)} calculates their eligibility instead.
+ * <p>
+ * Immutable, so it's shared by the working solution and its clones.
+ */
+public final class SlotEligibilityLayout {
+
+    private final long originEpochDay;
+    private final VaccineType[] vaccineTypes;
+    private final int dayCount;
+    /**
+     * Indexed by day offset, see {@link VaccinationSlot#getDateProlepticMonthDay()}.
+     */
+    private final long[] prolepticMonthDays;
+
+    /**
+     * @param originDate never null, usually the first date of the planning window
+     * @param vaccineTypeList never null
+     */
+    public SlotEligibilityLayout(LocalDate originDate, List<VaccineType> vaccineTypeList) {
+        originEpochDay = originDate.toEpochDay();
+        vaccineTypes = vaccineTypeList.toArray(new VaccineType[0]);
+        dayCount = vaccineTypes.length == 0 ? 0 : Long.SIZE / vaccineTypes.length;
+        prolepticMonthDays = new long[dayCount];
+        for (int dayOffset = 0; dayOffset < dayCount; dayOffset++) {
+            prolepticMonthDays[dayOffset] = VaccinationSlot.toProlepticMonthDay(originDate.plusDays(dayOffset));
+        }
+    }
+
+    /**
+     * @param vaccinationSlot never null
+     * @return {@code -1} if this layout has no bit for the slot's date and vaccine type
+     */
+    public int getEligibilityBit(VaccinationSlot vaccinationSlot) {
+        long dayOffset = vaccinationSlot.getDateEpochDay() - originEpochDay;
+        if (dayOffset < 0L || dayOffset >= dayCount) {
+            return -1;
+        }
+        // At most 64 vaccine types
+        for (int vaccineTypeIndex = 0; vaccineTypeIndex < vaccineTypes.length; vaccineTypeIndex++) {
+            if (vaccineTypes[vaccineTypeIndex] == vaccinationSlot.getVaccineType()) {
+                return (int) dayOffset * vaccineTypes.length + vaccineTypeIndex;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param personAssignment never null
+     * @return the {@link PersonAssignment#getEligibilityMask()} of that person
+     */
+    public long calculateEligibilityMask(PersonAssignment personAssignment) {
+        // Skip the days before the ready date and after the due date (beware of overflow without them)
+        long readyEpochDay = personAssignment.getReadyEpochDay();
+        long dueEpochDay = personAssignment.getDueEpochDay();
+        int firstDayOffset = readyEpochDay <= originEpochDay ? 0
+                : (int) Math.min(dayCount, readyEpochDay - originEpochDay);
+        int lastDayOffset = dueEpochDay >= originEpochDay + dayCount ? dayCount - 1
+                : (int) Math.max(-1L, dueEpochDay - originEpochDay);
+        long eligibilityMask = 0L;
+        for (int dayOffset = firstDayOffset; dayOffset <= lastDayOffset; dayOffset++) {
+            for (int vaccineTypeIndex = 0; vaccineTypeIndex < vaccineTypes.length; vaccineTypeIndex++) {
+                if (personAssignment.isEligibleFor(originEpochDay + dayOffset, prolepticMonthDays[dayOffset],
+                        vaccineTypes[vaccineTypeIndex])) {
+                    eligibilityMask |= 1L << (dayOffset * vaccineTypes.length + vaccineTypeIndex);
+                }
+            }
+        }
+        return eligibilityMask;
+    }
+
+    /**
+     * Also for a slot added during continuous planning.
+     * @param vaccinationSlot never null
+     */
+    public void initializeEligibility(VaccinationSlot vaccinationSlot) {
+        vaccinationSlot.setEligibilityBit(getEligibilityBit(vaccinationSlot));
+    }
+
+    /**
+     * Also for a person added during continuous planning.
+     * @param personAssignment never null
+     */
+    public void initializeEligibility(PersonAssignment personAssignment) {
+        personAssignment.setEligibilityMask(calculateEligibilityMask(personAssignment));
+    }
+
+}
@@ -23,6 +23,7 @@ import java.util.List;
 
 import org.acme.vaccinationscheduler.domain.Appointment;
 import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
 import org.acme.vaccinationscheduler.domain.VaccineType;
 import org.optaplanner.core.api.domain.lookup.PlanningId;
 
@@ -40,9 +41,33 @@ public class VaccinationSlot {
     private LocalTime startTime;
     private VaccineType vaccineType;
 
+    /**
+     * Derived from {@link #date} and {@link #startTime}, so score calculation doesn't need to create temporal objects.
+     */
+    private long dateEpochDay;
+    /**
+     * See {@link PersonAssignment#getAgeOnVaccinationDate()}.
+     */
+    private long dateProlepticMonthDay;
+    /**
+     * Minutes since 1970-01-01T00:00, truncated to the minute.
+     */
+    private long startEpochMinute;
+
+    /**
+     * Excludes the appointments of the persons that were pinned in the {@link VaccinationSchedule}.
+     * During continuous planning, the appointment of a person pinned later stays in this list,
+     * because this list is shared with the best solution clones.
+     */
     private List<Appointment> unscheduledAppointmentList;
     private int capacity;
 
+    /**
+     * The bit of {@link PersonAssignment#getEligibilityMask()} for this slot's date and vaccine type,
+     * or {@code -1} if the {@link SlotEligibilityLayout} has no bit for it.
+     */
+    private int eligibilityBit = -1;
+
     public VaccinationSlot(Long id, VaccinationCenter vaccinationCenter,
             LocalDateTime startDateTime, VaccineType vaccineType, List<Appointment> unscheduledAppointmentList, int capacity) {
         this.id = id;
@@ -52,6 +77,7 @@ public class VaccinationSlot {
         this.vaccineType = vaccineType;
         this.unscheduledAppointmentList = unscheduledAppointmentList;
         this.capacity = capacity;
+        calculateTemporalFields();
     }
 
     /** For testing purposes only */
@@ -64,8 +90,26 @@ public class VaccinationSlot {
         this.vaccineType = vaccineType;
         unscheduledAppointmentList = null;
         this.capacity = capacity;
+        if (startDateTime != null) {
+            calculateTemporalFields();
+        }
+    }
+
+    private void calculateTemporalFields() {
+        dateEpochDay = date.toEpochDay();
+        dateProlepticMonthDay = toProlepticMonthDay(date);
+        startEpochMinute = dateEpochDay * 1440L + startTime.toSecondOfDay() / 60;
     }
 
+    /**
+     * @param date never null
+     * @return the number of months since year 0 times 32, plus the day of month,
+     * the same packing as {@link LocalDate#until(java.time.temporal.Temporal, java.time.temporal.TemporalUnit)}
+     * uses to calculate the months between 2 dates
+     */
+    static long toProlepticMonthDay(LocalDate date) {
+        return (date.getYear() * 12L + date.getMonthValue() - 1L) * 32L + date.getDayOfMonth();
+    }
 
     public LocalDateTime getStartDateTime() {
         return LocalDateTime.of(date, startTime);
@@ -92,6 +136,18 @@ public class VaccinationSlot {
         return date;
     }
 
+    public long getDateEpochDay() {
+        return dateEpochDay;
+    }
+
+    public long getDateProlepticMonthDay() {
+        return dateProlepticMonthDay;
+    }
+
+    public long getStartEpochMinute() {
+        return startEpochMinute;
+    }
+
     public LocalTime getStartTime() {
         return startTime;
     }
@@ -108,4 +164,12 @@ public class VaccinationSlot {
         return capacity;
     }
 
+    public int getEligibilityBit() {
+        return eligibilityBit;
+    }
+
+    public void setEligibilityBit(int eligibilityBit) {
+        this.eligibilityBit = eligibilityBit;
+    }
+
 }
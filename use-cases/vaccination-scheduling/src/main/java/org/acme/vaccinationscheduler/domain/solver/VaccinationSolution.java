@@ -16,21 +16,20 @@
 
 package org.acme.vaccinationscheduler.domain.solver;
 
-import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toMap;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import org.acme.vaccinationscheduler.domain.Appointment;
 import org.acme.vaccinationscheduler.domain.Location;
@@ -39,9 +38,10 @@ import org.acme.vaccinationscheduler.domain.VaccinationCenter;
 import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
 import org.acme.vaccinationscheduler.domain.VaccineType;
 import org.acme.vaccinationscheduler.solver.VaccinationScheduleConstraintProvider;
+import org.acme.vaccinationscheduler.solver.VaccinationSolutionCloner;
 import org.acme.vaccinationscheduler.solver.geo.DistanceCalculator;
+import org.acme.vaccinationscheduler.solver.geo.DistanceMatrix;
 import org.acme.vaccinationscheduler.solver.geo.EuclideanDistanceCalculator;
-import org.apache.commons.lang3.tuple.Triple;
 import org.optaplanner.core.api.domain.solution.PlanningEntityCollectionProperty;
 import org.optaplanner.core.api.domain.solution.PlanningScore;
 import org.optaplanner.core.api.domain.solution.PlanningSolution;
@@ -51,12 +51,15 @@ import org.optaplanner.core.api.score.buildin.bendablelong.BendableLongScore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-// TODO the default solution cloner doesn't scale to 100k+ appointments https://issues.redhat.com/browse/PLANNER-2398
-@PlanningSolution
+@PlanningSolution(solutionCloner = VaccinationSolutionCloner.class)
 public class VaccinationSolution {
 
     protected static final Logger logger = LoggerFactory.getLogger(VaccinationSolution.class);
 
+    // Limits of the slot key, see toSlotKey()
+    private static final int MAXIMUM_VACCINATION_CENTER_SIZE = 1 << 24;
+    private static final int MAXIMUM_VACCINE_TYPE_SIZE = 1 << 8;
+
     @ProblemFactCollectionProperty
     private List<VaccineType> vaccineTypeList;
 
@@ -78,6 +81,11 @@ public class VaccinationSolution {
     @PlanningEntityCollectionProperty
     private List<PersonAssignment> personAssignmentList;
 
+    /**
+     * Null if the solution wasn't translated from a {@link VaccinationSchedule} or it has no slots.
+     */
+    private SlotEligibilityLayout slotEligibilityLayout = null;
+
     @PlanningScore(bendableHardLevelsSize = VaccinationScheduleConstraintProvider.HARD_LEVELS_SIZE,
             bendableSoftLevelsSize = VaccinationScheduleConstraintProvider.SOFT_LEVELS_SIZE)
     private BendableLongScore score;
@@ -112,38 +120,31 @@ public class VaccinationSolution {
         this.vaccinationCenterList = schedule.getVaccinationCenterList();
         this.appointmentList = schedule.getAppointmentList();
 
-        Function<Appointment, Triple<VaccinationCenter, LocalDateTime, VaccineType>> tripleFunction
-                = (appointment) -> Triple.of(
-                        appointment.getVaccinationCenter(),
-                        appointment.getDateTime().truncatedTo(ChronoUnit.HOURS),
-                        appointment.getVaccineType());
-        Set<Appointment> scheduledAppointmentSet = schedule.getPersonList().stream()
-                .map(Person::getAppointment)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-        Map<Triple<VaccinationCenter, LocalDateTime, VaccineType>, List<Appointment>> appointmentListMap
-                = schedule.getAppointmentList().stream()
-                .collect(groupingBy(tripleFunction, LinkedHashMap::new, Collectors.collectingAndThen(
-                        Collectors.toList(), subAppointmentList -> subAppointmentList.stream().sorted(
-                                Comparator.comparing(Appointment::getDateTime).thenComparing(Appointment::getBoothId))
-                                .collect(Collectors.toList()))));
-        vaccinationSlotList = new ArrayList<>(appointmentListMap.size());
-        Map<Triple<VaccinationCenter, LocalDateTime, VaccineType>, VaccinationSlot> vaccinationSlotMap = new HashMap<>(appointmentListMap.size());
-        long nextVaccinationSlotId = 0;
-        for (Map.Entry<Triple<VaccinationCenter, LocalDateTime, VaccineType>, List<Appointment>> entry : appointmentListMap.entrySet()) {
-            Triple<VaccinationCenter, LocalDateTime, VaccineType> triple = entry.getKey();
-            List<Appointment> appointmentList = entry.getValue();
-            VaccinationCenter vaccinationCenter = triple.getLeft();
-            LocalDateTime startDateTime = triple.getMiddle();
-            VaccineType vaccineType = triple.getRight();
-            List<Appointment> unscheduledAppointmentList = appointmentList.stream()
-                    .filter(appointment -> !scheduledAppointmentSet.contains(appointment))
-                    .collect(Collectors.toList());
-            int capacity = appointmentList.size();
-            VaccinationSlot vaccinationSlot = new VaccinationSlot(nextVaccinationSlotId++, vaccinationCenter,
-                    startDateTime, vaccineType, unscheduledAppointmentList, capacity);
-            vaccinationSlotList.add(vaccinationSlot);
-            vaccinationSlotMap.put(triple, vaccinationSlot);
+        for (int vaccinationCenterIndex = 0; vaccinationCenterIndex < vaccinationCenterList.size(); vaccinationCenterIndex++) {
+            vaccinationCenterList.get(vaccinationCenterIndex).setIndex(vaccinationCenterIndex);
+        }
+        if (vaccinationCenterList.size() > MAXIMUM_VACCINATION_CENTER_SIZE || vaccineTypeList.size() > MAXIMUM_VACCINE_TYPE_SIZE) {
+            throw new IllegalArgumentException("The vaccinationCenterList size (" + vaccinationCenterList.size()
+                    + ") or the vaccineTypeList size (" + vaccineTypeList.size() + ") is too big for a slot key.");
+        }
+        Map<VaccineType, Integer> vaccineTypeIndexMap = toVaccineTypeIndexMap(vaccineTypeList);
+        Set<Appointment> scheduledAppointmentSet = new HashSet<>();
+        for (Person person : schedule.getPersonList()) {
+            if (person.getAppointment() != null) {
+                scheduledAppointmentSet.add(person.getAppointment());
+            }
+        }
+        SlotIndexMap slotIndexMap = new SlotIndexMap(appointmentList.size() / 4);
+        vaccinationSlotList = toVaccinationSlotList(appointmentList, vaccinationCenterList, vaccineTypeIndexMap,
+                scheduledAppointmentSet, 0L, slotIndexMap);
+        // Precalculate the eligibility of each person for each date and vaccine type, to filter out moves cheaply
+        if (!vaccinationSlotList.isEmpty()) {
+            LocalDate originDate = vaccinationSlotList.stream().map(VaccinationSlot::getDate)
+                    .min(Comparator.naturalOrder()).get();
+            slotEligibilityLayout = new SlotEligibilityLayout(originDate, vaccineTypeList);
+            for (VaccinationSlot vaccinationSlot : vaccinationSlotList) {
+                slotEligibilityLayout.initializeEligibility(vaccinationSlot);
+            }
         }
 
         List<Person> personList = schedule.getPersonList();
@@ -152,45 +153,236 @@ public class VaccinationSolution {
         Location[] fromLocations = personList.stream().map(Person::getHomeLocation).toArray(Location[]::new);
         Location[] toLocations = vaccinationCenterList.stream().map(VaccinationCenter::getLocation).toArray(Location[]::new);
         // One single call to enable bulk mapping optimizations
-        long[][] distanceMatrix = distanceCalculator.calculateBulkDistance(fromLocations, toLocations);
+        // and one flat matrix shared by all PersonAssignment instances
+        DistanceMatrix distanceMatrix = distanceCalculator.calculateBulkDistance(fromLocations, toLocations);
         for (int personIndex = 0; personIndex < personList.size(); personIndex++) {
             Person person = personList.get(personIndex);
-            Map<VaccinationCenter, Long> distanceMap = new HashMap<>(vaccinationCenterList.size());
-            for (int vaccinationCenterIndex = 0; vaccinationCenterIndex < vaccinationCenterList.size(); vaccinationCenterIndex++) {
-                VaccinationCenter vaccinationCenter = vaccinationCenterList.get(vaccinationCenterIndex);
-                long distance = distanceMatrix[personIndex][vaccinationCenterIndex];
-                distanceMap.put(vaccinationCenter, distance);
+            PersonAssignment personAssignment = new PersonAssignment(person, personIndex, distanceMatrix);
+            if (slotEligibilityLayout != null) {
+                slotEligibilityLayout.initializeEligibility(personAssignment);
             }
-            PersonAssignment personAssignment = new PersonAssignment(person, distanceMap);
             Appointment appointment = person.getAppointment();
             // Person.appointment is non-null with pinned persons but maybe also with non-pinned persons from draft runs
             if (appointment != null) {
-                VaccinationSlot vaccinationSlot = vaccinationSlotMap.get(tripleFunction.apply(appointment));
-                if (vaccinationSlot == null) {
+                int slotIndex = slotIndexMap.get(toSlotKey(appointment, vaccinationCenterList, vaccineTypeIndexMap));
+                if (slotIndex < 0) {
                     throw new IllegalStateException("The person (" + person
                             + ") has a pre-set appointment (" + appointment
                             + ") that is not part of the schedule's appointmentList with size ("
                             + schedule.getAppointmentList().size() + ")");
                 }
-                personAssignment.setVaccinationSlot(vaccinationSlot);
+                personAssignment.setVaccinationSlot(vaccinationSlotList.get(slotIndex));
             }
             personAssignmentList.add(personAssignment);
         }
         this.score = schedule.getScore();
     }
 
+    /**
+     * Buckets appointments into new slots, with the same slot keys and order as
+     * {@link #VaccinationSolution(VaccinationSchedule)}, so continuous planning can add appointments.
+     * @param appointmentList never null, the appointments must reference the vaccine types
+     * and the (indexed) vaccination centers of the solution
+     * @param firstVaccinationSlotId the id of the first new slot, the others follow
+     * @return never null
+     */
+    public static List<VaccinationSlot> toVaccinationSlotList(List<Appointment> appointmentList,
+            List<VaccinationCenter> vaccinationCenterList, List<VaccineType> vaccineTypeList, long firstVaccinationSlotId) {
+        return toVaccinationSlotList(appointmentList, vaccinationCenterList, toVaccineTypeIndexMap(vaccineTypeList),
+                Collections.emptySet(), firstVaccinationSlotId, new SlotIndexMap(appointmentList.size() / 4));
+    }
+
+    private static List<VaccinationSlot> toVaccinationSlotList(List<Appointment> appointmentList,
+            List<VaccinationCenter> vaccinationCenterList, Map<VaccineType, Integer> vaccineTypeIndexMap,
+            Set<Appointment> scheduledAppointmentSet, long firstVaccinationSlotId, SlotIndexMap slotIndexMap) {
+        // Number the slots in the order of their first appointment, without allocating anything per appointment
+        int appointmentSize = appointmentList.size();
+        int[] appointmentSlotIndexes = new int[appointmentSize];
+        int slotSize = 0;
+        for (int i = 0; i < appointmentSize; i++) {
+            long slotKey = toSlotKey(appointmentList.get(i), vaccinationCenterList, vaccineTypeIndexMap);
+            int slotIndex = slotIndexMap.putIfAbsent(slotKey, slotSize);
+            if (slotIndex < 0) {
+                slotIndex = slotSize++;
+            }
+            appointmentSlotIndexes[i] = slotIndex;
+        }
+        // Counting sort: each slot's appointments become one contiguous range, in their original order
+        int[] slotStarts = new int[slotSize + 1];
+        for (int slotIndex : appointmentSlotIndexes) {
+            slotStarts[slotIndex + 1]++;
+        }
+        for (int slotIndex = 0; slotIndex < slotSize; slotIndex++) {
+            slotStarts[slotIndex + 1] += slotStarts[slotIndex];
+        }
+        int[] slotEnds = Arrays.copyOf(slotStarts, slotSize);
+        Appointment[] groupedAppointments = new Appointment[appointmentSize];
+        for (int i = 0; i < appointmentSize; i++) {
+            groupedAppointments[slotEnds[appointmentSlotIndexes[i]]++] = appointmentList.get(i);
+        }
+
+        Comparator<Appointment> appointmentComparator = Comparator.comparing(Appointment::getDateTime)
+                .thenComparing(Appointment::getBoothId);
+        List<VaccinationSlot> vaccinationSlotList = new ArrayList<>(slotSize);
+        for (int slotIndex = 0; slotIndex < slotSize; slotIndex++) {
+            int from = slotStarts[slotIndex];
+            int to = slotStarts[slotIndex + 1];
+            // Stable, so equal appointments keep their original order
+            Arrays.sort(groupedAppointments, from, to, appointmentComparator);
+            List<Appointment> unscheduledAppointmentList = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                if (!scheduledAppointmentSet.contains(groupedAppointments[i])) {
+                    unscheduledAppointmentList.add(groupedAppointments[i]);
+                }
+            }
+            Appointment firstAppointment = groupedAppointments[from];
+            VaccinationSlot vaccinationSlot = new VaccinationSlot(firstVaccinationSlotId + slotIndex,
+                    firstAppointment.getVaccinationCenter(), firstAppointment.getDateTime().truncatedTo(ChronoUnit.HOURS),
+                    firstAppointment.getVaccineType(), unscheduledAppointmentList, to - from);
+            vaccinationSlotList.add(vaccinationSlot);
+        }
+        return vaccinationSlotList;
+    }
+
+    private static Map<VaccineType, Integer> toVaccineTypeIndexMap(List<VaccineType> vaccineTypeList) {
+        Map<VaccineType, Integer> vaccineTypeIndexMap = new IdentityHashMap<>(vaccineTypeList.size());
+        for (int vaccineTypeIndex = 0; vaccineTypeIndex < vaccineTypeList.size(); vaccineTypeIndex++) {
+            vaccineTypeIndexMap.put(vaccineTypeList.get(vaccineTypeIndex), vaccineTypeIndex);
+        }
+        return vaccineTypeIndexMap;
+    }
+
+    /**
+     * Packs the vaccination center index, the hour since the epoch and the vaccine type index in one long,
+     * so appointments of the same {@link VaccinationSlot} have the same key.
+     * Replaces a key object and a truncated {@link LocalDateTime} per appointment.
+     */
+    private static long toSlotKey(Appointment appointment, List<VaccinationCenter> vaccinationCenterList,
+            Map<VaccineType, Integer> vaccineTypeIndexMap) {
+        VaccinationCenter vaccinationCenter = appointment.getVaccinationCenter();
+        int vaccinationCenterIndex = vaccinationCenter.getIndex();
+        if (vaccinationCenterIndex < 0 || vaccinationCenterIndex >= vaccinationCenterList.size()
+                || vaccinationCenterList.get(vaccinationCenterIndex) != vaccinationCenter) {
+            throw new IllegalArgumentException("The appointment (" + appointment
+                    + ") has a vaccinationCenter (" + vaccinationCenter
+                    + ") that is not part of the schedule's vaccinationCenterList.");
+        }
+        Integer vaccineTypeIndex = vaccineTypeIndexMap.get(appointment.getVaccineType());
+        if (vaccineTypeIndex == null) {
+            throw new IllegalArgumentException("The appointment (" + appointment
+                    + ") has a vaccineType (" + appointment.getVaccineType()
+                    + ") that is not part of the schedule's vaccineTypeList.");
+        }
+        LocalDateTime dateTime = appointment.getDateTime();
+        long epochHour = dateTime.toLocalDate().toEpochDay() * 24L + dateTime.getHour();
+        return (epochHour << 32) | ((long) vaccinationCenterIndex << 8) | vaccineTypeIndex;
+    }
+
+    /**
+     * Open addressing hash map from a slot key to a slot index, without boxing.
+     */
+    private static final class SlotIndexMap {
+
+        private static final int NO_VALUE = -1;
+
+        private long[] keys;
+        private int[] values;
+        private int size = 0;
+
+        private SlotIndexMap(int expectedSize) {
+            int capacity = 16;
+            while (capacity < expectedSize * 2) {
+                capacity <<= 1;
+            }
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(values, NO_VALUE);
+        }
+
+        /**
+         * @return -1 if absent
+         */
+        private int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; values[i] != NO_VALUE; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return NO_VALUE;
+        }
+
+        /**
+         * @param value {@code >= 0}
+         * @return the existing value or -1 if the value has been put
+         */
+        private int putIfAbsent(long key, int value) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            for (; values[i] != NO_VALUE; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            keys[i] = key;
+            values[i] = value;
+            size++;
+            if (size * 2 > keys.length) {
+                rehash();
+            }
+            return NO_VALUE;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            Arrays.fill(values, NO_VALUE);
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] != NO_VALUE) {
+                    int i = hash(oldKeys[j]) & mask;
+                    while (values[i] != NO_VALUE) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32));
+        }
+
+    }
+
     /**
      * Translates {@link #vaccinationSlotList} back into {@link VaccinationSchedule#getAppointmentList()}.
+     * <p>
+     * For the best solution events of a solver run, use {@link IncrementalScheduleTranslator} instead.
      */
     public VaccinationSchedule toSchedule() {
         Map<VaccinationSlot, List<Appointment>> appointmentListMap =
                 vaccinationSlotList.stream().collect(toMap(vaccinationSlot -> vaccinationSlot,
                         // Shallow clone the appointmentList so the best solution event consumer doesn't corrupt the working solution
                         vaccinationSlot -> new ArrayList<>(vaccinationSlot.getUnscheduledAppointmentList())));
+        for (PersonAssignment personAssignment : personAssignmentList) {
+            // During continuous planning, a person pinned after the translation keeps its appointment in the slot
+            VaccinationSlot vaccinationSlot = personAssignment.getVaccinationSlot();
+            if (personAssignment.isPinned() && vaccinationSlot != null) {
+                appointmentListMap.get(vaccinationSlot).remove(personAssignment.getPinnedAppointment());
+            }
+        }
         List<Person> personList = new ArrayList<>(personAssignmentList.size());
         for (PersonAssignment personAssignment : personAssignmentList) {
             Person person = personAssignment.getPerson();
-            if (!person.isPinned()) {
+            if (personAssignment.isPinned()) {
+                person.setAppointment(personAssignment.getPinnedAppointment());
+                person.setPinned(true);
+            } else {
                 VaccinationSlot vaccinationSlot = personAssignment.getVaccinationSlot();
                 Appointment appointment;
                 if (vaccinationSlot == null) {
@@ -235,6 +427,10 @@ public class VaccinationSolution {
         return appointmentList;
     }
 
+    public void setAppointmentList(List<Appointment> appointmentList) {
+        this.appointmentList = appointmentList;
+    }
+
     public List<VaccinationSlot> getVaccinationSlotList() {
         return vaccinationSlotList;
     }
@@ -247,6 +443,17 @@ public class VaccinationSolution {
         return personAssignmentList;
     }
 
+    /**
+     * @return null if the solution wasn't translated from a {@link VaccinationSchedule} or it has no slots
+     */
+    public SlotEligibilityLayout getSlotEligibilityLayout() {
+        return slotEligibilityLayout;
+    }
+
+    public void setSlotEligibilityLayout(SlotEligibilityLayout slotEligibilityLayout) {
+        this.slotEligibilityLayout = slotEligibilityLayout;
+    }
+
     public BendableLongScore getScore() {
         return score;
     }
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.Location;
+import org.acme.vaccinationscheduler.domain.Person;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.domain.VaccineType;
+
+/**
+ * A compact binary format: smaller than the CSV format and without text parsing.
+ * <p>
+ * Each section (vaccine types, vaccination centers, booth ids, appointments and persons)
+ * starts with its size, so every list is allocated once at its final size.
+ * References are ordinals into an earlier section, {@code -1} for null.
+ * Dates are epoch days ({@link Integer#MIN_VALUE} for null) and date times are UTC epoch seconds.
+ */
+public class VaccinationScheduleBinaryIO implements VaccinationScheduleIO {
+
+    public static final String MEDIA_TYPE = "application/octet-stream";
+    public static final String FILE_EXTENSION = ".vsb";
+
+    private static final int MAGIC_NUMBER = 0x56534231; // "VSB1"
+    private static final int NULL_ORDINAL = -1;
+    private static final int NULL_EPOCH_DAY = Integer.MIN_VALUE;
+    private static final int MAXIMUM_INITIAL_CAPACITY = 1 << 16;
+
+    @Override
+    public VaccinationSchedule read(InputStream inputStream) {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream, 1 << 16));
+        try {
+            if (in.readInt() != MAGIC_NUMBER) {
+                throw new IllegalArgumentException("The input is not a vaccination schedule binary file ("
+                        + FILE_EXTENSION + ").");
+            }
+            int vaccineTypeSize = readSize(in);
+            List<VaccineType> vaccineTypeList = new ArrayList<>(toInitialCapacity(vaccineTypeSize));
+            for (int i = 0; i < vaccineTypeSize; i++) {
+                vaccineTypeList.add(new VaccineType(in.readUTF(), readNullableInt(in), readNullableInt(in)));
+            }
+            int vaccinationCenterSize = readSize(in);
+            List<VaccinationCenter> vaccinationCenterList = new ArrayList<>(toInitialCapacity(vaccinationCenterSize));
+            for (int i = 0; i < vaccinationCenterSize; i++) {
+                vaccinationCenterList.add(new VaccinationCenter(in.readUTF(), readNullableString(in),
+                        new Location(in.readDouble(), in.readDouble())));
+            }
+            int boothIdSize = readSize(in);
+            List<String> boothIdList = new ArrayList<>(toInitialCapacity(boothIdSize));
+            for (int i = 0; i < boothIdSize; i++) {
+                boothIdList.add(in.readUTF());
+            }
+            Map<Long, LocalDateTime> dateTimeMap = new HashMap<>();
+            int appointmentSize = readSize(in);
+            List<Appointment> appointmentList = new ArrayList<>(toInitialCapacity(appointmentSize));
+            for (int i = 0; i < appointmentSize; i++) {
+                VaccinationCenter vaccinationCenter = lookUp(vaccinationCenterList, in.readInt(), "vaccinationCenter");
+                String boothId = lookUp(boothIdList, in.readInt(), "boothId");
+                LocalDateTime dateTime = dateTimeMap.computeIfAbsent(in.readLong(),
+                        epochSecond -> LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC));
+                appointmentList.add(new Appointment(vaccinationCenter, boothId, dateTime,
+                        lookUp(vaccineTypeList, in.readInt(), "vaccineType")));
+            }
+            Map<Integer, LocalDate> dateMap = new HashMap<>();
+            int personSize = readSize(in);
+            List<Person> personList = new ArrayList<>(toInitialCapacity(personSize));
+            for (int i = 0; i < personSize; i++) {
+                Person person = new Person(in.readUTF(), readNullableString(in),
+                        new Location(in.readDouble(), in.readDouble()), readDate(in, dateMap),
+                        in.readLong(), in.readInt(),
+                        lookUp(vaccineTypeList, in.readInt(), "requiredVaccineType"),
+                        lookUp(vaccineTypeList, in.readInt(), "preferredVaccineType"),
+                        lookUp(vaccinationCenterList, in.readInt(), "requiredVaccinationCenter"),
+                        lookUp(vaccinationCenterList, in.readInt(), "preferredVaccinationCenter"),
+                        readDate(in, dateMap), readDate(in, dateMap), readDate(in, dateMap));
+                person.setAppointment(lookUp(appointmentList, in.readInt(), "appointment"));
+                person.setPinned(in.readBoolean());
+                personList.add(person);
+            }
+            return new VaccinationSchedule(vaccineTypeList, vaccinationCenterList, appointmentList, personList);
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("The vaccination schedule binary input is truncated.", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed reading the vaccination schedule binary input.", e);
+        }
+    }
+
+    private static int readSize(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IllegalArgumentException("The vaccination schedule binary input has a negative size (" + size + ").");
+        }
+        return size;
+    }
+
+    /**
+     * The sizes come from the input, so don't trust them to allocate memory up front:
+     * a corrupt size must fail on the truncated input, not with an {@link OutOfMemoryError}.
+     */
+    private static int toInitialCapacity(int size) {
+        return Math.min(size, MAXIMUM_INITIAL_CAPACITY);
+    }
+
+    private static Integer readNullableInt(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static LocalDate readDate(DataInputStream in, Map<Integer, LocalDate> dateMap) throws IOException {
+        int epochDay = in.readInt();
+        return epochDay == NULL_EPOCH_DAY ? null : dateMap.computeIfAbsent(epochDay, LocalDate::ofEpochDay);
+    }
+
+    private static <T> T lookUp(List<T> list, int ordinal, String referenceName) {
+        if (ordinal == NULL_ORDINAL) {
+            return null;
+        }
+        if (ordinal < 0 || ordinal >= list.size()) {
+            throw new IllegalArgumentException("The vaccination schedule binary input has a " + referenceName
+                    + " ordinal (" + ordinal + ") that is out of bounds (" + list.size() + ").");
+        }
+        return list.get(ordinal);
+    }
+
+    @Override
+    public void write(VaccinationSchedule schedule, OutputStream outputStream) {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream, 1 << 16));
+        try {
+            out.writeInt(MAGIC_NUMBER);
+            List<VaccineType> vaccineTypeList = schedule.getVaccineTypeList();
+            Map<VaccineType, Integer> vaccineTypeOrdinalMap = new IdentityHashMap<>(vaccineTypeList.size());
+            out.writeInt(vaccineTypeList.size());
+            for (VaccineType vaccineType : vaccineTypeList) {
+                vaccineTypeOrdinalMap.put(vaccineType, vaccineTypeOrdinalMap.size());
+                out.writeUTF(vaccineType.getName());
+                writeNullableInt(out, vaccineType.getMinimumAge());
+                writeNullableInt(out, vaccineType.getMaximumAge());
+            }
+            List<VaccinationCenter> vaccinationCenterList = schedule.getVaccinationCenterList();
+            Map<VaccinationCenter, Integer> vaccinationCenterOrdinalMap = new IdentityHashMap<>(vaccinationCenterList.size());
+            out.writeInt(vaccinationCenterList.size());
+            for (VaccinationCenter vaccinationCenter : vaccinationCenterList) {
+                vaccinationCenterOrdinalMap.put(vaccinationCenter, vaccinationCenterOrdinalMap.size());
+                out.writeUTF(vaccinationCenter.getId());
+                writeNullableString(out, vaccinationCenter.getName());
+                out.writeDouble(vaccinationCenter.getLocation().latitude);
+                out.writeDouble(vaccinationCenter.getLocation().longitude);
+            }
+            List<Appointment> appointmentList = schedule.getAppointmentList();
+            Map<String, Integer> boothIdOrdinalMap = new LinkedHashMap<>();
+            for (Appointment appointment : appointmentList) {
+                boothIdOrdinalMap.putIfAbsent(appointment.getBoothId(), boothIdOrdinalMap.size());
+            }
+            out.writeInt(boothIdOrdinalMap.size());
+            for (String boothId : boothIdOrdinalMap.keySet()) {
+                out.writeUTF(boothId);
+            }
+            Map<Appointment, Integer> appointmentOrdinalMap = new IdentityHashMap<>(appointmentList.size());
+            out.writeInt(appointmentList.size());
+            for (Appointment appointment : appointmentList) {
+                appointmentOrdinalMap.put(appointment, appointmentOrdinalMap.size());
+                out.writeInt(ordinalOf(vaccinationCenterOrdinalMap, appointment.getVaccinationCenter(), "vaccinationCenter"));
+                out.writeInt(boothIdOrdinalMap.get(appointment.getBoothId()));
+                LocalDateTime dateTime = appointment.getDateTime();
+                if (dateTime.getNano() != 0) {
+                    throw new IllegalArgumentException("The appointment (" + appointment
+                            + ") has a fraction of a second, which the binary format doesn't support.");
+                }
+                out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(ordinalOf(vaccineTypeOrdinalMap, appointment.getVaccineType(), "vaccineType"));
+            }
+            List<Person> personList = schedule.getPersonList();
+            out.writeInt(personList.size());
+            for (Person person : personList) {
+                out.writeUTF(person.getId());
+                writeNullableString(out, person.getName());
+                out.writeDouble(person.getHomeLocation().latitude);
+                out.writeDouble(person.getHomeLocation().longitude);
+                writeDate(out, person.getBirthdate());
+                out.writeLong(person.getPriorityRating());
+                out.writeInt(person.getDoseNumber());
+                out.writeInt(ordinalOf(vaccineTypeOrdinalMap, person.getRequiredVaccineType(), "requiredVaccineType"));
+                out.writeInt(ordinalOf(vaccineTypeOrdinalMap, person.getPreferredVaccineType(), "preferredVaccineType"));
+                out.writeInt(ordinalOf(vaccinationCenterOrdinalMap, person.getRequiredVaccinationCenter(),
+                        "requiredVaccinationCenter"));
+                out.writeInt(ordinalOf(vaccinationCenterOrdinalMap, person.getPreferredVaccinationCenter(),
+                        "preferredVaccinationCenter"));
+                writeDate(out, person.getReadyDate());
+                writeDate(out, person.getIdealDate());
+                writeDate(out, person.getDueDate());
+                out.writeInt(ordinalOf(appointmentOrdinalMap, person.getAppointment(), "appointment"));
+                out.writeBoolean(person.isPinned());
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed writing the schedule in the binary format.", e);
+        }
+    }
+
+    private static void writeNullableInt(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeInt(date == null ? NULL_EPOCH_DAY : Math.toIntExact(date.toEpochDay()));
+    }
+
+    private static <T> int ordinalOf(Map<T, Integer> ordinalMap, T object, String referenceName) {
+        if (object == null) {
+            return NULL_ORDINAL;
+        }
+        Integer ordinal = ordinalMap.get(object);
+        if (ordinal == null) {
+            throw new IllegalArgumentException("The " + referenceName + " (" + object
+                    + ") is not part of the schedule's lists.");
+        }
+        return ordinal;
+    }
+
+}
@@ -0,0 +1,414 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.persistence;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.Location;
+import org.acme.vaccinationscheduler.domain.Person;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.domain.VaccineType;
+
+/**
+ * One CSV stream with a record type in the first column:
+ * <pre>
+ * VaccineType,name,minimumAge,maximumAge
+ * VaccinationCenter,id,name,latitude,longitude
+ * Appointment,vaccinationCenterId,boothId,dateTime,vaccineTypeName
+ * Person,id,name,latitude,longitude,birthdate,priorityRating,doseNumber,
+ *     requiredVaccineTypeName,preferredVaccineTypeName,requiredVaccinationCenterId,preferredVaccinationCenterId,
+ *     readyDate,idealDate,dueDate,appointmentVaccinationCenterId,appointmentBoothId,appointmentDateTime,pinned
+ * </pre>
+ * A record can only reference records on earlier lines.
+ * An empty field is null. Fields with a comma or a double quote are quoted, as in RFC 4180,
+ * but a field can't span multiple lines. Empty lines and lines starting with {@code #} are ignored.
+ * <p>
+ * Repeated values (booth ids, dates and date times) are interned while reading,
+ * so a big schedule doesn't hold thousands of equal instances.
+ */
+public class VaccinationScheduleCsvIO implements VaccinationScheduleIO {
+
+    public static final String MEDIA_TYPE = "text/csv";
+
+    private static final String VACCINE_TYPE = "VaccineType";
+    private static final String VACCINATION_CENTER = "VaccinationCenter";
+    private static final String APPOINTMENT = "Appointment";
+    private static final String PERSON = "Person";
+    private static final int MAXIMUM_COLUMN_COUNT = 19;
+
+    @Override
+    public VaccinationSchedule read(InputStream inputStream) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), 1 << 16);
+        return new CsvScheduleReader().read(reader);
+    }
+
+    private static final class CsvScheduleReader {
+
+        private final List<VaccineType> vaccineTypeList = new ArrayList<>();
+        private final List<VaccinationCenter> vaccinationCenterList = new ArrayList<>();
+        private final List<Appointment> appointmentList = new ArrayList<>();
+        private final List<Person> personList = new ArrayList<>();
+
+        private final Map<String, VaccineType> vaccineTypeMap = new HashMap<>();
+        private final Map<String, VaccinationCenter> vaccinationCenterMap = new HashMap<>();
+        /**
+         * Keyed by vaccination center, then by booth id and date time.
+         */
+        private final Map<VaccinationCenter, Map<String, Appointment>> appointmentMap = new HashMap<>();
+        private final Map<String, String> boothIdMap = new HashMap<>();
+        private final Map<String, LocalDate> dateMap = new HashMap<>();
+        private final Map<String, LocalDateTime> dateTimeMap = new HashMap<>();
+
+        private final String[] fields = new String[MAXIMUM_COLUMN_COUNT];
+        private final StringBuilder quotedFieldBuilder = new StringBuilder();
+        private long lineNumber = 0L;
+
+        private VaccinationSchedule read(BufferedReader reader) {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isEmpty() || line.charAt(0) == '#') {
+                        continue;
+                    }
+                    int fieldCount = split(line);
+                    switch (fields[0]) {
+                        case VACCINE_TYPE:
+                            assertFieldCount(fieldCount, 4);
+                            readVaccineType();
+                            break;
+                        case VACCINATION_CENTER:
+                            assertFieldCount(fieldCount, 5);
+                            readVaccinationCenter();
+                            break;
+                        case APPOINTMENT:
+                            assertFieldCount(fieldCount, 5);
+                            readAppointment();
+                            break;
+                        case PERSON:
+                            assertFieldCount(fieldCount, 19);
+                            readPerson();
+                            break;
+                        default:
+                            throw new IllegalArgumentException(error("has an unsupported record type (" + fields[0] + ")."));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed reading line (" + lineNumber + ").", e);
+            }
+            return new VaccinationSchedule(vaccineTypeList, vaccinationCenterList, appointmentList, personList);
+        }
+
+        private void readVaccineType() {
+            VaccineType vaccineType = new VaccineType(required(1, "name"), parseInteger(2, "minimumAge"), parseInteger(3, "maximumAge"));
+            if (vaccineTypeMap.put(vaccineType.getName(), vaccineType) != null) {
+                throw new IllegalArgumentException(error("has a duplicate vaccine type (" + vaccineType.getName() + ")."));
+            }
+            vaccineTypeList.add(vaccineType);
+        }
+
+        private void readVaccinationCenter() {
+            VaccinationCenter vaccinationCenter = new VaccinationCenter(required(1, "id"), fields[2],
+                    new Location(parseDouble(3), parseDouble(4)));
+            if (vaccinationCenterMap.put(vaccinationCenter.getId(), vaccinationCenter) != null) {
+                throw new IllegalArgumentException(error("has a duplicate vaccination center (" + vaccinationCenter.getId() + ")."));
+            }
+            vaccinationCenterList.add(vaccinationCenter);
+        }
+
+        private void readAppointment() {
+            VaccinationCenter vaccinationCenter = lookUpVaccinationCenter(required(1, "vaccinationCenterId"));
+            String boothId = boothIdMap.computeIfAbsent(required(2, "boothId"), key -> key);
+            LocalDateTime dateTime = parseDateTime(3);
+            Appointment appointment = new Appointment(vaccinationCenter, boothId, dateTime,
+                    lookUpVaccineType(required(4, "vaccineTypeName")));
+            Appointment duplicate = appointmentMap.computeIfAbsent(vaccinationCenter, key -> new HashMap<>())
+                    .put(toAppointmentKey(boothId, dateTime), appointment);
+            if (duplicate != null) {
+                throw new IllegalArgumentException(error("has a duplicate appointment (" + appointment + ")."));
+            }
+            appointmentList.add(appointment);
+        }
+
+        private void readPerson() {
+            Person person = new Person(required(1, "id"), fields[2], new Location(parseDouble(3), parseDouble(4)),
+                    parseDate(5), parseLong(6, "priorityRating"), parseInt(7, "doseNumber"),
+                    lookUpVaccineType(fields[8]), lookUpVaccineType(fields[9]),
+                    lookUpVaccinationCenter(fields[10]), lookUpVaccinationCenter(fields[11]),
+                    parseDate(12), parseDate(13), parseDate(14));
+            if (fields[15] != null) {
+                Map<String, Appointment> centerAppointmentMap = appointmentMap.get(lookUpVaccinationCenter(fields[15]));
+                Appointment appointment = centerAppointmentMap == null ? null
+                        : centerAppointmentMap.get(toAppointmentKey(required(16, "appointmentBoothId"),
+                                parseDateTime(17)));
+                if (appointment == null) {
+                    throw new IllegalArgumentException(error("references an appointment (" + fields[15] + "-" + fields[16]
+                            + "@" + fields[17] + ") that isn't defined on an earlier line."));
+                }
+                person.setAppointment(appointment);
+            }
+            person.setPinned(Boolean.parseBoolean(fields[18]));
+            personList.add(person);
+        }
+
+        private static String toAppointmentKey(String boothId, LocalDateTime dateTime) {
+            // Normalized, so 09:00 and 09:00:00 match
+            return boothId + '@' + dateTime;
+        }
+
+        private VaccineType lookUpVaccineType(String name) {
+            if (name == null) {
+                return null;
+            }
+            VaccineType vaccineType = vaccineTypeMap.get(name);
+            if (vaccineType == null) {
+                throw new IllegalArgumentException(error("references a vaccine type (" + name
+                        + ") that isn't defined on an earlier line."));
+            }
+            return vaccineType;
+        }
+
+        private VaccinationCenter lookUpVaccinationCenter(String id) {
+            if (id == null) {
+                return null;
+            }
+            VaccinationCenter vaccinationCenter = vaccinationCenterMap.get(id);
+            if (vaccinationCenter == null) {
+                throw new IllegalArgumentException(error("references a vaccination center (" + id
+                        + ") that isn't defined on an earlier line."));
+            }
+            return vaccinationCenter;
+        }
+
+        private String required(int index, String columnName) {
+            String field = fields[index];
+            if (field == null) {
+                throw new IllegalArgumentException(error("lacks the " + columnName + "."));
+            }
+            return field;
+        }
+
+        private Integer parseInteger(int index, String columnName) {
+            return fields[index] == null ? null : parseInt(index, columnName);
+        }
+
+        private int parseInt(int index, String columnName) {
+            try {
+                return Integer.parseInt(required(index, columnName));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(error("has an invalid " + columnName + " (" + fields[index] + ")."), e);
+            }
+        }
+
+        private long parseLong(int index, String columnName) {
+            try {
+                return Long.parseLong(required(index, columnName));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(error("has an invalid " + columnName + " (" + fields[index] + ")."), e);
+            }
+        }
+
+        private double parseDouble(int index) {
+            try {
+                return Double.parseDouble(required(index, "coordinate"));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(error("has an invalid coordinate (" + fields[index] + ")."), e);
+            }
+        }
+
+        private LocalDate parseDate(int index) {
+            String field = fields[index];
+            try {
+                return field == null ? null : dateMap.computeIfAbsent(field, LocalDate::parse);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(error("has an invalid date (" + field + ")."), e);
+            }
+        }
+
+        private LocalDateTime parseDateTime(int index) {
+            String field = required(index, "dateTime");
+            try {
+                return dateTimeMap.computeIfAbsent(field, LocalDateTime::parse);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(error("has an invalid dateTime (" + field + ")."), e);
+            }
+        }
+
+        /**
+         * Splits without regular expressions or a new array per line.
+         * @return the number of fields, the fields are in {@link #fields}
+         */
+        private int split(String line) {
+            int fieldCount = 0;
+            int length = line.length();
+            int start = 0;
+            while (true) {
+                if (fieldCount == MAXIMUM_COLUMN_COUNT) {
+                    throw new IllegalArgumentException(error("has more than " + MAXIMUM_COLUMN_COUNT + " fields."));
+                }
+                int end;
+                String field;
+                if (start < length && line.charAt(start) == '"') {
+                    quotedFieldBuilder.setLength(0);
+                    int i = start + 1;
+                    while (true) {
+                        if (i >= length) {
+                            throw new IllegalArgumentException(error("has an unterminated quoted field."));
+                        }
+                        char c = line.charAt(i);
+                        if (c == '"') {
+                            if (i + 1 < length && line.charAt(i + 1) == '"') {
+                                quotedFieldBuilder.append('"');
+                                i += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        quotedFieldBuilder.append(c);
+                        i++;
+                    }
+                    end = i + 1;
+                    if (end < length && line.charAt(end) != ',') {
+                        throw new IllegalArgumentException(error("has characters after a quoted field."));
+                    }
+                    field = quotedFieldBuilder.toString();
+                } else {
+                    end = line.indexOf(',', start);
+                    if (end < 0) {
+                        end = length;
+                    }
+                    field = start == end ? null : line.substring(start, end);
+                }
+                fields[fieldCount++] = field;
+                if (end >= length) {
+                    break;
+                }
+                start = end + 1;
+            }
+            for (int i = fieldCount; i < MAXIMUM_COLUMN_COUNT; i++) {
+                fields[i] = null;
+            }
+            return fieldCount;
+        }
+
+        private void assertFieldCount(int fieldCount, int expectedFieldCount) {
+            if (fieldCount != expectedFieldCount) {
+                throw new IllegalArgumentException(error("has " + fieldCount + " fields instead of "
+                        + expectedFieldCount + " for a " + fields[0] + " record."));
+            }
+        }
+
+        private String error(String message) {
+            return "The CSV line (" + lineNumber + ") " + message;
+        }
+
+    }
+
+    @Override
+    public void write(VaccinationSchedule schedule, OutputStream outputStream) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 1 << 16);
+        try {
+            writer.write("# " + VACCINE_TYPE + ",name,minimumAge,maximumAge\n");
+            for (VaccineType vaccineType : schedule.getVaccineTypeList()) {
+                writeRecord(writer, VACCINE_TYPE, vaccineType.getName(),
+                        vaccineType.getMinimumAge(), vaccineType.getMaximumAge());
+            }
+            writer.write("# " + VACCINATION_CENTER + ",id,name,latitude,longitude\n");
+            for (VaccinationCenter vaccinationCenter : schedule.getVaccinationCenterList()) {
+                Location location = vaccinationCenter.getLocation();
+                writeRecord(writer, VACCINATION_CENTER, vaccinationCenter.getId(), vaccinationCenter.getName(),
+                        location.latitude, location.longitude);
+            }
+            writer.write("# " + APPOINTMENT + ",vaccinationCenterId,boothId,dateTime,vaccineTypeName\n");
+            for (Appointment appointment : schedule.getAppointmentList()) {
+                writeRecord(writer, APPOINTMENT, appointment.getVaccinationCenter().getId(), appointment.getBoothId(),
+                        appointment.getDateTime(), appointment.getVaccineType().getName());
+            }
+            writer.write("# " + PERSON + ",id,name,latitude,longitude,birthdate,priorityRating,doseNumber,"
+                    + "requiredVaccineTypeName,preferredVaccineTypeName,requiredVaccinationCenterId,preferredVaccinationCenterId,"
+                    + "readyDate,idealDate,dueDate,appointmentVaccinationCenterId,appointmentBoothId,appointmentDateTime,pinned\n");
+            for (Person person : schedule.getPersonList()) {
+                Location location = person.getHomeLocation();
+                Appointment appointment = person.getAppointment();
+                writeRecord(writer, PERSON, person.getId(), person.getName(), location.latitude, location.longitude,
+                        person.getBirthdate(), person.getPriorityRating(), person.getDoseNumber(),
+                        nameOf(person.getRequiredVaccineType()), nameOf(person.getPreferredVaccineType()),
+                        idOf(person.getRequiredVaccinationCenter()), idOf(person.getPreferredVaccinationCenter()),
+                        person.getReadyDate(), person.getIdealDate(), person.getDueDate(),
+                        appointment == null ? null : appointment.getVaccinationCenter().getId(),
+                        appointment == null ? null : appointment.getBoothId(),
+                        appointment == null ? null : appointment.getDateTime(),
+                        person.isPinned());
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed writing the schedule as CSV.", e);
+        }
+    }
+
+    private static String nameOf(VaccineType vaccineType) {
+        return vaccineType == null ? null : vaccineType.getName();
+    }
+
+    private static String idOf(VaccinationCenter vaccinationCenter) {
+        return vaccinationCenter == null ? null : vaccinationCenter.getId();
+    }
+
+    private static void writeRecord(Writer writer, String recordType, Object... values) throws IOException {
+        writer.write(recordType);
+        for (Object value : values) {
+            writer.write(',');
+            if (value != null) {
+                writeField(writer, value.toString());
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static void writeField(Writer writer, String field) throws IOException {
+        if (field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("The field (" + field + ") can't contain a line break in CSV.");
+        }
+        // An empty field is null, so quote an empty string
+        if (!field.isEmpty() && field.indexOf(',') < 0 && field.indexOf('"') < 0) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+}
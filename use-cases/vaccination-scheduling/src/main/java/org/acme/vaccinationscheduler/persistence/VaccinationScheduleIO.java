@@ -0,0 +1,56 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.persistence;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+
+/**
+ * Streams a {@link VaccinationSchedule} from and to a bulk file format,
+ * without building an intermediate document tree in memory.
+ * Both formats keep the JSON's convention of referencing
+ * vaccine types by name and vaccination centers by id.
+ */
+public interface VaccinationScheduleIO {
+
+    /**
+     * @param fileName never null
+     * @return never null, {@link VaccinationScheduleBinaryIO} for a {@code .vsb} file, {@link VaccinationScheduleCsvIO} otherwise
+     */
+    static VaccinationScheduleIO forFileName(String fileName) {
+        return fileName.endsWith(VaccinationScheduleBinaryIO.FILE_EXTENSION)
+                ? new VaccinationScheduleBinaryIO() : new VaccinationScheduleCsvIO();
+    }
+
+    /**
+     * Reads until the end of the input stream, but doesn't close it.
+     * @param inputStream never null, not buffered necessarily
+     * @return never null, with {@link VaccinationSchedule#getScore()} null
+     * @throws IllegalArgumentException if the input is malformed or references something that isn't defined before
+     */
+    VaccinationSchedule read(InputStream inputStream);
+
+    /**
+     * Flushes, but doesn't close the output stream.
+     * @param schedule never null
+     * @param outputStream never null, not buffered necessarily
+     */
+    void write(VaccinationSchedule schedule, OutputStream outputStream);
+
+}
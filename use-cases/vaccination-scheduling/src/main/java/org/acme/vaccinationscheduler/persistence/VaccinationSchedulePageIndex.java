@@ -0,0 +1,120 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.persistence;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.Person;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+
+/**
+ * Read-side index of a saved {@link VaccinationSchedule}
+ * from each (vaccination center, booth) to its appointments and the persons assigned to them.
+ * <p>
+ * Built once per saved schedule, so each page is extracted in {@code O(page size)}
+ * instead of filtering all appointments and all persons on every request.
+ * A page contains a number of booths from each vaccination center
+ * and a proportional slice of the unassigned persons.
+ */
+public class VaccinationSchedulePageIndex {
+
+    private final VaccinationSchedule schedule;
+    /**
+     * In the order of {@link VaccinationSchedule#getVaccinationCenterList()}, each with its booths in encounter order.
+     */
+    private final List<List<Booth>> vaccinationCenterBoothLists;
+    private final List<Person> unassignedPersonList;
+
+    public VaccinationSchedulePageIndex(VaccinationSchedule schedule) {
+        this.schedule = schedule;
+        List<VaccinationCenter> vaccinationCenterList = schedule.getVaccinationCenterList();
+        Map<VaccinationCenter, Map<String, Booth>> boothMap = new IdentityHashMap<>(vaccinationCenterList.size());
+        for (VaccinationCenter vaccinationCenter : vaccinationCenterList) {
+            boothMap.put(vaccinationCenter, new LinkedHashMap<>());
+        }
+        for (Appointment appointment : schedule.getAppointmentList()) {
+            boothMap.get(appointment.getVaccinationCenter())
+                    .computeIfAbsent(appointment.getBoothId(), boothId -> new Booth())
+                    .appointmentList.add(appointment);
+        }
+        unassignedPersonList = new ArrayList<>();
+        for (Person person : schedule.getPersonList()) {
+            Appointment appointment = person.getAppointment();
+            if (appointment == null) {
+                unassignedPersonList.add(person);
+            } else {
+                boothMap.get(appointment.getVaccinationCenter()).get(appointment.getBoothId())
+                        .personList.add(person);
+            }
+        }
+        vaccinationCenterBoothLists = new ArrayList<>(vaccinationCenterList.size());
+        for (VaccinationCenter vaccinationCenter : vaccinationCenterList) {
+            vaccinationCenterBoothLists.add(new ArrayList<>(boothMap.get(vaccinationCenter).values()));
+        }
+    }
+
+    /**
+     * @param page {@code >= 0}
+     * @param appointmentPageLimit {@code > 0}, the approximate number of appointments per page
+     * @return never null, the entire schedule if it has no more appointments than appointmentPageLimit
+     */
+    public VaccinationSchedule getPage(int page, int appointmentPageLimit) {
+        int appointmentListSize = schedule.getAppointmentList().size();
+        if (appointmentListSize <= appointmentPageLimit) {
+            return schedule;
+        }
+        List<Appointment> appointmentList = new ArrayList<>(appointmentPageLimit);
+        List<Person> personList = new ArrayList<>(appointmentPageLimit);
+        for (List<Booth> boothList : vaccinationCenterBoothLists) {
+            // For a page, take the number of booths per page from each vaccination center
+            int pageLength = Math.max(1, boothList.size() * appointmentPageLimit / appointmentListSize);
+            int fromIndex = (int) Math.min(boothList.size(), (long) page * pageLength);
+            int toIndex = Math.min(boothList.size(), fromIndex + pageLength);
+            for (Booth booth : boothList.subList(fromIndex, toIndex)) {
+                appointmentList.addAll(booth.appointmentList);
+                personList.addAll(booth.personList);
+            }
+        }
+        int pageLength = unassignedPersonList.size() * appointmentPageLimit / appointmentListSize;
+        int fromIndex = (int) Math.min(unassignedPersonList.size(), (long) page * pageLength);
+        personList.addAll(unassignedPersonList.subList(fromIndex,
+                Math.min(unassignedPersonList.size(), fromIndex + pageLength)));
+
+        VaccinationSchedule pagedSchedule = new VaccinationSchedule(schedule.getVaccineTypeList(),
+                schedule.getVaccinationCenterList(), appointmentList, personList);
+        pagedSchedule.setScore(schedule.getScore());
+        return pagedSchedule;
+    }
+
+    public VaccinationSchedule getSchedule() {
+        return schedule;
+    }
+
+    private static final class Booth {
+
+        private final List<Appointment> appointmentList = new ArrayList<>();
+        private final List<Person> personList = new ArrayList<>();
+
+    }
+
+}
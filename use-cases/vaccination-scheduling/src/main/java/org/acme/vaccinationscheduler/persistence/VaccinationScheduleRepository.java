@@ -16,21 +16,84 @@
 
 package org.acme.vaccinationscheduler.persistence;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.enterprise.context.ApplicationScoped;
 
 import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
 
+/**
+ * Holds one {@link VaccinationSchedule} per schedule id, for example one per region.
+ */
 @ApplicationScoped
 public class VaccinationScheduleRepository {
 
-    private VaccinationSchedule vaccinationSchedule;
+    /**
+     * The schedule of the generated demo data and of the UI.
+     */
+    public static final Long DEFAULT_SCHEDULE_ID = 1L;
+
+    private final Map<Long, VaccinationSchedule> scheduleMap = new HashMap<>();
+    /**
+     * Lazily rebuilt after each {@link #save(Long, VaccinationSchedule)},
+     * because the solver saves far more often than the UI reads.
+     */
+    private final Map<Long, VaccinationSchedulePageIndex> pageIndexMap = new HashMap<>();
+
+    /**
+     * @return never null, in ascending order
+     */
+    public synchronized List<Long> findIds() {
+        List<Long> scheduleIdList = new ArrayList<>(scheduleMap.keySet());
+        scheduleIdList.sort(null);
+        return scheduleIdList;
+    }
+
+    /**
+     * @param scheduleId never null
+     * @return null if no schedule has been saved with that id yet
+     */
+    public synchronized VaccinationSchedule find(Long scheduleId) {
+        return scheduleMap.get(scheduleId);
+    }
 
-    public VaccinationSchedule find() {
-        return vaccinationSchedule;
+    /**
+     * @param scheduleId never null
+     * @return null if no schedule has been saved with that id yet
+     */
+    public VaccinationSchedulePageIndex findPageIndex(Long scheduleId) {
+        VaccinationSchedule schedule;
+        synchronized (this) {
+            VaccinationSchedulePageIndex pageIndex = pageIndexMap.get(scheduleId);
+            if (pageIndex != null) {
+                return pageIndex;
+            }
+            schedule = scheduleMap.get(scheduleId);
+            if (schedule == null) {
+                return null;
+            }
+        }
+        // Build it outside the lock, so the solvers of other schedules can keep saving meanwhile
+        VaccinationSchedulePageIndex pageIndex = new VaccinationSchedulePageIndex(schedule);
+        synchronized (this) {
+            // Unless a solver saved a newer schedule meanwhile
+            if (scheduleMap.get(scheduleId) == schedule) {
+                pageIndexMap.put(scheduleId, pageIndex);
+            }
+        }
+        return pageIndex;
     }
 
-    public void save(VaccinationSchedule vaccinationSchedule) {
-        this.vaccinationSchedule = vaccinationSchedule;
+    /**
+     * @param scheduleId never null
+     * @param vaccinationSchedule never null
+     */
+    public synchronized void save(Long scheduleId, VaccinationSchedule vaccinationSchedule) {
+        scheduleMap.put(scheduleId, vaccinationSchedule);
+        pageIndexMap.remove(scheduleId);
     }
 
 }
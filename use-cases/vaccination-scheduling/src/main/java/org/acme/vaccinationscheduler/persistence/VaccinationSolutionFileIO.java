@@ -0,0 +1,59 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.optaplanner.persistence.common.api.domain.solution.SolutionFileIO;
+
+/**
+ * Reads and writes a {@link VaccinationSolution} in the binary format for the benchmarker.
+ * The CSV format is supported too, based on the file extension.
+ * @see VaccinationScheduleIO#forFileName(String)
+ */
+public class VaccinationSolutionFileIO implements SolutionFileIO<VaccinationSolution> {
+
+    @Override
+    public String getInputFileExtension() {
+        return VaccinationScheduleBinaryIO.FILE_EXTENSION.substring(1);
+    }
+
+    @Override
+    public VaccinationSolution read(File inputSolutionFile) {
+        try (InputStream inputStream = Files.newInputStream(inputSolutionFile.toPath())) {
+            return new VaccinationSolution(VaccinationScheduleIO.forFileName(inputSolutionFile.getName()).read(inputStream));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed reading inputSolutionFile (" + inputSolutionFile + ").", e);
+        }
+    }
+
+    @Override
+    public void write(VaccinationSolution solution, File outputSolutionFile) {
+        try (OutputStream outputStream = Files.newOutputStream(outputSolutionFile.toPath())) {
+            VaccinationScheduleIO.forFileName(outputSolutionFile.getName()).write(solution.toSchedule(), outputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed writing outputSolutionFile (" + outputSolutionFile + ").", e);
+        }
+    }
+
+}
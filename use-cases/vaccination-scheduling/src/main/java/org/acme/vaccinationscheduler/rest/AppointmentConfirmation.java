@@ -0,0 +1,63 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.rest;
+
+import java.time.LocalDateTime;
+
+import org.acme.vaccinationscheduler.domain.Appointment;
+
+/**
+ * A person that accepted the {@link Appointment} it was shown.
+ */
+public class AppointmentConfirmation {
+
+    private String personId;
+    private String vaccinationCenterId;
+    private String boothId;
+    private LocalDateTime dateTime;
+
+    // No-arg constructor required for Jackson
+    public AppointmentConfirmation() {}
+
+    public AppointmentConfirmation(String personId, String vaccinationCenterId, String boothId, LocalDateTime dateTime) {
+        this.personId = personId;
+        this.vaccinationCenterId = vaccinationCenterId;
+        this.boothId = boothId;
+        this.dateTime = dateTime;
+    }
+
+    // ************************************************************************
+    // Getters and setters
+    // ************************************************************************
+
+    public String getPersonId() {
+        return personId;
+    }
+
+    public String getVaccinationCenterId() {
+        return vaccinationCenterId;
+    }
+
+    public String getBoothId() {
+        return boothId;
+    }
+
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+}
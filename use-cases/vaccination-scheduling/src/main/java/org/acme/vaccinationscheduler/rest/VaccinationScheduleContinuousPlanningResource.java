@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.rest;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.persistence.VaccinationScheduleRepository;
+import org.acme.vaccinationscheduler.service.ContinuousPlanningService;
+import org.acme.vaccinationscheduler.service.ScheduleSolverService;
+import org.optaplanner.core.api.solver.SolverStatus;
+
+/**
+ * Read the continuously planned schedule through {@link VaccinationScheduleSolverResource#get(Long, Integer)}.
+ */
+@Path("vaccinationSchedule/continuousPlanning")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class VaccinationScheduleContinuousPlanningResource {
+
+    @Inject
+    ContinuousPlanningService continuousPlanningService;
+
+    @Inject
+    ScheduleSolverService scheduleSolverService;
+
+    @GET
+    public boolean isSolving() {
+        return continuousPlanningService.isSolving();
+    }
+
+    /**
+     * @param scheduleId null for the {@link VaccinationScheduleRepository#DEFAULT_SCHEDULE_ID default schedule}
+     */
+    @POST
+    @Path("start")
+    public void start(@QueryParam("scheduleId") Long scheduleId) {
+        Long startScheduleId = scheduleId == null ? VaccinationScheduleRepository.DEFAULT_SCHEDULE_ID : scheduleId;
+        if (scheduleSolverService.getSolverStatus(startScheduleId) != SolverStatus.NOT_SOLVING) {
+            throw new IllegalStateException("Stop solving the schedule with id (" + startScheduleId + ") first.");
+        }
+        continuousPlanningService.start(startScheduleId);
+    }
+
+    @POST
+    @Path("stop")
+    public void stop() {
+        continuousPlanningService.stop();
+    }
+
+    /**
+     * @param registration never null, the new appointments and persons,
+     * with the vaccine types and vaccination centers they reference
+     */
+    @POST
+    @Path("registrations")
+    public void register(VaccinationSchedule registration) {
+        continuousPlanningService.register(registration);
+    }
+
+    /**
+     * @param confirmations never null, the persons that accepted their appointment
+     */
+    @POST
+    @Path("confirmations")
+    public void confirm(List<AppointmentConfirmation> confirmations) {
+        Map<String, Appointment> confirmedAppointmentMap = new HashMap<>(confirmations.size());
+        for (AppointmentConfirmation confirmation : confirmations) {
+            VaccinationCenter vaccinationCenterReference = new VaccinationCenter(confirmation.getVaccinationCenterId(),
+                    null, null);
+            confirmedAppointmentMap.put(confirmation.getPersonId(), new Appointment(vaccinationCenterReference,
+                    confirmation.getBoothId(), confirmation.getDateTime(), null));
+        }
+        continuousPlanningService.confirm(confirmedAppointmentMap);
+    }
+
+    /**
+     * @param windowStartDate null for today, otherwise an ISO date such as {@code 2021-06-01}
+     */
+    @POST
+    @Path("rollWindow")
+    public void rollWindow(@QueryParam("windowStartDate") String windowStartDate) {
+        continuousPlanningService.rollWindow(windowStartDate == null ? LocalDate.now() : LocalDate.parse(windowStartDate));
+    }
+
+}
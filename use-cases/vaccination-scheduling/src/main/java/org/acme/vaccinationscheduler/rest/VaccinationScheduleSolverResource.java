@@ -16,34 +16,40 @@
 
 package org.acme.vaccinationscheduler.rest;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 
-import org.acme.vaccinationscheduler.domain.Appointment;
-import org.acme.vaccinationscheduler.domain.Person;
-import org.acme.vaccinationscheduler.domain.VaccinationCenter;
 import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
-import org.acme.vaccinationscheduler.domain.VaccineType;
-import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.acme.vaccinationscheduler.persistence.VaccinationScheduleBinaryIO;
+import org.acme.vaccinationscheduler.persistence.VaccinationScheduleCsvIO;
+import org.acme.vaccinationscheduler.persistence.VaccinationScheduleIO;
+import org.acme.vaccinationscheduler.persistence.VaccinationSchedulePageIndex;
 import org.acme.vaccinationscheduler.persistence.VaccinationScheduleRepository;
-import org.optaplanner.core.api.solver.SolverManager;
+import org.acme.vaccinationscheduler.service.ContinuousPlanningService;
+import org.acme.vaccinationscheduler.service.ScheduleSolverService;
 import org.optaplanner.core.api.solver.SolverStatus;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
 @Path("vaccinationSchedule")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
@@ -55,96 +61,153 @@ public class VaccinationScheduleSolverResource {
     VaccinationScheduleRepository vaccinationScheduleRepository;
 
     @Inject
-    SolverManager<VaccinationSolution, Long> solverManager;
+    ScheduleSolverService scheduleSolverService;
+
+    @Inject
+    ContinuousPlanningService continuousPlanningService;
+
+    @Inject
+    ObjectMapper objectMapper;
 
     // To try, open http://localhost:8080/vaccinationSchedule
     @GET
-    public VaccinationSchedule get(@QueryParam("page") Integer page) {
+    public StreamingOutput get(@QueryParam("page") Integer page) {
+        return get(VaccinationScheduleRepository.DEFAULT_SCHEDULE_ID, page);
+    }
+
+    // To try, open http://localhost:8080/vaccinationSchedule/1
+    @GET
+    @Path("{scheduleId}")
+    public StreamingOutput get(@PathParam("scheduleId") Long scheduleId, @QueryParam("page") Integer page) {
         // Get the solver status before loading the schedule
         // to avoid the race condition that the solver terminates between them
-        SolverStatus solverStatus = getSolverStatus();
-        VaccinationSchedule schedule = vaccinationScheduleRepository.find();
-        schedule.setSolverStatus(solverStatus);
+        SolverStatus solverStatus = getSolverStatus(scheduleId);
+        VaccinationSchedule schedule;
         // Optional pagination because the UI can't handle huge datasets
         if (page != null) {
             if (page < 0) {
                 throw new IllegalArgumentException("Unsupported page (" + page + ").");
             }
-            int appointmentListSize = schedule.getAppointmentList().size();
-            if (appointmentListSize > APPOINTMENT_PAGE_LIMIT) {
-                List<VaccineType> vaccineTypeList = schedule.getVaccineTypeList();
-                List<VaccinationCenter> vaccinationCenterList = schedule.getVaccinationCenterList();
-                List<Appointment> appointmentList;
-                List<Person> personList;
-                if (appointmentListSize <= APPOINTMENT_PAGE_LIMIT) {
-                    appointmentList = schedule.getAppointmentList();
-                    personList = schedule.getPersonList();
-                } else {
-                    Map<VaccinationCenter, Set<String>> boothIdSetMap = new HashMap<>(vaccinationCenterList.size());
-                    for (VaccinationCenter vaccinationCenter : vaccinationCenterList) {
-                        boothIdSetMap.put(vaccinationCenter, new LinkedHashSet<>());
-                    }
-                    for (Appointment appointment : schedule.getAppointmentList()) {
-                        Set<String> boothIdSet = boothIdSetMap.get(appointment.getVaccinationCenter());
-                        boothIdSet.add(appointment.getBoothId());
-                    }
-                    Map<VaccinationCenter, Set<String>> subBoothIdSetMap = new HashMap<>(vaccinationCenterList.size());
-                    boothIdSetMap.forEach((vaccinationCenter, boothIdSet) -> {
-                        List<String> boothIdList = new ArrayList<>(boothIdSet);
-                        int pageLength = Math.max(1, boothIdList.size() * APPOINTMENT_PAGE_LIMIT / appointmentListSize);
-                        subBoothIdSetMap.put(vaccinationCenter, new HashSet<>(
-                                // For a page, filter the number of booths per page from each vaccination center
-                                boothIdList.subList(page * pageLength,
-                                        Math.min(boothIdList.size(), (page + 1) * pageLength))));
-                    });
-                    appointmentList = schedule.getAppointmentList().stream()
-                            .filter(appointment -> subBoothIdSetMap.get(appointment.getVaccinationCenter())
-                                    .contains(appointment.getBoothId()))
-                            .collect(Collectors.toList());
-                    personList = schedule.getPersonList().stream()
-                            .filter(person -> person.getAppointment() != null
-                                    && subBoothIdSetMap.get(person.getAppointment().getVaccinationCenter())
-                                    .contains(person.getAppointment().getBoothId()))
-                            .collect(Collectors.toList());
-
-                    List<Person> unassignedPersonList = personList.stream()
-                            .filter(person -> person.getAppointment() == null)
-                            .collect(Collectors.toList());
-                    int pageLength = unassignedPersonList.size() * APPOINTMENT_PAGE_LIMIT / appointmentListSize;
-                    personList.addAll(unassignedPersonList.subList(page * pageLength,
-                            Math.min(unassignedPersonList.size(), (page + 1) * pageLength)));
-                }
-                VaccinationSchedule pagedSchedule = new VaccinationSchedule(
-                        vaccineTypeList, vaccinationCenterList, appointmentList, personList);
-                pagedSchedule.setScore(schedule.getScore());
-                pagedSchedule.setSolverStatus(schedule.getSolverStatus());
-                return pagedSchedule;
-            }
+            VaccinationSchedulePageIndex pageIndex = vaccinationScheduleRepository.findPageIndex(scheduleId);
+            schedule = pageIndex == null ? null : pageIndex.getPage(page, APPOINTMENT_PAGE_LIMIT);
+        } else {
+            schedule = vaccinationScheduleRepository.find(scheduleId);
         }
-        return schedule;
+        if (schedule == null) {
+            throw new NotFoundException("There is no schedule with id (" + scheduleId + ").");
+        }
+        // Stream the JSON, so a huge schedule is never buffered in memory
+        return outputStream -> writeSchedule(outputStream, schedule, solverStatus);
+    }
+
+    /**
+     * @return never null, the solver status of every schedule, by schedule id
+     */
+    @GET
+    @Path("solverStatus")
+    public Map<Long, SolverStatus> getSolverStatusMap() {
+        return scheduleSolverService.getSolverStatusMap();
+    }
+
+    private void writeSchedule(OutputStream outputStream, VaccinationSchedule schedule, SolverStatus solverStatus)
+            throws IOException {
+        // Don't flush the output stream after every single element
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartObject();
+            writeArrayField(writer, generator, "vaccineTypeList", schedule.getVaccineTypeList());
+            writeArrayField(writer, generator, "vaccinationCenterList", schedule.getVaccinationCenterList());
+            writeArrayField(writer, generator, "appointmentList", schedule.getAppointmentList());
+            writeArrayField(writer, generator, "personList", schedule.getPersonList());
+            generator.writeFieldName("score");
+            writer.writeValue(generator, schedule.getScore());
+            generator.writeFieldName("solverStatus");
+            writer.writeValue(generator, solverStatus);
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeArrayField(ObjectWriter writer, JsonGenerator generator, String fieldName, List<?> list)
+            throws IOException {
+        generator.writeFieldName(fieldName);
+        generator.writeStartArray();
+        for (Object element : list) {
+            writer.writeValue(generator, element);
+        }
+        generator.writeEndArray();
+    }
+
+    // To try, generate a file with VaccinationScheduleImportCli and import it with that CLI too
+    @POST
+    @Path("import")
+    @Consumes(VaccinationScheduleCsvIO.MEDIA_TYPE)
+    public void importCsv(InputStream inputStream) {
+        importSchedule(VaccinationScheduleRepository.DEFAULT_SCHEDULE_ID, new VaccinationScheduleCsvIO(), inputStream);
+    }
+
+    @POST
+    @Path("import")
+    @Consumes(VaccinationScheduleBinaryIO.MEDIA_TYPE)
+    public void importBinary(InputStream inputStream) {
+        importSchedule(VaccinationScheduleRepository.DEFAULT_SCHEDULE_ID, new VaccinationScheduleBinaryIO(), inputStream);
+    }
+
+    @POST
+    @Path("{scheduleId}/import")
+    @Consumes(VaccinationScheduleCsvIO.MEDIA_TYPE)
+    public void importCsv(@PathParam("scheduleId") Long scheduleId, InputStream inputStream) {
+        importSchedule(scheduleId, new VaccinationScheduleCsvIO(), inputStream);
+    }
+
+    @POST
+    @Path("{scheduleId}/import")
+    @Consumes(VaccinationScheduleBinaryIO.MEDIA_TYPE)
+    public void importBinary(@PathParam("scheduleId") Long scheduleId, InputStream inputStream) {
+        importSchedule(scheduleId, new VaccinationScheduleBinaryIO(), inputStream);
+    }
+
+    private void importSchedule(Long scheduleId, VaccinationScheduleIO scheduleIO, InputStream inputStream) {
+        if (getSolverStatus(scheduleId) != SolverStatus.NOT_SOLVING || continuousPlanningService.isSolving(scheduleId)) {
+            throw new IllegalStateException("Stop solving the schedule with id (" + scheduleId
+                    + ") before importing another one.");
+        }
+        // Streams straight into the domain objects, without buffering the request body
+        vaccinationScheduleRepository.save(scheduleId, scheduleIO.read(inputStream));
     }
 
     @POST
     @Path("solve")
     public void solve() {
-        solverManager.solveAndListen(1L,
-                (problemId) -> {
-                    VaccinationSchedule schedule = vaccinationScheduleRepository.find();
-                    return new VaccinationSolution(schedule);
-                },
-                vaccinationSolution -> {
-                    vaccinationScheduleRepository.save(vaccinationSolution.toSchedule());
-                });
+        solve(VaccinationScheduleRepository.DEFAULT_SCHEDULE_ID, null);
+    }
+
+    /**
+     * @param spentLimit null for the configured termination only, otherwise an ISO duration such as {@code PT2M}
+     */
+    @POST
+    @Path("{scheduleId}/solve")
+    public void solve(@PathParam("scheduleId") Long scheduleId, @QueryParam("spentLimit") String spentLimit) {
+        if (continuousPlanningService.isSolving(scheduleId)) {
+            throw new IllegalStateException("Stop the continuous planning of the schedule with id (" + scheduleId
+                    + ") first.");
+        }
+        scheduleSolverService.solve(scheduleId, spentLimit == null ? null : Duration.parse(spentLimit));
     }
 
-    public SolverStatus getSolverStatus() {
-        return solverManager.getSolverStatus(1L);
+    public SolverStatus getSolverStatus(Long scheduleId) {
+        return scheduleSolverService.getSolverStatus(scheduleId);
     }
 
     @POST
     @Path("stopSolving")
     public void stopSolving() {
-        solverManager.terminateEarly(1L);
+        stopSolving(VaccinationScheduleRepository.DEFAULT_SCHEDULE_ID);
+    }
+
+    @POST
+    @Path("{scheduleId}/stopSolving")
+    public void stopSolving(@PathParam("scheduleId") Long scheduleId) {
+        scheduleSolverService.terminateEarly(scheduleId);
     }
 
 }
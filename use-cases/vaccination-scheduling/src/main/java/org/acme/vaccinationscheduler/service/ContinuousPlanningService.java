@@ -0,0 +1,269 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.Person;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.domain.VaccineType;
+import org.acme.vaccinationscheduler.domain.solver.IncrementalScheduleTranslator;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.acme.vaccinationscheduler.persistence.VaccinationScheduleRepository;
+import org.acme.vaccinationscheduler.solver.change.AddAppointmentsProblemFactChange;
+import org.acme.vaccinationscheduler.solver.change.AddPersonsProblemFactChange;
+import org.acme.vaccinationscheduler.solver.change.PinPersonsProblemFactChange;
+import org.acme.vaccinationscheduler.solver.change.RollWindowProblemFactChange;
+import org.acme.vaccinationscheduler.solver.geo.DistanceCalculator;
+import org.optaplanner.core.api.solver.ProblemFactChange;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.solver.SolverConfig;
+
+/**
+ * Continuous planning: one daemon solver keeps running on one schedule of the repository,
+ * while new registrations, new booths, confirmations and the passing of days are fed into it
+ * as problem fact changes, instead of re-translating and re-solving the entire schedule.
+ * <p>
+ * Each call is one batch of problem fact changes, which restarts the solver phases once.
+ * So under a high registration load, batch the registrations (for example once per second)
+ * rather than sending them one by one.
+ */
+@ApplicationScoped
+public class ContinuousPlanningService {
+
+    private final VaccinationScheduleRepository vaccinationScheduleRepository;
+    private final DistanceCalculator distanceCalculator;
+
+    // TODO: Replace by SolverManager.addProblemChange() once the OptaPlanner version supports it.
+    private final Solver<VaccinationSolution> solver;
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ContinuousPlanningSolver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Future<?> solverFuture = null;
+    private volatile Long scheduleId = null;
+    private volatile Map<String, VaccineType> vaccineTypeMap;
+    private volatile Map<String, VaccinationCenter> vaccinationCenterMap;
+    /**
+     * Only accessed by the solver thread.
+     * One instance for the entire run: it picks up the persons and slots that the problem fact changes add and remove.
+     */
+    private IncrementalScheduleTranslator scheduleTranslator;
+
+    @Inject
+    public ContinuousPlanningService(SolverConfig solverConfig,
+            VaccinationScheduleRepository vaccinationScheduleRepository, DistanceCalculator distanceCalculator) {
+        this.vaccinationScheduleRepository = vaccinationScheduleRepository;
+        this.distanceCalculator = distanceCalculator;
+        // Daemon mode: when the termination is reached, the solver waits for the next problem fact change
+        solver = SolverFactory.<VaccinationSolution>create(solverConfig.copyConfig().withDaemon(true)).buildSolver();
+        solver.addEventListener(event -> {
+            if (event.isEveryProblemFactChangeProcessed() && event.getNewBestScore().isSolutionInitialized()) {
+                vaccinationScheduleRepository.save(scheduleId, scheduleTranslator.toSchedule(event.getNewBestSolution()));
+            }
+        });
+    }
+
+    /**
+     * @param scheduleId never null
+     */
+    public synchronized void start(Long scheduleId) {
+        if (isSolving()) {
+            throw new IllegalStateException("Continuous planning has already started for the schedule with id ("
+                    + this.scheduleId + ").");
+        }
+        VaccinationSchedule schedule = vaccinationScheduleRepository.find(scheduleId);
+        if (schedule == null) {
+            throw new IllegalArgumentException("There is no schedule with id (" + scheduleId + ").");
+        }
+        this.scheduleId = scheduleId;
+        vaccineTypeMap = toMap(schedule.getVaccineTypeList(), VaccineType::getName);
+        vaccinationCenterMap = toMap(schedule.getVaccinationCenterList(), VaccinationCenter::getId);
+        VaccinationSolution solution = new VaccinationSolution(schedule, distanceCalculator);
+        scheduleTranslator = new IncrementalScheduleTranslator();
+        solverFuture = executorService.submit(() -> solver.solve(solution));
+    }
+
+    public synchronized void stop() {
+        if (solverFuture == null) {
+            return;
+        }
+        solver.terminateEarly();
+        try {
+            solverFuture.get(); // Wait for termination and propagate exceptions.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Failed to stop the solver.", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to stop the solver.", e.getCause());
+        } finally {
+            solverFuture = null;
+        }
+    }
+
+    @PreDestroy
+    void destroy() {
+        stop();
+        executorService.shutdownNow();
+    }
+
+    public synchronized boolean isSolving() {
+        return solverFuture != null && !solverFuture.isDone();
+    }
+
+    /**
+     * @param scheduleId never null
+     * @return true if continuous planning runs on that schedule
+     */
+    public synchronized boolean isSolving(Long scheduleId) {
+        return isSolving() && scheduleId.equals(this.scheduleId);
+    }
+
+    /**
+     * @return null if continuous planning has never started
+     */
+    public Long getScheduleId() {
+        return scheduleId;
+    }
+
+    /**
+     * @param registration never null, the new appointments and persons,
+     * referencing the vaccine types and vaccination centers of the running schedule by name and id
+     */
+    public void register(VaccinationSchedule registration) {
+        List<Appointment> appointmentList = new ArrayList<>(registration.getAppointmentList().size());
+        for (Appointment appointment : registration.getAppointmentList()) {
+            appointmentList.add(new Appointment(lookUpVaccinationCenter(appointment.getVaccinationCenter()),
+                    appointment.getBoothId(), appointment.getDateTime(), lookUpVaccineType(appointment.getVaccineType())));
+        }
+        List<Person> personList = new ArrayList<>(registration.getPersonList().size());
+        for (Person person : registration.getPersonList()) {
+            if (person.getAppointment() != null || person.isPinned()) {
+                throw new IllegalArgumentException("The newly registered person (" + person
+                        + ") must not have an appointment (" + person.getAppointment()
+                        + ") or be pinned (" + person.isPinned() + ").");
+            }
+            personList.add(new Person(person.getId(), person.getName(), person.getHomeLocation(),
+                    person.getBirthdate(), person.getPriorityRating(), person.getDoseNumber(),
+                    lookUpVaccineType(person.getRequiredVaccineType()),
+                    lookUpVaccineType(person.getPreferredVaccineType()),
+                    lookUpVaccinationCenter(person.getRequiredVaccinationCenter()),
+                    lookUpVaccinationCenter(person.getPreferredVaccinationCenter()),
+                    person.getReadyDate(), person.getIdealDate(), person.getDueDate()));
+        }
+        List<ProblemFactChange<VaccinationSolution>> problemFactChangeList = new ArrayList<>(2);
+        if (!appointmentList.isEmpty()) {
+            problemFactChangeList.add(new AddAppointmentsProblemFactChange(appointmentList));
+        }
+        if (!personList.isEmpty()) {
+            problemFactChangeList.add(new AddPersonsProblemFactChange(personList, distanceCalculator));
+        }
+        addProblemFactChanges(problemFactChangeList);
+    }
+
+    /**
+     * @param confirmedAppointmentMap never null, the appointment that each person id accepted,
+     * referencing the vaccination center of the running schedule by id
+     */
+    public void confirm(Map<String, Appointment> confirmedAppointmentMap) {
+        Map<String, Appointment> workingConfirmedAppointmentMap = new HashMap<>(confirmedAppointmentMap.size());
+        confirmedAppointmentMap.forEach((personId, appointment) -> workingConfirmedAppointmentMap.put(personId,
+                new Appointment(lookUpVaccinationCenter(appointment.getVaccinationCenter()),
+                        appointment.getBoothId(), appointment.getDateTime(),
+                        lookUpVaccineType(appointment.getVaccineType()))));
+        addProblemFactChanges(List.of(new PinPersonsProblemFactChange(workingConfirmedAppointmentMap)));
+    }
+
+    /**
+     * @param windowStartDate never null, typically today
+     */
+    public void rollWindow(LocalDate windowStartDate) {
+        addProblemFactChanges(List.of(new RollWindowProblemFactChange(windowStartDate)));
+    }
+
+    private synchronized void addProblemFactChanges(List<ProblemFactChange<VaccinationSolution>> problemFactChangeList) {
+        assertSolverIsAlive();
+        if (problemFactChangeList.isEmpty()) {
+            return;
+        }
+        solver.addProblemFactChanges(problemFactChangeList);
+    }
+
+    private void assertSolverIsAlive() {
+        if (solverFuture == null) {
+            throw new IllegalStateException("Continuous planning has not been started yet.");
+        }
+        if (solverFuture.isDone()) {
+            try {
+                solverFuture.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Solver thread was interrupted.", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Solver thread has died.", e.getCause());
+            }
+            throw new IllegalStateException("Solver has finished solving even though it operates in daemon mode.");
+        }
+    }
+
+    private VaccineType lookUpVaccineType(VaccineType vaccineType) {
+        return lookUp(vaccineTypeMap, vaccineType, vaccineType == null ? null : vaccineType.getName());
+    }
+
+    private VaccinationCenter lookUpVaccinationCenter(VaccinationCenter vaccinationCenter) {
+        return lookUp(vaccinationCenterMap, vaccinationCenter, vaccinationCenter == null ? null : vaccinationCenter.getId());
+    }
+
+    private static <T> T lookUp(Map<String, T> map, T object, String key) {
+        if (object == null) {
+            return null;
+        }
+        T workingObject = map.get(key);
+        if (workingObject == null) {
+            throw new IllegalArgumentException("The object (" + object + ") with key (" + key
+                    + ") is not part of the running schedule.");
+        }
+        return workingObject;
+    }
+
+    private static <T> Map<String, T> toMap(List<T> list, Function<T, String> keyFunction) {
+        Map<String, T> map = new HashMap<>(list.size());
+        for (T object : list) {
+            map.put(keyFunction.apply(object), object);
+        }
+        return map;
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.domain.solver.IncrementalScheduleTranslator;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.acme.vaccinationscheduler.persistence.VaccinationScheduleRepository;
+import org.acme.vaccinationscheduler.solver.geo.DistanceCalculator;
+import org.optaplanner.core.api.solver.SolverManager;
+import org.optaplanner.core.api.solver.SolverStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Solves many schedules (for example one per region) on one node, each with its own termination budget.
+ * <p>
+ * The {@link SolverManager} solves at most {@code quarkus.optaplanner.solver-manager.parallel-solver-count}
+ * schedules at the same time and queues the rest in submission order.
+ * Each schedule is queued at most once, so one region can't starve the others.
+ * A budget only starts when the schedule leaves the queue,
+ * so a queued schedule doesn't lose its solving time while it waits.
+ */
+@ApplicationScoped
+public class ScheduleSolverService {
+
+    protected static final Logger logger = LoggerFactory.getLogger(ScheduleSolverService.class);
+
+    private final SolverManager<VaccinationSolution, Long> solverManager;
+    private final VaccinationScheduleRepository vaccinationScheduleRepository;
+    private final DistanceCalculator distanceCalculator;
+
+    private final ScheduledExecutorService budgetExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SolverBudgetTimer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * Guarded by this.
+     */
+    private final Map<Long, ScheduledFuture<?>> budgetTimerMap = new LinkedHashMap<>();
+
+    @Inject
+    public ScheduleSolverService(SolverManager<VaccinationSolution, Long> solverManager,
+            VaccinationScheduleRepository vaccinationScheduleRepository, DistanceCalculator distanceCalculator) {
+        this.solverManager = solverManager;
+        this.vaccinationScheduleRepository = vaccinationScheduleRepository;
+        this.distanceCalculator = distanceCalculator;
+    }
+
+    @PreDestroy
+    void destroy() {
+        budgetExecutorService.shutdownNow();
+    }
+
+    /**
+     * Queues the schedule for solving. Every new best solution is saved in the repository.
+     * @param scheduleId never null
+     * @param spentLimit null to only terminate by the solver config's termination, which remains an upper bound
+     */
+    public synchronized void solve(Long scheduleId, Duration spentLimit) {
+        if (vaccinationScheduleRepository.find(scheduleId) == null) {
+            throw new IllegalArgumentException("There is no schedule with id (" + scheduleId + ").");
+        }
+        if (spentLimit != null && (spentLimit.isNegative() || spentLimit.isZero())) {
+            throw new IllegalArgumentException("The spentLimit (" + spentLimit + ") must be positive.");
+        }
+        SolverStatus solverStatus = solverManager.getSolverStatus(scheduleId);
+        if (solverStatus != SolverStatus.NOT_SOLVING) {
+            throw new IllegalStateException("The schedule with id (" + scheduleId + ") is already "
+                    + (solverStatus == SolverStatus.SOLVING_SCHEDULED ? "queued" : "solving") + ".");
+        }
+        // Only re-maps the persons that changed since the previous best solution
+        IncrementalScheduleTranslator scheduleTranslator = new IncrementalScheduleTranslator();
+        solverManager.solveAndListen(scheduleId,
+                (problemId) -> {
+                    // Called on the solver thread when the schedule leaves the queue
+                    if (spentLimit != null) {
+                        startBudgetTimer(problemId, spentLimit);
+                    }
+                    VaccinationSchedule schedule = vaccinationScheduleRepository.find(problemId);
+                    return new VaccinationSolution(schedule, distanceCalculator);
+                },
+                vaccinationSolution -> {
+                    vaccinationScheduleRepository.save(scheduleId, scheduleTranslator.toSchedule(vaccinationSolution));
+                },
+                finalBestSolution -> cancelBudgetTimer(scheduleId),
+                (problemId, throwable) -> {
+                    cancelBudgetTimer(problemId);
+                    logger.error("Solving failed for schedule id ({}).", problemId, throwable);
+                });
+    }
+
+    public SolverStatus getSolverStatus(Long scheduleId) {
+        return solverManager.getSolverStatus(scheduleId);
+    }
+
+    /**
+     * @return never null, the solver status of every schedule in the repository, in ascending id order
+     */
+    public Map<Long, SolverStatus> getSolverStatusMap() {
+        Map<Long, SolverStatus> solverStatusMap = new LinkedHashMap<>();
+        for (Long scheduleId : vaccinationScheduleRepository.findIds()) {
+            solverStatusMap.put(scheduleId, solverManager.getSolverStatus(scheduleId));
+        }
+        return solverStatusMap;
+    }
+
+    /**
+     * Stops solving the schedule, or removes it from the queue.
+     * @param scheduleId never null
+     */
+    public void terminateEarly(Long scheduleId) {
+        cancelBudgetTimer(scheduleId);
+        solverManager.terminateEarly(scheduleId);
+    }
+
+    private synchronized void startBudgetTimer(Long scheduleId, Duration spentLimit) {
+        ScheduledFuture<?> budgetTimer = budgetExecutorService.schedule(() -> solverManager.terminateEarly(scheduleId),
+                spentLimit.toMillis(), TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> oldBudgetTimer = budgetTimerMap.put(scheduleId, budgetTimer);
+        if (oldBudgetTimer != null) {
+            oldBudgetTimer.cancel(false);
+        }
+    }
+
+    private synchronized void cancelBudgetTimer(Long scheduleId) {
+        ScheduledFuture<?> budgetTimer = budgetTimerMap.remove(scheduleId);
+        if (budgetTimer != null) {
+            budgetTimer.cancel(false);
+        }
+    }
+
+}
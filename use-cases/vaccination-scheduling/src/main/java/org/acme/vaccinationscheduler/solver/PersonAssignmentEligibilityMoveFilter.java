@@ -0,0 +1,58 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver;
+
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.impl.heuristic.move.Move;
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionFilter;
+import org.optaplanner.core.impl.heuristic.selector.move.generic.ChangeMove;
+import org.optaplanner.core.impl.heuristic.selector.move.generic.SwapMove;
+
+/**
+ * Skips the change and swap moves that assign a person to a vaccination slot
+ * with the wrong vaccine type, outside their age band or outside their ready and due date,
+ * so the score director never calculates a move that breaks those hard constraints.
+ * <p>
+ * Uses the precomputed {@link PersonAssignment#getEligibilityMask()}, so it's a bit test for most slots.
+ * Unassigning a person is always accepted.
+ */
+public class PersonAssignmentEligibilityMoveFilter implements SelectionFilter<VaccinationSolution, Move<VaccinationSolution>> {
+
+    @Override
+    public boolean accept(ScoreDirector<VaccinationSolution> scoreDirector, Move<VaccinationSolution> move) {
+        if (move instanceof ChangeMove) {
+            ChangeMove<VaccinationSolution> changeMove = (ChangeMove<VaccinationSolution>) move;
+            return isEligible((PersonAssignment) changeMove.getEntity(),
+                    (VaccinationSlot) changeMove.getToPlanningValue());
+        } else if (move instanceof SwapMove) {
+            SwapMove<VaccinationSolution> swapMove = (SwapMove<VaccinationSolution>) move;
+            PersonAssignment leftPerson = (PersonAssignment) swapMove.getLeftEntity();
+            PersonAssignment rightPerson = (PersonAssignment) swapMove.getRightEntity();
+            return isEligible(leftPerson, rightPerson.getVaccinationSlot())
+                    && isEligible(rightPerson, leftPerson.getVaccinationSlot());
+        }
+        return true;
+    }
+
+    private static boolean isEligible(PersonAssignment personAssignment, VaccinationSlot vaccinationSlot) {
+        return vaccinationSlot == null || personAssignment.isEligibleFor(vaccinationSlot);
+    }
+
+}
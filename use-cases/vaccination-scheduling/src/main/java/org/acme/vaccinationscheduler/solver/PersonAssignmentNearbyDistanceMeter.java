@@ -0,0 +1,56 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver;
+
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.optaplanner.core.impl.heuristic.selector.common.nearby.NearbyDistanceMeter;
+
+/**
+ * Used by nearby selection to bias change moves towards the vaccination slots
+ * of the person's nearest vaccination centers and on dates nearby the person's ideal date.
+ * <p>
+ * Uses the precomputed person to vaccination center distance, so it doesn't calculate any geographic distance.
+ */
+public class PersonAssignmentNearbyDistanceMeter implements NearbyDistanceMeter<PersonAssignment, VaccinationSlot> {
+
+    /**
+     * Trade-off between distance and date: one day away from the ideal date weighs as much as 10 km further away.
+     */
+    public static final double METERS_PER_DAY = 10_000.0;
+    /**
+     * Pushes a slot with the wrong required vaccine type behind all slots with the right vaccine type.
+     */
+    public static final double WRONG_VACCINE_TYPE_PENALTY = 1_000_000_000.0;
+
+    @Override
+    public double getNearbyDistance(PersonAssignment origin, VaccinationSlot destination) {
+        if (destination == null) {
+            // Unassigning is left to the uniform change moves
+            return Double.MAX_VALUE;
+        }
+        double distance = origin.getRegretDistanceTo(destination.getVaccinationCenter());
+        if (origin.hasIdealDate()) {
+            distance += Math.abs(destination.getDateEpochDay() - origin.getIdealEpochDay()) * METERS_PER_DAY;
+        }
+        if (origin.getRequiredVaccineType() != null && origin.getRequiredVaccineType() != destination.getVaccineType()) {
+            distance += WRONG_VACCINE_TYPE_PENALTY;
+        }
+        return distance;
+    }
+
+}
@@ -16,10 +16,7 @@
 
 package org.acme.vaccinationscheduler.solver;
 
-import static java.time.temporal.ChronoUnit.DAYS;
-import static java.time.temporal.ChronoUnit.MINUTES;
-
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.util.function.Predicate;
 
 import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
@@ -34,7 +31,9 @@ public class VaccinationScheduleConstraintProvider implements ConstraintProvider
     public static final int HARD_LEVELS_SIZE = 1;
     public static final int SOFT_LEVELS_SIZE = 5;
 
-    private static final LocalDateTime COVID_EPOCH = LocalDateTime.of(2021, 1, 1, 0, 0);
+    // Score calculation uses the epoch-based primitives of VaccinationSlot and PersonAssignment
+    // to avoid creating temporal objects for every person on every move
+    public static final long COVID_EPOCH_MINUTE = LocalDate.of(2021, 1, 1).toEpochDay() * 1440L;
 
     private BendableLongScore ofHard(long hardScore) {
         return BendableLongScore.ofHard(HARD_LEVELS_SIZE, SOFT_LEVELS_SIZE, 0, hardScore);
@@ -107,12 +106,12 @@ public class VaccinationScheduleConstraintProvider implements ConstraintProvider
         return constraintFactory
                 .from(PersonAssignment.class).filter(personAssignedFilter)
                 .filter(personAssignment -> personAssignment.getVaccinationSlot().getVaccineType().getMaximumAge() != null
-                        && personAssignment.getAgeOnVaccinationDate()
+                        && personAssignment.getAgeOn(personAssignment.getVaccinationSlot())
                         < personAssignment.getVaccinationSlot().getVaccineType().getMinimumAge()
                         && personAssignment.getRequiredVaccineType() == null)
                 .penalizeLong("Minimum age of vaccination type", ofHard(1),
                         personAssignment -> personAssignment.getVaccinationSlot().getVaccineType().getMinimumAge()
-                                - personAssignment.getAgeOnVaccinationDate());
+                                - personAssignment.getAgeOn(personAssignment.getVaccinationSlot()));
     }
 
     Constraint maximumAgeVaccineType(ConstraintFactory constraintFactory) {
@@ -120,12 +119,12 @@ public class VaccinationScheduleConstraintProvider implements ConstraintProvider
         return constraintFactory
                 .from(PersonAssignment.class).filter(personAssignedFilter)
                 .filter(personAssignment -> personAssignment.getVaccinationSlot().getVaccineType().getMaximumAge() != null
-                        && personAssignment.getAgeOnVaccinationDate()
+                        && personAssignment.getAgeOn(personAssignment.getVaccinationSlot())
                         > personAssignment.getVaccinationSlot().getVaccineType().getMaximumAge()
                         // If the 1th dose was a max 55 year vaccine, then it's ok to inject someone who only turned 56 last week with it
                         && personAssignment.getRequiredVaccineType() == null)
                 .penalizeLong("Maximum age of vaccination type", ofHard(1),
-                        personAssignment -> personAssignment.getAgeOnVaccinationDate()
+                        personAssignment -> personAssignment.getAgeOn(personAssignment.getVaccinationSlot())
                                 - personAssignment.getVaccinationSlot().getVaccineType().getMaximumAge());
     }
 
@@ -137,11 +136,12 @@ public class VaccinationScheduleConstraintProvider implements ConstraintProvider
         // and also prohibit gamification (to get an earlier appointment).
         return constraintFactory
                 .from(PersonAssignment.class).filter(personAssignedFilter)
-                .filter(personAssignment -> personAssignment.getReadyDate() != null
-                        && personAssignment.getVaccinationSlot().getDate().compareTo(personAssignment.getReadyDate()) < 0)
+                // Without a ready date, the ready epoch day is Long.MIN_VALUE
+                .filter(personAssignment -> personAssignment.getVaccinationSlot().getDateEpochDay()
+                        < personAssignment.getReadyEpochDay())
                 .penalizeLong("Ready date", ofHard(1),
-                        personAssignment -> DAYS.between(personAssignment.getVaccinationSlot().getDate(),
-                                personAssignment.getReadyDate()));
+                        personAssignment -> personAssignment.getReadyEpochDay()
+                                - personAssignment.getVaccinationSlot().getDateEpochDay());
     }
 
     Constraint dueDate(ConstraintFactory constraintFactory) {
@@ -149,11 +149,12 @@ public class VaccinationScheduleConstraintProvider implements ConstraintProvider
         // For example, Pfizer is due to be injected 3 months after the first dose.
         return constraintFactory
                 .from(PersonAssignment.class).filter(personAssignedFilter)
-                .filter(personAssignment -> personAssignment.getDueDate() != null
-                        && personAssignment.getVaccinationSlot().getDate().compareTo(personAssignment.getDueDate()) > 0)
+                // Without a due date, the due epoch day is Long.MAX_VALUE
+                .filter(personAssignment -> personAssignment.getVaccinationSlot().getDateEpochDay()
+                        > personAssignment.getDueEpochDay())
                 .penalizeLong("Due date", ofHard(1),
-                        personAssignment -> DAYS.between(personAssignment.getDueDate(),
-                                personAssignment.getVaccinationSlot().getDate()));
+                        personAssignment -> personAssignment.getVaccinationSlot().getDateEpochDay()
+                                - personAssignment.getDueEpochDay());
     }
 
     // ************************************************************************
@@ -226,14 +227,14 @@ public class VaccinationScheduleConstraintProvider implements ConstraintProvider
         // For example, Pfizer is ideally injected 21 days after the first dose. Moderna after 28 days.
         return constraintFactory
                 .from(PersonAssignment.class).filter(personAssignedFilter)
-                .filter(personAssignment -> personAssignment.getIdealDate() != null
-                        && !personAssignment.getIdealDate().equals(personAssignment.getVaccinationSlot().getDate()))
+                .filter(personAssignment -> personAssignment.hasIdealDate()
+                        && personAssignment.getIdealEpochDay() != personAssignment.getVaccinationSlot().getDateEpochDay())
                 // This constraint is softer than distanceCost() to avoid sending people
                 // half-way across the country just to be one day closer to their ideal date.
                 .penalizeLong("Ideal date", ofSoft(3, 1),
                         personAssignment -> {
-                            long daysDiff = DAYS.between(personAssignment.getIdealDate(),
-                                    personAssignment.getVaccinationSlot().getDate());
+                            long daysDiff = personAssignment.getVaccinationSlot().getDateEpochDay()
+                                    - personAssignment.getIdealEpochDay();
                             // Penalize outliers more for fairness
                             return daysDiff * daysDiff;
                         });
@@ -249,7 +250,7 @@ public class VaccinationScheduleConstraintProvider implements ConstraintProvider
                 // half-way across the country just to get their vaccine one day earlier.
                 .penalizeLong("Higher priority rating earlier", ofSoft(4, 1),
                         personAssignment -> personAssignment.getPriorityRating()
-                                * MINUTES.between(COVID_EPOCH, personAssignment.getVaccinationSlot().getStartDateTime()));
+                                * (personAssignment.getVaccinationSlot().getStartEpochMinute() - COVID_EPOCH_MINUTE));
     }
 
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.optaplanner.core.api.domain.solution.cloner.SolutionCloner;
+
+/**
+ * The default reflection based solution cloner doesn't scale to 100k+ appointments
+ * (see https://issues.redhat.com/browse/PLANNER-2398).
+ * <p>
+ * Only {@link PersonAssignment} has a planning variable, so only those instances are cloned.
+ * All problem facts (vaccine types, vaccination centers, vaccination slots, appointments and persons)
+ * are immutable during solving and therefore shared between the working solution and its clones.
+ * The problem fact changes of continuous planning (see {@link org.acme.vaccinationscheduler.solver.change})
+ * replace those lists instead of modifying them, so a clone never sees a half-applied change.
+ */
+public class VaccinationSolutionCloner implements SolutionCloner<VaccinationSolution> {
+
+    @Override
+    public VaccinationSolution cloneSolution(VaccinationSolution original) {
+        List<PersonAssignment> originalPersonAssignmentList = original.getPersonAssignmentList();
+        List<PersonAssignment> personAssignmentList = new ArrayList<>(originalPersonAssignmentList.size());
+        for (PersonAssignment originalPersonAssignment : originalPersonAssignmentList) {
+            personAssignmentList.add(new PersonAssignment(originalPersonAssignment));
+        }
+        VaccinationSolution clone = new VaccinationSolution(original.getVaccineTypeList(), original.getVaccinationCenterList(),
+                original.getAppointmentList(), original.getVaccinationSlotList(),
+                personAssignmentList, original.getScore());
+        clone.setSlotEligibilityLayout(original.getSlotEligibilityLayout());
+        return clone;
+    }
+
+}
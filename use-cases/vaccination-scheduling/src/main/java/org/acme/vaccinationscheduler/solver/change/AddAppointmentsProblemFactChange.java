@@ -0,0 +1,87 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.change;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.solver.SlotEligibilityLayout;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.api.solver.ProblemFactChange;
+
+/**
+ * Adds the appointments of newly opened booths to the working solution.
+ * <p>
+ * The appointments are bucketed into new {@link VaccinationSlot} instances
+ * by {@link VaccinationSolution#toVaccinationSlotList(List, List, List, long)},
+ * with the same slot keys and order as
+ * {@link VaccinationSolution#VaccinationSolution(org.acme.vaccinationscheduler.domain.VaccinationSchedule)}.
+ * An existing slot with the same center, hour and vaccine type isn't extended,
+ * because slots are shared with the best solution clones, so their capacity must not change.
+ */
+public class AddAppointmentsProblemFactChange implements ProblemFactChange<VaccinationSolution> {
+
+    private final List<Appointment> appointmentList;
+
+    /**
+     * @param appointmentList never null, the appointments must reference the vaccine types and vaccination centers
+     * of the working solution
+     */
+    public AddAppointmentsProblemFactChange(List<Appointment> appointmentList) {
+        this.appointmentList = appointmentList;
+    }
+
+    @Override
+    public void doChange(ScoreDirector<VaccinationSolution> scoreDirector) {
+        if (appointmentList.isEmpty()) {
+            return;
+        }
+        VaccinationSolution solution = scoreDirector.getWorkingSolution();
+        long nextVaccinationSlotId = solution.getVaccinationSlotList().stream()
+                .mapToLong(VaccinationSlot::getId).max().orElse(-1L) + 1L;
+        List<VaccinationSlot> newVaccinationSlotList = VaccinationSolution.toVaccinationSlotList(appointmentList,
+                solution.getVaccinationCenterList(), solution.getVaccineTypeList(), nextVaccinationSlotId);
+        SlotEligibilityLayout slotEligibilityLayout = solution.getSlotEligibilityLayout();
+        // A slot beyond the layout's days gets no eligibility bit
+        if (slotEligibilityLayout != null) {
+            for (VaccinationSlot vaccinationSlot : newVaccinationSlotList) {
+                slotEligibilityLayout.initializeEligibility(vaccinationSlot);
+            }
+        }
+        List<Appointment> newAppointmentList = new ArrayList<>(
+                solution.getAppointmentList().size() + appointmentList.size());
+        newAppointmentList.addAll(solution.getAppointmentList());
+        newAppointmentList.addAll(appointmentList);
+        solution.setAppointmentList(newAppointmentList);
+
+        // Copy on write: the old lists are shared with the best solution clones
+        List<VaccinationSlot> vaccinationSlotList = new ArrayList<>(
+                solution.getVaccinationSlotList().size() + newVaccinationSlotList.size());
+        vaccinationSlotList.addAll(solution.getVaccinationSlotList());
+        solution.setVaccinationSlotList(vaccinationSlotList);
+        for (VaccinationSlot vaccinationSlot : newVaccinationSlotList) {
+            scoreDirector.beforeProblemFactAdded(vaccinationSlot);
+            vaccinationSlotList.add(vaccinationSlot);
+            scoreDirector.afterProblemFactAdded(vaccinationSlot);
+        }
+        scoreDirector.triggerVariableListeners();
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.change;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.acme.vaccinationscheduler.domain.Location;
+import org.acme.vaccinationscheduler.domain.Person;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.SlotEligibilityLayout;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.acme.vaccinationscheduler.solver.geo.DistanceCalculator;
+import org.acme.vaccinationscheduler.solver.geo.DistanceMatrix;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.api.solver.ProblemFactChange;
+
+/**
+ * Adds newly registered persons to the working solution, unassigned.
+ * <p>
+ * The distances of the whole batch are calculated in one bulk call, into one {@link DistanceMatrix} per batch,
+ * so the distance matrix of the persons that are already in the solution doesn't need to grow.
+ */
+public class AddPersonsProblemFactChange implements ProblemFactChange<VaccinationSolution> {
+
+    private final List<Person> personList;
+    private final DistanceCalculator distanceCalculator;
+
+    /**
+     * @param personList never null, the persons must not have an appointment yet
+     * @param distanceCalculator never null
+     */
+    public AddPersonsProblemFactChange(List<Person> personList, DistanceCalculator distanceCalculator) {
+        this.personList = personList;
+        this.distanceCalculator = distanceCalculator;
+    }
+
+    @Override
+    public void doChange(ScoreDirector<VaccinationSolution> scoreDirector) {
+        VaccinationSolution solution = scoreDirector.getWorkingSolution();
+        List<PersonAssignment> personAssignmentList = solution.getPersonAssignmentList();
+        Set<String> existingIdSet = new HashSet<>(personAssignmentList.size());
+        int nextIndex = 0;
+        for (PersonAssignment personAssignment : personAssignmentList) {
+            existingIdSet.add(personAssignment.getId());
+            nextIndex = Math.max(nextIndex, personAssignment.getIndex() + 1);
+        }
+        // Registering the same person twice (for example a retried request) has no effect
+        List<Person> newPersonList = new ArrayList<>(personList.size());
+        for (Person person : personList) {
+            if (existingIdSet.add(person.getId())) {
+                newPersonList.add(person);
+            }
+        }
+        if (newPersonList.isEmpty()) {
+            return;
+        }
+        Location[] fromLocations = newPersonList.stream().map(Person::getHomeLocation).toArray(Location[]::new);
+        Location[] toLocations = solution.getVaccinationCenterList().stream()
+                .map(VaccinationCenter::getLocation).toArray(Location[]::new);
+        DistanceMatrix distanceMatrix = distanceCalculator.calculateBulkDistance(fromLocations, toLocations);
+        SlotEligibilityLayout slotEligibilityLayout = solution.getSlotEligibilityLayout();
+        for (int row = 0; row < newPersonList.size(); row++) {
+            PersonAssignment personAssignment = new PersonAssignment(newPersonList.get(row), nextIndex++,
+                    distanceMatrix, row);
+            if (slotEligibilityLayout != null) {
+                slotEligibilityLayout.initializeEligibility(personAssignment);
+            }
+            scoreDirector.beforeEntityAdded(personAssignment);
+            personAssignmentList.add(personAssignment);
+            scoreDirector.afterEntityAdded(personAssignment);
+        }
+        scoreDirector.triggerVariableListeners();
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.change;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.Person;
+import org.acme.vaccinationscheduler.domain.solver.IncrementalScheduleTranslator;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.api.solver.ProblemFactChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pins the persons that accepted their appointment, so the solver no longer moves them.
+ * <p>
+ * Each person is pinned to the appointment it confirmed, not to whatever {@link Person#getAppointment()}
+ * the latest best solution translated, because the solver may have moved that person since it was shown.
+ * That appointment must be in the person's current {@link VaccinationSlot}, otherwise the confirmation is ignored.
+ * <p>
+ * The slot doesn't change: its capacity includes the pinned persons
+ * and its {@link VaccinationSlot#getUnscheduledAppointmentList()} still contains the confirmed appointment,
+ * which the {@link IncrementalScheduleTranslator} no longer hands out to other persons.
+ * Slots and their lists are shared with the best solution clones, so they must not be mutated.
+ * Neither must the {@link Person} instances, so the pin and the confirmed appointment go
+ * on the {@link PersonAssignment}, which is cloned.
+ */
+public class PinPersonsProblemFactChange implements ProblemFactChange<VaccinationSolution> {
+
+    protected static final Logger logger = LoggerFactory.getLogger(PinPersonsProblemFactChange.class);
+
+    private final Map<String, Appointment> confirmedAppointmentMap;
+
+    /**
+     * @param confirmedAppointmentMap never null, the appointment that each person id accepted,
+     * matched by vaccination center instance, booth id and date time
+     */
+    public PinPersonsProblemFactChange(Map<String, Appointment> confirmedAppointmentMap) {
+        this.confirmedAppointmentMap = confirmedAppointmentMap;
+    }
+
+    @Override
+    public void doChange(ScoreDirector<VaccinationSolution> scoreDirector) {
+        VaccinationSolution solution = scoreDirector.getWorkingSolution();
+        Set<Appointment> pinnedAppointmentSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (PersonAssignment personAssignment : solution.getPersonAssignmentList()) {
+            if (personAssignment.isPinned() && personAssignment.getPinnedAppointment() != null) {
+                pinnedAppointmentSet.add(personAssignment.getPinnedAppointment());
+            }
+        }
+        for (PersonAssignment personAssignment : solution.getPersonAssignmentList()) {
+            Appointment confirmedAppointment = confirmedAppointmentMap.get(personAssignment.getId());
+            if (confirmedAppointment == null || personAssignment.isPinned()) {
+                continue;
+            }
+            VaccinationSlot vaccinationSlot = personAssignment.getVaccinationSlot();
+            Appointment appointment = vaccinationSlot == null ? null
+                    : findAppointment(vaccinationSlot, confirmedAppointment);
+            if (appointment == null || pinnedAppointmentSet.contains(appointment)) {
+                logger.warn("Ignoring the confirmation of person ({}) with appointment ({}),"
+                        + " because the solver assigned that person to vaccinationSlot ({})"
+                        + " or another person already confirmed that appointment.",
+                        personAssignment, confirmedAppointment, vaccinationSlot);
+                continue;
+            }
+            pinnedAppointmentSet.add(appointment);
+            scoreDirector.beforeProblemPropertyChanged(personAssignment);
+            personAssignment.setPinnedAppointment(appointment);
+            personAssignment.setPinned(true);
+            scoreDirector.afterProblemPropertyChanged(personAssignment);
+        }
+        scoreDirector.triggerVariableListeners();
+    }
+
+    private static Appointment findAppointment(VaccinationSlot vaccinationSlot, Appointment confirmedAppointment) {
+        for (Appointment appointment : vaccinationSlot.getUnscheduledAppointmentList()) {
+            if (appointment.getVaccinationCenter() == confirmedAppointment.getVaccinationCenter()
+                    && Objects.equals(appointment.getBoothId(), confirmedAppointment.getBoothId())
+                    && appointment.getDateTime().equals(confirmedAppointment.getDateTime())) {
+                return appointment;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.change;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.api.solver.ProblemFactChange;
+
+/**
+ * Rolls the planning window forward: removes the slots and appointments before the window start date,
+ * together with the pinned persons assigned to them, because those persons confirmed and have been vaccinated by then.
+ * <p>
+ * The other persons assigned to them never confirmed, so they become unassigned.
+ * Those and the other unassigned persons stay, so they can be assigned to the new days.
+ * Add the appointments of those new days with {@link AddAppointmentsProblemFactChange}.
+ */
+public class RollWindowProblemFactChange implements ProblemFactChange<VaccinationSolution> {
+
+    private final LocalDate windowStartDate;
+
+    /**
+     * @param windowStartDate never null, the first day that is still planned
+     */
+    public RollWindowProblemFactChange(LocalDate windowStartDate) {
+        this.windowStartDate = windowStartDate;
+    }
+
+    @Override
+    public void doChange(ScoreDirector<VaccinationSolution> scoreDirector) {
+        VaccinationSolution solution = scoreDirector.getWorkingSolution();
+        long windowStartEpochDay = windowStartDate.toEpochDay();
+        List<PersonAssignment> personAssignmentList = solution.getPersonAssignmentList();
+        List<PersonAssignment> removedPersonAssignmentList = new ArrayList<>();
+        for (PersonAssignment personAssignment : personAssignmentList) {
+            VaccinationSlot vaccinationSlot = personAssignment.getVaccinationSlot();
+            if (vaccinationSlot != null && vaccinationSlot.getDateEpochDay() < windowStartEpochDay) {
+                if (personAssignment.isPinned()) {
+                    removedPersonAssignmentList.add(personAssignment);
+                } else {
+                    // Not confirmed, so not vaccinated either: plan that person again
+                    scoreDirector.beforeVariableChanged(personAssignment, "vaccinationSlot");
+                    personAssignment.setVaccinationSlot(null);
+                    scoreDirector.afterVariableChanged(personAssignment, "vaccinationSlot");
+                }
+            }
+        }
+        if (!removedPersonAssignmentList.isEmpty()) {
+            for (PersonAssignment personAssignment : removedPersonAssignmentList) {
+                scoreDirector.beforeEntityRemoved(personAssignment);
+            }
+            // One pass instead of an ArrayList.remove() per person
+            personAssignmentList.removeIf(personAssignment -> {
+                VaccinationSlot vaccinationSlot = personAssignment.getVaccinationSlot();
+                return vaccinationSlot != null && vaccinationSlot.getDateEpochDay() < windowStartEpochDay;
+            });
+            for (PersonAssignment personAssignment : removedPersonAssignmentList) {
+                scoreDirector.afterEntityRemoved(personAssignment);
+            }
+        }
+
+        List<VaccinationSlot> removedVaccinationSlotList = new ArrayList<>();
+        // Copy on write: the old lists are shared with the best solution clones
+        List<VaccinationSlot> vaccinationSlotList = new ArrayList<>(solution.getVaccinationSlotList().size());
+        for (VaccinationSlot vaccinationSlot : solution.getVaccinationSlotList()) {
+            if (vaccinationSlot.getDateEpochDay() < windowStartEpochDay) {
+                removedVaccinationSlotList.add(vaccinationSlot);
+            } else {
+                vaccinationSlotList.add(vaccinationSlot);
+            }
+        }
+        for (VaccinationSlot vaccinationSlot : removedVaccinationSlotList) {
+            scoreDirector.beforeProblemFactRemoved(vaccinationSlot);
+        }
+        solution.setVaccinationSlotList(vaccinationSlotList);
+        for (VaccinationSlot vaccinationSlot : removedVaccinationSlotList) {
+            scoreDirector.afterProblemFactRemoved(vaccinationSlot);
+        }
+        LocalDateTime windowStartDateTime = windowStartDate.atStartOfDay();
+        List<Appointment> appointmentList = new ArrayList<>(solution.getAppointmentList().size());
+        for (Appointment appointment : solution.getAppointmentList()) {
+            if (!appointment.getDateTime().isBefore(windowStartDateTime)) {
+                appointmentList.add(appointment);
+            }
+        }
+        solution.setAppointmentList(appointmentList);
+        scoreDirector.triggerVariableListeners();
+    }
+
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.geo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.acme.vaccinationscheduler.domain.Location;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decorates another {@link DistanceCalculator} with a persistent cache of its last distance matrix,
+ * in a memory-mapped file keyed by location hashes.
+ * <p>
+ * There is one cache file per region: a calculation reuses the cache file that shares the most to locations
+ * (typically vaccination centers) with it, so the schedules of different regions don't overwrite each other's cache.
+ * A new region's file is named after the cache file path with a hash of its initial to locations as suffix,
+ * and keeps that name when its to locations change.
+ * On a re-solve, only the rows of new or moved from locations (typically persons)
+ * and the columns of new or moved to locations are calculated by the delegate.
+ * The distances are row-major, so the file is rewritten with the new columns and atomically replaced.
+ * A cache file whose to locations all moved into another region's file, for example when 2 regions merge, is deleted.
+ * <p>
+ * The returned {@link DistanceMatrix} is a zero-copy, copy-on-write view on the mapped file,
+ * so it doesn't live on the heap and {@link DistanceMatrix#setDistance(int, int, long)} never changes the cache.
+ * This is especially useful if the delegate is expensive, for example a road network distance calculator.
+ * <p>
+ * File layout (native byte order): a header of 4 longs (magic, version, fromSize, toSize),
+ * then the from location keys, then the to location keys, then the row-major distances.
+ */
+public class CachingDistanceCalculator implements DistanceCalculator {
+
+    private static final long MAGIC = 0x4F50_5441_444D_4331L;
+    private static final long VERSION = 1L;
+    private static final int HEADER_LONGS = 4;
+
+    protected static final Logger logger = LoggerFactory.getLogger(CachingDistanceCalculator.class);
+
+    private final DistanceCalculator delegate;
+    private final Path cacheFilePrefix;
+
+    private MappedByteBuffer mappedTemporaryCache = null;
+
+    /**
+     * @param delegate never null
+     * @param cacheFilePrefix never null, each cache file has this path with a suffix
+     */
+    public CachingDistanceCalculator(DistanceCalculator delegate, Path cacheFilePrefix) {
+        this.delegate = delegate;
+        this.cacheFilePrefix = cacheFilePrefix;
+    }
+
+    @Override
+    public long calculateDistance(Location from, Location to) {
+        return delegate.calculateDistance(from, to);
+    }
+
+    @Override
+    public synchronized DistanceMatrix calculateBulkDistance(Location[] fromLocations, Location[] toLocations) {
+        long[] fromKeys = calculateLocationKeys(fromLocations);
+        long[] toKeys = calculateLocationKeys(toLocations);
+        long[] sortedToKeys = toKeys.clone();
+        Arrays.sort(sortedToKeys);
+        Map<Path, LongBuffer> cacheMap = readCaches();
+        // The cache file of the same region shares the most to locations
+        Path cacheFile = null;
+        LongBuffer cache = null;
+        int maximumSharedToSize = 0;
+        for (Map.Entry<Path, LongBuffer> entry : cacheMap.entrySet()) {
+            int sharedToSize = countSharedKeys(readToKeys(entry.getValue()), sortedToKeys);
+            if (sharedToSize > maximumSharedToSize) {
+                cacheFile = entry.getKey();
+                cache = entry.getValue();
+                maximumSharedToSize = sharedToSize;
+            }
+        }
+        if (cache == null) {
+            cacheFile = getNewCacheFile(sortedToKeys);
+            DistanceMatrix distanceMatrix = delegate.calculateBulkDistance(fromLocations, toLocations);
+            logger.info("Calculated distance matrix ({}x{}) without cache.", fromLocations.length, toLocations.length);
+            LongBuffer distances = createCache(cacheFile, fromKeys, toKeys);
+            distances.put(distanceMatrix.getDistances());
+            DistanceMatrix cachedDistanceMatrix = commitCache(cacheFile, fromKeys.length, toKeys.length);
+            deleteSupersededCaches(cacheMap, cacheFile, sortedToKeys);
+            return cachedDistanceMatrix;
+        }
+        int cachedFromSize = (int) cache.get(2);
+        int cachedToSize = (int) cache.get(3);
+        long[] cachedFromKeys = new long[cachedFromSize];
+        cache.position(HEADER_LONGS).get(cachedFromKeys);
+        long[] cachedToKeys = new long[cachedToSize];
+        cache.get(cachedToKeys);
+        LongBuffer cachedDistances = cache.slice();
+        if (Arrays.equals(fromKeys, cachedFromKeys) && Arrays.equals(toKeys, cachedToKeys)) {
+            logger.info("Reused cached distance matrix ({}x{}) as is.", fromLocations.length, toLocations.length);
+            return new DistanceMatrix(fromLocations.length, toLocations.length, cachedDistances);
+        }
+
+        int[] cachedFromIndexes = mapToCachedIndexes(fromKeys, cachedFromKeys);
+        int[] cachedToIndexes = mapToCachedIndexes(toKeys, cachedToKeys);
+        int[] missFromIndexes = filterIndexes(cachedFromIndexes, false);
+        int[] hitFromIndexes = filterIndexes(cachedFromIndexes, true);
+        // Typically a new or moved vaccination center
+        int[] missToIndexes = filterIndexes(cachedToIndexes, false);
+        // Full rows for the new or moved from locations
+        DistanceMatrix missRowMatrix = delegate.calculateBulkDistance(
+                select(fromLocations, missFromIndexes), toLocations);
+        // Only the new columns for the other from locations
+        DistanceMatrix missColumnMatrix = delegate.calculateBulkDistance(
+                select(fromLocations, hitFromIndexes), select(toLocations, missToIndexes));
+        logger.info("Calculated {} rows and {} columns of distance matrix ({}x{}), reused the rest from cache.",
+                missFromIndexes.length, missToIndexes.length, fromLocations.length, toLocations.length);
+
+        int toSize = toLocations.length;
+        LongBuffer distances = createCache(cacheFile, fromKeys, toKeys);
+        for (int m = 0; m < missFromIndexes.length; m++) {
+            int rowOffset = missFromIndexes[m] * toSize;
+            for (int j = 0; j < toSize; j++) {
+                distances.put(rowOffset + j, missRowMatrix.getDistance(m, j));
+            }
+        }
+        int[] missToPositions = new int[toSize];
+        for (int k = 0; k < missToIndexes.length; k++) {
+            missToPositions[missToIndexes[k]] = k;
+        }
+        for (int h = 0; h < hitFromIndexes.length; h++) {
+            int i = hitFromIndexes[h];
+            int rowOffset = i * toSize;
+            int cachedRowOffset = cachedFromIndexes[i] * cachedToSize;
+            for (int j = 0; j < toSize; j++) {
+                long distance = cachedToIndexes[j] >= 0
+                        ? cachedDistances.get(cachedRowOffset + cachedToIndexes[j])
+                        : missColumnMatrix.getDistance(h, missToPositions[j]);
+                distances.put(rowOffset + j, distance);
+            }
+        }
+        DistanceMatrix cachedDistanceMatrix = commitCache(cacheFile, fromKeys.length, toKeys.length);
+        deleteSupersededCaches(cacheMap, cacheFile, sortedToKeys);
+        return cachedDistanceMatrix;
+    }
+
+    /**
+     * @return never null, the readable cache files by path, in a stable order
+     */
+    private Map<Path, LongBuffer> readCaches() {
+        Path directory = cacheFilePrefix.toAbsolutePath().getParent();
+        Map<Path, LongBuffer> cacheMap = new TreeMap<>();
+        if (!Files.isDirectory(directory)) {
+            return cacheMap;
+        }
+        String cacheFilePrefixName = cacheFilePrefix.getFileName() + "-";
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory,
+                path -> path.getFileName().toString().startsWith(cacheFilePrefixName)
+                        && !path.getFileName().toString().endsWith(".tmp"))) {
+            for (Path cacheFile : directoryStream) {
+                LongBuffer cache = readCache(cacheFile);
+                if (cache != null) {
+                    cacheMap.put(cacheFile, cache);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed listing the distance matrix cache files in (" + directory + ").", e);
+        }
+        return cacheMap;
+    }
+
+    /**
+     * @param sortedToKeys never null
+     * @return never null, the same file for the same to locations in any order
+     */
+    private Path getNewCacheFile(long[] sortedToKeys) {
+        long hash = sortedToKeys.length;
+        for (long toKey : sortedToKeys) {
+            hash = mix(Long.rotateLeft(hash, 31) ^ toKey);
+        }
+        return cacheFilePrefix.resolveSibling(cacheFilePrefix.getFileName() + "-" + String.format("%016x", hash));
+    }
+
+    /**
+     * Deletes the other cache files whose to locations are all in the committed cache file,
+     * so they don't pile up.
+     */
+    private void deleteSupersededCaches(Map<Path, LongBuffer> cacheMap, Path cacheFile, long[] sortedToKeys) {
+        for (Map.Entry<Path, LongBuffer> entry : cacheMap.entrySet()) {
+            if (entry.getKey().equals(cacheFile)) {
+                continue;
+            }
+            long[] cachedToKeys = readToKeys(entry.getValue());
+            if (countSharedKeys(cachedToKeys, sortedToKeys) == cachedToKeys.length) {
+                try {
+                    Files.deleteIfExists(entry.getKey());
+                    logger.info("Deleted superseded distance matrix cache file ({}).", entry.getKey());
+                } catch (IOException e) {
+                    // Some platforms don't delete a mapped file, the next calculation tries again
+                    logger.warn("Failed deleting superseded distance matrix cache file ({}).", entry.getKey(), e);
+                }
+            }
+        }
+    }
+
+    private static long[] readToKeys(LongBuffer cache) {
+        int fromSize = (int) cache.get(2);
+        long[] toKeys = new long[(int) cache.get(3)];
+        cache.duplicate().position(HEADER_LONGS + fromSize).get(toKeys);
+        return toKeys;
+    }
+
+    /**
+     * @param keys never null
+     * @param sortedKeys never null, sorted
+     * @return the number of keys that are in sortedKeys
+     */
+    private static int countSharedKeys(long[] keys, long[] sortedKeys) {
+        int count = 0;
+        for (long key : keys) {
+            if (Arrays.binarySearch(sortedKeys, key) >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private LongBuffer readCache(Path cacheFile) {
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed and even after the file is replaced.
+            // Private, so changes to the distance matrix are copy-on-write in memory and never reach the file.
+            LongBuffer cache = channel.map(FileChannel.MapMode.PRIVATE, 0L, channel.size())
+                    .order(ByteOrder.nativeOrder()).asLongBuffer();
+            if (cache.capacity() < HEADER_LONGS || cache.get(0) != MAGIC || cache.get(1) != VERSION) {
+                logger.warn("Ignoring distance matrix cache file ({}) with an unsupported format.", cacheFile);
+                return null;
+            }
+            long expectedCapacity = HEADER_LONGS + cache.get(2) + cache.get(3) + cache.get(2) * cache.get(3);
+            if (cache.capacity() != expectedCapacity) {
+                logger.warn("Ignoring truncated distance matrix cache file ({}).", cacheFile);
+                return null;
+            }
+            return cache;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed reading the distance matrix cache file (" + cacheFile + ").", e);
+        }
+    }
+
+    /**
+     * Writes the header and the keys to a temporary file,
+     * so a crash halfway never leaves a corrupted cache file behind.
+     * @return never null, the memory-mapped distances region, to be filled in by the caller
+     */
+    private LongBuffer createCache(Path cacheFile, long[] fromKeys, long[] toKeys) {
+        long capacity = HEADER_LONGS + fromKeys.length + toKeys.length + (long) fromKeys.length * toKeys.length;
+        try (FileChannel channel = FileChannel.open(getTemporaryCacheFile(cacheFile), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            mappedTemporaryCache = channel.map(FileChannel.MapMode.READ_WRITE, 0L, toByteSize(capacity));
+            LongBuffer cache = mappedTemporaryCache.order(ByteOrder.nativeOrder()).asLongBuffer();
+            cache.put(MAGIC).put(VERSION).put(fromKeys.length).put(toKeys.length).put(fromKeys).put(toKeys);
+            return cache.slice();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed creating the distance matrix cache file (" + cacheFile + ").", e);
+        }
+    }
+
+    /**
+     * @return never null, mapped like a cache hit, so the distance matrix doesn't write through to the file
+     */
+    private DistanceMatrix commitCache(Path cacheFile, int fromSize, int toSize) {
+        mappedTemporaryCache.force();
+        mappedTemporaryCache = null;
+        try {
+            Files.move(getTemporaryCacheFile(cacheFile), cacheFile,
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed replacing the distance matrix cache file (" + cacheFile + ").", e);
+        }
+        LongBuffer cache = readCache(cacheFile);
+        if (cache == null) {
+            throw new IllegalStateException("Impossible state: the distance matrix cache file (" + cacheFile
+                    + ") was replaced concurrently.");
+        }
+        return new DistanceMatrix(fromSize, toSize, cache.position(HEADER_LONGS + fromSize + toSize).slice());
+    }
+
+    private static Path getTemporaryCacheFile(Path cacheFile) {
+        return cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+    }
+
+    private static long toByteSize(long capacity) {
+        long byteSize = capacity * Long.BYTES;
+        if (byteSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The distance matrix cache (" + byteSize
+                    + " bytes) is too big for a single memory-mapped buffer.");
+        }
+        return byteSize;
+    }
+
+    private static long[] calculateLocationKeys(Location[] locations) {
+        long[] keys = new long[locations.length];
+        for (int i = 0; i < locations.length; i++) {
+            keys[i] = calculateLocationKey(locations[i]);
+        }
+        return keys;
+    }
+
+    /**
+     * A 64-bit hash of the coordinates: an identical location has an identical distance anyway,
+     * and a collision of 2 different locations is astronomically unlikely at a few million locations.
+     */
+    static long calculateLocationKey(Location location) {
+        return mix(Double.doubleToLongBits(location.latitude) * 0x9E37_79B9_7F4A_7C15L
+                + Long.rotateLeft(Double.doubleToLongBits(location.longitude), 31));
+    }
+
+    /**
+     * Finalizer of MurmurHash3 to spread the bits.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51_AFD7_ED55_8CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CE_B9FE_1A85_EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static int[] mapToCachedIndexes(long[] keys, long[] cachedKeys) {
+        Map<Long, Integer> cachedIndexMap = new HashMap<>(cachedKeys.length * 4 / 3 + 1);
+        for (int i = 0; i < cachedKeys.length; i++) {
+            cachedIndexMap.putIfAbsent(cachedKeys[i], i);
+        }
+        int[] cachedIndexes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            cachedIndexes[i] = cachedIndexMap.getOrDefault(keys[i], -1);
+        }
+        return cachedIndexes;
+    }
+
+    /**
+     * @param cachedIndexes never null, {@code -1} for a cache miss
+     * @param hit true for the cache hits, false for the cache misses
+     * @return never null, the positions in cachedIndexes that are a hit or a miss
+     */
+    private static int[] filterIndexes(int[] cachedIndexes, boolean hit) {
+        int[] filtered = new int[cachedIndexes.length];
+        int size = 0;
+        for (int i = 0; i < cachedIndexes.length; i++) {
+            if ((cachedIndexes[i] >= 0) == hit) {
+                filtered[size++] = i;
+            }
+        }
+        return Arrays.copyOf(filtered, size);
+    }
+
+    private static Location[] select(Location[] locations, int[] indexes) {
+        Location[] selection = new Location[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            selection[i] = locations[indexes[i]];
+        }
+        return selection;
+    }
+
+}
@@ -25,17 +25,23 @@ public interface DistanceCalculator {
     /**
      * Bulk calculation of distance.
      * Typically much more scalable than {@link #calculateDistance(Location, Location)} iteratively.
+     * <p>
+     * By default, the rows are calculated in parallel blocks, see {@link RowBlockTask}.
+     * Implementations can override this to work on primitive arrays instead (see {@link EuclideanDistanceCalculator})
+     * or to call a remote distance matrix service in one request.
      * @param fromLocations never null
      * @param toLocations never null
      * @return never null
      */
-    default long[][] calculateBulkDistance(Location[] fromLocations, Location[] toLocations) {
-        long[][] distanceMatrix = new long[fromLocations.length][toLocations.length];
-        for (int i = 0; i < fromLocations.length; i++) {
-            for (int j = 0; j < toLocations.length; j++) {
-                distanceMatrix[i][j] = calculateDistance(fromLocations[i], toLocations[j]);
+    default DistanceMatrix calculateBulkDistance(Location[] fromLocations, Location[] toLocations) {
+        DistanceMatrix distanceMatrix = new DistanceMatrix(fromLocations.length, toLocations.length);
+        RowBlockTask.calculate(fromLocations.length, (fromStart, fromEnd) -> {
+            for (int i = fromStart; i < fromEnd; i++) {
+                for (int j = 0; j < toLocations.length; j++) {
+                    distanceMatrix.setDistance(i, j, calculateDistance(fromLocations[i], toLocations[j]));
+                }
             }
-        }
+        });
         return distanceMatrix;
     }
 
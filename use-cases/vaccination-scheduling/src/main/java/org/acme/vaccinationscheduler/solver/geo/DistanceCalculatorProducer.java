@@ -0,0 +1,43 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.geo;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+@ApplicationScoped
+public class DistanceCalculatorProducer {
+
+    @ConfigProperty(name = "distance-matrix.cache-file")
+    Optional<Path> cacheFile;
+
+    @Produces
+    @ApplicationScoped
+    public DistanceCalculator distanceCalculator() {
+        DistanceCalculator distanceCalculator = new EuclideanDistanceCalculator();
+        if (cacheFile.isPresent()) {
+            return new CachingDistanceCalculator(distanceCalculator, cacheFile.get());
+        }
+        return distanceCalculator;
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.geo;
+
+import java.nio.LongBuffer;
+
+/**
+ * Distances from every from location to every to location, in one flat primitive buffer (row-major).
+ * Typically the from locations are the persons and the to locations are the vaccination centers.
+ * <p>
+ * Scales much better than a {@code Map} per person: no boxed values, no map nodes, no hash lookups.
+ * The buffer is either a heap array or an off-heap (for example memory-mapped) view,
+ * see {@link CachingDistanceCalculator}.
+ */
+public class DistanceMatrix {
+
+    private final int fromSize;
+    private final int toSize;
+    private final LongBuffer distances;
+
+    public DistanceMatrix(int fromSize, int toSize) {
+        this(fromSize, toSize, LongBuffer.wrap(new long[Math.multiplyExact(fromSize, toSize)]));
+    }
+
+    /**
+     * @param fromSize {@code >= 0}
+     * @param toSize {@code >= 0}
+     * @param distances never null, not copied, its position and limit are ignored
+     */
+    public DistanceMatrix(int fromSize, int toSize, LongBuffer distances) {
+        if (distances.capacity() != (long) fromSize * toSize) {
+            throw new IllegalArgumentException("The distances capacity (" + distances.capacity()
+                    + ") must be fromSize (" + fromSize + ") * toSize (" + toSize + ").");
+        }
+        this.fromSize = fromSize;
+        this.toSize = toSize;
+        this.distances = distances;
+    }
+
+    public long getDistance(int fromIndex, int toIndex) {
+        return distances.get(fromIndex * toSize + toIndex);
+    }
+
+    public void setDistance(int fromIndex, int toIndex, long distance) {
+        distances.put(fromIndex * toSize + toIndex, distance);
+    }
+
+    /**
+     * @param fromIndex {@code 0 <= fromIndex < fromSize}
+     * @return {@code 0} if {@link #getToSize()} is {@code 0}
+     */
+    public long getMinimumDistance(int fromIndex) {
+        if (toSize == 0) {
+            return 0L;
+        }
+        int offset = fromIndex * toSize;
+        long minimumDistance = distances.get(offset);
+        for (int i = offset + 1; i < offset + toSize; i++) {
+            minimumDistance = Math.min(minimumDistance, distances.get(i));
+        }
+        return minimumDistance;
+    }
+
+    // ************************************************************************
+    // Getters and setters
+    // ************************************************************************
+
+    public int getFromSize() {
+        return fromSize;
+    }
+
+    public int getToSize() {
+        return toSize;
+    }
+
+    /**
+     * For bulk calculation only.
+     * @return never null, a view of the backing buffer
+     */
+    LongBuffer getDistances() {
+        return distances.duplicate().clear();
+    }
+
+}
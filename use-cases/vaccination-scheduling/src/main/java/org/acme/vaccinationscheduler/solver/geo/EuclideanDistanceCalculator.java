@@ -37,4 +37,38 @@ public class EuclideanDistanceCalculator implements DistanceCalculator {
         return (long) ceil(sqrt(latitudeDiff * latitudeDiff + longitudeDiff * longitudeDiff) * METERS_PER_DEGREE);
     }
 
+    @Override
+    public DistanceMatrix calculateBulkDistance(Location[] fromLocations, Location[] toLocations) {
+        int toSize = toLocations.length;
+        DistanceMatrix distanceMatrix = new DistanceMatrix(fromLocations.length, toSize);
+        double[] toLatitudes = new double[toSize];
+        double[] toLongitudes = new double[toSize];
+        for (int j = 0; j < toSize; j++) {
+            toLatitudes[j] = toLocations[j].latitude;
+            toLongitudes[j] = toLocations[j].longitude;
+        }
+        // A heap buffer, so the loop below can write to the array directly
+        long[] distances = distanceMatrix.getDistances().array();
+        RowBlockTask.calculate(fromLocations.length, (fromStart, fromEnd) -> {
+            for (int i = fromStart; i < fromEnd; i++) {
+                Location from = fromLocations[i];
+                calculateDistanceRow(from.latitude, from.longitude, toLatitudes, toLongitudes, distances, i * toSize);
+            }
+        });
+        return distanceMatrix;
+    }
+
+    /**
+     * A counted loop over primitive arrays, without a {@link Location} dereference per pair.
+     * See EuclideanDistanceCalculatorBenchmark (in the tests) before assuming it's faster on your hardware.
+     */
+    private static void calculateDistanceRow(double fromLatitude, double fromLongitude,
+            double[] toLatitudes, double[] toLongitudes, long[] distances, int offset) {
+        for (int j = 0; j < toLatitudes.length; j++) {
+            double latitudeDiff = toLatitudes[j] - fromLatitude;
+            double longitudeDiff = toLongitudes[j] - fromLongitude;
+            distances[offset + j] = (long) ceil(sqrt(latitudeDiff * latitudeDiff + longitudeDiff * longitudeDiff) * METERS_PER_DEGREE);
+        }
+    }
+
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.geo;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits the rows of a {@link DistanceMatrix} in blocks and calculates those blocks in parallel
+ * on the {@link ForkJoinPool#commonPool()}.
+ */
+public class RowBlockTask extends RecursiveAction {
+
+    /**
+     * Big enough to amortize the fork overhead, small enough to balance the load on all cores.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    @FunctionalInterface
+    public interface RowBlockCalculator {
+
+        /**
+         * Calculates the distances of the rows {@code fromStart} (inclusive) to {@code fromEnd} (exclusive).
+         * Called concurrently for different, non overlapping blocks.
+         * @param fromStart {@code 0 <= fromStart < fromEnd}
+         * @param fromEnd {@code fromStart < fromEnd <= fromSize}
+         */
+        void calculateBlock(int fromStart, int fromEnd);
+
+    }
+
+    public static void calculate(int fromSize, RowBlockCalculator rowBlockCalculator) {
+        if (fromSize <= DEFAULT_BLOCK_SIZE) {
+            // Avoid the thread hand-off for small datasets
+            if (fromSize > 0) {
+                rowBlockCalculator.calculateBlock(0, fromSize);
+            }
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new RowBlockTask(rowBlockCalculator, 0, fromSize));
+    }
+
+    private final RowBlockCalculator rowBlockCalculator;
+    private final int fromStart;
+    private final int fromEnd;
+
+    private RowBlockTask(RowBlockCalculator rowBlockCalculator, int fromStart, int fromEnd) {
+        this.rowBlockCalculator = rowBlockCalculator;
+        this.fromStart = fromStart;
+        this.fromEnd = fromEnd;
+    }
+
+    @Override
+    protected void compute() {
+        int size = fromEnd - fromStart;
+        if (size <= DEFAULT_BLOCK_SIZE) {
+            rowBlockCalculator.calculateBlock(fromStart, fromEnd);
+            return;
+        }
+        int middle = fromStart + size / 2;
+        invokeAll(new RowBlockTask(rowBlockCalculator, fromStart, middle),
+                new RowBlockTask(rowBlockCalculator, middle, fromEnd));
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import static org.acme.vaccinationscheduler.solver.VaccinationScheduleConstraintProvider.COVID_EPOCH_MINUTE;
+
+import org.acme.vaccinationscheduler.domain.VaccineType;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.solver.VaccinationScheduleConstraintProvider;
+
+/**
+ * The penalties of the constraints of {@link VaccinationScheduleConstraintProvider}
+ * that only depend on a single {@link PersonAssignment}, summed per score level.
+ * Each method returns a positive number (or zero) to penalize.
+ * <p>
+ * Any change to those constraints must be replicated here.
+ */
+final class PersonAssignmentPenalties {
+
+    /**
+     * Required vaccine type, required vaccination center, minimum and maximum age of vaccination type,
+     * ready date and due date.
+     * @return the hard level 0 penalty of an assigned person
+     */
+    static long calculateHardPenalty(PersonAssignment personAssignment, VaccinationSlot vaccinationSlot) {
+        long penalty = 0L;
+        VaccineType vaccineType = vaccinationSlot.getVaccineType();
+        VaccineType requiredVaccineType = personAssignment.getRequiredVaccineType();
+        if (requiredVaccineType != null && vaccineType != requiredVaccineType) {
+            penalty += 10_000_000L;
+        }
+        if (personAssignment.getRequiredVaccinationCenter() != null
+                && vaccinationSlot.getVaccinationCenter() != personAssignment.getRequiredVaccinationCenter()) {
+            penalty += 1_000_000L;
+        }
+        if (vaccineType.getMaximumAge() != null && requiredVaccineType == null) {
+            long age = personAssignment.getAgeOn(vaccinationSlot);
+            if (age < vaccineType.getMinimumAge()) {
+                penalty += vaccineType.getMinimumAge() - age;
+            }
+            if (age > vaccineType.getMaximumAge()) {
+                penalty += age - vaccineType.getMaximumAge();
+            }
+        }
+        long epochDay = vaccinationSlot.getDateEpochDay();
+        if (epochDay < personAssignment.getReadyEpochDay()) {
+            penalty += personAssignment.getReadyEpochDay() - epochDay;
+        }
+        if (epochDay > personAssignment.getDueEpochDay()) {
+            penalty += epochDay - personAssignment.getDueEpochDay();
+        }
+        return penalty;
+    }
+
+    /**
+     * Schedule second (or later) dose people.
+     * @return the soft level 0 penalty of an unassigned person
+     */
+    static long calculateUnassignedDosePenalty(PersonAssignment personAssignment) {
+        return personAssignment.getDoseNumber() > 1 ? personAssignment.getDoseNumber() - 1 : 0L;
+    }
+
+    /**
+     * Schedule higher priority rating people.
+     * @return the soft level 1 penalty of an unassigned person
+     */
+    static long calculateUnassignedPriorityRatingPenalty(PersonAssignment personAssignment) {
+        return personAssignment.getPriorityRating();
+    }
+
+    /**
+     * Preferred vaccine type, preferred vaccination center and regret distance cost.
+     * @return the soft level 2 penalty of an assigned person
+     */
+    static long calculateDistancePenalty(PersonAssignment personAssignment, VaccinationSlot vaccinationSlot) {
+        long penalty = 0L;
+        if (personAssignment.getPreferredVaccineType() != null
+                && vaccinationSlot.getVaccineType() != personAssignment.getPreferredVaccineType()) {
+            penalty += 1_000_000_000L;
+        }
+        if (personAssignment.getPreferredVaccinationCenter() != null
+                && vaccinationSlot.getVaccinationCenter() != personAssignment.getPreferredVaccinationCenter()) {
+            penalty += 1_000_000_000L;
+        }
+        long regretDistance = personAssignment.getRegretDistanceTo(vaccinationSlot.getVaccinationCenter());
+        return penalty + regretDistance * regretDistance;
+    }
+
+    /**
+     * Ideal date.
+     * @return the soft level 3 penalty of an assigned person
+     */
+    static long calculateIdealDatePenalty(PersonAssignment personAssignment, VaccinationSlot vaccinationSlot) {
+        if (!personAssignment.hasIdealDate()) {
+            return 0L;
+        }
+        long daysDiff = vaccinationSlot.getDateEpochDay() - personAssignment.getIdealEpochDay();
+        return daysDiff * daysDiff;
+    }
+
+    /**
+     * Higher priority rating earlier.
+     * @return the soft level 4 penalty of an assigned person
+     */
+    static long calculatePriorityRatingEarlierPenalty(PersonAssignment personAssignment, VaccinationSlot vaccinationSlot) {
+        return personAssignment.getPriorityRating() * (vaccinationSlot.getStartEpochMinute() - COVID_EPOCH_MINUTE);
+    }
+
+    private PersonAssignmentPenalties() {
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.acme.vaccinationscheduler.solver.PersonAssignmentDifficultyComparator;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.impl.phase.custom.CustomPhaseCommand;
+
+/**
+ * Parallel alternative to {@link VaccinationCustomConstructionHeuristic}.
+ * <p>
+ * Splits the persons into slices by the region of their nearest vaccination center
+ * (see {@link VaccinationSolutionPartitioner}) and constructs each slice on a separate thread,
+ * the most difficult persons of each slice first.
+ * A person can still be assigned to a vaccination slot in another region,
+ * so the threads share one {@link VaccinationSlotAvailabilityIndex}, which settles conflicts lock-free.
+ * The assignments are applied to the {@link ScoreDirector} in one batch at the end.
+ * <p>
+ * Unlike {@link VaccinationCustomConstructionHeuristic}, the result is not reproducible,
+ * because it depends on the thread scheduling.
+ */
+public class VaccinationParallelConstructionHeuristic implements CustomPhaseCommand<VaccinationSolution> {
+
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+
+    @SuppressWarnings("unused")
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The threadCount (" + threadCount + ") must be at least 1.");
+        }
+        this.threadCount = threadCount;
+    }
+
+    @Override
+    public void changeWorkingSolution(ScoreDirector<VaccinationSolution> scoreDirector) {
+        VaccinationSolution schedule = scoreDirector.getWorkingSolution();
+
+        VaccinationSlotAvailabilityIndex availabilityIndex
+                = new VaccinationSlotAvailabilityIndex(schedule.getVaccinationSlotList());
+        for (PersonAssignment person : schedule.getPersonAssignmentList()) {
+            if (person.getVaccinationSlot() != null) {
+                availabilityIndex.reduceAvailability(person.getVaccinationSlot());
+            }
+        }
+        List<VaccinationCenter> bookableVaccinationCenterList = new ArrayList<>();
+        int[] regionIndexes = VaccinationSolutionPartitioner.calculateRegionIndexes(schedule, threadCount,
+                bookableVaccinationCenterList);
+        List<List<PersonAssignment>> slicePersonLists = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            slicePersonLists.add(new ArrayList<>());
+        }
+        List<PersonAssignment> personList = schedule.getPersonAssignmentList().stream()
+                .filter(person -> !person.isPinned() && person.getVaccinationSlot() == null)
+                .sorted(new PersonAssignmentDifficultyComparator().reversed())
+                .collect(Collectors.toList());
+        for (PersonAssignment person : personList) {
+            VaccinationCenter vaccinationCenter = VaccinationSolutionPartitioner.findRegionVaccinationCenter(person,
+                    bookableVaccinationCenterList);
+            int regionIndex = vaccinationCenter == null ? 0 : regionIndexes[vaccinationCenter.getIndex()];
+            slicePersonLists.get(regionIndex).add(person);
+        }
+
+        List<VaccinationSlot[]> sliceVaccinationSlotsList = constructSlices(availabilityIndex, slicePersonLists);
+
+        // Apply all assignments in one batch, on the solver thread
+        for (int i = 0; i < slicePersonLists.size(); i++) {
+            List<PersonAssignment> slicePersonList = slicePersonLists.get(i);
+            VaccinationSlot[] sliceVaccinationSlots = sliceVaccinationSlotsList.get(i);
+            for (int j = 0; j < slicePersonList.size(); j++) {
+                VaccinationSlot vaccinationSlot = sliceVaccinationSlots[j];
+                if (vaccinationSlot != null) {
+                    PersonAssignment person = slicePersonList.get(j);
+                    scoreDirector.beforeVariableChanged(person, "vaccinationSlot");
+                    person.setVaccinationSlot(vaccinationSlot);
+                    scoreDirector.afterVariableChanged(person, "vaccinationSlot");
+                }
+            }
+        }
+        scoreDirector.triggerVariableListeners();
+    }
+
+    /**
+     * Doesn't change the persons, because the working solution must not change outside of the solver thread.
+     * @return never null, per slice the vaccination slot of each person, null if unassigned
+     */
+    private List<VaccinationSlot[]> constructSlices(VaccinationSlotAvailabilityIndex availabilityIndex,
+            List<List<PersonAssignment>> slicePersonLists) {
+        ExecutorService executorService = Executors.newFixedThreadPool(slicePersonLists.size());
+        try {
+            List<Future<VaccinationSlot[]>> futureList = new ArrayList<>(slicePersonLists.size());
+            for (List<PersonAssignment> slicePersonList : slicePersonLists) {
+                futureList.add(executorService.submit(() -> {
+                    int[] bucketCursors = availabilityIndex.createBucketCursors();
+                    VaccinationSlot[] vaccinationSlots = new VaccinationSlot[slicePersonList.size()];
+                    for (int i = 0; i < vaccinationSlots.length; i++) {
+                        vaccinationSlots[i] = availabilityIndex.takeAvailableVaccinationSlot(
+                                slicePersonList.get(i), bucketCursors);
+                    }
+                    return vaccinationSlots;
+                }));
+            }
+            List<VaccinationSlot[]> sliceVaccinationSlotsList = new ArrayList<>(futureList.size());
+            for (Future<VaccinationSlot[]> future : futureList) {
+                sliceVaccinationSlotsList.add(future.get());
+            }
+            return sliceVaccinationSlotsList;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The parallel construction heuristic was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("The parallel construction heuristic failed.", e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import static org.acme.vaccinationscheduler.solver.VaccinationScheduleConstraintProvider.HARD_LEVELS_SIZE;
+import static org.acme.vaccinationscheduler.solver.VaccinationScheduleConstraintProvider.SOFT_LEVELS_SIZE;
+
+import java.util.function.Predicate;
+
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.solver.VaccinationScheduleConstraintProvider;
+import org.optaplanner.core.api.score.buildin.bendablelong.BendableLongScore;
+import org.optaplanner.core.api.score.stream.Constraint;
+import org.optaplanner.core.api.score.stream.ConstraintCollectors;
+import org.optaplanner.core.api.score.stream.ConstraintFactory;
+import org.optaplanner.core.api.score.stream.ConstraintProvider;
+
+/**
+ * Alternative to {@link VaccinationScheduleConstraintProvider}, with the same scores but fewer constraint streams.
+ * <p>
+ * The constraints that only depend on a single {@link PersonAssignment} are fused into one constraint per score level,
+ * so each variable change travels through fewer nodes.
+ * A constraint weight has a fixed score level, so the hard level and the soft levels can't be fused further.
+ * The fused constraints don't explain which original constraint is broken,
+ * so use {@link VaccinationScheduleConstraintProvider} to analyze a score.
+ */
+public class VaccinationScheduleFusedConstraintProvider implements ConstraintProvider {
+
+    private BendableLongScore ofHard(long hardScore) {
+        return BendableLongScore.ofHard(HARD_LEVELS_SIZE, SOFT_LEVELS_SIZE, 0, hardScore);
+    }
+
+    private BendableLongScore ofSoft(int softLevel, long softScore) {
+        return BendableLongScore.ofSoft(HARD_LEVELS_SIZE, SOFT_LEVELS_SIZE, softLevel, softScore);
+    }
+
+    // Because the @PlanningVariable is nullable=true, the from() classes needed to be filtered
+    private Predicate<PersonAssignment> personAssignedFilter = (personAssignment -> personAssignment.getVaccinationSlot() != null);
+
+    @Override
+    public Constraint[] defineConstraints(ConstraintFactory constraintFactory) {
+        return new Constraint[]{
+                // Hard constraints
+                vaccinationSlotCapacity(constraintFactory),
+                personAssignmentHard(constraintFactory),
+                // Medium constraints
+                scheduleSecondOrLaterDosePeople(constraintFactory),
+                scheduleHigherPriorityRatingPeople(constraintFactory),
+                // Soft constraints
+                personAssignmentDistance(constraintFactory),
+                idealDate(constraintFactory),
+                higherPriorityRatingEarlier(constraintFactory)
+        };
+    }
+
+    // ************************************************************************
+    // Hard constraints
+    // ************************************************************************
+
+    Constraint vaccinationSlotCapacity(ConstraintFactory constraintFactory) {
+        return constraintFactory
+                .from(PersonAssignment.class).filter(personAssignedFilter)
+                .groupBy(PersonAssignment::getVaccinationSlot, ConstraintCollectors.count())
+                .filter((vaccinationSlot, personCount) -> personCount > vaccinationSlot.getCapacity())
+                .penalizeLong("Vaccination slot capacity", ofHard(1_000),
+                        (vaccinationSlot, personCount) -> personCount - vaccinationSlot.getCapacity());
+    }
+
+    Constraint personAssignmentHard(ConstraintFactory constraintFactory) {
+        // Required vaccine type, required vaccination center, minimum and maximum age of vaccination type,
+        // ready date and due date
+        return constraintFactory
+                .from(PersonAssignment.class).filter(personAssignedFilter)
+                .filter(personAssignment -> PersonAssignmentPenalties.calculateHardPenalty(
+                        personAssignment, personAssignment.getVaccinationSlot()) > 0L)
+                .penalizeLong("Person assignment hard", ofHard(1),
+                        personAssignment -> PersonAssignmentPenalties.calculateHardPenalty(
+                                personAssignment, personAssignment.getVaccinationSlot()));
+    }
+
+    // ************************************************************************
+    // Medium constraints
+    // ************************************************************************
+
+    Constraint scheduleSecondOrLaterDosePeople(ConstraintFactory constraintFactory) {
+        return constraintFactory
+                .from(PersonAssignment.class)
+                .filter(personAssignment -> personAssignment.getDoseNumber() > 1 && personAssignment.getVaccinationSlot() == null)
+                .penalizeLong("Schedule second (or later) dose people", ofSoft(0, 1),
+                        PersonAssignmentPenalties::calculateUnassignedDosePenalty);
+    }
+
+    Constraint scheduleHigherPriorityRatingPeople(ConstraintFactory constraintFactory) {
+        return constraintFactory
+                .from(PersonAssignment.class)
+                .filter(personAssignment -> personAssignment.getVaccinationSlot() == null)
+                .penalizeLong("Schedule higher priority rating people", ofSoft(1, 1),
+                        PersonAssignmentPenalties::calculateUnassignedPriorityRatingPenalty);
+    }
+
+    // ************************************************************************
+    // Soft constraints
+    // ************************************************************************
+
+    Constraint personAssignmentDistance(ConstraintFactory constraintFactory) {
+        // Preferred vaccine type, preferred vaccination center and regret distance cost
+        return constraintFactory
+                .from(PersonAssignment.class).filter(personAssignedFilter)
+                .penalizeLong("Person assignment distance", ofSoft(2, 1),
+                        personAssignment -> PersonAssignmentPenalties.calculateDistancePenalty(
+                                personAssignment, personAssignment.getVaccinationSlot()));
+    }
+
+    Constraint idealDate(ConstraintFactory constraintFactory) {
+        return constraintFactory
+                .from(PersonAssignment.class).filter(personAssignedFilter)
+                .filter(personAssignment -> personAssignment.hasIdealDate()
+                        && personAssignment.getIdealEpochDay() != personAssignment.getVaccinationSlot().getDateEpochDay())
+                .penalizeLong("Ideal date", ofSoft(3, 1),
+                        personAssignment -> PersonAssignmentPenalties.calculateIdealDatePenalty(
+                                personAssignment, personAssignment.getVaccinationSlot()));
+    }
+
+    Constraint higherPriorityRatingEarlier(ConstraintFactory constraintFactory) {
+        return constraintFactory
+                .from(PersonAssignment.class).filter(personAssignedFilter)
+                .penalizeLong("Higher priority rating earlier", ofSoft(4, 1),
+                        personAssignment -> PersonAssignmentPenalties.calculatePriorityRatingEarlierPenalty(
+                                personAssignment, personAssignment.getVaccinationSlot()));
+    }
+
+}
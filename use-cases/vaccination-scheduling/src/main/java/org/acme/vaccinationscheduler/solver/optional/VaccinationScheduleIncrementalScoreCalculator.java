@@ -0,0 +1,152 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import static org.acme.vaccinationscheduler.solver.VaccinationScheduleConstraintProvider.SOFT_LEVELS_SIZE;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.acme.vaccinationscheduler.solver.VaccinationScheduleConstraintProvider;
+import org.optaplanner.core.api.score.buildin.bendablelong.BendableLongScore;
+import org.optaplanner.core.api.score.calculator.IncrementalScoreCalculator;
+
+/**
+ * Alternative to {@link VaccinationScheduleConstraintProvider}, with the same constraints and the same scores.
+ * <p>
+ * Each move only changes the {@link PersonAssignment} instances it moves,
+ * so it costs constant time: the person's penalties are retracted with its old vaccination slot
+ * and inserted again with its new vaccination slot, and the capacity of each vaccination slot
+ * is tracked with a person counter.
+ * The penalties of a person only depend on that person and its vaccination slot,
+ * so they are recalculated to retract them, instead of caching them per person.
+ * <p>
+ * Any change to a constraint in {@link VaccinationScheduleConstraintProvider} must be replicated here
+ * or in {@link PersonAssignmentPenalties}.
+ */
+public class VaccinationScheduleIncrementalScoreCalculator
+        implements IncrementalScoreCalculator<VaccinationSolution, BendableLongScore> {
+
+    private Map<VaccinationSlot, Integer> vaccinationSlotPositionMap;
+    private int[] personCounts;
+
+    private long hardScore;
+    private final long[] softScores = new long[SOFT_LEVELS_SIZE];
+
+    @Override
+    public void resetWorkingSolution(VaccinationSolution solution) {
+        List<VaccinationSlot> vaccinationSlotList = solution.getVaccinationSlotList();
+        vaccinationSlotPositionMap = new IdentityHashMap<>(vaccinationSlotList.size());
+        for (int i = 0; i < vaccinationSlotList.size(); i++) {
+            vaccinationSlotPositionMap.put(vaccinationSlotList.get(i), i);
+        }
+        personCounts = new int[vaccinationSlotList.size()];
+        hardScore = 0L;
+        Arrays.fill(softScores, 0L);
+        for (PersonAssignment personAssignment : solution.getPersonAssignmentList()) {
+            insert(personAssignment);
+        }
+    }
+
+    @Override
+    public void beforeEntityAdded(Object entity) {
+        // Do nothing
+    }
+
+    @Override
+    public void afterEntityAdded(Object entity) {
+        insert((PersonAssignment) entity);
+    }
+
+    @Override
+    public void beforeVariableChanged(Object entity, String variableName) {
+        retract((PersonAssignment) entity);
+    }
+
+    @Override
+    public void afterVariableChanged(Object entity, String variableName) {
+        insert((PersonAssignment) entity);
+    }
+
+    @Override
+    public void beforeEntityRemoved(Object entity) {
+        retract((PersonAssignment) entity);
+    }
+
+    @Override
+    public void afterEntityRemoved(Object entity) {
+        // Do nothing
+    }
+
+    private void insert(PersonAssignment personAssignment) {
+        VaccinationSlot vaccinationSlot = personAssignment.getVaccinationSlot();
+        if (vaccinationSlot != null) {
+            int personCount = ++personCounts[getPosition(vaccinationSlot)];
+            if (personCount > vaccinationSlot.getCapacity()) {
+                hardScore -= 1_000L;
+            }
+        }
+        impact(personAssignment, vaccinationSlot, -1L);
+    }
+
+    private void retract(PersonAssignment personAssignment) {
+        VaccinationSlot vaccinationSlot = personAssignment.getVaccinationSlot();
+        if (vaccinationSlot != null) {
+            int personCount = personCounts[getPosition(vaccinationSlot)]--;
+            if (personCount > vaccinationSlot.getCapacity()) {
+                hardScore += 1_000L;
+            }
+        }
+        impact(personAssignment, vaccinationSlot, 1L);
+    }
+
+    private int getPosition(VaccinationSlot vaccinationSlot) {
+        Integer position = vaccinationSlotPositionMap.get(vaccinationSlot);
+        if (position == null) {
+            throw new IllegalStateException("The vaccinationSlot (" + vaccinationSlot
+                    + ") is not part of the working solution's vaccinationSlotList.");
+        }
+        return position;
+    }
+
+    /**
+     * @param sign {@code -1} to penalize, {@code 1} to undo that penalty
+     */
+    private void impact(PersonAssignment personAssignment, VaccinationSlot vaccinationSlot, long sign) {
+        if (vaccinationSlot == null) {
+            softScores[0] += sign * PersonAssignmentPenalties.calculateUnassignedDosePenalty(personAssignment);
+            softScores[1] += sign * PersonAssignmentPenalties.calculateUnassignedPriorityRatingPenalty(personAssignment);
+            return;
+        }
+        hardScore += sign * PersonAssignmentPenalties.calculateHardPenalty(personAssignment, vaccinationSlot);
+        softScores[2] += sign * PersonAssignmentPenalties.calculateDistancePenalty(personAssignment, vaccinationSlot);
+        softScores[3] += sign * PersonAssignmentPenalties.calculateIdealDatePenalty(personAssignment, vaccinationSlot);
+        softScores[4] += sign
+                * PersonAssignmentPenalties.calculatePriorityRatingEarlierPenalty(personAssignment, vaccinationSlot);
+    }
+
+    @Override
+    public BendableLongScore calculateScore() {
+        return BendableLongScore.of(new long[] { hardScore }, softScores.clone());
+    }
+
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccineType;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+
+/**
+ * Remaining availability of every {@link VaccinationSlot}, in dense arrays
+ * bucketed by vaccination center, vaccine type and date.
+ * <p>
+ * Each bucket is a range of the slots array, sorted by start time,
+ * with a cursor to its first slot that still has availability.
+ * The cursor only moves forward, because the availability only decreases.
+ * <p>
+ * Thread-safe after the pre-assigned persons are reduced:
+ * the availability is taken with a lock-free compare-and-set,
+ * and each thread uses its own bucket cursors, see {@link #createBucketCursors()}.
+ */
+class VaccinationSlotAvailabilityIndex {
+
+    private static final int SELECTION_SORT_LIMIT = 4;
+
+    /**
+     * In order of first appearance, which breaks ties between equally distant vaccination centers.
+     */
+    private final VaccinationCenter[] vaccinationCenters;
+    /**
+     * Sorted by name.
+     */
+    private final VaccineType[] vaccineTypes;
+    /**
+     * Sorted ascending.
+     */
+    private final LocalDate[] dates;
+    private final long[] epochDays;
+
+    /**
+     * Sorted by bucket and start time.
+     */
+    private final VaccinationSlot[] vaccinationSlots;
+    private final AtomicIntegerArray availabilities;
+    private final int[] vaccinationCenterPositions;
+    private final Map<VaccinationSlot, Integer> vaccinationSlotPositionMap;
+    /**
+     * Indexed by {@link #getBucketIndex(int, int, int)}, the start of each bucket in {@link #vaccinationSlots},
+     * with one extra element for the end of the last bucket.
+     */
+    private final int[] bucketStarts;
+    /**
+     * Indexed by vaccination center position, the number of slots with availability.
+     */
+    private final AtomicIntegerArray availableVaccinationSlotCounts;
+
+    VaccinationSlotAvailabilityIndex(List<VaccinationSlot> vaccinationSlotList) {
+        List<VaccinationSlot> sortedVaccinationSlotList = new ArrayList<>(vaccinationSlotList);
+        sortedVaccinationSlotList.sort(Comparator
+                .comparing((VaccinationSlot vaccinationSlot) -> vaccinationSlot.getVaccineType().getName())
+                .thenComparing(VaccinationSlot::getDate)
+                .thenComparing(VaccinationSlot::getStartTime));
+        Map<VaccinationCenter, Integer> vaccinationCenterPositionMap = new IdentityHashMap<>();
+        Map<VaccineType, Integer> vaccineTypePositionMap = new IdentityHashMap<>();
+        List<VaccinationCenter> vaccinationCenterList = new ArrayList<>();
+        List<VaccineType> vaccineTypeList = new ArrayList<>();
+        for (VaccinationSlot vaccinationSlot : sortedVaccinationSlotList) {
+            if (vaccinationCenterPositionMap.putIfAbsent(vaccinationSlot.getVaccinationCenter(),
+                    vaccinationCenterList.size()) == null) {
+                vaccinationCenterList.add(vaccinationSlot.getVaccinationCenter());
+            }
+            if (vaccineTypePositionMap.putIfAbsent(vaccinationSlot.getVaccineType(),
+                    vaccineTypeList.size()) == null) {
+                vaccineTypeList.add(vaccinationSlot.getVaccineType());
+            }
+        }
+        vaccinationCenters = vaccinationCenterList.toArray(new VaccinationCenter[0]);
+        vaccineTypes = vaccineTypeList.toArray(new VaccineType[0]);
+        dates = sortedVaccinationSlotList.stream().map(VaccinationSlot::getDate)
+                .distinct().sorted().toArray(LocalDate[]::new);
+        epochDays = Arrays.stream(dates).mapToLong(LocalDate::toEpochDay).toArray();
+
+        int bucketCount = vaccinationCenters.length * vaccineTypes.length * dates.length;
+        int[] bucketIndexes = new int[sortedVaccinationSlotList.size()];
+        bucketStarts = new int[bucketCount + 1];
+        for (int i = 0; i < bucketIndexes.length; i++) {
+            VaccinationSlot vaccinationSlot = sortedVaccinationSlotList.get(i);
+            int bucketIndex = getBucketIndex(
+                    vaccinationCenterPositionMap.get(vaccinationSlot.getVaccinationCenter()),
+                    vaccineTypePositionMap.get(vaccinationSlot.getVaccineType()),
+                    Arrays.binarySearch(epochDays, vaccinationSlot.getDate().toEpochDay()));
+            bucketIndexes[i] = bucketIndex;
+            bucketStarts[bucketIndex + 1]++;
+        }
+        for (int bucketIndex = 0; bucketIndex < bucketCount; bucketIndex++) {
+            bucketStarts[bucketIndex + 1] += bucketStarts[bucketIndex];
+        }
+        // Counting sort by bucket, stable so each bucket remains sorted by start time
+        vaccinationSlots = new VaccinationSlot[bucketIndexes.length];
+        availabilities = new AtomicIntegerArray(bucketIndexes.length);
+        vaccinationCenterPositions = new int[bucketIndexes.length];
+        int[] availableVaccinationSlotCounts = new int[vaccinationCenters.length];
+        vaccinationSlotPositionMap = new IdentityHashMap<>(bucketIndexes.length);
+        int[] nextPositions = Arrays.copyOf(bucketStarts, bucketCount);
+        for (int i = 0; i < bucketIndexes.length; i++) {
+            VaccinationSlot vaccinationSlot = sortedVaccinationSlotList.get(i);
+            int position = nextPositions[bucketIndexes[i]]++;
+            vaccinationSlots[position] = vaccinationSlot;
+            availabilities.set(position, vaccinationSlot.getCapacity());
+            int vaccinationCenterPosition = vaccinationCenterPositionMap.get(vaccinationSlot.getVaccinationCenter());
+            vaccinationCenterPositions[position] = vaccinationCenterPosition;
+            vaccinationSlotPositionMap.put(vaccinationSlot, position);
+            if (vaccinationSlot.getCapacity() > 0) {
+                availableVaccinationSlotCounts[vaccinationCenterPosition]++;
+            }
+        }
+        this.availableVaccinationSlotCounts = new AtomicIntegerArray(availableVaccinationSlotCounts);
+    }
+
+    private int getBucketIndex(int vaccinationCenterPosition, int vaccineTypePosition, int datePosition) {
+        return (vaccinationCenterPosition * vaccineTypes.length + vaccineTypePosition) * dates.length + datePosition;
+    }
+
+    /**
+     * @return never null, the bucket cursors for one thread
+     */
+    int[] createBucketCursors() {
+        return Arrays.copyOf(bucketStarts, bucketStarts.length - 1);
+    }
+
+    /**
+     * For a person that is already assigned (pinned or not) before the construction heuristic starts.
+     * Call this before any thread takes availability.
+     * @param vaccinationSlot never null
+     */
+    void reduceAvailability(VaccinationSlot vaccinationSlot) {
+        Integer position = vaccinationSlotPositionMap.get(vaccinationSlot);
+        if (position == null) {
+            throw new IllegalStateException("The vaccinationSlot (" + vaccinationSlot
+                    + ") is not part of the working solution's vaccinationSlotList.");
+        }
+        if (availabilities.getAndDecrement(position) == 1) {
+            availableVaccinationSlotCounts.decrementAndGet(vaccinationCenterPositions[position]);
+        }
+    }
+
+    /**
+     * @return false if another thread took the last availability of that slot first
+     */
+    private boolean tryReduceAvailability(int position) {
+        while (true) {
+            int availability = availabilities.get(position);
+            if (availability <= 0) {
+                return false;
+            }
+            if (availabilities.compareAndSet(position, availability, availability - 1)) {
+                if (availability == 1) {
+                    availableVaccinationSlotCounts.decrementAndGet(vaccinationCenterPositions[position]);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Finds an available slot in the person's nearest vaccination center with a suitable vaccine type,
+     * on the date nearest to the person's ideal date (or else the earliest date), at the earliest start time,
+     * and reduces its availability.
+     * The required vaccination center goes first, the preferred vaccination center second.
+     * @param person never null
+     * @param bucketCursors never null, see {@link #createBucketCursors()}
+     * @return null if there is no suitable slot with availability left
+     */
+    VaccinationSlot takeAvailableVaccinationSlot(PersonAssignment person, int[] bucketCursors) {
+        long[] keys = calculateVaccinationCenterKeys(person);
+        int vaccinationCenterCount = keys.length;
+        for (int i = 0; i < vaccinationCenterCount; i++) {
+            // Most persons get their nearest vaccination center, so select the first few instead of sorting them all
+            if (i < SELECTION_SORT_LIMIT) {
+                int minimumIndex = i;
+                for (int j = i + 1; j < vaccinationCenterCount; j++) {
+                    if (keys[j] < keys[minimumIndex]) {
+                        minimumIndex = j;
+                    }
+                }
+                long key = keys[i];
+                keys[i] = keys[minimumIndex];
+                keys[minimumIndex] = key;
+            } else if (i == SELECTION_SORT_LIMIT) {
+                Arrays.sort(keys, i, vaccinationCenterCount);
+            }
+            int vaccinationCenterPosition = (int) (keys[i] % vaccinationCenterCount);
+            if (availableVaccinationSlotCounts.get(vaccinationCenterPosition) <= 0) {
+                continue;
+            }
+            for (int vaccineTypePosition = 0; vaccineTypePosition < vaccineTypes.length; vaccineTypePosition++) {
+                VaccineType vaccineType = vaccineTypes[vaccineTypePosition];
+                // Skip all slots with the wrong vaccineType
+                if (person.getRequiredVaccineType() != null && person.getRequiredVaccineType() != vaccineType) {
+                    if (person.getRequiredVaccineType().getName().equals(vaccineType.getName())) {
+                        throw new IllegalStateException("Don't have 2 VaccineType with the same name ("
+                                + vaccineType.getName() + ") instances in your input data.");
+                    }
+                    continue;
+                }
+                int position = takeAvailablePosition(person, vaccinationCenterPosition, vaccineTypePosition,
+                        bucketCursors);
+                if (position >= 0) {
+                    return vaccinationSlots[position];
+                }
+            }
+        }
+        return null;
+    }
+
+    private int takeAvailablePosition(PersonAssignment person, int vaccinationCenterPosition, int vaccineTypePosition,
+            int[] bucketCursors) {
+        LocalDate idealDate = person.getIdealDate();
+        // Iterate the dates nearest to the ideal date first, the earlier date first on a tie
+        int right = idealDate == null ? 0 : insertionPoint(idealDate.toEpochDay());
+        int left = right - 1;
+        long idealEpochDay = idealDate == null ? Long.MIN_VALUE : idealDate.toEpochDay();
+        while (left >= 0 || right < dates.length) {
+            int datePosition;
+            if (left >= 0 && (right >= dates.length
+                    || idealEpochDay - epochDays[left] <= epochDays[right] - idealEpochDay)) {
+                datePosition = left--;
+            } else {
+                datePosition = right++;
+            }
+            int bucketIndex = getBucketIndex(vaccinationCenterPosition, vaccineTypePosition, datePosition);
+            int position = findAvailablePosition(bucketIndex, bucketCursors);
+            // Every slot of a bucket has the same vaccine type and date, so one eligibility check covers them all
+            if (position < 0 || !person.isEligibleForDateAndVaccineType(vaccinationSlots[position])) {
+                continue;
+            }
+            do {
+                if (tryReduceAvailability(position)) {
+                    return position;
+                }
+                position = findAvailablePosition(bucketIndex, bucketCursors);
+            } while (position >= 0);
+        }
+        return -1;
+    }
+
+    private int insertionPoint(long epochDay) {
+        int position = Arrays.binarySearch(epochDays, epochDay);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    /**
+     * @return {@code -1} if the bucket has no availability left
+     */
+    private int findAvailablePosition(int bucketIndex, int[] bucketCursors) {
+        int bucketEnd = bucketStarts[bucketIndex + 1];
+        int cursor = bucketCursors[bucketIndex];
+        while (cursor < bucketEnd && availabilities.get(cursor) <= 0) {
+            cursor++;
+        }
+        bucketCursors[bucketIndex] = cursor;
+        return cursor < bucketEnd ? cursor : -1;
+    }
+
+    /**
+     * @return never null, a sort key per vaccination center position that also encodes that position:
+     * the required one first, the preferred one second, the others by distance
+     */
+    private long[] calculateVaccinationCenterKeys(PersonAssignment person) {
+        int vaccinationCenterCount = vaccinationCenters.length;
+        long[] keys = new long[vaccinationCenterCount];
+        for (int i = 0; i < vaccinationCenterCount; i++) {
+            VaccinationCenter vaccinationCenter = vaccinationCenters[i];
+            long rank;
+            if (person.getRequiredVaccinationCenter() == vaccinationCenter) {
+                rank = 0L;
+            } else if (person.getPreferredVaccinationCenter() == vaccinationCenter) {
+                rank = 1L;
+            } else {
+                rank = 2L + person.getDistanceTo(vaccinationCenter);
+            }
+            // The position breaks ties
+            keys[i] = Math.addExact(Math.multiplyExact(rank, vaccinationCenterCount), i);
+        }
+        return keys;
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.impl.heuristic.move.AbstractMove;
+
+/**
+ * Unassigns a person from a full vaccination slot and assigns an unassigned person to that slot instead,
+ * so the slot's person count doesn't change.
+ * A change move can't do that in one step without breaking the slot's capacity.
+ * See {@link VaccinationSlotKickOutMoveIteratorFactory}.
+ */
+public class VaccinationSlotKickOutMove extends AbstractMove<VaccinationSolution> {
+
+    private final PersonAssignment kickedOutPerson;
+    private final PersonAssignment kickedInPerson;
+    private final VaccinationSlot vaccinationSlot;
+
+    public VaccinationSlotKickOutMove(PersonAssignment kickedOutPerson, PersonAssignment kickedInPerson,
+            VaccinationSlot vaccinationSlot) {
+        this.kickedOutPerson = kickedOutPerson;
+        this.kickedInPerson = kickedInPerson;
+        this.vaccinationSlot = vaccinationSlot;
+    }
+
+    public PersonAssignment getKickedOutPerson() {
+        return kickedOutPerson;
+    }
+
+    public PersonAssignment getKickedInPerson() {
+        return kickedInPerson;
+    }
+
+    public VaccinationSlot getVaccinationSlot() {
+        return vaccinationSlot;
+    }
+
+    @Override
+    public boolean isMoveDoable(ScoreDirector<VaccinationSolution> scoreDirector) {
+        return kickedOutPerson.getVaccinationSlot() == vaccinationSlot && kickedInPerson.getVaccinationSlot() == null;
+    }
+
+    @Override
+    protected VaccinationSlotKickOutMove createUndoMove(ScoreDirector<VaccinationSolution> scoreDirector) {
+        return new VaccinationSlotKickOutMove(kickedInPerson, kickedOutPerson, vaccinationSlot);
+    }
+
+    @Override
+    protected void doMoveOnGenuineVariables(ScoreDirector<VaccinationSolution> scoreDirector) {
+        scoreDirector.beforeVariableChanged(kickedOutPerson, "vaccinationSlot");
+        kickedOutPerson.setVaccinationSlot(null);
+        scoreDirector.afterVariableChanged(kickedOutPerson, "vaccinationSlot");
+        scoreDirector.beforeVariableChanged(kickedInPerson, "vaccinationSlot");
+        kickedInPerson.setVaccinationSlot(vaccinationSlot);
+        scoreDirector.afterVariableChanged(kickedInPerson, "vaccinationSlot");
+    }
+
+    @Override
+    public VaccinationSlotKickOutMove rebase(ScoreDirector<VaccinationSolution> destinationScoreDirector) {
+        return new VaccinationSlotKickOutMove(destinationScoreDirector.lookUpWorkingObject(kickedOutPerson),
+                destinationScoreDirector.lookUpWorkingObject(kickedInPerson),
+                destinationScoreDirector.lookUpWorkingObject(vaccinationSlot));
+    }
+
+    @Override
+    public Collection<PersonAssignment> getPlanningEntities() {
+        return Arrays.asList(kickedOutPerson, kickedInPerson);
+    }
+
+    @Override
+    public Collection<VaccinationSlot> getPlanningValues() {
+        return Collections.singletonList(vaccinationSlot);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        VaccinationSlotKickOutMove other = (VaccinationSlotKickOutMove) o;
+        return kickedOutPerson == other.kickedOutPerson && kickedInPerson == other.kickedInPerson
+                && vaccinationSlot == other.vaccinationSlot;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kickedOutPerson, kickedInPerson, vaccinationSlot);
+    }
+
+    @Override
+    public String toString() {
+        return kickedOutPerson + " {" + vaccinationSlot + " -> null}, " + kickedInPerson + " {null -> " + vaccinationSlot + "}";
+    }
+
+}
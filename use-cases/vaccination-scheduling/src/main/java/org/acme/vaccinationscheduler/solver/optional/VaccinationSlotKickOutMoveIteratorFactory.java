@@ -0,0 +1,133 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.impl.heuristic.selector.move.factory.MoveIteratorFactory;
+
+/**
+ * Selects {@link VaccinationSlotKickOutMove} instances at random:
+ * an unassigned person takes a full slot they're eligible for
+ * from the least urgent person in that slot, if that person is less urgent than them.
+ * So every selected move improves the schedule second (or later) dose people
+ * or the schedule higher priority rating people score level.
+ * <p>
+ * On an overbooked schedule, most slots are full, so a change move that assigns an unassigned person
+ * breaks the slot's capacity and a hill climber never accepts it.
+ * This selector checks the slot's occupancy up front, with the {@link VaccinationSlotOccupancyIndex}.
+ */
+public class VaccinationSlotKickOutMoveIteratorFactory
+        implements MoveIteratorFactory<VaccinationSolution, VaccinationSlotKickOutMove> {
+
+    /**
+     * Gives up after this many rejected candidates, so this selector skips the step when no kick out is left,
+     * instead of looping forever.
+     */
+    private static final int BAIL_OUT_SIZE = 1_000;
+
+    @Override
+    public long getSize(ScoreDirector<VaccinationSolution> scoreDirector) {
+        VaccinationSolution solution = scoreDirector.getWorkingSolution();
+        return (long) solution.getPersonAssignmentList().size() * solution.getVaccinationSlotList().size();
+    }
+
+    @Override
+    public Iterator<VaccinationSlotKickOutMove> createOriginalMoveIterator(
+            ScoreDirector<VaccinationSolution> scoreDirector) {
+        throw new UnsupportedOperationException("The " + getClass().getSimpleName()
+                + " only supports random selection order.");
+    }
+
+    @Override
+    public Iterator<VaccinationSlotKickOutMove> createRandomMoveIterator(
+            ScoreDirector<VaccinationSolution> scoreDirector, Random workingRandom) {
+        return new RandomKickOutMoveIterator(scoreDirector.getWorkingSolution(),
+                VaccinationSlotOccupancyIndex.demand(scoreDirector), workingRandom);
+    }
+
+    private static final class RandomKickOutMoveIterator implements Iterator<VaccinationSlotKickOutMove> {
+
+        private final List<PersonAssignment> personAssignmentList;
+        private final List<VaccinationSlot> vaccinationSlotList;
+        private final VaccinationSlotOccupancyIndex occupancyIndex;
+        private final Random workingRandom;
+
+        private VaccinationSlotKickOutMove upcomingMove = null;
+
+        private RandomKickOutMoveIterator(VaccinationSolution solution, VaccinationSlotOccupancyIndex occupancyIndex,
+                Random workingRandom) {
+            this.personAssignmentList = solution.getPersonAssignmentList();
+            this.vaccinationSlotList = solution.getVaccinationSlotList();
+            this.occupancyIndex = occupancyIndex;
+            this.workingRandom = workingRandom;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (upcomingMove == null) {
+                upcomingMove = selectMove();
+            }
+            return upcomingMove != null;
+        }
+
+        @Override
+        public VaccinationSlotKickOutMove next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            VaccinationSlotKickOutMove move = upcomingMove;
+            upcomingMove = null;
+            return move;
+        }
+
+        private VaccinationSlotKickOutMove selectMove() {
+            if (personAssignmentList.isEmpty() || vaccinationSlotList.isEmpty()) {
+                return null;
+            }
+            for (int i = 0; i < BAIL_OUT_SIZE; i++) {
+                PersonAssignment kickedInPerson = personAssignmentList.get(
+                        workingRandom.nextInt(personAssignmentList.size()));
+                if (kickedInPerson.getVaccinationSlot() != null || kickedInPerson.isPinned()) {
+                    continue;
+                }
+                VaccinationSlot vaccinationSlot = vaccinationSlotList.get(
+                        workingRandom.nextInt(vaccinationSlotList.size()));
+                // A slot with capacity left only needs a change move
+                if (!occupancyIndex.isFull(vaccinationSlot)
+                        || !kickedInPerson.isEligibleFor(vaccinationSlot)) {
+                    continue;
+                }
+                PersonAssignment kickedOutPerson = occupancyIndex.findLeastUrgentPerson(vaccinationSlot, kickedInPerson);
+                if (kickedOutPerson == null) {
+                    continue;
+                }
+                return new VaccinationSlotKickOutMove(kickedOutPerson, kickedInPerson, vaccinationSlot);
+            }
+            return null;
+        }
+
+    }
+
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.impl.domain.variable.descriptor.VariableDescriptor;
+import org.optaplanner.core.impl.domain.variable.listener.SourcedVariableListener;
+import org.optaplanner.core.impl.domain.variable.supply.Demand;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+
+/**
+ * The persons assigned to each {@link VaccinationSlot} of the working solution,
+ * so a move selector can check a slot's occupancy in constant time.
+ * <p>
+ * Kept up to date by the score director as a variable listener on {@link PersonAssignment#getVaccinationSlot()},
+ * so it sees every move, including those of other move selectors and problem fact changes.
+ * There is one instance per score director, see {@link #demand(ScoreDirector)}.
+ */
+final class VaccinationSlotOccupancyIndex implements SourcedVariableListener<VaccinationSolution, PersonAssignment> {
+
+    private static final String VARIABLE_NAME = "vaccinationSlot";
+    private static final OccupancyDemand DEMAND = new OccupancyDemand();
+
+    private final VariableDescriptor<VaccinationSolution> sourceVariableDescriptor;
+    private Map<VaccinationSlot, Occupancy> occupancyMap;
+
+    /**
+     * @param scoreDirector never null, the score director of the move selector
+     * @return never null, the index of that score director's working solution
+     */
+    static VaccinationSlotOccupancyIndex demand(ScoreDirector<VaccinationSolution> scoreDirector) {
+        return ((InnerScoreDirector<VaccinationSolution, ?>) scoreDirector).getSupplyManager().demand(DEMAND);
+    }
+
+    private VaccinationSlotOccupancyIndex(VariableDescriptor<VaccinationSolution> sourceVariableDescriptor) {
+        this.sourceVariableDescriptor = sourceVariableDescriptor;
+    }
+
+    @Override
+    public VariableDescriptor<VaccinationSolution> getSourceVariableDescriptor() {
+        return sourceVariableDescriptor;
+    }
+
+    @Override
+    public void resetWorkingSolution(ScoreDirector<VaccinationSolution> scoreDirector) {
+        VaccinationSolution solution = scoreDirector.getWorkingSolution();
+        occupancyMap = new IdentityHashMap<>(solution.getVaccinationSlotList().size());
+        for (PersonAssignment personAssignment : solution.getPersonAssignmentList()) {
+            insert(personAssignment);
+        }
+    }
+
+    @Override
+    public void close() {
+        occupancyMap = null;
+    }
+
+    @Override
+    public void beforeEntityAdded(ScoreDirector<VaccinationSolution> scoreDirector, PersonAssignment personAssignment) {
+        // Do nothing
+    }
+
+    @Override
+    public void afterEntityAdded(ScoreDirector<VaccinationSolution> scoreDirector, PersonAssignment personAssignment) {
+        insert(personAssignment);
+    }
+
+    @Override
+    public void beforeVariableChanged(ScoreDirector<VaccinationSolution> scoreDirector, PersonAssignment personAssignment) {
+        retract(personAssignment);
+    }
+
+    @Override
+    public void afterVariableChanged(ScoreDirector<VaccinationSolution> scoreDirector, PersonAssignment personAssignment) {
+        insert(personAssignment);
+    }
+
+    @Override
+    public void beforeEntityRemoved(ScoreDirector<VaccinationSolution> scoreDirector, PersonAssignment personAssignment) {
+        retract(personAssignment);
+    }
+
+    @Override
+    public void afterEntityRemoved(ScoreDirector<VaccinationSolution> scoreDirector, PersonAssignment personAssignment) {
+        // Do nothing
+    }
+
+    private void insert(PersonAssignment personAssignment) {
+        VaccinationSlot vaccinationSlot = personAssignment.getVaccinationSlot();
+        if (vaccinationSlot != null) {
+            occupancyMap.computeIfAbsent(vaccinationSlot, slot -> new Occupancy(slot.getCapacity()))
+                    .add(personAssignment);
+        }
+    }
+
+    private void retract(PersonAssignment personAssignment) {
+        VaccinationSlot vaccinationSlot = personAssignment.getVaccinationSlot();
+        if (vaccinationSlot != null) {
+            Occupancy occupancy = occupancyMap.get(vaccinationSlot);
+            if (occupancy == null || !occupancy.remove(personAssignment)) {
+                throw new IllegalStateException("The personAssignment (" + personAssignment
+                        + ") with vaccinationSlot (" + vaccinationSlot + ") was never added to the occupancy index.");
+            }
+        }
+    }
+
+    /**
+     * @param vaccinationSlot never null
+     * @return the number of persons assigned to it, which can exceed its capacity
+     */
+    int getPersonCount(VaccinationSlot vaccinationSlot) {
+        Occupancy occupancy = occupancyMap.get(vaccinationSlot);
+        return occupancy == null ? 0 : occupancy.size;
+    }
+
+    /**
+     * @param vaccinationSlot never null
+     * @return true if no other person can be assigned to it without breaking its capacity
+     */
+    boolean isFull(VaccinationSlot vaccinationSlot) {
+        return getPersonCount(vaccinationSlot) >= vaccinationSlot.getCapacity();
+    }
+
+    /**
+     * @param vaccinationSlot never null
+     * @param workingRandom never null
+     * @return null if nobody is assigned to it
+     */
+    PersonAssignment pickRandomPerson(VaccinationSlot vaccinationSlot, Random workingRandom) {
+        Occupancy occupancy = occupancyMap.get(vaccinationSlot);
+        if (occupancy == null || occupancy.size == 0) {
+            return null;
+        }
+        return occupancy.persons[workingRandom.nextInt(occupancy.size)];
+    }
+
+    /**
+     * Scans the persons of the slot, which are at most a few more than its capacity.
+     * @param vaccinationSlot never null
+     * @param unassignedPerson never null
+     * @return null if there is no unpinned person that is less urgent to schedule than the unassigned person,
+     * otherwise the least urgent one, see {@link #compareUrgency(PersonAssignment, PersonAssignment)}
+     */
+    PersonAssignment findLeastUrgentPerson(VaccinationSlot vaccinationSlot, PersonAssignment unassignedPerson) {
+        Occupancy occupancy = occupancyMap.get(vaccinationSlot);
+        if (occupancy == null) {
+            return null;
+        }
+        PersonAssignment leastUrgentPerson = null;
+        for (int i = 0; i < occupancy.size; i++) {
+            PersonAssignment person = occupancy.persons[i];
+            if (!person.isPinned()
+                    && compareUrgency(person, leastUrgentPerson == null ? unassignedPerson : leastUrgentPerson) < 0) {
+                leastUrgentPerson = person;
+            }
+        }
+        return leastUrgentPerson;
+    }
+
+    /**
+     * Orders persons by the penalty they cause when they are unassigned:
+     * first by the schedule second (or later) dose people level, then by the schedule higher priority rating people level.
+     * @return negative if a is less urgent than b
+     */
+    static int compareUrgency(PersonAssignment a, PersonAssignment b) {
+        int comparison = Long.compare(PersonAssignmentPenalties.calculateUnassignedDosePenalty(a),
+                PersonAssignmentPenalties.calculateUnassignedDosePenalty(b));
+        if (comparison != 0) {
+            return comparison;
+        }
+        return Long.compare(PersonAssignmentPenalties.calculateUnassignedPriorityRatingPenalty(a),
+                PersonAssignmentPenalties.calculateUnassignedPriorityRatingPenalty(b));
+    }
+
+    /**
+     * The persons of one slot, in no particular order.
+     */
+    private static final class Occupancy {
+
+        private PersonAssignment[] persons;
+        private int size = 0;
+
+        private Occupancy(int capacity) {
+            persons = new PersonAssignment[Math.max(capacity, 1)];
+        }
+
+        private void add(PersonAssignment person) {
+            if (size == persons.length) {
+                persons = Arrays.copyOf(persons, size * 2);
+            }
+            persons[size++] = person;
+        }
+
+        private boolean remove(PersonAssignment person) {
+            for (int i = 0; i < size; i++) {
+                if (persons[i] == person) {
+                    // Fill the gap with the last person
+                    persons[i] = persons[--size];
+                    persons[size] = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * All instances are equal, so the supply manager creates only one index per score director.
+     */
+    private static final class OccupancyDemand implements Demand<VaccinationSolution, VaccinationSlotOccupancyIndex> {
+
+        @Override
+        public VaccinationSlotOccupancyIndex createExternalizedSupply(
+                InnerScoreDirector<VaccinationSolution, ?> scoreDirector) {
+            return new VaccinationSlotOccupancyIndex(scoreDirector.getSolutionDescriptor()
+                    .findEntityDescriptorOrFail(PersonAssignment.class).getVariableDescriptor(VARIABLE_NAME));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof OccupancyDemand;
+        }
+
+        @Override
+        public int hashCode() {
+            return OccupancyDemand.class.hashCode();
+        }
+
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.impl.heuristic.move.AbstractMove;
+
+/**
+ * Swaps the vaccination slots of 2 assigned persons.
+ * Unlike a change move, it never affects the capacity of a slot.
+ * See {@link VaccinationSlotSwapMoveIteratorFactory}.
+ */
+public class VaccinationSlotSwapMove extends AbstractMove<VaccinationSolution> {
+
+    private final PersonAssignment leftPerson;
+    private final PersonAssignment rightPerson;
+
+    public VaccinationSlotSwapMove(PersonAssignment leftPerson, PersonAssignment rightPerson) {
+        this.leftPerson = leftPerson;
+        this.rightPerson = rightPerson;
+    }
+
+    public PersonAssignment getLeftPerson() {
+        return leftPerson;
+    }
+
+    public PersonAssignment getRightPerson() {
+        return rightPerson;
+    }
+
+    @Override
+    public boolean isMoveDoable(ScoreDirector<VaccinationSolution> scoreDirector) {
+        return leftPerson.getVaccinationSlot() != rightPerson.getVaccinationSlot();
+    }
+
+    @Override
+    protected VaccinationSlotSwapMove createUndoMove(ScoreDirector<VaccinationSolution> scoreDirector) {
+        return new VaccinationSlotSwapMove(rightPerson, leftPerson);
+    }
+
+    @Override
+    protected void doMoveOnGenuineVariables(ScoreDirector<VaccinationSolution> scoreDirector) {
+        VaccinationSlot leftVaccinationSlot = leftPerson.getVaccinationSlot();
+        VaccinationSlot rightVaccinationSlot = rightPerson.getVaccinationSlot();
+        scoreDirector.beforeVariableChanged(leftPerson, "vaccinationSlot");
+        leftPerson.setVaccinationSlot(rightVaccinationSlot);
+        scoreDirector.afterVariableChanged(leftPerson, "vaccinationSlot");
+        scoreDirector.beforeVariableChanged(rightPerson, "vaccinationSlot");
+        rightPerson.setVaccinationSlot(leftVaccinationSlot);
+        scoreDirector.afterVariableChanged(rightPerson, "vaccinationSlot");
+    }
+
+    @Override
+    public VaccinationSlotSwapMove rebase(ScoreDirector<VaccinationSolution> destinationScoreDirector) {
+        return new VaccinationSlotSwapMove(destinationScoreDirector.lookUpWorkingObject(leftPerson),
+                destinationScoreDirector.lookUpWorkingObject(rightPerson));
+    }
+
+    @Override
+    public Collection<PersonAssignment> getPlanningEntities() {
+        return Arrays.asList(leftPerson, rightPerson);
+    }
+
+    @Override
+    public Collection<VaccinationSlot> getPlanningValues() {
+        return Arrays.asList(leftPerson.getVaccinationSlot(), rightPerson.getVaccinationSlot());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        VaccinationSlotSwapMove other = (VaccinationSlotSwapMove) o;
+        return leftPerson == other.leftPerson && rightPerson == other.rightPerson;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(leftPerson, rightPerson);
+    }
+
+    @Override
+    public String toString() {
+        return leftPerson + " {" + leftPerson.getVaccinationSlot() + "} <-> "
+                + rightPerson + " {" + rightPerson.getVaccinationSlot() + "}";
+    }
+
+}
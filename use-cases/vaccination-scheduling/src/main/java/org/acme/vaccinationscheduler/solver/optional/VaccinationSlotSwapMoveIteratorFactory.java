@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.impl.heuristic.selector.move.factory.MoveIteratorFactory;
+
+/**
+ * Selects {@link VaccinationSlotSwapMove} instances at random,
+ * between 2 persons in slots with the same vaccine type,
+ * that don't break more hard constraints (for example the ready or due date of a person) than they fix.
+ * <p>
+ * A generic swap move selector lets the score director reject those swaps,
+ * which costs a score calculation each.
+ * This selector skips them up front, by picking the other person from the {@link VaccinationSlotOccupancyIndex}.
+ */
+public class VaccinationSlotSwapMoveIteratorFactory
+        implements MoveIteratorFactory<VaccinationSolution, VaccinationSlotSwapMove> {
+
+    /**
+     * Gives up after this many rejected candidates, so this selector skips the step when no swap is left,
+     * instead of looping forever.
+     */
+    private static final int BAIL_OUT_SIZE = 1_000;
+
+    @Override
+    public long getSize(ScoreDirector<VaccinationSolution> scoreDirector) {
+        long personCount = scoreDirector.getWorkingSolution().getPersonAssignmentList().size();
+        return personCount * (personCount - 1L) / 2L;
+    }
+
+    @Override
+    public Iterator<VaccinationSlotSwapMove> createOriginalMoveIterator(
+            ScoreDirector<VaccinationSolution> scoreDirector) {
+        throw new UnsupportedOperationException("The " + getClass().getSimpleName()
+                + " only supports random selection order.");
+    }
+
+    @Override
+    public Iterator<VaccinationSlotSwapMove> createRandomMoveIterator(
+            ScoreDirector<VaccinationSolution> scoreDirector, Random workingRandom) {
+        return new RandomSwapMoveIterator(scoreDirector.getWorkingSolution(),
+                VaccinationSlotOccupancyIndex.demand(scoreDirector), workingRandom);
+    }
+
+    private static final class RandomSwapMoveIterator implements Iterator<VaccinationSlotSwapMove> {
+
+        private final List<PersonAssignment> personAssignmentList;
+        private final List<VaccinationSlot> vaccinationSlotList;
+        private final VaccinationSlotOccupancyIndex occupancyIndex;
+        private final Random workingRandom;
+
+        private VaccinationSlotSwapMove upcomingMove = null;
+
+        private RandomSwapMoveIterator(VaccinationSolution solution, VaccinationSlotOccupancyIndex occupancyIndex,
+                Random workingRandom) {
+            this.personAssignmentList = solution.getPersonAssignmentList();
+            this.vaccinationSlotList = solution.getVaccinationSlotList();
+            this.occupancyIndex = occupancyIndex;
+            this.workingRandom = workingRandom;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (upcomingMove == null) {
+                upcomingMove = selectMove();
+            }
+            return upcomingMove != null;
+        }
+
+        @Override
+        public VaccinationSlotSwapMove next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            VaccinationSlotSwapMove move = upcomingMove;
+            upcomingMove = null;
+            return move;
+        }
+
+        private VaccinationSlotSwapMove selectMove() {
+            if (personAssignmentList.isEmpty() || vaccinationSlotList.isEmpty()) {
+                return null;
+            }
+            for (int i = 0; i < BAIL_OUT_SIZE; i++) {
+                PersonAssignment leftPerson = personAssignmentList.get(
+                        workingRandom.nextInt(personAssignmentList.size()));
+                VaccinationSlot leftVaccinationSlot = leftPerson.getVaccinationSlot();
+                if (leftVaccinationSlot == null || leftPerson.isPinned()) {
+                    continue;
+                }
+                VaccinationSlot rightVaccinationSlot = vaccinationSlotList.get(
+                        workingRandom.nextInt(vaccinationSlotList.size()));
+                if (rightVaccinationSlot == leftVaccinationSlot
+                        || rightVaccinationSlot.getVaccineType() != leftVaccinationSlot.getVaccineType()) {
+                    continue;
+                }
+                PersonAssignment rightPerson = occupancyIndex.pickRandomPerson(rightVaccinationSlot, workingRandom);
+                if (rightPerson == null || rightPerson.isPinned()) {
+                    continue;
+                }
+                // The required vaccination center, the age and the ready and due dates of both persons
+                long oldHardPenalty = PersonAssignmentPenalties.calculateHardPenalty(leftPerson, leftVaccinationSlot)
+                        + PersonAssignmentPenalties.calculateHardPenalty(rightPerson, rightVaccinationSlot);
+                long newHardPenalty = PersonAssignmentPenalties.calculateHardPenalty(leftPerson, rightVaccinationSlot)
+                        + PersonAssignmentPenalties.calculateHardPenalty(rightPerson, leftVaccinationSlot);
+                if (newHardPenalty > oldHardPenalty) {
+                    continue;
+                }
+                return new VaccinationSlotSwapMove(leftPerson, rightPerson);
+            }
+            return null;
+        }
+
+    }
+
+}
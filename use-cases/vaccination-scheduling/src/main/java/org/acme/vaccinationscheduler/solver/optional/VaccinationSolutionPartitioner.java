@@ -0,0 +1,198 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.acme.vaccinationscheduler.domain.Location;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.impl.partitionedsearch.partitioner.SolutionPartitioner;
+
+/**
+ * Splits a {@link VaccinationSolution} into geographic regions of nearby vaccination centers,
+ * so partitioned search can solve each region on a separate thread.
+ * <p>
+ * The regions are created by recursive coordinate bisection of the vaccination centers,
+ * balanced by appointment capacity.
+ * Each {@link VaccinationSlot} goes to the region of its vaccination center.
+ * Each {@link PersonAssignment} goes to the region of its assigned vaccination slot,
+ * or else of its required or preferred vaccination center, or else of its nearest vaccination center.
+ * A person is never assigned to another region during partitioned search,
+ * so follow it up with a global local search phase to repair those cross-border assignments.
+ */
+public class VaccinationSolutionPartitioner implements SolutionPartitioner<VaccinationSolution> {
+
+    private int partCount = Runtime.getRuntime().availableProcessors();
+
+    @SuppressWarnings("unused")
+    public void setPartCount(int partCount) {
+        this.partCount = partCount;
+    }
+
+    @Override
+    public List<VaccinationSolution> splitWorkingSolution(ScoreDirector<VaccinationSolution> scoreDirector,
+            Integer runnablePartThreadLimit) {
+        return split(scoreDirector.getWorkingSolution());
+    }
+
+    List<VaccinationSolution> split(VaccinationSolution originalSolution) {
+        List<VaccinationCenter> vaccinationCenterList = originalSolution.getVaccinationCenterList();
+        List<VaccinationCenter> bookableVaccinationCenterList = new ArrayList<>(vaccinationCenterList.size());
+        int[] partIndexes = calculateRegionIndexes(originalSolution, partCount, bookableVaccinationCenterList);
+        int partSize = Math.max(1, Math.min(partCount, bookableVaccinationCenterList.size()));
+
+        List<List<VaccinationSlot>> partVaccinationSlotLists = new ArrayList<>(partSize);
+        List<List<PersonAssignment>> partPersonAssignmentLists = new ArrayList<>(partSize);
+        for (int i = 0; i < partSize; i++) {
+            partVaccinationSlotLists.add(new ArrayList<>());
+            partPersonAssignmentLists.add(new ArrayList<>());
+        }
+        // Vaccination slots are immutable during solving, so the parts share them with the working solution
+        for (VaccinationSlot vaccinationSlot : originalSolution.getVaccinationSlotList()) {
+            partVaccinationSlotLists.get(partIndexes[vaccinationSlot.getVaccinationCenter().getIndex()])
+                    .add(vaccinationSlot);
+        }
+        for (PersonAssignment personAssignment : originalSolution.getPersonAssignmentList()) {
+            VaccinationCenter vaccinationCenter = findRegionVaccinationCenter(personAssignment,
+                    bookableVaccinationCenterList);
+            int partIndex = vaccinationCenter == null ? 0 : partIndexes[vaccinationCenter.getIndex()];
+            partPersonAssignmentLists.get(partIndex).add(new PersonAssignment(personAssignment));
+        }
+
+        List<VaccinationSolution> partList = new ArrayList<>(partSize);
+        for (int i = 0; i < partSize; i++) {
+            VaccinationSolution part = new VaccinationSolution(originalSolution.getVaccineTypeList(), vaccinationCenterList,
+                    originalSolution.getAppointmentList(), partVaccinationSlotLists.get(i),
+                    partPersonAssignmentLists.get(i), null);
+            part.setSlotEligibilityLayout(originalSolution.getSlotEligibilityLayout());
+            partList.add(part);
+        }
+        return partList;
+    }
+
+    /**
+     * @param solution never null
+     * @param regionCount {@code > 0}
+     * @param bookableVaccinationCenterList never null, filled in with the vaccination centers that have capacity
+     * @return never null, the region index of each vaccination center, indexed by {@link VaccinationCenter#getIndex()},
+     * {@code 0} for a vaccination center without capacity
+     */
+    static int[] calculateRegionIndexes(VaccinationSolution solution, int regionCount,
+            List<VaccinationCenter> bookableVaccinationCenterList) {
+        List<VaccinationCenter> vaccinationCenterList = solution.getVaccinationCenterList();
+        long[] capacities = new long[vaccinationCenterList.size()];
+        for (VaccinationSlot vaccinationSlot : solution.getVaccinationSlotList()) {
+            capacities[vaccinationSlot.getVaccinationCenter().getIndex()] += vaccinationSlot.getCapacity();
+        }
+        for (VaccinationCenter vaccinationCenter : vaccinationCenterList) {
+            if (capacities[vaccinationCenter.getIndex()] > 0L) {
+                bookableVaccinationCenterList.add(vaccinationCenter);
+            }
+        }
+        int regionSize = Math.max(1, Math.min(regionCount, bookableVaccinationCenterList.size()));
+        int[] regionIndexes = new int[vaccinationCenterList.size()];
+        bisect(bookableVaccinationCenterList, capacities, 0, regionSize, regionIndexes);
+        return regionIndexes;
+    }
+
+    /**
+     * Splits the vaccination centers along the axis with the widest spread,
+     * so each half gets a share of the capacity proportional to its share of the parts.
+     */
+    private static void bisect(List<VaccinationCenter> vaccinationCenterList, long[] capacities,
+            int firstPartIndex, int partSize, int[] partIndexes) {
+        if (partSize == 1) {
+            for (VaccinationCenter vaccinationCenter : vaccinationCenterList) {
+                partIndexes[vaccinationCenter.getIndex()] = firstPartIndex;
+            }
+            return;
+        }
+        double minimumLatitude = Double.POSITIVE_INFINITY;
+        double maximumLatitude = Double.NEGATIVE_INFINITY;
+        double minimumLongitude = Double.POSITIVE_INFINITY;
+        double maximumLongitude = Double.NEGATIVE_INFINITY;
+        for (VaccinationCenter vaccinationCenter : vaccinationCenterList) {
+            Location location = vaccinationCenter.getLocation();
+            minimumLatitude = Math.min(minimumLatitude, location.latitude);
+            maximumLatitude = Math.max(maximumLatitude, location.latitude);
+            minimumLongitude = Math.min(minimumLongitude, location.longitude);
+            maximumLongitude = Math.max(maximumLongitude, location.longitude);
+        }
+        Comparator<VaccinationCenter> comparator = (maximumLatitude - minimumLatitude >= maximumLongitude - minimumLongitude)
+                ? Comparator.comparingDouble(vaccinationCenter -> vaccinationCenter.getLocation().latitude)
+                : Comparator.comparingDouble(vaccinationCenter -> vaccinationCenter.getLocation().longitude);
+        List<VaccinationCenter> sortedVaccinationCenterList = new ArrayList<>(vaccinationCenterList);
+        sortedVaccinationCenterList.sort(comparator.thenComparing(VaccinationCenter::getIndex));
+
+        int leftPartSize = partSize / 2;
+        long totalCapacity = 0L;
+        for (VaccinationCenter vaccinationCenter : sortedVaccinationCenterList) {
+            totalCapacity += capacities[vaccinationCenter.getIndex()];
+        }
+        long leftCapacityTarget = totalCapacity * leftPartSize / partSize;
+        // Each half needs at least 1 vaccination center per part
+        int minimumSplitIndex = leftPartSize;
+        int maximumSplitIndex = sortedVaccinationCenterList.size() - (partSize - leftPartSize);
+        int splitIndex = minimumSplitIndex;
+        long leftCapacity = 0L;
+        for (int i = 0; i < minimumSplitIndex; i++) {
+            leftCapacity += capacities[sortedVaccinationCenterList.get(i).getIndex()];
+        }
+        while (splitIndex < maximumSplitIndex && leftCapacity < leftCapacityTarget) {
+            leftCapacity += capacities[sortedVaccinationCenterList.get(splitIndex).getIndex()];
+            splitIndex++;
+        }
+        bisect(sortedVaccinationCenterList.subList(0, splitIndex), capacities,
+                firstPartIndex, leftPartSize, partIndexes);
+        bisect(sortedVaccinationCenterList.subList(splitIndex, sortedVaccinationCenterList.size()), capacities,
+                firstPartIndex + leftPartSize, partSize - leftPartSize, partIndexes);
+    }
+
+    /**
+     * @return null if there are no bookable vaccination centers
+     */
+    static VaccinationCenter findRegionVaccinationCenter(PersonAssignment personAssignment,
+            List<VaccinationCenter> bookableVaccinationCenterList) {
+        VaccinationSlot vaccinationSlot = personAssignment.getVaccinationSlot();
+        if (vaccinationSlot != null) {
+            return vaccinationSlot.getVaccinationCenter();
+        }
+        if (personAssignment.getRequiredVaccinationCenter() != null) {
+            return personAssignment.getRequiredVaccinationCenter();
+        }
+        if (personAssignment.getPreferredVaccinationCenter() != null) {
+            return personAssignment.getPreferredVaccinationCenter();
+        }
+        VaccinationCenter nearestVaccinationCenter = null;
+        long nearestDistance = Long.MAX_VALUE;
+        for (VaccinationCenter vaccinationCenter : bookableVaccinationCenterList) {
+            long distance = personAssignment.getDistanceTo(vaccinationCenter);
+            if (distance < nearestDistance) {
+                nearestVaccinationCenter = vaccinationCenter;
+                nearestDistance = distance;
+            }
+        }
+        return nearestVaccinationCenter;
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.bootstrap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.Person;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.persistence.VaccinationScheduleCsvIO;
+import org.junit.jupiter.api.Test;
+
+class VaccinationScheduleGeneratorTest {
+
+    private static final LocalDate WINDOW_START_DATE = LocalDate.of(2021, 6, 7);
+
+    @Test
+    void generate() {
+        VaccinationSchedule schedule = new VaccinationScheduleGenerator(0L, WINDOW_START_DATE).generate(10, 40, 5000, 0.2);
+        assertEquals(10, schedule.getVaccinationCenterList().size());
+        assertEquals(40 * VaccinationScheduleGenerator.APPOINTMENTS_PER_BOOTH, schedule.getAppointmentList().size());
+        assertEquals(5000, schedule.getPersonList().size());
+        Set<String> personIdSet = new HashSet<>();
+        Set<Appointment> pinnedAppointmentSet = new HashSet<>();
+        for (Person person : schedule.getPersonList()) {
+            assertTrue(personIdSet.add(person.getId()));
+            if (person.isPinned()) {
+                assertTrue(pinnedAppointmentSet.add(person.getAppointment()));
+                assertTrue(person.getAppointment().getDateTime().toLocalDate().isBefore(WINDOW_START_DATE.plusDays(4)));
+            }
+        }
+        assertEquals((int) (schedule.getAppointmentList().size() * 0.2), pinnedAppointmentSet.size());
+        for (Appointment appointment : schedule.getAppointmentList()) {
+            assertTrue(schedule.getVaccinationCenterList().contains(appointment.getVaccinationCenter()));
+            assertTrue(schedule.getVaccineTypeList().contains(appointment.getVaccineType()));
+        }
+    }
+
+    @Test
+    void generateScalesWithPersonCount() {
+        VaccinationSchedule schedule = new VaccinationScheduleGenerator(0L, WINDOW_START_DATE).generate(100_000);
+        assertEquals(100_000, schedule.getPersonList().size());
+        // 20% more persons than appointments
+        assertEquals(100_000 * 5 / 6, schedule.getAppointmentList().size(), VaccinationScheduleGenerator.APPOINTMENTS_PER_BOOTH);
+        assertEquals(13, schedule.getVaccinationCenterList().size());
+    }
+
+    @Test
+    void sameSeedGeneratesSameDatasetRegardlessOfThreadCount() throws Exception {
+        VaccinationScheduleGenerator generator = new VaccinationScheduleGenerator(13L, WINDOW_START_DATE);
+        byte[] expected = toCsv(generator.generate(5, 20, 5000, 0.1));
+        // A parallel stream runs in the pool of the thread that starts it
+        ForkJoinPool singleThreadPool = new ForkJoinPool(1);
+        try {
+            byte[] singleThreaded = singleThreadPool.submit(() -> toCsv(generator.generate(5, 20, 5000, 0.1))).get();
+            assertArrayEquals(expected, singleThreaded);
+        } finally {
+            singleThreadPool.shutdown();
+        }
+        byte[] otherSeed = toCsv(new VaccinationScheduleGenerator(14L, WINDOW_START_DATE).generate(5, 20, 5000, 0.1));
+        assertFalse(Arrays.equals(expected, otherSeed));
+    }
+
+    private static byte[] toCsv(VaccinationSchedule schedule) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new VaccinationScheduleCsvIO().write(schedule, outputStream);
+        return outputStream.toByteArray();
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.domain.solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.Location;
+import org.acme.vaccinationscheduler.domain.Person;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.domain.VaccineType;
+import org.acme.vaccinationscheduler.solver.VaccinationSolutionCloner;
+import org.junit.jupiter.api.Test;
+
+class IncrementalScheduleTranslatorTest {
+
+    private static final VaccineType PFIZER = new VaccineType("Pfizer");
+    private static final VaccinationCenter VACCINATION_CENTER_1 = new VaccinationCenter("1", "Downtown", new Location(0, 0));
+    private static final VaccinationCenter VACCINATION_CENTER_2 = new VaccinationCenter("2", "Uptown", new Location(10, 10));
+
+    private static final LocalDate MONDAY = LocalDate.of(2021, 2, 1);
+    private static final LocalDateTime MONDAY_0900 = LocalDateTime.of(MONDAY, LocalTime.of(9, 0));
+    private static final LocalDateTime MONDAY_0910 = LocalDateTime.of(MONDAY, LocalTime.of(9, 10));
+    private static final LocalDateTime MONDAY_0920 = LocalDateTime.of(MONDAY, LocalTime.of(9, 20));
+
+    @Test
+    void toSchedule() {
+        List<VaccineType> vaccineTypeList = Arrays.asList(PFIZER);
+        List<VaccinationCenter> vaccinationCenterList = Arrays.asList(VACCINATION_CENTER_1, VACCINATION_CENTER_2);
+        Appointment vc1_11_0900 = new Appointment(VACCINATION_CENTER_1, "11", MONDAY_0900, PFIZER);
+        Appointment vc1_11_0910 = new Appointment(VACCINATION_CENTER_1, "11", MONDAY_0910, PFIZER);
+        Appointment vc1_11_0920 = new Appointment(VACCINATION_CENTER_1, "11", MONDAY_0920, PFIZER);
+        Appointment vc2_21_0900 = new Appointment(VACCINATION_CENTER_2, "21", MONDAY_0900, PFIZER);
+        List<Appointment> appointmentList = Arrays.asList(vc1_11_0900, vc1_11_0910, vc1_11_0920, vc2_21_0900);
+        Person ann = new Person("1", "Ann", new Location(1, 0), LocalDate.of(1990, 1, 1), 31);
+        Person beth = new Person("2", "Beth", new Location(2, 0), LocalDate.of(1980, 1, 1), 41);
+        Person carl = new Person("3", "Carl", new Location(2, 0), LocalDate.of(1970, 1, 1), 51);
+        Person dan = new Person("4", "Dan", new Location(3, 0), LocalDate.of(1960, 1, 1), 61);
+        dan.setPinned(true);
+        dan.setAppointment(vc1_11_0910);
+        List<Person> personList = Arrays.asList(ann, beth, carl, dan);
+        VaccinationSchedule schedule = new VaccinationSchedule(vaccineTypeList, vaccinationCenterList,
+                appointmentList, personList);
+
+        VaccinationSolution solution = new VaccinationSolution(schedule);
+        List<VaccinationSlot> vaccinationSlotList = solution.getVaccinationSlotList();
+        assertEquals(2, vaccinationSlotList.size());
+        VaccinationSlot vc1Slot = vaccinationSlotList.get(0);
+        VaccinationSlot vc2Slot = vaccinationSlotList.get(1);
+        List<PersonAssignment> personAssignmentList = solution.getPersonAssignmentList();
+        personAssignmentList.get(0).setVaccinationSlot(vc1Slot);
+        personAssignmentList.get(1).setVaccinationSlot(vc1Slot);
+        personAssignmentList.get(2).setVaccinationSlot(vc2Slot);
+
+        IncrementalScheduleTranslator translator = new IncrementalScheduleTranslator();
+        VaccinationSolutionCloner cloner = new VaccinationSolutionCloner();
+        schedule = translator.toSchedule(cloner.cloneSolution(solution));
+        assertEquals(4, schedule.getPersonList().size());
+        assertSame(vc1_11_0900, ann.getAppointment());
+        assertSame(vc1_11_0920, beth.getAppointment());
+        assertSame(vc2_21_0900, carl.getAppointment());
+        assertSame(vc1_11_0910, dan.getAppointment());
+
+        // Swap 2 persons between 2 full slots, the unchanged person keeps their appointment
+        personAssignmentList.get(0).setVaccinationSlot(vc2Slot);
+        personAssignmentList.get(2).setVaccinationSlot(vc1Slot);
+        schedule = translator.toSchedule(cloner.cloneSolution(solution));
+        assertEquals(4, schedule.getPersonList().size());
+        assertSame(vc2_21_0900, ann.getAppointment());
+        assertSame(vc1_11_0920, beth.getAppointment());
+        assertSame(vc1_11_0900, carl.getAppointment());
+        assertSame(vc1_11_0910, dan.getAppointment());
+
+        // Unassign a person, which frees their appointment for another person
+        personAssignmentList.get(1).setVaccinationSlot(null);
+        schedule = translator.toSchedule(cloner.cloneSolution(solution));
+        assertNull(beth.getAppointment());
+        assertSame(vc1_11_0900, carl.getAppointment());
+        personAssignmentList.get(0).setVaccinationSlot(vc1Slot);
+        schedule = translator.toSchedule(cloner.cloneSolution(solution));
+        assertSame(vc1_11_0920, ann.getAppointment());
+        assertNull(beth.getAppointment());
+        assertSame(vc1_11_0900, carl.getAppointment());
+        assertSame(schedule.getPersonList().get(0), ann);
+    }
+
+    @Test
+    void toScheduleAfterProblemFactChanges() {
+        Appointment vc1_11_0900 = new Appointment(VACCINATION_CENTER_1, "11", MONDAY_0900, PFIZER);
+        Appointment vc1_11_0910 = new Appointment(VACCINATION_CENTER_1, "11", MONDAY_0910, PFIZER);
+        Appointment vc2_21_0900 = new Appointment(VACCINATION_CENTER_2, "21", MONDAY_0900, PFIZER);
+        Person ann = new Person("1", "Ann", new Location(1, 0), LocalDate.of(1990, 1, 1), 31);
+        Person beth = new Person("2", "Beth", new Location(2, 0), LocalDate.of(1980, 1, 1), 41);
+        VaccinationSchedule schedule = new VaccinationSchedule(Arrays.asList(PFIZER),
+                Arrays.asList(VACCINATION_CENTER_1, VACCINATION_CENTER_2),
+                Arrays.asList(vc1_11_0900, vc1_11_0910, vc2_21_0900), Arrays.asList(ann, beth));
+
+        VaccinationSolution solution = new VaccinationSolution(schedule);
+        VaccinationSlot vc1Slot = solution.getVaccinationSlotList().get(0);
+        List<PersonAssignment> personAssignmentList = solution.getPersonAssignmentList();
+        personAssignmentList.get(0).setVaccinationSlot(vc1Slot);
+        personAssignmentList.get(1).setVaccinationSlot(vc1Slot);
+
+        IncrementalScheduleTranslator translator = new IncrementalScheduleTranslator();
+        VaccinationSolutionCloner cloner = new VaccinationSolutionCloner();
+        translator.toSchedule(cloner.cloneSolution(solution));
+        assertSame(vc1_11_0900, ann.getAppointment());
+        assertSame(vc1_11_0910, beth.getAppointment());
+
+        // Beth confirms the appointment that Ann holds now, so Ann gets another one
+        PersonAssignment bethAssignment = personAssignmentList.get(1);
+        bethAssignment.setPinnedAppointment(vc1_11_0900);
+        bethAssignment.setPinned(true);
+        assertFalse(beth.isPinned());
+        translator.toSchedule(cloner.cloneSolution(solution));
+        assertSame(vc1_11_0910, ann.getAppointment());
+        assertSame(vc1_11_0900, beth.getAppointment());
+        assertTrue(beth.isPinned());
+
+        // Add a slot and a person, the other persons keep their appointment
+        Appointment vc2_21_0910 = new Appointment(VACCINATION_CENTER_2, "21", MONDAY_0910, PFIZER);
+        VaccinationSlot newSlot = new VaccinationSlot(2L, VACCINATION_CENTER_2, MONDAY_0910, PFIZER,
+                Arrays.asList(vc2_21_0910), 1);
+        List<VaccinationSlot> vaccinationSlotList = new ArrayList<>(solution.getVaccinationSlotList());
+        vaccinationSlotList.add(newSlot);
+        solution.setVaccinationSlotList(vaccinationSlotList);
+        Person carl = new Person("3", "Carl", new Location(2, 0), LocalDate.of(1970, 1, 1), 51);
+        PersonAssignment carlAssignment = new PersonAssignment(carl, 2, null);
+        carlAssignment.setVaccinationSlot(newSlot);
+        personAssignmentList.add(carlAssignment);
+        VaccinationSchedule translatedSchedule = translator.toSchedule(cloner.cloneSolution(solution));
+        assertEquals(Arrays.asList(ann, beth, carl), translatedSchedule.getPersonList());
+        assertSame(vc1_11_0910, ann.getAppointment());
+        assertSame(vc1_11_0900, beth.getAppointment());
+        assertSame(vc2_21_0910, carl.getAppointment());
+
+        // Remove Ann, a new person reuses her index and her appointment
+        personAssignmentList.remove(0);
+        Person dan = new Person("4", "Dan", new Location(3, 0), LocalDate.of(1960, 1, 1), 61);
+        PersonAssignment danAssignment = new PersonAssignment(dan, 0, null);
+        danAssignment.setVaccinationSlot(vc1Slot);
+        personAssignmentList.add(danAssignment);
+        translatedSchedule = translator.toSchedule(cloner.cloneSolution(solution));
+        assertEquals(Arrays.asList(beth, carl, dan), translatedSchedule.getPersonList());
+        assertSame(vc1_11_0900, beth.getAppointment());
+        assertSame(vc2_21_0910, carl.getAppointment());
+        assertSame(vc1_11_0910, dan.getAppointment());
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.domain.solver;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.temporal.ChronoUnit.MINUTES;
+import static java.time.temporal.ChronoUnit.YEARS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Random;
+
+import org.acme.vaccinationscheduler.domain.Location;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccineType;
+import org.junit.jupiter.api.Test;
+
+class PersonAssignmentTest {
+
+    private static final VaccineType PFIZER = new VaccineType("Pfizer");
+    private static final VaccinationCenter VACCINATION_CENTER_1 = new VaccinationCenter("1", "Downtown", new Location(0, 0));
+
+    @Test
+    void ageOnLeapDay() {
+        assertAgeOn(LocalDate.of(2000, 2, 29), LocalDate.of(2001, 2, 28));
+        assertAgeOn(LocalDate.of(2000, 2, 29), LocalDate.of(2001, 3, 1));
+        assertAgeOn(LocalDate.of(2000, 2, 29), LocalDate.of(2004, 2, 28));
+        assertAgeOn(LocalDate.of(2000, 2, 29), LocalDate.of(2004, 2, 29));
+        assertAgeOn(LocalDate.of(2000, 2, 28), LocalDate.of(2001, 2, 28));
+        assertAgeOn(LocalDate.of(2000, 3, 1), LocalDate.of(2001, 2, 28));
+        assertAgeOn(LocalDate.of(2000, 1, 31), LocalDate.of(2021, 1, 30));
+        assertAgeOn(LocalDate.of(2000, 1, 31), LocalDate.of(2021, 1, 31));
+        // Birthdate after the vaccination date
+        assertAgeOn(LocalDate.of(2021, 3, 1), LocalDate.of(2019, 3, 2));
+    }
+
+    @Test
+    void ageOnRandomDates() {
+        Random random = new Random(37);
+        long firstEpochDay = LocalDate.of(1900, 1, 1).toEpochDay();
+        long lastEpochDay = LocalDate.of(2030, 12, 31).toEpochDay();
+        for (int i = 0; i < 100_000; i++) {
+            LocalDate birthdate = LocalDate.ofEpochDay(firstEpochDay + random.nextInt((int) (lastEpochDay - firstEpochDay)));
+            LocalDate date = LocalDate.ofEpochDay(firstEpochDay + random.nextInt((int) (lastEpochDay - firstEpochDay)));
+            assertAgeOn(birthdate, date);
+        }
+    }
+
+    private static void assertAgeOn(LocalDate birthdate, LocalDate date) {
+        VaccinationSlot vaccinationSlot = new VaccinationSlot(0L, VACCINATION_CENTER_1,
+                LocalDateTime.of(date, LocalTime.of(9, 0)), PFIZER, 1);
+        PersonAssignment personAssignment = new PersonAssignment("1", "Ann", null, null, birthdate, 0L, vaccinationSlot);
+        assertEquals(YEARS.between(birthdate, date), personAssignment.getAgeOn(vaccinationSlot),
+                "Birthdate (" + birthdate + ") on date (" + date + ").");
+        assertEquals(YEARS.between(birthdate, date), personAssignment.getAgeOnVaccinationDate());
+    }
+
+    @Test
+    void epochDays() {
+        LocalDate readyDate = LocalDate.of(2021, 2, 1);
+        LocalDate idealDate = LocalDate.of(2021, 2, 3);
+        LocalDate dueDate = LocalDate.of(2021, 3, 1);
+        LocalDateTime startDateTime = LocalDateTime.of(2021, 2, 2, 9, 30);
+        VaccinationSlot vaccinationSlot = new VaccinationSlot(0L, VACCINATION_CENTER_1, startDateTime, PFIZER, 1);
+        assertEquals(startDateTime.toLocalDate().toEpochDay(), vaccinationSlot.getDateEpochDay());
+        assertEquals(MINUTES.between(LocalDateTime.of(1970, 1, 1, 0, 0), startDateTime),
+                vaccinationSlot.getStartEpochMinute());
+
+        PersonAssignment personAssignment = new PersonAssignment("1", "Ann", null, null, LocalDate.of(1990, 1, 1), 0L,
+                2, PFIZER, null, null, null, readyDate, idealDate, dueDate, vaccinationSlot);
+        assertEquals(readyDate.toEpochDay(), personAssignment.getReadyEpochDay());
+        assertTrue(personAssignment.hasIdealDate());
+        assertEquals(DAYS.between(idealDate, startDateTime.toLocalDate()),
+                vaccinationSlot.getDateEpochDay() - personAssignment.getIdealEpochDay());
+        assertEquals(dueDate.toEpochDay(), personAssignment.getDueEpochDay());
+
+        PersonAssignment undatedPersonAssignment = new PersonAssignment("2", "Beth", null, null, LocalDate.of(1990, 1, 1), 0L,
+                vaccinationSlot);
+        assertEquals(Long.MIN_VALUE, undatedPersonAssignment.getReadyEpochDay());
+        assertFalse(undatedPersonAssignment.hasIdealDate());
+        assertEquals(Long.MAX_VALUE, undatedPersonAssignment.getDueEpochDay());
+    }
+
+}
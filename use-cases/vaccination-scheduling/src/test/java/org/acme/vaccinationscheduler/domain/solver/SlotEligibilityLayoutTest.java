@@ -0,0 +1,133 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.domain.solver;
+
+import static java.time.temporal.ChronoUnit.YEARS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.acme.vaccinationscheduler.domain.Location;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccineType;
+import org.junit.jupiter.api.Test;
+
+class SlotEligibilityLayoutTest {
+
+    private static final VaccineType PFIZER = new VaccineType("Pfizer");
+    private static final VaccineType MODERNA = new VaccineType("Moderna", 18, null);
+    private static final VaccineType ASTRAZENECA = new VaccineType("AstraZeneca", 18, 55);
+    private static final List<VaccineType> VACCINE_TYPE_LIST = List.of(PFIZER, MODERNA, ASTRAZENECA);
+    private static final VaccinationCenter VACCINATION_CENTER_1 = new VaccinationCenter("1", "Downtown", new Location(0, 0));
+    private static final VaccinationCenter VACCINATION_CENTER_2 = new VaccinationCenter("2", "Uptown", new Location(0, 0));
+    private static final LocalDate ORIGIN_DATE = LocalDate.of(2021, 2, 1);
+
+    @Test
+    void eligibilityBits() {
+        SlotEligibilityLayout layout = new SlotEligibilityLayout(ORIGIN_DATE, VACCINE_TYPE_LIST);
+        assertEquals(0, layout.getEligibilityBit(createSlot(ORIGIN_DATE, PFIZER)));
+        assertEquals(2, layout.getEligibilityBit(createSlot(ORIGIN_DATE, ASTRAZENECA)));
+        assertEquals(4, layout.getEligibilityBit(createSlot(ORIGIN_DATE.plusDays(1), MODERNA)));
+        // 64 / 3 vaccine types = 21 days
+        assertEquals(62, layout.getEligibilityBit(createSlot(ORIGIN_DATE.plusDays(20), ASTRAZENECA)));
+        assertEquals(-1, layout.getEligibilityBit(createSlot(ORIGIN_DATE.plusDays(21), PFIZER)));
+        assertEquals(-1, layout.getEligibilityBit(createSlot(ORIGIN_DATE.minusDays(1), PFIZER)));
+        assertEquals(-1, layout.getEligibilityBit(createSlot(ORIGIN_DATE, new VaccineType("Janssen"))));
+    }
+
+    @Test
+    void requiredVaccinationCenter() {
+        SlotEligibilityLayout layout = new SlotEligibilityLayout(ORIGIN_DATE, VACCINE_TYPE_LIST);
+        PersonAssignment personAssignment = new PersonAssignment("1", "Ann", null, null, LocalDate.of(1990, 1, 1), 0L,
+                2, PFIZER, null, VACCINATION_CENTER_1, null, null, null, null, null);
+        layout.initializeEligibility(personAssignment);
+        VaccinationSlot vaccinationSlot1 = createSlot(ORIGIN_DATE, PFIZER);
+        layout.initializeEligibility(vaccinationSlot1);
+        VaccinationSlot vaccinationSlot2 = new VaccinationSlot(0L, VACCINATION_CENTER_2,
+                LocalDateTime.of(ORIGIN_DATE, LocalTime.of(9, 0)), PFIZER, 1);
+        layout.initializeEligibility(vaccinationSlot2);
+        assertTrue(personAssignment.isEligibleFor(vaccinationSlot1));
+        // The mask doesn't cover the vaccination center
+        assertTrue(personAssignment.isEligibleForDateAndVaccineType(vaccinationSlot2));
+        assertFalse(personAssignment.isEligibleFor(vaccinationSlot2));
+    }
+
+    @Test
+    void maskMatchesHardConstraints() {
+        Random random = new Random(37);
+        SlotEligibilityLayout layout = new SlotEligibilityLayout(ORIGIN_DATE, VACCINE_TYPE_LIST);
+        List<VaccinationSlot> vaccinationSlotList = new ArrayList<>();
+        // Also slots before and after the days covered by the bits
+        for (int dayOffset = -3; dayOffset < 30; dayOffset++) {
+            for (VaccineType vaccineType : VACCINE_TYPE_LIST) {
+                VaccinationSlot vaccinationSlot = createSlot(ORIGIN_DATE.plusDays(dayOffset), vaccineType);
+                layout.initializeEligibility(vaccinationSlot);
+                vaccinationSlotList.add(vaccinationSlot);
+            }
+        }
+        for (int i = 0; i < 1_000; i++) {
+            // Around the maximum age of AstraZeneca and the minimum age of all
+            LocalDate birthdate = ORIGIN_DATE.minusYears(random.nextBoolean() ? 55 : 18).minusDays(random.nextInt(60) - 30);
+            VaccineType requiredVaccineType = random.nextInt(3) == 0
+                    ? VACCINE_TYPE_LIST.get(random.nextInt(VACCINE_TYPE_LIST.size())) : null;
+            LocalDate readyDate = random.nextBoolean() ? ORIGIN_DATE.plusDays(random.nextInt(30) - 3) : null;
+            LocalDate dueDate = random.nextBoolean() ? ORIGIN_DATE.plusDays(random.nextInt(30) - 3) : null;
+            PersonAssignment personAssignment = new PersonAssignment(Integer.toString(i), "Person " + i, null, null,
+                    birthdate, 0L, requiredVaccineType == null ? 1 : 2, requiredVaccineType, null, null, null,
+                    readyDate, null, dueDate, null);
+            layout.initializeEligibility(personAssignment);
+            for (VaccinationSlot vaccinationSlot : vaccinationSlotList) {
+                assertEquals(isEligibleByHardConstraints(personAssignment, vaccinationSlot),
+                        personAssignment.isEligibleFor(vaccinationSlot),
+                        "Person (" + personAssignment + ") with birthdate (" + birthdate + "), required vaccine type ("
+                                + requiredVaccineType + "), ready date (" + readyDate + ") and due date (" + dueDate
+                                + ") on vaccination slot (" + vaccinationSlot + ").");
+            }
+        }
+    }
+
+    private static boolean isEligibleByHardConstraints(PersonAssignment personAssignment, VaccinationSlot vaccinationSlot) {
+        VaccineType vaccineType = vaccinationSlot.getVaccineType();
+        LocalDate date = vaccinationSlot.getDate();
+        if (personAssignment.getRequiredVaccineType() != null) {
+            if (vaccineType != personAssignment.getRequiredVaccineType()) {
+                return false;
+            }
+        } else if (vaccineType.getMaximumAge() != null) {
+            long age = YEARS.between(personAssignment.getBirthdate(), date);
+            if (age < vaccineType.getMinimumAge() || age > vaccineType.getMaximumAge()) {
+                return false;
+            }
+        }
+        if (personAssignment.getReadyDate() != null && date.isBefore(personAssignment.getReadyDate())) {
+            return false;
+        }
+        return personAssignment.getDueDate() == null || !date.isAfter(personAssignment.getDueDate());
+    }
+
+    private static VaccinationSlot createSlot(LocalDate date, VaccineType vaccineType) {
+        return new VaccinationSlot(0L, VACCINATION_CENTER_1, LocalDateTime.of(date, LocalTime.of(9, 0)), vaccineType, 1);
+    }
+
+}
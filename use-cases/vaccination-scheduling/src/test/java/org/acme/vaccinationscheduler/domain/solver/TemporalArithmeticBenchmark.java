@@ -0,0 +1,163 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.domain.solver;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.temporal.ChronoUnit.MINUTES;
+import static java.time.temporal.ChronoUnit.YEARS;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.acme.vaccinationscheduler.domain.Location;
+import org.acme.vaccinationscheduler.domain.Person;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccineType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the temporal arithmetic of the constraints on 1 024 assigned persons,
+ * with {@link LocalDate} and {@link LocalDateTime} against the epoch-based primitives
+ * of {@link PersonAssignment} and {@link VaccinationSlot}.
+ * Takes a few minutes, so it only runs on demand:
+ * <pre>
+ * mvn test -Dtest=TemporalArithmeticBenchmark -Dbenchmark=true
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemporalArithmeticBenchmark {
+
+    private static final int PERSON_COUNT = 1024;
+    private static final LocalDateTime COVID_EPOCH = LocalDateTime.of(2021, 1, 1, 0, 0);
+    private static final long COVID_EPOCH_MINUTE = COVID_EPOCH.toLocalDate().toEpochDay() * 1440L;
+
+    private PersonAssignment[] personAssignments;
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TemporalArithmeticBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(37);
+        VaccineType pfizer = new VaccineType("Pfizer");
+        VaccinationCenter vaccinationCenter = new VaccinationCenter("1", "Downtown", new Location(0, 0));
+        LocalDate windowStartDate = LocalDate.of(2021, 2, 1);
+        personAssignments = new PersonAssignment[PERSON_COUNT];
+        for (int i = 0; i < PERSON_COUNT; i++) {
+            LocalDate slotDate = windowStartDate.plusDays(random.nextInt(14));
+            VaccinationSlot vaccinationSlot = new VaccinationSlot((long) i, vaccinationCenter,
+                    LocalDateTime.of(slotDate, LocalTime.of(9 + random.nextInt(8), 0)), pfizer, 10);
+            LocalDate birthdate = LocalDate.of(1930, 1, 1).plusDays(random.nextInt(365 * 75));
+            LocalDate readyDate = windowStartDate.plusDays(random.nextInt(14));
+            Person person = new Person(Integer.toString(i), "Person " + i, new Location(0, 0), birthdate, 0L,
+                    1, pfizer, null, null, null, readyDate, readyDate.plusDays(3), readyDate.plusDays(7));
+            PersonAssignment personAssignment = new PersonAssignment(person, i, null);
+            personAssignment.setVaccinationSlot(vaccinationSlot);
+            personAssignments[i] = personAssignment;
+        }
+    }
+
+    @Benchmark
+    public long ageWithLocalDate() {
+        long sum = 0L;
+        for (PersonAssignment personAssignment : personAssignments) {
+            sum += YEARS.between(personAssignment.getBirthdate(), personAssignment.getVaccinationSlot().getDate());
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long ageWithEpochPrimitives() {
+        long sum = 0L;
+        for (PersonAssignment personAssignment : personAssignments) {
+            sum += personAssignment.getAgeOn(personAssignment.getVaccinationSlot());
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long daysAfterDueDateWithLocalDate() {
+        long sum = 0L;
+        for (PersonAssignment personAssignment : personAssignments) {
+            LocalDate date = personAssignment.getVaccinationSlot().getDate();
+            LocalDate dueDate = personAssignment.getDueDate();
+            if (dueDate != null && date.compareTo(dueDate) > 0) {
+                sum += DAYS.between(dueDate, date);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long daysAfterDueDateWithEpochPrimitives() {
+        long sum = 0L;
+        for (PersonAssignment personAssignment : personAssignments) {
+            long dateEpochDay = personAssignment.getVaccinationSlot().getDateEpochDay();
+            if (dateEpochDay > personAssignment.getDueEpochDay()) {
+                sum += dateEpochDay - personAssignment.getDueEpochDay();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long minutesSinceEpochWithLocalDateTime() {
+        long sum = 0L;
+        for (PersonAssignment personAssignment : personAssignments) {
+            sum += MINUTES.between(COVID_EPOCH, personAssignment.getVaccinationSlot().getStartDateTime());
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long minutesSinceEpochWithEpochPrimitives() {
+        long sum = 0L;
+        for (PersonAssignment personAssignment : personAssignments) {
+            sum += personAssignment.getVaccinationSlot().getStartEpochMinute() - COVID_EPOCH_MINUTE;
+        }
+        return sum;
+    }
+
+}
@@ -17,6 +17,7 @@
 package org.acme.vaccinationscheduler.domain.solver;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -24,16 +25,29 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.acme.vaccinationscheduler.bootstrap.DemoDataGenerator;
 import org.acme.vaccinationscheduler.domain.Appointment;
 import org.acme.vaccinationscheduler.domain.Location;
 import org.acme.vaccinationscheduler.domain.Person;
 import org.acme.vaccinationscheduler.domain.VaccinationCenter;
 import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
 import org.acme.vaccinationscheduler.domain.VaccineType;
+import org.apache.commons.lang3.tuple.Triple;
 import org.junit.jupiter.api.Test;
 
 class VaccinationSolutionTest {
@@ -213,6 +227,55 @@ class VaccinationSolutionTest {
         assertSame(vc1_11_0910, carl.getAppointment());
     }
 
+    @Test
+    void slotsIdenticalToGroupingByTriple() {
+        VaccinationSchedule schedule = new DemoDataGenerator(33.40, 34.10, -84.90, -83.90).generate(10, 40, 0.2);
+        // Shuffled, so the appointments of a slot are neither contiguous nor sorted
+        List<Appointment> appointmentList = new ArrayList<>(schedule.getAppointmentList());
+        Collections.shuffle(appointmentList, new Random(37));
+        schedule = new VaccinationSchedule(schedule.getVaccineTypeList(), schedule.getVaccinationCenterList(),
+                appointmentList, schedule.getPersonList());
+
+        // The straightforward translation: group by a key object per appointment
+        Function<Appointment, Triple<VaccinationCenter, LocalDateTime, VaccineType>> tripleFunction
+                = (appointment) -> Triple.of(appointment.getVaccinationCenter(),
+                        appointment.getDateTime().truncatedTo(ChronoUnit.HOURS), appointment.getVaccineType());
+        Map<Triple<VaccinationCenter, LocalDateTime, VaccineType>, List<Appointment>> expectedAppointmentListMap
+                = appointmentList.stream().collect(Collectors.groupingBy(tripleFunction, LinkedHashMap::new,
+                        Collectors.collectingAndThen(Collectors.toList(), subAppointmentList -> subAppointmentList.stream()
+                                .sorted(Comparator.comparing(Appointment::getDateTime).thenComparing(Appointment::getBoothId))
+                                .collect(Collectors.toList()))));
+        Set<Appointment> scheduledAppointmentSet = schedule.getPersonList().stream()
+                .map(Person::getAppointment).filter(Objects::nonNull).collect(Collectors.toSet());
+        assertFalse(scheduledAppointmentSet.isEmpty());
+
+        VaccinationSolution solution = new VaccinationSolution(schedule);
+        List<VaccinationSlot> vaccinationSlotList = solution.getVaccinationSlotList();
+        assertEquals(expectedAppointmentListMap.size(), vaccinationSlotList.size());
+        Map<Triple<VaccinationCenter, LocalDateTime, VaccineType>, VaccinationSlot> vaccinationSlotMap = new HashMap<>();
+        int i = 0;
+        for (Map.Entry<Triple<VaccinationCenter, LocalDateTime, VaccineType>, List<Appointment>> entry
+                : expectedAppointmentListMap.entrySet()) {
+            VaccinationSlot vaccinationSlot = vaccinationSlotList.get(i);
+            assertEquals((long) i, vaccinationSlot.getId());
+            assertSame(entry.getKey().getLeft(), vaccinationSlot.getVaccinationCenter());
+            assertEquals(entry.getKey().getMiddle(), vaccinationSlot.getStartDateTime());
+            assertSame(entry.getKey().getRight(), vaccinationSlot.getVaccineType());
+            assertEquals(entry.getValue().size(), vaccinationSlot.getCapacity());
+            List<Appointment> expectedUnscheduledAppointmentList = entry.getValue().stream()
+                    .filter(appointment -> !scheduledAppointmentSet.contains(appointment))
+                    .collect(Collectors.toList());
+            assertEquals(expectedUnscheduledAppointmentList, vaccinationSlot.getUnscheduledAppointmentList());
+            vaccinationSlotMap.put(entry.getKey(), vaccinationSlot);
+            i++;
+        }
+        for (PersonAssignment personAssignment : solution.getPersonAssignmentList()) {
+            Appointment appointment = personAssignment.getPerson().getAppointment();
+            assertSame(appointment == null ? null : vaccinationSlotMap.get(tripleFunction.apply(appointment)),
+                    personAssignment.getVaccinationSlot());
+        }
+    }
+
     private void assertVaccinationSlot(VaccinationSlot vaccinationSlot,
             VaccinationCenter vaccinationCenter, LocalDateTime startDateTime, VaccineType vaccineType, int capacity) {
         assertEquals(vaccinationCenter, vaccinationSlot.getVaccinationCenter());
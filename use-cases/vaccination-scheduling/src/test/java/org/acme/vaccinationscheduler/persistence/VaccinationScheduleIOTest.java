@@ -0,0 +1,165 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.acme.vaccinationscheduler.bootstrap.DemoDataGenerator;
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.Location;
+import org.acme.vaccinationscheduler.domain.Person;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.domain.VaccineType;
+import org.junit.jupiter.api.Test;
+
+class VaccinationScheduleIOTest {
+
+    @Test
+    void csvRoundTrip() {
+        assertRoundTrip(new VaccinationScheduleCsvIO());
+    }
+
+    @Test
+    void binaryRoundTrip() {
+        assertRoundTrip(new VaccinationScheduleBinaryIO());
+    }
+
+    private static void assertRoundTrip(VaccinationScheduleIO scheduleIO) {
+        VaccinationSchedule schedule = new DemoDataGenerator(33.40, 34.10, -84.90, -83.90).generate(10, 40, 0.2);
+        VaccinationScheduleIO csvIO = new VaccinationScheduleCsvIO();
+        VaccinationSchedule readSchedule = scheduleIO.read(new ByteArrayInputStream(write(scheduleIO, schedule)));
+        // The CSV output covers every field, so equal CSV means an equal schedule
+        assertArrayEquals(write(csvIO, schedule), write(csvIO, readSchedule));
+
+        // References are interned: not just equal, but the same instances
+        List<VaccineType> vaccineTypeList = readSchedule.getVaccineTypeList();
+        List<VaccinationCenter> vaccinationCenterList = readSchedule.getVaccinationCenterList();
+        List<Appointment> appointmentList = readSchedule.getAppointmentList();
+        for (Appointment appointment : appointmentList) {
+            assertTrue(vaccineTypeList.stream().anyMatch(vaccineType -> vaccineType == appointment.getVaccineType()));
+            assertTrue(vaccinationCenterList.stream().anyMatch(center -> center == appointment.getVaccinationCenter()));
+        }
+        Appointment first = appointmentList.get(0);
+        Appointment sameTime = appointmentList.stream()
+                .filter(appointment -> appointment != first && appointment.getDateTime().equals(first.getDateTime()))
+                .findFirst().orElseThrow();
+        assertSame(first.getDateTime(), sameTime.getDateTime());
+        long pinnedCount = 0L;
+        for (Person person : readSchedule.getPersonList()) {
+            if (person.getAppointment() != null) {
+                assertTrue(appointmentList.contains(person.getAppointment()));
+            }
+            if (person.isPinned()) {
+                pinnedCount++;
+            }
+        }
+        assertTrue(pinnedCount > 0L);
+    }
+
+    @Test
+    void readCsv() {
+        String csv = "# Comment\n"
+                + "VaccineType,Pfizer,16,\n"
+                + "VaccinationCenter,1,\"Downtown, \"\"Main\"\" entrance\",33.5,-84.5\n"
+                + "\n"
+                + "Appointment,1,A,2021-06-01T09:00,Pfizer\n"
+                + "Person,10,Ann,33.6,-84.6,1970-01-31,51,2,Pfizer,,,1,2021-05-30,2021-06-01,,"
+                + "1,A,2021-06-01T09:00:00,true\n";
+        VaccinationSchedule schedule = read(csv);
+        VaccineType pfizer = schedule.getVaccineTypeList().get(0);
+        assertEquals(16, pfizer.getMinimumAge());
+        assertNull(pfizer.getMaximumAge());
+        VaccinationCenter vaccinationCenter = schedule.getVaccinationCenterList().get(0);
+        assertEquals("Downtown, \"Main\" entrance", vaccinationCenter.getName());
+        Appointment appointment = schedule.getAppointmentList().get(0);
+        assertEquals(LocalDateTime.of(2021, 6, 1, 9, 0), appointment.getDateTime());
+        Person person = schedule.getPersonList().get(0);
+        assertEquals(2, person.getDoseNumber());
+        assertSame(pfizer, person.getRequiredVaccineType());
+        assertNull(person.getPreferredVaccineType());
+        assertSame(vaccinationCenter, person.getPreferredVaccinationCenter());
+        assertEquals(LocalDate.of(2021, 6, 1), person.getIdealDate());
+        assertNull(person.getDueDate());
+        // 09:00:00 references the 09:00 appointment
+        assertSame(appointment, person.getAppointment());
+        assertTrue(person.isPinned());
+
+        VaccinationSchedule quotedSchedule = read(new String(write(new VaccinationScheduleCsvIO(), schedule),
+                StandardCharsets.UTF_8));
+        assertEquals(vaccinationCenter.getName(), quotedSchedule.getVaccinationCenterList().get(0).getName());
+    }
+
+    @Test
+    void readCsvErrors() {
+        String vaccinationCenter = "VaccinationCenter,1,Downtown,33.5,-84.5\n";
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> read(vaccinationCenter + "Appointment,1,A,2021-06-01T09:00,Moderna\n"));
+        assertTrue(e.getMessage().contains("line (2)"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> read(vaccinationCenter + vaccinationCenter));
+        assertThrows(IllegalArgumentException.class, () -> read("VaccinationCenter,1,Downtown,33.5\n"));
+        assertThrows(IllegalArgumentException.class, () -> read("Booth,1\n"));
+        assertThrows(IllegalArgumentException.class, () -> read("VaccinationCenter,1,\"Downtown,33.5,-84.5\n"));
+        String person = "Person,10,Ann,33.6,-84.6,1970-01-31,%s,2,,,,,,,,,,,false\n";
+        e = assertThrows(IllegalArgumentException.class, () -> read(String.format(person, "high")));
+        assertTrue(e.getMessage().contains("line (1)") && e.getMessage().contains("priorityRating"), e.getMessage());
+        e = assertThrows(IllegalArgumentException.class,
+                () -> read("# Comment\n" + String.format(person, "51").replace("1970-01-31", "1970-02-31")));
+        assertTrue(e.getMessage().contains("line (2)") && e.getMessage().contains("date"), e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> read("VaccineType,Pfizer,sixteen,\n"));
+        assertTrue(e.getMessage().contains("line (1)") && e.getMessage().contains("minimumAge"), e.getMessage());
+    }
+
+    @Test
+    void readBinaryErrors() {
+        VaccinationScheduleBinaryIO binaryIO = new VaccinationScheduleBinaryIO();
+        assertThrows(IllegalArgumentException.class,
+                () -> binaryIO.read(new ByteArrayInputStream("Person,1".getBytes(StandardCharsets.UTF_8))));
+        VaccinationSchedule schedule = new VaccinationSchedule(List.of(new VaccineType("Pfizer")),
+                List.of(new VaccinationCenter("1", "Downtown", new Location(33.5, -84.5))), List.of(), List.of());
+        byte[] bytes = write(binaryIO, schedule);
+        byte[] truncatedBytes = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, truncatedBytes, 0, truncatedBytes.length);
+        assertThrows(IllegalArgumentException.class, () -> binaryIO.read(new ByteArrayInputStream(truncatedBytes)));
+        // A corrupt size doesn't allocate a huge list up front
+        byte[] hugeSizeBytes = new byte[] {bytes[0], bytes[1], bytes[2], bytes[3], 0x7F, -1, -1, -1};
+        assertThrows(IllegalArgumentException.class, () -> binaryIO.read(new ByteArrayInputStream(hugeSizeBytes)));
+    }
+
+    private static VaccinationSchedule read(String csv) {
+        return new VaccinationScheduleCsvIO().read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static byte[] write(VaccinationScheduleIO scheduleIO, VaccinationSchedule schedule) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        scheduleIO.write(schedule, outputStream);
+        return outputStream.toByteArray();
+    }
+
+}
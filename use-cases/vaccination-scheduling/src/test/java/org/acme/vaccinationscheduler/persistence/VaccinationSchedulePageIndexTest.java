@@ -0,0 +1,96 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.Location;
+import org.acme.vaccinationscheduler.domain.Person;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.domain.VaccineType;
+import org.junit.jupiter.api.Test;
+
+class VaccinationSchedulePageIndexTest {
+
+    private static final VaccineType PFIZER = new VaccineType("Pfizer");
+    private static final VaccinationCenter VACCINATION_CENTER_1 = new VaccinationCenter("1", "Downtown", new Location(0, 0));
+    private static final VaccinationCenter VACCINATION_CENTER_2 = new VaccinationCenter("2", "Uptown", new Location(10, 10));
+
+    private static final LocalDateTime MONDAY_0900 = LocalDateTime.of(2021, 2, 1, 9, 0);
+
+    @Test
+    void getPage() {
+        List<Appointment> appointmentList = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 5; j++) {
+                appointmentList.add(new Appointment(VACCINATION_CENTER_1, "1" + i, MONDAY_0900.plusMinutes(10 * j), PFIZER));
+                appointmentList.add(new Appointment(VACCINATION_CENTER_2, "2" + i, MONDAY_0900.plusMinutes(10 * j), PFIZER));
+            }
+        }
+        List<Person> personList = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Person person = new Person(Integer.toString(i), "Person " + i, new Location(1, 1),
+                    LocalDate.of(1970, 1, 1), 51);
+            if (i < appointmentList.size()) {
+                person.setAppointment(appointmentList.get(i));
+            }
+            personList.add(person);
+        }
+        VaccinationSchedule schedule = new VaccinationSchedule(Collections.singletonList(PFIZER),
+                Arrays.asList(VACCINATION_CENTER_1, VACCINATION_CENTER_2), appointmentList, personList);
+        VaccinationSchedulePageIndex pageIndex = new VaccinationSchedulePageIndex(schedule);
+
+        assertSame(schedule, pageIndex.getPage(0, 40));
+
+        Set<Appointment> pagedAppointmentSet = new HashSet<>();
+        Set<Person> pagedPersonSet = new HashSet<>();
+        for (int page = 0; page < 4; page++) {
+            // 1 booth per vaccination center per page
+            VaccinationSchedule pagedSchedule = pageIndex.getPage(page, 10);
+            assertEquals(10, pagedSchedule.getAppointmentList().size());
+            assertTrue(pagedAppointmentSet.addAll(pagedSchedule.getAppointmentList()));
+            int unassignedPersonCount = 0;
+            for (Person person : pagedSchedule.getPersonList()) {
+                assertTrue(pagedPersonSet.add(person));
+                if (person.getAppointment() == null) {
+                    unassignedPersonCount++;
+                } else {
+                    assertTrue(pagedSchedule.getAppointmentList().contains(person.getAppointment()));
+                }
+            }
+            // A proportional slice of the 10 unassigned persons
+            assertEquals(2, unassignedPersonCount);
+        }
+        assertEquals(appointmentList.size(), pagedAppointmentSet.size());
+        assertEquals(48, pagedPersonSet.size());
+        assertEquals(0, pageIndex.getPage(4, 10).getAppointmentList().size());
+    }
+
+}
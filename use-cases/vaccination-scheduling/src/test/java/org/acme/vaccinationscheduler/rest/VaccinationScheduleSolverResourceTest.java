@@ -0,0 +1,61 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.rest;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+
+import javax.inject.Inject;
+
+import org.acme.vaccinationscheduler.bootstrap.VaccinationScheduleGenerator;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.persistence.VaccinationScheduleCsvIO;
+import org.acme.vaccinationscheduler.persistence.VaccinationScheduleRepository;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+@QuarkusTest
+public class VaccinationScheduleSolverResourceTest {
+
+    @Inject
+    VaccinationScheduleRepository vaccinationScheduleRepository;
+
+    @Test
+    public void importCsvOverDefaultBodyLimit() {
+        VaccinationSchedule schedule = new VaccinationScheduleGenerator(0L, LocalDate.of(2021, 5, 3)).generate(100_000);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new VaccinationScheduleCsvIO().write(schedule, outputStream);
+        byte[] csv = outputStream.toByteArray();
+        // More than the default quarkus.http.limits.max-body-size of 10240K
+        assertTrue(csv.length > 10 * 1024 * 1024);
+
+        given()
+                .when()
+                .contentType(VaccinationScheduleCsvIO.MEDIA_TYPE)
+                .body(csv)
+                .post("/vaccinationSchedule/{scheduleId}/import", 2L)
+                .then()
+                .statusCode(204);
+        assertEquals(100_000, vaccinationScheduleRepository.find(2L).getPersonList().size());
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.acme.vaccinationscheduler.bootstrap.DemoDataGenerator;
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.Location;
+import org.acme.vaccinationscheduler.domain.Person;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.domain.VaccineType;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.acme.vaccinationscheduler.persistence.VaccinationScheduleRepository;
+import org.acme.vaccinationscheduler.solver.VaccinationScheduleConstraintProvider;
+import org.acme.vaccinationscheduler.solver.geo.EuclideanDistanceCalculator;
+import org.acme.vaccinationscheduler.solver.optional.VaccinationCustomConstructionHeuristic;
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.config.localsearch.LocalSearchPhaseConfig;
+import org.optaplanner.core.config.localsearch.LocalSearchType;
+import org.optaplanner.core.config.phase.custom.CustomPhaseConfig;
+import org.optaplanner.core.config.solver.EnvironmentMode;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
+
+class ContinuousPlanningServiceTest {
+
+    private static final long TIMEOUT_MILLIS = 60_000L;
+    private static final Long SCHEDULE_ID = 7L;
+
+    @Test
+    void registerConfirmAndRollWindow() {
+        VaccinationSchedule schedule = new DemoDataGenerator(33.40, 34.10, -84.90, -83.90).generate(4, 8, 0.0);
+        LocalDate windowEndDate = schedule.getAppointmentList().stream()
+                .map(appointment -> appointment.getDateTime().toLocalDate())
+                .max(LocalDate::compareTo).orElseThrow();
+        VaccinationScheduleRepository repository = new VaccinationScheduleRepository();
+        repository.save(SCHEDULE_ID, schedule);
+
+        LocalSearchPhaseConfig localSearchPhaseConfig = new LocalSearchPhaseConfig()
+                .withLocalSearchType(LocalSearchType.HILL_CLIMBING);
+        // Per restart, so the daemon solver idles until the next problem fact change
+        localSearchPhaseConfig.setTerminationConfig(new TerminationConfig().withStepCountLimit(100));
+        SolverConfig solverConfig = new SolverConfig()
+                .withSolutionClass(VaccinationSolution.class)
+                .withEntityClasses(PersonAssignment.class)
+                .withConstraintProviderClass(VaccinationScheduleConstraintProvider.class)
+                .withEnvironmentMode(EnvironmentMode.FULL_ASSERT)
+                .withPhases(new CustomPhaseConfig()
+                                .withCustomPhaseCommandClassList(List.of(VaccinationCustomConstructionHeuristic.class)),
+                        localSearchPhaseConfig);
+        ContinuousPlanningService service = new ContinuousPlanningService(solverConfig, repository,
+                new EuclideanDistanceCalculator());
+        service.start(SCHEDULE_ID);
+        try {
+            assertTrue(service.isSolving(SCHEDULE_ID));
+            assertFalse(service.isSolving(SCHEDULE_ID + 1L));
+            waitFor(repository, solvedSchedule -> solvedSchedule.getScore() != null);
+
+            // The registration references the vaccine type and vaccination center by name and id only
+            LocalDate newDate = windowEndDate.plusDays(1);
+            VaccineType pfizer = new VaccineType("Pfizer");
+            VaccinationCenter vaccinationCenter = schedule.getVaccinationCenterList().get(0);
+            VaccinationCenter vaccinationCenterReference = new VaccinationCenter(vaccinationCenter.getId(),
+                    vaccinationCenter.getName(), vaccinationCenter.getLocation());
+            List<Appointment> newAppointmentList = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                newAppointmentList.add(new Appointment(vaccinationCenterReference, "new",
+                        LocalDateTime.of(newDate, LocalTime.of(9, 0).plusMinutes(15L * i)), pfizer));
+            }
+            List<Person> newPersonList = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                newPersonList.add(new Person("new-" + i, "New " + i, vaccinationCenter.getLocation(),
+                        LocalDate.of(1980, 1, 1), 2_000L, 2, pfizer, null, null, null,
+                        newDate.minusDays(1), newDate, newDate.plusDays(1)));
+            }
+            Set<String> newPersonIdSet = newPersonList.stream().map(Person::getId).collect(Collectors.toSet());
+            service.register(new VaccinationSchedule(List.of(pfizer), List.of(vaccinationCenterReference),
+                    newAppointmentList, newPersonList));
+            VaccinationSchedule registeredSchedule = waitFor(repository, solvedSchedule ->
+                    solvedSchedule.getPersonList().stream()
+                            .filter(person -> newPersonIdSet.contains(person.getId()))
+                            .filter(person -> person.getAppointment() != null)
+                            .count() == newPersonIdSet.size());
+            assertEquals(schedule.getAppointmentList().size() + newAppointmentList.size(),
+                    registeredSchedule.getAppointmentList().size());
+            for (Person person : registeredSchedule.getPersonList()) {
+                if (newPersonIdSet.contains(person.getId())) {
+                    assertEquals(newDate, person.getAppointment().getDateTime().toLocalDate());
+                    assertTrue(person.getAppointment().getVaccinationCenter() == vaccinationCenter);
+                }
+            }
+            assertNoDoubleBookings(registeredSchedule);
+
+            Map<String, Appointment> confirmedAppointmentMap = registeredSchedule.getPersonList().stream()
+                    .filter(person -> newPersonIdSet.contains(person.getId()))
+                    .collect(Collectors.toMap(Person::getId, Person::getAppointment));
+            // The confirmation references the vaccination center by id only
+            Map<String, Appointment> confirmationMap = confirmedAppointmentMap.entrySet().stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> new Appointment(vaccinationCenterReference,
+                            entry.getValue().getBoothId(), entry.getValue().getDateTime(), null)));
+            service.confirm(confirmationMap);
+            VaccinationSchedule confirmedSchedule = waitFor(repository, solvedSchedule ->
+                    solvedSchedule.getPersonList().stream()
+                            .filter(person -> newPersonIdSet.contains(person.getId()))
+                            .allMatch(Person::isPinned));
+            for (Person person : confirmedSchedule.getPersonList()) {
+                if (newPersonIdSet.contains(person.getId())) {
+                    assertTrue(confirmedAppointmentMap.get(person.getId()) == person.getAppointment());
+                }
+            }
+            assertNoDoubleBookings(confirmedSchedule);
+
+            service.rollWindow(newDate);
+            VaccinationSchedule rolledSchedule = waitFor(repository, solvedSchedule ->
+                    solvedSchedule.getAppointmentList().size() == newAppointmentList.size());
+            for (Person person : rolledSchedule.getPersonList()) {
+                if (person.getAppointment() != null) {
+                    assertFalse(person.getAppointment().getDateTime().toLocalDate().isBefore(newDate));
+                }
+            }
+            assertTrue(rolledSchedule.getPersonList().stream()
+                    .map(Person::getId).collect(Collectors.toSet()).containsAll(newPersonIdSet));
+            // Unassigned persons stay
+            assertTrue(rolledSchedule.getPersonList().size() > newPersonIdSet.size());
+            assertNoDoubleBookings(rolledSchedule);
+            assertTrue(service.isSolving());
+        } finally {
+            service.stop();
+        }
+        assertFalse(service.isSolving());
+    }
+
+    private static VaccinationSchedule waitFor(VaccinationScheduleRepository repository,
+            Predicate<VaccinationSchedule> condition) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            VaccinationSchedule schedule = repository.find(SCHEDULE_ID);
+            if (condition.test(schedule)) {
+                return schedule;
+            }
+            try {
+                Thread.sleep(10L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the solver.", e);
+            }
+        }
+        return fail("The solver didn't reach the expected schedule within " + TIMEOUT_MILLIS + " ms.");
+    }
+
+    private static void assertNoDoubleBookings(VaccinationSchedule schedule) {
+        Set<Appointment> bookedAppointmentSet = new HashSet<>();
+        for (Person person : schedule.getPersonList()) {
+            Appointment appointment = person.getAppointment();
+            if (appointment != null) {
+                assertTrue(bookedAppointmentSet.add(appointment),
+                        "The appointment (" + appointment + ") is booked twice.");
+            }
+        }
+    }
+
+}
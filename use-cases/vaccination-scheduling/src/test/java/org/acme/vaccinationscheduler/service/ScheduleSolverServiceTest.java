@@ -0,0 +1,121 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.acme.vaccinationscheduler.bootstrap.DemoDataGenerator;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.acme.vaccinationscheduler.persistence.VaccinationScheduleRepository;
+import org.acme.vaccinationscheduler.solver.geo.EuclideanDistanceCalculator;
+import org.acme.vaccinationscheduler.solver.optional.VaccinationCustomConstructionHeuristic;
+import org.acme.vaccinationscheduler.solver.optional.VaccinationScheduleIncrementalScoreCalculator;
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.api.solver.SolverManager;
+import org.optaplanner.core.api.solver.SolverStatus;
+import org.optaplanner.core.config.localsearch.LocalSearchPhaseConfig;
+import org.optaplanner.core.config.localsearch.LocalSearchType;
+import org.optaplanner.core.config.phase.custom.CustomPhaseConfig;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.config.solver.SolverManagerConfig;
+
+class ScheduleSolverServiceTest {
+
+    private static final long TIMEOUT_MILLIS = 60_000L;
+
+    @Test
+    void solveQueuedSchedulesOneByOneWithinTheirBudget() {
+        DemoDataGenerator generator = new DemoDataGenerator(33.40, 34.10, -84.90, -83.90);
+        VaccinationScheduleRepository repository = new VaccinationScheduleRepository();
+        List<Long> scheduleIdList = List.of(1L, 2L, 3L);
+        for (Long scheduleId : scheduleIdList) {
+            repository.save(scheduleId, generator.generate(2, 4, 0.0));
+        }
+        // Without a termination, only the budget stops the local search
+        SolverConfig solverConfig = new SolverConfig()
+                .withSolutionClass(VaccinationSolution.class)
+                .withEntityClasses(PersonAssignment.class)
+                .withScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                        .withIncrementalScoreCalculatorClass(VaccinationScheduleIncrementalScoreCalculator.class))
+                .withPhases(new CustomPhaseConfig()
+                                .withCustomPhaseCommandClassList(List.of(VaccinationCustomConstructionHeuristic.class)),
+                        new LocalSearchPhaseConfig().withLocalSearchType(LocalSearchType.HILL_CLIMBING));
+        try (SolverManager<VaccinationSolution, Long> solverManager = SolverManager.create(solverConfig,
+                new SolverManagerConfig().withParallelSolverCount("1"))) {
+            ScheduleSolverService service = new ScheduleSolverService(solverManager, repository,
+                    new EuclideanDistanceCalculator());
+            try {
+                for (Long scheduleId : scheduleIdList) {
+                    service.solve(scheduleId, Duration.ofMillis(500L));
+                }
+                assertThrows(IllegalStateException.class, () -> service.solve(3L, Duration.ofMillis(500L)));
+                assertThrows(IllegalArgumentException.class, () -> service.solve(4L, null));
+
+                long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+                int solvedCount = 0;
+                while (solvedCount < scheduleIdList.size()) {
+                    if (System.currentTimeMillis() > deadline) {
+                        fail("The schedules weren't solved within " + TIMEOUT_MILLIS + " ms.");
+                    }
+                    Map<Long, SolverStatus> solverStatusMap = service.getSolverStatusMap();
+                    assertEquals(scheduleIdList, List.copyOf(solverStatusMap.keySet()));
+                    solvedCount = 0;
+                    int activeCount = 0;
+                    for (Long scheduleId : scheduleIdList) {
+                        SolverStatus solverStatus = solverStatusMap.get(scheduleId);
+                        if (solverStatus == SolverStatus.SOLVING_ACTIVE) {
+                            activeCount++;
+                            // In submission order: the schedules before it are done
+                            for (Long earlierScheduleId : scheduleIdList.subList(0, scheduleIdList.indexOf(scheduleId))) {
+                                assertEquals(SolverStatus.NOT_SOLVING, solverStatusMap.get(earlierScheduleId));
+                            }
+                        } else if (solverStatus == SolverStatus.NOT_SOLVING) {
+                            solvedCount++;
+                        }
+                    }
+                    assertTrue(activeCount <= 1);
+                    sleep();
+                }
+                for (Long scheduleId : scheduleIdList) {
+                    assertNotNull(repository.find(scheduleId).getScore());
+                }
+            } finally {
+                service.destroy();
+            }
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(10L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the solver.", e);
+        }
+    }
+
+}
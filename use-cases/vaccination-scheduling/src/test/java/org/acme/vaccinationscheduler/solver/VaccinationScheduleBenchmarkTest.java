@@ -0,0 +1,89 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.acme.vaccinationscheduler.bootstrap.VaccinationScheduleGenerator;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.persistence.VaccinationScheduleIO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.optaplanner.benchmark.api.PlannerBenchmarkFactory;
+import org.optaplanner.benchmark.config.PlannerBenchmarkConfig;
+import org.optaplanner.benchmark.config.ProblemBenchmarksConfig;
+
+/**
+ * Runs the benchmark configs and writes the reports to {@code target/benchmarks}.
+ * Takes about half an hour per config and the largest dataset needs a big heap, so it only runs on demand:
+ * <pre>
+ * mvn test -Dtest=VaccinationScheduleBenchmarkTest -Dbenchmark=true -DargLine=-Xmx12g
+ * </pre>
+ * To run only one config, add its method name, for example {@code -Dtest=VaccinationScheduleBenchmarkTest#benchmarkMoves}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VaccinationScheduleBenchmarkTest {
+
+    private static final Pattern PERSON_COUNT_PATTERN = Pattern.compile("-(\\d+)\\.\\w+$");
+
+    @Test
+    void benchmark() throws IOException {
+        benchmark("vaccinationScheduleBenchmarkConfig.xml");
+    }
+
+    /**
+     * Compares the generic moves with the capacity-aware swap and kick out moves.
+     */
+    @Test
+    void benchmarkMoves() throws IOException {
+        benchmark("vaccinationScheduleMovesBenchmarkConfig.xml");
+    }
+
+    private static void benchmark(String benchmarkConfigResource) throws IOException {
+        PlannerBenchmarkConfig benchmarkConfig = PlannerBenchmarkConfig.createFromXmlResource(benchmarkConfigResource);
+        generateMissingInputSolutionFiles(benchmarkConfig.getInheritedSolverBenchmarkConfig().getProblemBenchmarksConfig());
+        PlannerBenchmarkFactory.create(benchmarkConfig).buildPlannerBenchmark().benchmark();
+    }
+
+    private static void generateMissingInputSolutionFiles(ProblemBenchmarksConfig problemBenchmarksConfig)
+            throws IOException {
+        // A fixed seed and window start date, so every benchmark run solves the same datasets
+        VaccinationScheduleGenerator generator = new VaccinationScheduleGenerator(0L, LocalDate.of(2021, 6, 7));
+        for (File inputSolutionFile : problemBenchmarksConfig.getInputSolutionFileList()) {
+            if (inputSolutionFile.exists()) {
+                continue;
+            }
+            Matcher matcher = PERSON_COUNT_PATTERN.matcher(inputSolutionFile.getName());
+            if (!matcher.find()) {
+                throw new IllegalArgumentException("The inputSolutionFile (" + inputSolutionFile
+                        + ") doesn't exist and its name doesn't end with a person count to generate it.");
+            }
+            VaccinationSchedule schedule = generator.generate(Integer.parseInt(matcher.group(1)));
+            Files.createDirectories(inputSolutionFile.toPath().getParent());
+            try (OutputStream outputStream = Files.newOutputStream(inputSolutionFile.toPath())) {
+                VaccinationScheduleIO.forFileName(inputSolutionFile.getName()).write(schedule, outputStream);
+            }
+        }
+    }
+
+}
@@ -44,6 +44,11 @@ class VaccinationScheduleConstraintProviderTest {
 
     private static final VaccinationCenter VACCINATION_CENTER_1 = new VaccinationCenter("1", "Downtown", new Location(0, 0));
     private static final VaccinationCenter VACCINATION_CENTER_2 = new VaccinationCenter("2", "Uptown", new Location(10, 10));
+    static {
+        // Normally assigned by the VaccinationSolution translation
+        VACCINATION_CENTER_1.setIndex(0);
+        VACCINATION_CENTER_2.setIndex(1);
+    }
     private static final LocalDate MONDAY = LocalDate.of(2021, 2, 1);
     private static final LocalDate TUESDAY = LocalDate.of(2021, 2, 2);
     private static final LocalDate WEDNESDAY = LocalDate.of(2021, 2, 3);
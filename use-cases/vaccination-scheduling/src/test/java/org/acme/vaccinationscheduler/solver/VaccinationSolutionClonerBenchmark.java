@@ -0,0 +1,110 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.acme.vaccinationscheduler.bootstrap.VaccinationScheduleGenerator;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.optaplanner.core.api.domain.solution.cloner.SolutionCloner;
+import org.optaplanner.core.impl.domain.solution.cloner.FieldAccessingSolutionCloner;
+import org.optaplanner.core.impl.domain.solution.descriptor.SolutionDescriptor;
+
+/**
+ * Measures the time and the allocated memory (see {@code gc.alloc.rate.norm}) of cloning one best solution
+ * with the {@link VaccinationSolutionCloner} against the reflective {@link FieldAccessingSolutionCloner}.
+ * Takes a few minutes, so it only runs on demand:
+ * <pre>
+ * mvn test -Dtest=VaccinationSolutionClonerBenchmark -Dbenchmark=true
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class VaccinationSolutionClonerBenchmark {
+
+    @Param({"10000", "100000", "400000"})
+    public int personCount;
+
+    private VaccinationSolution solution;
+    private SolutionCloner<VaccinationSolution> vaccinationSolutionCloner;
+    private SolutionCloner<VaccinationSolution> fieldAccessingSolutionCloner;
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VaccinationSolutionClonerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+
+    @Setup
+    public void setUp() {
+        solution = new VaccinationSolution(new VaccinationScheduleGenerator(37L, LocalDate.of(2021, 2, 1))
+                .generate(personCount));
+        // Assign every person, like a best solution after the construction heuristic
+        List<VaccinationSlot> vaccinationSlotList = solution.getVaccinationSlotList();
+        List<PersonAssignment> personAssignmentList = solution.getPersonAssignmentList();
+        for (int i = 0; i < personAssignmentList.size(); i++) {
+            PersonAssignment personAssignment = personAssignmentList.get(i);
+            if (!personAssignment.isPinned()) {
+                personAssignment.setVaccinationSlot(vaccinationSlotList.get(i % vaccinationSlotList.size()));
+            }
+        }
+        vaccinationSolutionCloner = new VaccinationSolutionCloner();
+        SolutionDescriptor<VaccinationSolution> solutionDescriptor =
+                SolutionDescriptor.buildSolutionDescriptor(VaccinationSolution.class, PersonAssignment.class);
+        fieldAccessingSolutionCloner = new FieldAccessingSolutionCloner<>(solutionDescriptor);
+    }
+
+    @Benchmark
+    public VaccinationSolution vaccinationSolutionCloner() {
+        return vaccinationSolutionCloner.cloneSolution(solution);
+    }
+
+    @Benchmark
+    public VaccinationSolution fieldAccessingSolutionCloner() {
+        return fieldAccessingSolutionCloner.cloneSolution(solution);
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+
+import org.acme.vaccinationscheduler.bootstrap.DemoDataGenerator;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.junit.jupiter.api.Test;
+
+class VaccinationSolutionClonerTest {
+
+    @Test
+    void cloneSolution() {
+        VaccinationSchedule schedule = new DemoDataGenerator(33.40, 34.10, -84.90, -83.90)
+                .generate(3, 5, 0.0);
+        VaccinationSolution original = new VaccinationSolution(schedule);
+        List<VaccinationSlot> vaccinationSlotList = original.getVaccinationSlotList();
+        List<PersonAssignment> originalPersonAssignmentList = original.getPersonAssignmentList();
+        originalPersonAssignmentList.get(0).setVaccinationSlot(vaccinationSlotList.get(0));
+        originalPersonAssignmentList.get(1).setVaccinationSlot(vaccinationSlotList.get(1));
+
+        VaccinationSolution clone = new VaccinationSolutionCloner().cloneSolution(original);
+        // Problem facts are shared
+        assertSame(original.getVaccineTypeList(), clone.getVaccineTypeList());
+        assertSame(original.getVaccinationCenterList(), clone.getVaccinationCenterList());
+        assertSame(original.getAppointmentList(), clone.getAppointmentList());
+        assertSame(vaccinationSlotList, clone.getVaccinationSlotList());
+        // Planning entities are cloned
+        List<PersonAssignment> clonePersonAssignmentList = clone.getPersonAssignmentList();
+        assertNotSame(originalPersonAssignmentList, clonePersonAssignmentList);
+        assertEquals(originalPersonAssignmentList.size(), clonePersonAssignmentList.size());
+        for (int i = 0; i < originalPersonAssignmentList.size(); i++) {
+            PersonAssignment originalPersonAssignment = originalPersonAssignmentList.get(i);
+            PersonAssignment clonePersonAssignment = clonePersonAssignmentList.get(i);
+            assertNotSame(originalPersonAssignment, clonePersonAssignment);
+            assertSame(originalPersonAssignment.getPerson(), clonePersonAssignment.getPerson());
+            assertSame(originalPersonAssignment.getVaccinationSlot(), clonePersonAssignment.getVaccinationSlot());
+        }
+
+        // Changing the working solution doesn't corrupt the clone
+        originalPersonAssignmentList.get(0).setVaccinationSlot(null);
+        assertNull(originalPersonAssignmentList.get(0).getVaccinationSlot());
+        assertSame(vaccinationSlotList.get(0), clonePersonAssignmentList.get(0).getVaccinationSlot());
+        originalPersonAssignmentList.get(1).setPinned(true);
+        assertFalse(clonePersonAssignmentList.get(1).isPinned());
+        assertFalse(clonePersonAssignmentList.get(1).getPerson().isPinned());
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.acme.vaccinationscheduler.solver.change;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.Location;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.domain.VaccineType;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.acme.vaccinationscheduler.solver.VaccinationScheduleConstraintProvider;
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.api.score.buildin.bendablelong.BendableLongScore;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+import org.optaplanner.core.impl.solver.DefaultSolverFactory;
+
+class AddAppointmentsProblemFactChangeTest {
+
+    private static final VaccineType PFIZER = new VaccineType("Pfizer");
+    private static final VaccineType MODERNA = new VaccineType("Moderna");
+    private static final VaccinationCenter VACCINATION_CENTER_1 = new VaccinationCenter("1", "Downtown", new Location(0, 0));
+    private static final VaccinationCenter VACCINATION_CENTER_2 = new VaccinationCenter("2", "Uptown", new Location(10, 10));
+    private static final LocalDate MONDAY = LocalDate.of(2021, 2, 1);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sameSlotsAsVaccinationSolution() {
+        List<Appointment> appointmentList = Arrays.asList(
+                new Appointment(VACCINATION_CENTER_1, "11", LocalDateTime.of(MONDAY, LocalTime.of(9, 0)), PFIZER),
+                new Appointment(VACCINATION_CENTER_1, "11", LocalDateTime.of(MONDAY, LocalTime.of(9, 30)), PFIZER));
+        // Out of order, over 3 slots
+        List<Appointment> newAppointmentList = Arrays.asList(
+                new Appointment(VACCINATION_CENTER_2, "21", LocalDateTime.of(MONDAY, LocalTime.of(10, 30)), MODERNA),
+                new Appointment(VACCINATION_CENTER_1, "12", LocalDateTime.of(MONDAY, LocalTime.of(9, 10)), PFIZER),
+                new Appointment(VACCINATION_CENTER_2, "21", LocalDateTime.of(MONDAY, LocalTime.of(10, 0)), MODERNA),
+                new Appointment(VACCINATION_CENTER_1, "11", LocalDateTime.of(MONDAY, LocalTime.of(10, 0)), PFIZER),
+                new Appointment(VACCINATION_CENTER_1, "12", LocalDateTime.of(MONDAY, LocalTime.of(9, 0)), PFIZER));
+        VaccinationSolution solution = new VaccinationSolution(new VaccinationSchedule(Arrays.asList(PFIZER, MODERNA),
+                Arrays.asList(VACCINATION_CENTER_1, VACCINATION_CENTER_2), appointmentList, Collections.emptyList()));
+        List<VaccinationSlot> oldVaccinationSlotList = solution.getVaccinationSlotList();
+        VaccinationSolution expectedSolution = new VaccinationSolution(new VaccinationSchedule(Arrays.asList(PFIZER, MODERNA),
+                Arrays.asList(VACCINATION_CENTER_1, VACCINATION_CENTER_2), newAppointmentList, Collections.emptyList()));
+
+        SolverConfig solverConfig = new SolverConfig()
+                .withSolutionClass(VaccinationSolution.class)
+                .withEntityClasses(PersonAssignment.class)
+                .withConstraintProviderClass(VaccinationScheduleConstraintProvider.class);
+        try (InnerScoreDirector<VaccinationSolution, BendableLongScore> scoreDirector =
+                (InnerScoreDirector<VaccinationSolution, BendableLongScore>) new DefaultSolverFactory<VaccinationSolution>(solverConfig)
+                        .getScoreDirectorFactory().buildScoreDirector()) {
+            scoreDirector.setWorkingSolution(solution);
+            new AddAppointmentsProblemFactChange(newAppointmentList).doChange(scoreDirector);
+        }
+
+        List<VaccinationSlot> vaccinationSlotList = solution.getVaccinationSlotList();
+        assertNotSame(oldVaccinationSlotList, vaccinationSlotList);
+        assertEquals(1, oldVaccinationSlotList.size());
+        assertSame(oldVaccinationSlotList.get(0), vaccinationSlotList.get(0));
+        List<VaccinationSlot> expectedVaccinationSlotList = expectedSolution.getVaccinationSlotList();
+        assertEquals(expectedVaccinationSlotList.size() + 1, vaccinationSlotList.size());
+        for (int i = 0; i < expectedVaccinationSlotList.size(); i++) {
+            VaccinationSlot expectedVaccinationSlot = expectedVaccinationSlotList.get(i);
+            VaccinationSlot vaccinationSlot = vaccinationSlotList.get(i + 1);
+            assertEquals(i + 1L, vaccinationSlot.getId());
+            assertSame(expectedVaccinationSlot.getVaccinationCenter(), vaccinationSlot.getVaccinationCenter());
+            assertEquals(expectedVaccinationSlot.getStartDateTime(), vaccinationSlot.getStartDateTime());
+            assertSame(expectedVaccinationSlot.getVaccineType(), vaccinationSlot.getVaccineType());
+            assertEquals(expectedVaccinationSlot.getUnscheduledAppointmentList(), vaccinationSlot.getUnscheduledAppointmentList());
+            assertEquals(expectedVaccinationSlot.getCapacity(), vaccinationSlot.getCapacity());
+        }
+        List<Appointment> expectedAppointmentList = new ArrayList<>(appointmentList);
+        expectedAppointmentList.addAll(newAppointmentList);
+        assertEquals(expectedAppointmentList, solution.getAppointmentList());
+    }
+
+}
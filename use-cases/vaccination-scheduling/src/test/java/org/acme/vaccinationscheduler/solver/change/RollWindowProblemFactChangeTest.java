@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.acme.vaccinationscheduler.solver.change;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.Location;
+import org.acme.vaccinationscheduler.domain.Person;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.domain.VaccineType;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.acme.vaccinationscheduler.solver.VaccinationScheduleConstraintProvider;
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.api.score.ScoreManager;
+import org.optaplanner.core.api.score.buildin.bendablelong.BendableLongScore;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+import org.optaplanner.core.impl.solver.DefaultSolverFactory;
+
+class RollWindowProblemFactChangeTest {
+
+    private static final VaccineType PFIZER = new VaccineType("Pfizer");
+    private static final VaccinationCenter VACCINATION_CENTER = new VaccinationCenter("1", "Downtown", new Location(0, 0));
+    private static final LocalDate MONDAY = LocalDate.of(2021, 2, 1);
+    private static final LocalDate TUESDAY = LocalDate.of(2021, 2, 2);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void doChange() {
+        Appointment mondayA = new Appointment(VACCINATION_CENTER, "A", LocalDateTime.of(MONDAY, LocalTime.of(9, 0)), PFIZER);
+        Appointment mondayB = new Appointment(VACCINATION_CENTER, "B", LocalDateTime.of(MONDAY, LocalTime.of(9, 0)), PFIZER);
+        Appointment tuesdayA = new Appointment(VACCINATION_CENTER, "A", LocalDateTime.of(TUESDAY, LocalTime.of(9, 0)), PFIZER);
+        Appointment tuesdayB = new Appointment(VACCINATION_CENTER, "B", LocalDateTime.of(TUESDAY, LocalTime.of(9, 0)), PFIZER);
+        Person ann = new Person("1", "Ann", new Location(1, 0), LocalDate.of(1990, 1, 1), 31);
+        ann.setAppointment(mondayA);
+        ann.setPinned(true);
+        Person beth = new Person("2", "Beth", new Location(2, 0), LocalDate.of(1980, 1, 1), 41);
+        Person carl = new Person("3", "Carl", new Location(3, 0), LocalDate.of(1970, 1, 1), 51);
+        Person dan = new Person("4", "Dan", new Location(4, 0), LocalDate.of(1960, 1, 1), 61);
+        VaccinationSolution solution = new VaccinationSolution(new VaccinationSchedule(Arrays.asList(PFIZER),
+                Arrays.asList(VACCINATION_CENTER), Arrays.asList(mondayA, mondayB, tuesdayA, tuesdayB),
+                Arrays.asList(ann, beth, carl, dan)));
+        List<VaccinationSlot> vaccinationSlotList = solution.getVaccinationSlotList();
+        VaccinationSlot mondaySlot = vaccinationSlotList.get(0);
+        VaccinationSlot tuesdaySlot = vaccinationSlotList.get(1);
+        List<PersonAssignment> personAssignmentList = solution.getPersonAssignmentList();
+        PersonAssignment annAssignment = personAssignmentList.get(0);
+        PersonAssignment bethAssignment = personAssignmentList.get(1);
+        PersonAssignment carlAssignment = personAssignmentList.get(2);
+        PersonAssignment danAssignment = personAssignmentList.get(3);
+        assertSame(mondaySlot, annAssignment.getVaccinationSlot());
+        // Beth didn't confirm her appointment yet
+        bethAssignment.setVaccinationSlot(mondaySlot);
+        carlAssignment.setVaccinationSlot(tuesdaySlot);
+
+        SolverConfig solverConfig = new SolverConfig()
+                .withSolutionClass(VaccinationSolution.class)
+                .withEntityClasses(PersonAssignment.class)
+                .withConstraintProviderClass(VaccinationScheduleConstraintProvider.class);
+        try (InnerScoreDirector<VaccinationSolution, BendableLongScore> scoreDirector =
+                (InnerScoreDirector<VaccinationSolution, BendableLongScore>) new DefaultSolverFactory<VaccinationSolution>(solverConfig)
+                        .getScoreDirectorFactory().buildScoreDirector()) {
+            scoreDirector.setWorkingSolution(solution);
+            scoreDirector.calculateScore();
+            new RollWindowProblemFactChange(TUESDAY).doChange(scoreDirector);
+            BendableLongScore score = scoreDirector.calculateScore();
+
+            // Only Ann has been vaccinated, Beth is planned again
+            assertEquals(Arrays.asList(bethAssignment, carlAssignment, danAssignment), solution.getPersonAssignmentList());
+            assertNull(bethAssignment.getVaccinationSlot());
+            assertSame(tuesdaySlot, carlAssignment.getVaccinationSlot());
+            assertNull(danAssignment.getVaccinationSlot());
+            assertEquals(Arrays.asList(tuesdaySlot), solution.getVaccinationSlotList());
+            assertEquals(Arrays.asList(tuesdayA, tuesdayB), solution.getAppointmentList());
+            assertEquals(ScoreManager.<VaccinationSolution, BendableLongScore>create(SolverFactory.create(solverConfig))
+                    .updateScore(solution), score);
+        }
+    }
+
+}
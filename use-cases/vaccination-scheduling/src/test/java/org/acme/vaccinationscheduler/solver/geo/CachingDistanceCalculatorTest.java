@@ -0,0 +1,175 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.acme.vaccinationscheduler.domain.Location;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CachingDistanceCalculatorTest {
+
+    private static final Location ANN_HOME = new Location(1.0, 0.0);
+    private static final Location BETH_HOME = new Location(2.0, 0.0);
+    private static final Location BETH_NEW_HOME = new Location(2.5, 0.0);
+    private static final Location CARL_HOME = new Location(3.0, 0.0);
+    private static final Location DOWNTOWN = new Location(0.0, 0.0);
+    private static final Location UPTOWN = new Location(10.0, 10.0);
+    private static final Location HARBOR = new Location(5.0, 5.0);
+
+    @Test
+    void calculateOnlyNewRows(@TempDir Path tempDir) {
+        AtomicLong calculationCount = new AtomicLong(0L);
+        DistanceCalculator distanceCalculator = new CachingDistanceCalculator(
+                buildCountingDistanceCalculator(calculationCount), tempDir.resolve("distance-matrix.cache"));
+
+        Location[] fromLocations = {ANN_HOME, BETH_HOME};
+        Location[] toLocations = {DOWNTOWN, UPTOWN};
+        assertDistanceMatrix(distanceCalculator.calculateBulkDistance(fromLocations, toLocations),
+                fromLocations, toLocations);
+        assertEquals(2 * 2, calculationCount.getAndSet(0L));
+
+        // Solving again with the same locations calculates nothing
+        assertDistanceMatrix(distanceCalculator.calculateBulkDistance(fromLocations, toLocations),
+                fromLocations, toLocations);
+        assertEquals(0, calculationCount.getAndSet(0L));
+
+        // A moved person, a new person and the vaccination centers in another order
+        fromLocations = new Location[] {CARL_HOME, BETH_NEW_HOME, ANN_HOME};
+        toLocations = new Location[] {UPTOWN, DOWNTOWN};
+        assertDistanceMatrix(distanceCalculator.calculateBulkDistance(fromLocations, toLocations),
+                fromLocations, toLocations);
+        assertEquals(2 * 2, calculationCount.getAndSet(0L));
+    }
+
+    @Test
+    void calculateOnlyNewColumns(@TempDir Path tempDir) throws IOException {
+        AtomicLong calculationCount = new AtomicLong(0L);
+        DistanceCalculator distanceCalculator = new CachingDistanceCalculator(
+                buildCountingDistanceCalculator(calculationCount), tempDir.resolve("distance-matrix.cache"));
+
+        Location[] fromLocations = {ANN_HOME, BETH_HOME, CARL_HOME};
+        Location[] toLocations = {DOWNTOWN, UPTOWN};
+        distanceCalculator.calculateBulkDistance(fromLocations, toLocations);
+        assertEquals(3 * 2, calculationCount.getAndSet(0L));
+
+        // A new vaccination center only calculates its column
+        toLocations = new Location[] {DOWNTOWN, HARBOR, UPTOWN};
+        assertDistanceMatrix(distanceCalculator.calculateBulkDistance(fromLocations, toLocations),
+                fromLocations, toLocations);
+        assertEquals(3, calculationCount.getAndSet(0L));
+        // A closed vaccination center calculates nothing
+        toLocations = new Location[] {HARBOR, UPTOWN};
+        assertDistanceMatrix(distanceCalculator.calculateBulkDistance(fromLocations, toLocations),
+                fromLocations, toLocations);
+        assertEquals(0, calculationCount.getAndSet(0L));
+        // The region keeps its cache file
+        assertEquals(1, countCacheFiles(tempDir));
+    }
+
+    @Test
+    void deleteSupersededCacheFiles(@TempDir Path tempDir) throws IOException {
+        AtomicLong calculationCount = new AtomicLong(0L);
+        DistanceCalculator distanceCalculator = new CachingDistanceCalculator(
+                buildCountingDistanceCalculator(calculationCount), tempDir.resolve("distance-matrix.cache"));
+
+        Location[] fromLocations = {ANN_HOME, BETH_HOME};
+        distanceCalculator.calculateBulkDistance(fromLocations, new Location[] {DOWNTOWN, UPTOWN});
+        distanceCalculator.calculateBulkDistance(fromLocations, new Location[] {HARBOR});
+        assertEquals(2, countCacheFiles(tempDir));
+        calculationCount.set(0L);
+
+        // Merge both regions
+        Location[] toLocations = {DOWNTOWN, UPTOWN, HARBOR};
+        assertDistanceMatrix(distanceCalculator.calculateBulkDistance(fromLocations, toLocations),
+                fromLocations, toLocations);
+        assertEquals(2, calculationCount.getAndSet(0L));
+        assertEquals(1, countCacheFiles(tempDir));
+    }
+
+    @Test
+    void cacheFilePerRegion(@TempDir Path tempDir) {
+        AtomicLong calculationCount = new AtomicLong(0L);
+        DistanceCalculator distanceCalculator = new CachingDistanceCalculator(
+                buildCountingDistanceCalculator(calculationCount), tempDir.resolve("distance-matrix.cache"));
+
+        Location[] fromLocations = {ANN_HOME, BETH_HOME};
+        Location[] toLocations = {DOWNTOWN, UPTOWN};
+        Location[] otherRegionFromLocations = {CARL_HOME};
+        Location[] otherRegionToLocations = {HARBOR};
+        distanceCalculator.calculateBulkDistance(fromLocations, toLocations);
+        distanceCalculator.calculateBulkDistance(otherRegionFromLocations, otherRegionToLocations);
+        assertEquals(2 * 2 + 1, calculationCount.getAndSet(0L));
+
+        // Neither region overwrote the cache of the other
+        assertDistanceMatrix(distanceCalculator.calculateBulkDistance(fromLocations, toLocations),
+                fromLocations, toLocations);
+        assertDistanceMatrix(distanceCalculator.calculateBulkDistance(otherRegionFromLocations, otherRegionToLocations),
+                otherRegionFromLocations, otherRegionToLocations);
+        assertEquals(0, calculationCount.getAndSet(0L));
+    }
+
+    @Test
+    void setDistanceDoesNotChangeTheCache(@TempDir Path tempDir) {
+        DistanceCalculator distanceCalculator = new CachingDistanceCalculator(
+                new EuclideanDistanceCalculator(), tempDir.resolve("distance-matrix.cache"));
+        Location[] fromLocations = {ANN_HOME, BETH_HOME};
+        Location[] toLocations = {DOWNTOWN, UPTOWN};
+        // Both a freshly calculated matrix and a cache hit are writable, in memory only
+        for (int i = 0; i < 2; i++) {
+            DistanceMatrix distanceMatrix = distanceCalculator.calculateBulkDistance(fromLocations, toLocations);
+            distanceMatrix.setDistance(0, 0, -1L);
+            assertEquals(-1L, distanceMatrix.getDistance(0, 0));
+        }
+        assertDistanceMatrix(distanceCalculator.calculateBulkDistance(fromLocations, toLocations),
+                fromLocations, toLocations);
+    }
+
+    private static long countCacheFiles(Path directory) throws IOException {
+        try (Stream<Path> pathStream = Files.list(directory)) {
+            return pathStream.count();
+        }
+    }
+
+    private static DistanceCalculator buildCountingDistanceCalculator(AtomicLong calculationCount) {
+        EuclideanDistanceCalculator euclideanDistanceCalculator = new EuclideanDistanceCalculator();
+        return (from, to) -> {
+            calculationCount.incrementAndGet();
+            return euclideanDistanceCalculator.calculateDistance(from, to);
+        };
+    }
+
+    private void assertDistanceMatrix(DistanceMatrix distanceMatrix, Location[] fromLocations, Location[] toLocations) {
+        EuclideanDistanceCalculator euclideanDistanceCalculator = new EuclideanDistanceCalculator();
+        assertEquals(fromLocations.length, distanceMatrix.getFromSize());
+        assertEquals(toLocations.length, distanceMatrix.getToSize());
+        for (int i = 0; i < fromLocations.length; i++) {
+            for (int j = 0; j < toLocations.length; j++) {
+                assertEquals(euclideanDistanceCalculator.calculateDistance(fromLocations[i], toLocations[j]),
+                        distanceMatrix.getDistance(i, j));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.geo;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.acme.vaccinationscheduler.domain.Location;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures {@link EuclideanDistanceCalculator#calculateBulkDistance(Location[], Location[])}
+ * of 20 000 persons to 100 vaccination centers against the default implementation of {@link DistanceCalculator},
+ * which calls {@link DistanceCalculator#calculateDistance(Location, Location)} per pair,
+ * and against a sequential loop per pair without {@link RowBlockTask}.
+ * Takes a few minutes, so it only runs on demand:
+ * <pre>
+ * mvn test -Dtest=EuclideanDistanceCalculatorBenchmark -Dbenchmark=true
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EuclideanDistanceCalculatorBenchmark {
+
+    private static final int PERSON_COUNT = 20_000;
+    private static final int VACCINATION_CENTER_COUNT = 100;
+
+    private final EuclideanDistanceCalculator distanceCalculator = new EuclideanDistanceCalculator();
+    private final DistanceCalculator perPairDistanceCalculator = distanceCalculator::calculateDistance;
+    private Location[] personLocations;
+    private Location[] vaccinationCenterLocations;
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EuclideanDistanceCalculatorBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(37);
+        personLocations = randomLocations(random, PERSON_COUNT);
+        vaccinationCenterLocations = randomLocations(random, VACCINATION_CENTER_COUNT);
+    }
+
+    private static Location[] randomLocations(Random random, int size) {
+        Location[] locations = new Location[size];
+        for (int i = 0; i < size; i++) {
+            locations[i] = new Location(33.0 + random.nextDouble(), -84.0 + random.nextDouble());
+        }
+        return locations;
+    }
+
+    /**
+     * Parallel row blocks, each row a counted loop over primitive arrays.
+     */
+    @Benchmark
+    public DistanceMatrix primitiveRowBlocks() {
+        return distanceCalculator.calculateBulkDistance(personLocations, vaccinationCenterLocations);
+    }
+
+    /**
+     * Parallel row blocks, each pair through {@link DistanceCalculator#calculateDistance(Location, Location)}.
+     */
+    @Benchmark
+    public DistanceMatrix perPairRowBlocks() {
+        return perPairDistanceCalculator.calculateBulkDistance(personLocations, vaccinationCenterLocations);
+    }
+
+    /**
+     * One thread, each pair through {@link DistanceCalculator#calculateDistance(Location, Location)}.
+     */
+    @Benchmark
+    public DistanceMatrix perPairSequential() {
+        DistanceMatrix distanceMatrix = new DistanceMatrix(PERSON_COUNT, VACCINATION_CENTER_COUNT);
+        for (int i = 0; i < PERSON_COUNT; i++) {
+            for (int j = 0; j < VACCINATION_CENTER_COUNT; j++) {
+                distanceMatrix.setDistance(i, j,
+                        distanceCalculator.calculateDistance(personLocations[i], vaccinationCenterLocations[j]));
+            }
+        }
+        return distanceMatrix;
+    }
+
+}
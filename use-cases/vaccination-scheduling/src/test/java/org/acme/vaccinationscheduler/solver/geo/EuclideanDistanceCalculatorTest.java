@@ -0,0 +1,65 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.acme.vaccinationscheduler.domain.Location;
+import org.junit.jupiter.api.Test;
+
+class EuclideanDistanceCalculatorTest {
+
+    @Test
+    void calculateDistance() {
+        EuclideanDistanceCalculator distanceCalculator = new EuclideanDistanceCalculator();
+        Location location = new Location(0.0, 0.0);
+        assertEquals(0L, distanceCalculator.calculateDistance(location, location));
+        assertEquals(111_000L, distanceCalculator.calculateDistance(location, new Location(1.0, 0.0)));
+        assertEquals(555_000L, distanceCalculator.calculateDistance(new Location(3.0, 0.0), new Location(0.0, 4.0)));
+    }
+
+    @Test
+    void calculateBulkDistance() {
+        EuclideanDistanceCalculator distanceCalculator = new EuclideanDistanceCalculator();
+        Random random = new Random(37);
+        // More than one block of rows to exercise the parallel split
+        Location[] fromLocations = new Location[RowBlockTask.DEFAULT_BLOCK_SIZE * 3 + 7];
+        for (int i = 0; i < fromLocations.length; i++) {
+            fromLocations[i] = new Location(33.0 + random.nextDouble(), -84.0 + random.nextDouble());
+        }
+        Location[] toLocations = new Location[13];
+        for (int j = 0; j < toLocations.length; j++) {
+            toLocations[j] = new Location(33.0 + random.nextDouble(), -84.0 + random.nextDouble());
+        }
+        DistanceMatrix distanceMatrix = distanceCalculator.calculateBulkDistance(fromLocations, toLocations);
+        // The default implementation of the interface calculates each pair individually
+        DistanceMatrix defaultDistanceMatrix = ((DistanceCalculator) distanceCalculator::calculateDistance)
+                .calculateBulkDistance(fromLocations, toLocations);
+        assertEquals(fromLocations.length, distanceMatrix.getFromSize());
+        assertEquals(toLocations.length, distanceMatrix.getToSize());
+        for (int i = 0; i < fromLocations.length; i++) {
+            for (int j = 0; j < toLocations.length; j++) {
+                long expected = distanceCalculator.calculateDistance(fromLocations[i], toLocations[j]);
+                assertEquals(expected, distanceMatrix.getDistance(i, j));
+                assertEquals(expected, defaultDistanceMatrix.getDistance(i, j));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.optaplanner.core.api.score.buildin.bendablelong.BendableLongScore;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.impl.phase.custom.CustomPhaseCommand;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+import org.optaplanner.core.impl.solver.DefaultSolverFactory;
+
+final class ConstructionHeuristicTestUtils {
+
+    /**
+     * Runs the command on a real score director, with the incremental score calculator,
+     * so it gets the same variable notifications as in a solver phase.
+     */
+    @SuppressWarnings("unchecked")
+    static void changeWorkingSolution(CustomPhaseCommand<VaccinationSolution> customPhaseCommand,
+            VaccinationSolution solution) {
+        SolverConfig solverConfig = new SolverConfig()
+                .withSolutionClass(VaccinationSolution.class)
+                .withEntityClasses(PersonAssignment.class)
+                .withScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                        .withIncrementalScoreCalculatorClass(VaccinationScheduleIncrementalScoreCalculator.class));
+        try (InnerScoreDirector<VaccinationSolution, BendableLongScore> scoreDirector =
+                (InnerScoreDirector<VaccinationSolution, BendableLongScore>) new DefaultSolverFactory<VaccinationSolution>(solverConfig)
+                        .getScoreDirectorFactory().buildScoreDirector()) {
+            scoreDirector.setWorkingSolution(solution);
+            customPhaseCommand.changeWorkingSolution(scoreDirector);
+        }
+    }
+
+    private ConstructionHeuristicTestUtils() {
+    }
+
+}
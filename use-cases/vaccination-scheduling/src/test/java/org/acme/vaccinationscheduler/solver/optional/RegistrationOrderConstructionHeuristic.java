@@ -0,0 +1,60 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.impl.phase.custom.CustomPhaseCommand;
+
+/**
+ * Like {@link VaccinationCustomConstructionHeuristic}, but first come, first served:
+ * assigns the persons in the order they registered, regardless of their priority rating.
+ * <p>
+ * For benchmarks only: it mimics a schedule that filled up before the higher priority people registered,
+ * so the local search has to make room for them in full slots.
+ */
+public class RegistrationOrderConstructionHeuristic implements CustomPhaseCommand<VaccinationSolution> {
+
+    @Override
+    public void changeWorkingSolution(ScoreDirector<VaccinationSolution> scoreDirector) {
+        VaccinationSolution schedule = scoreDirector.getWorkingSolution();
+
+        VaccinationSlotAvailabilityIndex availabilityIndex
+                = new VaccinationSlotAvailabilityIndex(schedule.getVaccinationSlotList());
+        for (PersonAssignment person : schedule.getPersonAssignmentList()) {
+            if (person.getVaccinationSlot() != null) {
+                availabilityIndex.reduceAvailability(person.getVaccinationSlot());
+            }
+        }
+        int[] bucketCursors = availabilityIndex.createBucketCursors();
+        for (PersonAssignment person : schedule.getPersonAssignmentList()) {
+            if (person.isPinned() || person.getVaccinationSlot() != null) {
+                continue;
+            }
+            VaccinationSlot vaccinationSlot = availabilityIndex.takeAvailableVaccinationSlot(person, bucketCursors);
+            if (vaccinationSlot != null) {
+                scoreDirector.beforeVariableChanged(person, "vaccinationSlot");
+                person.setVaccinationSlot(vaccinationSlot);
+                scoreDirector.afterVariableChanged(person, "vaccinationSlot");
+                scoreDirector.triggerVariableListeners();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.acme.vaccinationscheduler.bootstrap.DemoDataGenerator;
+import org.acme.vaccinationscheduler.domain.Appointment;
+import org.acme.vaccinationscheduler.domain.Location;
+import org.acme.vaccinationscheduler.domain.Person;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.VaccinationSchedule;
+import org.acme.vaccinationscheduler.domain.VaccineType;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.acme.vaccinationscheduler.solver.VaccinationScheduleConstraintProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.optaplanner.core.api.score.ScoreManager;
+import org.optaplanner.core.api.score.buildin.bendablelong.BendableLongScore;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.solver.SolverConfig;
+
+class VaccinationCustomConstructionHeuristicTest {
+
+    @ParameterizedTest
+    @ValueSource(doubles = {0.0, 0.2})
+    void sameAssignmentsAsReference(double pinnedAppointmentRatio) {
+        VaccinationSolution solution = generateSolution(pinnedAppointmentRatio);
+        VaccinationSolution referenceSolution = generateSolution(pinnedAppointmentRatio);
+
+        ConstructionHeuristicTestUtils.changeWorkingSolution(new VaccinationCustomConstructionHeuristic(), solution);
+        ConstructionHeuristicTestUtils.changeWorkingSolution(new ReferenceVaccinationCustomConstructionHeuristic(),
+                referenceSolution);
+
+        List<PersonAssignment> personAssignmentList = solution.getPersonAssignmentList();
+        List<PersonAssignment> referencePersonAssignmentList = referenceSolution.getPersonAssignmentList();
+        assertEquals(referencePersonAssignmentList.size(), personAssignmentList.size());
+        int assignedCount = 0;
+        for (int i = 0; i < personAssignmentList.size(); i++) {
+            PersonAssignment personAssignment = personAssignmentList.get(i);
+            PersonAssignment referencePersonAssignment = referencePersonAssignmentList.get(i);
+            assertEquals(referencePersonAssignment.getId(), personAssignment.getId());
+            // Both solutions have the same vaccination slots, in the same order
+            if (referencePersonAssignment.getVaccinationSlot() == null) {
+                assertNull(personAssignment.getVaccinationSlot(), personAssignment.toString());
+            } else {
+                assignedCount++;
+                assertEquals(referencePersonAssignment.getVaccinationSlot().getId(),
+                        personAssignment.getVaccinationSlot().getId(), personAssignment.toString());
+            }
+        }
+        assertTrue(assignedCount > 0);
+    }
+
+    @Test
+    void sameAgeLimitsAsHardConstraints() {
+        VaccinationSolution solution = createAgeLimitedSolution();
+        VaccinationSolution referenceSolution = createAgeLimitedSolution();
+
+        ConstructionHeuristicTestUtils.changeWorkingSolution(new VaccinationCustomConstructionHeuristic(), solution);
+        ConstructionHeuristicTestUtils.changeWorkingSolution(new ReferenceVaccinationCustomConstructionHeuristic(),
+                referenceSolution);
+
+        List<PersonAssignment> personAssignmentList = solution.getPersonAssignmentList();
+        assertNotNull(personAssignmentList.get(0).getVaccinationSlot());
+        assertNull(personAssignmentList.get(1).getVaccinationSlot());
+        assertNotNull(personAssignmentList.get(2).getVaccinationSlot());
+        List<PersonAssignment> referencePersonAssignmentList = referenceSolution.getPersonAssignmentList();
+        for (int i = 0; i < personAssignmentList.size(); i++) {
+            assertEquals(referencePersonAssignmentList.get(i).getVaccinationSlot() == null,
+                    personAssignmentList.get(i).getVaccinationSlot() == null, personAssignmentList.get(i).toString());
+        }
+        ScoreManager<VaccinationSolution, BendableLongScore> scoreManager = ScoreManager.create(
+                SolverFactory.create(new SolverConfig()
+                        .withSolutionClass(VaccinationSolution.class)
+                        .withEntityClasses(PersonAssignment.class)
+                        .withConstraintProviderClass(VaccinationScheduleConstraintProvider.class)));
+        assertTrue(scoreManager.updateScore(solution).isFeasible());
+    }
+
+    private static VaccinationSolution createAgeLimitedSolution() {
+        VaccineType vaccineType = new VaccineType("18 to 55", 18, 55);
+        VaccinationCenter vaccinationCenter = new VaccinationCenter("1", "Downtown", new Location(0, 0));
+        LocalDateTime dateTime = LocalDateTime.of(2021, 2, 1, 9, 0);
+        List<Appointment> appointmentList = List.of(
+                new Appointment(vaccinationCenter, "A", dateTime, vaccineType),
+                new Appointment(vaccinationCenter, "B", dateTime, vaccineType),
+                new Appointment(vaccinationCenter, "C", dateTime, vaccineType));
+        Location homeLocation = new Location(1, 1);
+        LocalDate sixtyYearsAgo = LocalDate.of(1961, 1, 1);
+        List<Person> personList = List.of(
+                new Person("1", "Ann", homeLocation, LocalDate.of(1990, 1, 1), 0),
+                // Too old for that vaccine type
+                new Person("2", "Beth", homeLocation, sixtyYearsAgo, 0),
+                // The age limits don't apply to a second dose that requires that vaccine type
+                new Person("3", "Carl", homeLocation, sixtyYearsAgo, 0,
+                        2, vaccineType, null, null, null, null, null, null));
+        return new VaccinationSolution(new VaccinationSchedule(List.of(vaccineType),
+                List.of(vaccinationCenter), appointmentList, personList));
+    }
+
+    private static VaccinationSolution generateSolution(double pinnedAppointmentRatio) {
+        return new VaccinationSolution(new DemoDataGenerator(33.40, 34.10, -84.90, -83.90)
+                .generate(10, 40, pinnedAppointmentRatio));
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.acme.vaccinationscheduler.bootstrap.DemoDataGenerator;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.junit.jupiter.api.Test;
+
+class VaccinationParallelConstructionHeuristicTest {
+
+    @Test
+    void changeWorkingSolution() {
+        VaccinationSolution solution = new VaccinationSolution(new DemoDataGenerator(33.40, 34.10, -84.90, -83.90)
+                .generate(10, 40, 0.2));
+        List<PersonAssignment> personAssignmentList = solution.getPersonAssignmentList();
+        Map<PersonAssignment, VaccinationSlot> pinnedVaccinationSlotMap = new HashMap<>();
+        for (PersonAssignment personAssignment : personAssignmentList) {
+            if (personAssignment.isPinned()) {
+                pinnedVaccinationSlotMap.put(personAssignment, personAssignment.getVaccinationSlot());
+            }
+        }
+        assertTrue(!pinnedVaccinationSlotMap.isEmpty());
+
+        VaccinationParallelConstructionHeuristic constructionHeuristic = new VaccinationParallelConstructionHeuristic();
+        constructionHeuristic.setThreadCount(4);
+        ConstructionHeuristicTestUtils.changeWorkingSolution(constructionHeuristic, solution);
+
+        Map<VaccinationSlot, Integer> usageMap = new HashMap<>();
+        int assignedCount = 0;
+        for (PersonAssignment personAssignment : personAssignmentList) {
+            VaccinationSlot vaccinationSlot = personAssignment.getVaccinationSlot();
+            if (personAssignment.isPinned()) {
+                assertSame(pinnedVaccinationSlotMap.get(personAssignment), vaccinationSlot);
+            }
+            if (vaccinationSlot != null) {
+                assignedCount++;
+                usageMap.merge(vaccinationSlot, 1, Integer::sum);
+                // Pinned persons in the demo data don't necessarily have their required vaccine type
+                if (!personAssignment.isPinned() && personAssignment.getRequiredVaccineType() != null) {
+                    assertSame(personAssignment.getRequiredVaccineType(), vaccinationSlot.getVaccineType());
+                }
+            }
+        }
+        usageMap.forEach((vaccinationSlot, usage) -> assertTrue(usage <= vaccinationSlot.getCapacity(),
+                "The vaccinationSlot (" + vaccinationSlot + ") is overbooked."));
+        // There are more persons than appointments, so every appointment is booked
+        int totalCapacity = solution.getVaccinationSlotList().stream().mapToInt(VaccinationSlot::getCapacity).sum();
+        assertEquals(totalCapacity, assignedCount);
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import org.acme.vaccinationscheduler.bootstrap.DemoDataGenerator;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.acme.vaccinationscheduler.solver.VaccinationScheduleConstraintProvider;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.optaplanner.core.api.score.ScoreManager;
+import org.optaplanner.core.api.score.buildin.bendablelong.BendableLongScore;
+import org.optaplanner.core.api.score.stream.ConstraintProvider;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.solver.SolverConfig;
+
+class VaccinationScheduleFusedConstraintProviderTest {
+
+    @ParameterizedTest
+    @ValueSource(doubles = {0.0, 0.2})
+    void sameScoreAsConstraintProvider(double pinnedAppointmentRatio) {
+        VaccinationSolution solution = new VaccinationSolution(new DemoDataGenerator(33.40, 34.10, -84.90, -83.90)
+                .generate(10, 40, pinnedAppointmentRatio));
+        // Random assignments, including unassignments and overbookings
+        Random random = new Random(37);
+        List<VaccinationSlot> vaccinationSlotList = solution.getVaccinationSlotList();
+        for (PersonAssignment personAssignment : solution.getPersonAssignmentList()) {
+            if (!personAssignment.isPinned()) {
+                int vaccinationSlotIndex = random.nextInt(vaccinationSlotList.size() + 1);
+                personAssignment.setVaccinationSlot(vaccinationSlotIndex == vaccinationSlotList.size()
+                        ? null : vaccinationSlotList.get(vaccinationSlotIndex));
+            }
+        }
+        BendableLongScore score = buildScoreManager(VaccinationScheduleConstraintProvider.class).updateScore(solution);
+        assertEquals(score,
+                buildScoreManager(VaccinationScheduleFusedConstraintProvider.class).updateScore(solution));
+    }
+
+    private static ScoreManager<VaccinationSolution, BendableLongScore> buildScoreManager(
+            Class<? extends ConstraintProvider> constraintProviderClass) {
+        return ScoreManager.create(SolverFactory.create(new SolverConfig()
+                .withSolutionClass(VaccinationSolution.class)
+                .withEntityClasses(PersonAssignment.class)
+                .withConstraintProviderClass(constraintProviderClass)));
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.acme.vaccinationscheduler.bootstrap.DemoDataGenerator;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.acme.vaccinationscheduler.solver.VaccinationScheduleConstraintProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.optaplanner.core.api.score.ScoreManager;
+import org.optaplanner.core.api.score.buildin.bendablelong.BendableLongScore;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.localsearch.LocalSearchPhaseConfig;
+import org.optaplanner.core.config.phase.custom.CustomPhaseConfig;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
+import org.optaplanner.core.config.solver.EnvironmentMode;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
+
+class VaccinationScheduleIncrementalScoreCalculatorTest {
+
+    private static final String VARIABLE_NAME = "vaccinationSlot";
+
+    @ParameterizedTest
+    @ValueSource(doubles = {0.0, 0.2})
+    void sameScoreAsConstraintProvider(double pinnedAppointmentRatio) {
+        VaccinationSolution solution = new VaccinationSolution(new DemoDataGenerator(33.40, 34.10, -84.90, -83.90)
+                .generate(10, 40, pinnedAppointmentRatio));
+        ConstructionHeuristicTestUtils.changeWorkingSolution(new VaccinationCustomConstructionHeuristic(), solution);
+        ScoreManager<VaccinationSolution, BendableLongScore> scoreManager = ScoreManager.create(
+                SolverFactory.create(new SolverConfig()
+                        .withSolutionClass(VaccinationSolution.class)
+                        .withEntityClasses(PersonAssignment.class)
+                        .withConstraintProviderClass(VaccinationScheduleConstraintProvider.class)));
+        VaccinationScheduleIncrementalScoreCalculator scoreCalculator = new VaccinationScheduleIncrementalScoreCalculator();
+        scoreCalculator.resetWorkingSolution(solution);
+        assertEquals(scoreManager.updateScore(solution), scoreCalculator.calculateScore());
+
+        // Random changes, including unassignments and overbookings, on top of the constructed solution
+        Random random = new Random(37);
+        List<VaccinationSlot> vaccinationSlotList = solution.getVaccinationSlotList();
+        List<PersonAssignment> personAssignmentList = solution.getPersonAssignmentList();
+        for (int i = 0; i < 1_000; i++) {
+            PersonAssignment personAssignment = personAssignmentList.get(random.nextInt(personAssignmentList.size()));
+            int vaccinationSlotIndex = random.nextInt(vaccinationSlotList.size() + 1);
+            scoreCalculator.beforeVariableChanged(personAssignment, VARIABLE_NAME);
+            personAssignment.setVaccinationSlot(vaccinationSlotIndex == vaccinationSlotList.size()
+                    ? null : vaccinationSlotList.get(vaccinationSlotIndex));
+            scoreCalculator.afterVariableChanged(personAssignment, VARIABLE_NAME);
+        }
+        BendableLongScore score = scoreCalculator.calculateScore();
+        assertEquals(scoreManager.updateScore(solution), score);
+        assertTrue(score.getHardScore(0) < 0L);
+    }
+
+    @Test
+    void solveFullAssert() {
+        VaccinationSolution solution = new VaccinationSolution(new DemoDataGenerator(33.40, 34.10, -84.90, -83.90)
+                .generate(2, 4, 0.2));
+        LocalSearchPhaseConfig localSearchPhaseConfig = new LocalSearchPhaseConfig();
+        localSearchPhaseConfig.setTerminationConfig(new TerminationConfig().withStepCountLimit(100));
+        SolverConfig solverConfig = new SolverConfig()
+                .withSolutionClass(VaccinationSolution.class)
+                .withEntityClasses(PersonAssignment.class)
+                .withEnvironmentMode(EnvironmentMode.FULL_ASSERT)
+                .withScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                        .withIncrementalScoreCalculatorClass(VaccinationScheduleIncrementalScoreCalculator.class)
+                        .withAssertionScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                                .withConstraintProviderClass(VaccinationScheduleConstraintProvider.class)))
+                .withPhases(new CustomPhaseConfig()
+                                .withCustomPhaseCommandClassList(List.of(VaccinationCustomConstructionHeuristic.class)),
+                        localSearchPhaseConfig);
+        Solver<VaccinationSolution> solver = SolverFactory.<VaccinationSolution>create(solverConfig).buildSolver();
+        // Fails fast with score corruption if the incremental score differs from the constraint provider's score
+        VaccinationSolution bestSolution = solver.solve(solution);
+        assertTrue(bestSolution.getScore().isSolutionInitialized());
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.acme.vaccinationscheduler.bootstrap.DemoDataGenerator;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.acme.vaccinationscheduler.solver.VaccinationScheduleConstraintProvider;
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.api.score.buildin.bendablelong.BendableLongScore;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.phase.custom.CustomPhaseConfig;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
+import org.optaplanner.core.config.solver.EnvironmentMode;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+import org.optaplanner.core.impl.solver.DefaultSolverFactory;
+
+class VaccinationSlotKickOutMoveIteratorFactoryTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void everyKickOutImprovesTheScore() {
+        VaccinationSolution solution = new VaccinationSolution(new DemoDataGenerator(33.40, 34.10, -84.90, -83.90)
+                .generate(10, 40, 0.2));
+        SolverConfig solverConfig = new SolverConfig()
+                .withSolutionClass(VaccinationSolution.class)
+                .withEntityClasses(PersonAssignment.class)
+                .withScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                        .withIncrementalScoreCalculatorClass(VaccinationScheduleIncrementalScoreCalculator.class));
+        try (InnerScoreDirector<VaccinationSolution, BendableLongScore> scoreDirector =
+                (InnerScoreDirector<VaccinationSolution, BendableLongScore>) new DefaultSolverFactory<VaccinationSolution>(solverConfig)
+                        .getScoreDirectorFactory().buildScoreDirector()) {
+            scoreDirector.setWorkingSolution(solution);
+            // Demanded before construction, so it has to follow every assignment
+            VaccinationSlotOccupancyIndex occupancyIndex = VaccinationSlotOccupancyIndex.demand(scoreDirector);
+            new RegistrationOrderConstructionHeuristic().changeWorkingSolution(scoreDirector);
+
+            Iterator<VaccinationSlotKickOutMove> moveIterator = new VaccinationSlotKickOutMoveIteratorFactory()
+                    .createRandomMoveIterator(scoreDirector, new Random(37));
+            BendableLongScore score = scoreDirector.calculateScore();
+            for (int i = 0; i < 100; i++) {
+                assertTrue(moveIterator.hasNext());
+                VaccinationSlotKickOutMove move = moveIterator.next();
+                VaccinationSlot vaccinationSlot = move.getVaccinationSlot();
+                assertTrue(move.isMoveDoable(scoreDirector));
+                assertTrue(occupancyIndex.isFull(vaccinationSlot));
+                assertFalse(move.getKickedOutPerson().isPinned());
+                assertFalse(move.getKickedInPerson().isPinned());
+                move.doMove(scoreDirector);
+                assertSame(vaccinationSlot, move.getKickedInPerson().getVaccinationSlot());
+                assertNull(move.getKickedOutPerson().getVaccinationSlot());
+                BendableLongScore newScore = scoreDirector.calculateScore();
+                assertTrue(newScore.compareTo(score) > 0, "The move (" + move + ") changed the score from ("
+                        + score + ") to (" + newScore + ").");
+                score = newScore;
+            }
+
+            Map<VaccinationSlot, Integer> personCountMap = new IdentityHashMap<>();
+            for (PersonAssignment personAssignment : solution.getPersonAssignmentList()) {
+                if (personAssignment.getVaccinationSlot() != null) {
+                    personCountMap.merge(personAssignment.getVaccinationSlot(), 1, Integer::sum);
+                }
+            }
+            for (VaccinationSlot vaccinationSlot : solution.getVaccinationSlotList()) {
+                assertEquals(personCountMap.getOrDefault(vaccinationSlot, 0),
+                        occupancyIndex.getPersonCount(vaccinationSlot));
+            }
+        }
+    }
+
+    @Test
+    void solveFullAssert() {
+        VaccinationSolution solution = new VaccinationSolution(new DemoDataGenerator(33.40, 34.10, -84.90, -83.90)
+                .generate(2, 4, 0.2));
+        SolverConfig solverConfig = SolverConfig.createFromXmlResource("capacityAwareSolverConfig.xml")
+                .withSolutionClass(VaccinationSolution.class)
+                .withEntityClasses(PersonAssignment.class)
+                .withEnvironmentMode(EnvironmentMode.FULL_ASSERT)
+                .withScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                        .withIncrementalScoreCalculatorClass(VaccinationScheduleIncrementalScoreCalculator.class)
+                        .withAssertionScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                                .withConstraintProviderClass(VaccinationScheduleConstraintProvider.class)));
+        // Start from a schedule that ignores the priority rating, so there is something to kick out
+        solverConfig.getPhaseConfigList().set(0, new CustomPhaseConfig()
+                .withCustomPhaseCommandClassList(List.of(RegistrationOrderConstructionHeuristic.class)));
+        solverConfig.getPhaseConfigList().get(1).setTerminationConfig(new TerminationConfig().withStepCountLimit(100));
+        Solver<VaccinationSolution> solver = SolverFactory.<VaccinationSolution>create(solverConfig).buildSolver();
+        BendableLongScore[] constructedScore = new BendableLongScore[1];
+        solver.addEventListener(event -> {
+            if (constructedScore[0] == null) {
+                constructedScore[0] = (BendableLongScore) event.getNewBestScore();
+            }
+        });
+        // Fails fast if an undo move or the occupancy index corrupts the score
+        VaccinationSolution bestSolution = solver.solve(solution);
+        assertTrue(bestSolution.getScore().isSolutionInitialized());
+        assertTrue(bestSolution.getScore().getSoftScore(1) > constructedScore[0].getSoftScore(1));
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.acme.vaccinationscheduler.solver.optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.acme.vaccinationscheduler.bootstrap.DemoDataGenerator;
+import org.acme.vaccinationscheduler.domain.VaccinationCenter;
+import org.acme.vaccinationscheduler.domain.solver.PersonAssignment;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSlot;
+import org.acme.vaccinationscheduler.domain.solver.VaccinationSolution;
+import org.junit.jupiter.api.Test;
+
+class VaccinationSolutionPartitionerTest {
+
+    @Test
+    void split() {
+        VaccinationSolution solution = new VaccinationSolution(new DemoDataGenerator(33.40, 34.10, -84.90, -83.90)
+                .generate(6, 12, 0.0));
+        List<VaccinationSlot> vaccinationSlotList = solution.getVaccinationSlotList();
+        solution.getPersonAssignmentList().get(0).setVaccinationSlot(vaccinationSlotList.get(0));
+        solution.getPersonAssignmentList().get(1).setVaccinationSlot(vaccinationSlotList.get(vaccinationSlotList.size() - 1));
+
+        VaccinationSolutionPartitioner partitioner = new VaccinationSolutionPartitioner();
+        partitioner.setPartCount(4);
+        List<VaccinationSolution> partList = partitioner.split(solution);
+        assertEquals(4, partList.size());
+
+        Map<VaccinationCenter, VaccinationSolution> vaccinationCenterToPartMap = new HashMap<>();
+        int vaccinationSlotCount = 0;
+        int personAssignmentCount = 0;
+        for (VaccinationSolution part : partList) {
+            assertFalse(part.getVaccinationSlotList().isEmpty());
+            for (VaccinationSlot vaccinationSlot : part.getVaccinationSlotList()) {
+                // A vaccination center is never split across parts
+                VaccinationSolution otherPart = vaccinationCenterToPartMap.putIfAbsent(vaccinationSlot.getVaccinationCenter(), part);
+                if (otherPart != null) {
+                    assertSame(part, otherPart);
+                }
+            }
+            vaccinationSlotCount += part.getVaccinationSlotList().size();
+            personAssignmentCount += part.getPersonAssignmentList().size();
+        }
+        assertEquals(vaccinationSlotList.size(), vaccinationSlotCount);
+        assertEquals(solution.getPersonAssignmentList().size(), personAssignmentCount);
+
+        Map<String, PersonAssignment> originalPersonAssignmentMap = new HashMap<>();
+        for (PersonAssignment personAssignment : solution.getPersonAssignmentList()) {
+            originalPersonAssignmentMap.put(personAssignment.getId(), personAssignment);
+        }
+        for (VaccinationSolution part : partList) {
+            for (PersonAssignment personAssignment : part.getPersonAssignmentList()) {
+                PersonAssignment originalPersonAssignment = originalPersonAssignmentMap.get(personAssignment.getId());
+                // The parts don't corrupt the working solution
+                assertNotSame(originalPersonAssignment, personAssignment);
+                assertSame(originalPersonAssignment.getVaccinationSlot(), personAssignment.getVaccinationSlot());
+                VaccinationSlot vaccinationSlot = personAssignment.getVaccinationSlot();
+                if (vaccinationSlot != null) {
+                    // An assigned person goes with its vaccination slot
+                    assertSame(part, vaccinationCenterToPartMap.get(vaccinationSlot.getVaccinationCenter()));
+                }
+            }
+        }
+    }
+
+}